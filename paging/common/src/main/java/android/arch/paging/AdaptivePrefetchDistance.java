@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.arch.paging;
+
+/**
+ * Computes a prefetch distance from the observed access velocity and page load latency.
+ * <p>
+ * The distance is the number of items the user is expected to scroll past while a page loads,
+ * with some margin, bounded by {@link PagedList.Config#prefetchDistance} and
+ * {@link PagedList.Config#maxPrefetchDistance}.
+ * <p>
+ * Not thread safe, accessed on the main thread only.
+ */
+final class AdaptivePrefetchDistance {
+    // weight of the newest sample in the moving averages
+    private static final double SMOOTHING = 0.3;
+
+    // accesses further apart than this are considered a new scroll, not a continuation
+    private static final long IDLE_TIMEOUT_NS = 500 * 1000 * 1000L;
+
+    // load ahead of the expected scroll distance, to absorb variance in load time
+    private static final int SAFETY_FACTOR = 2;
+
+    private final int mMinDistance;
+    private final int mMaxDistance;
+    private int mDistance;
+
+    private int mLastIndex = -1;
+    private long mLastAccessNs;
+
+    private double mItemsPerNs;
+    private double mLoadLatencyNs;
+
+    AdaptivePrefetchDistance(int minDistance, int maxDistance) {
+        mMinDistance = minDistance;
+        mMaxDistance = maxDistance;
+        mDistance = minDistance;
+    }
+
+    int getDistance() {
+        return mDistance;
+    }
+
+    void onAccess(int index, long nowNs) {
+        if (mLastIndex >= 0) {
+            final long deltaNs = nowNs - mLastAccessNs;
+            if (deltaNs > IDLE_TIMEOUT_NS) {
+                mItemsPerNs = 0;
+            } else if (deltaNs > 0) {
+                final double itemsPerNs = (double) Math.abs(index - mLastIndex) / deltaNs;
+                mItemsPerNs = mItemsPerNs * (1 - SMOOTHING) + itemsPerNs * SMOOTHING;
+            }
+        }
+        mLastIndex = index;
+        mLastAccessNs = nowNs;
+        updateDistance();
+    }
+
+    void onLoadFinished(long durationNs) {
+        if (mLoadLatencyNs == 0) {
+            mLoadLatencyNs = durationNs;
+        } else {
+            mLoadLatencyNs = mLoadLatencyNs * (1 - SMOOTHING) + durationNs * SMOOTHING;
+        }
+        updateDistance();
+    }
+
+    private void updateDistance() {
+        final double expectedItems = mItemsPerNs * mLoadLatencyNs * SAFETY_FACTOR;
+        mDistance = (int) Math.max(mMinDistance, Math.min(mMaxDistance,
+                Math.round(expectedItems)));
+    }
+}
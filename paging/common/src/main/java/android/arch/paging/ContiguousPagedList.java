@@ -32,6 +32,10 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
     private int mPrependItemsRequested = 0;
     private int mAppendItemsRequested = 0;
 
+    // time the running prepend/append worker was scheduled, to measure load latency
+    private long mPrependStartNs;
+    private long mAppendStartNs;
+
     private PageResult.Receiver<V> mReceiver = new PageResult.Receiver<V>() {
         // Creation thread for initial synchronous load, otherwise main thread
         // Safe to access main thread only state - no other thread has reference during construction
@@ -158,8 +162,9 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
     @MainThread
     @Override
     protected void loadAroundInternal(int index) {
-        int prependItems = mConfig.prefetchDistance - (index - mStorage.getLeadingNullCount());
-        int appendItems = index + mConfig.prefetchDistance
+        final int prefetchDistance = getPrefetchDistance();
+        int prependItems = prefetchDistance - (index - mStorage.getLeadingNullCount());
+        int appendItems = index + prefetchDistance
                 - (mStorage.getLeadingNullCount() + mStorage.getStorageCount());
 
         mPrependItemsRequested = Math.max(prependItems, mPrependItemsRequested);
@@ -179,6 +184,8 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
             return;
         }
         mPrependWorkerRunning = true;
+        mPrependStartNs = System.nanoTime();
+        dispatchLoadCount();
 
         final int position = mStorage.getLeadingNullCount() + mStorage.getPositionOffset();
 
@@ -208,6 +215,8 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
             return;
         }
         mAppendWorkerRunning = true;
+        mAppendStartNs = System.nanoTime();
+        dispatchLoadCount();
 
         final int position = mStorage.getLeadingNullCount()
                 + mStorage.getStorageCount() - 1 + mStorage.getPositionOffset();
@@ -231,6 +240,11 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
         });
     }
 
+    @MainThread
+    private void dispatchLoadCount() {
+        onLoadCountChanged((mPrependWorkerRunning ? 1 : 0) + (mAppendWorkerRunning ? 1 : 0), 0);
+    }
+
     @Override
     boolean isContiguous() {
         return true;
@@ -254,9 +268,12 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
         // consider whether to post more work, now that a page is fully prepended
         mPrependItemsRequested = mPrependItemsRequested - changedCount - addedCount;
         mPrependWorkerRunning = false;
+        onPageLoadFinished(System.nanoTime() - mPrependStartNs);
         if (mPrependItemsRequested > 0) {
             // not done prepending, keep going
             schedulePrepend();
+        } else {
+            dispatchLoadCount();
         }
 
         // finally dispatch callbacks, after prepend may have already been scheduled
@@ -273,9 +290,12 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
 
         mAppendItemsRequested = mAppendItemsRequested - changedCount - addedCount;
         mAppendWorkerRunning = false;
+        onPageLoadFinished(System.nanoTime() - mAppendStartNs);
         if (mAppendItemsRequested > 0) {
             // not done appending, keep going
             scheduleAppend();
+        } else {
+            dispatchLoadCount();
         }
 
         // finally dispatch callbacks, after append may have already been scheduled
@@ -294,4 +314,10 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
     public void onPageInserted(int start, int count) {
         throw new IllegalStateException("Tiled callback on ContiguousPagedList");
     }
+
+    @MainThread
+    @Override
+    public void onPageDropped(int start, int count) {
+        throw new IllegalStateException("Tiled callback on ContiguousPagedList");
+    }
 }
@@ -121,6 +121,25 @@ public abstract class PagedList<T> extends AbstractList<T> {
 
     private final AtomicBoolean mDetached = new AtomicBoolean(false);
 
+    // null unless Config allows the prefetch distance to adapt
+    @Nullable
+    private final AdaptivePrefetchDistance mAdaptivePrefetchDistance;
+
+    @Nullable
+    private PageLoadListener mPageLoadListener;
+    private int mReportedLoadsInFlight;
+    private int mReportedLoadsPending;
+
+    // counters reported by getLoadStats()
+    private int mPagesLoaded;
+    private long mTotalLoadLatencyNs;
+    private int mPagesDropped;
+    private int mPlaceholdersServed;
+    private int mPrefetchHits;
+    private int mPrefetchMisses;
+    // set by LivePagedListBuilder, see LoadStats#invalidationCount
+    int mInvalidationCount;
+
     protected final ArrayList<WeakReference<Callback>> mCallbacks = new ArrayList<>();
 
     PagedList(@NonNull PagedStorage<T> storage,
@@ -133,6 +152,9 @@ public abstract class PagedList<T> extends AbstractList<T> {
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mBoundaryCallback = boundaryCallback;
         mConfig = config;
+        mAdaptivePrefetchDistance = config.maxPrefetchDistance > config.prefetchDistance
+                ? new AdaptivePrefetchDistance(config.prefetchDistance, config.maxPrefetchDistance)
+                : null;
     }
 
     /**
@@ -361,6 +383,8 @@ public abstract class PagedList<T> extends AbstractList<T> {
         T item = mStorage.get(index);
         if (item != null) {
             mLastItem = item;
+        } else {
+            mPlaceholdersServed++;
         }
         return item;
     }
@@ -372,6 +396,16 @@ public abstract class PagedList<T> extends AbstractList<T> {
      */
     public void loadAround(int index) {
         mLastLoad = index + getPositionOffset();
+        if (index >= 0 && index < size()) {
+            if (mStorage.get(index) != null) {
+                mPrefetchHits++;
+            } else {
+                mPrefetchMisses++;
+            }
+        }
+        if (mAdaptivePrefetchDistance != null) {
+            mAdaptivePrefetchDistance.onAccess(index, System.nanoTime());
+        }
         loadAroundInternal(index);
 
         mLowestIndexAccessed = Math.min(mLowestIndexAccessed, index);
@@ -488,6 +522,82 @@ public abstract class PagedList<T> extends AbstractList<T> {
         mHighestIndexAccessed += offset;
     }
 
+    /**
+     * Returns the distance ahead of accessed items that the PagedList currently loads.
+     * <p>
+     * This is {@link Config#prefetchDistance}, unless {@link Config#maxPrefetchDistance} is
+     * larger, in which case the distance adapts to how fast items are accessed and how long
+     * pages take to load. Can be logged to tune the Config.
+     *
+     * @return Current prefetch distance in items.
+     */
+    public int getPrefetchDistance() {
+        return mAdaptivePrefetchDistance != null
+                ? mAdaptivePrefetchDistance.getDistance()
+                : mConfig.prefetchDistance;
+    }
+
+    /**
+     * Report the time a page load took, from being scheduled to being applied to the list.
+     */
+    void onPageLoadFinished(long durationNs) {
+        mPagesLoaded++;
+        mTotalLoadLatencyNs += durationNs;
+        if (mAdaptivePrefetchDistance != null) {
+            mAdaptivePrefetchDistance.onLoadFinished(durationNs);
+        }
+        if (mPageLoadListener != null) {
+            mPageLoadListener.onPageLoaded(durationNs);
+        }
+    }
+
+    /**
+     * Report that a loaded page was replaced with placeholders.
+     */
+    void onPageDropped() {
+        mPagesDropped++;
+    }
+
+    /**
+     * Returns counters describing how this PagedList has loaded and presented data so far.
+     * <p>
+     * Can be logged, for example when the PagedList is replaced, to tune the {@link Config}.
+     *
+     * @return New LoadStats with the current values of the counters.
+     */
+    @MainThread
+    @NonNull
+    public LoadStats getLoadStats() {
+        return new LoadStats(mPagesLoaded, mTotalLoadLatencyNs, mPagesDropped,
+                mPlaceholdersServed, mPrefetchHits, mPrefetchMisses, mInvalidationCount);
+    }
+
+    /**
+     * Report the number of page loads in progress, and waiting to be started.
+     */
+    void onLoadCountChanged(int inFlight, int pending) {
+        if (inFlight == mReportedLoadsInFlight && pending == mReportedLoadsPending) {
+            return;
+        }
+        mReportedLoadsInFlight = inFlight;
+        mReportedLoadsPending = pending;
+        if (mPageLoadListener != null) {
+            mPageLoadListener.onLoadCountChanged(inFlight, pending);
+        }
+    }
+
+    /**
+     * Sets a listener to be notified as this PagedList loads pages, or null to remove it.
+     * <p>
+     * Can be used to log page load latency and contention while tuning the {@link Config}.
+     *
+     * @param listener Listener to notify, or null.
+     */
+    @MainThread
+    public void setPageLoadListener(@Nullable PageLoadListener listener) {
+        mPageLoadListener = listener;
+    }
+
     /**
      * Returns size of the list, including any not-yet-loaded null padding.
      *
@@ -726,6 +836,103 @@ public abstract class PagedList<T> extends AbstractList<T> {
         public abstract void onRemoved(int position, int count);
     }
 
+    /**
+     * Receives page load progress from a PagedList.
+     *
+     * @see #setPageLoadListener(PageLoadListener)
+     */
+    @MainThread
+    public abstract static class PageLoadListener {
+        /**
+         * Called when the number of page loads in progress, or waiting to start, changes.
+         *
+         * @param inFlight Number of page loads passed to the DataSource that haven't completed.
+         * @param pending Number of page loads waiting for one in progress to complete, see
+         *                {@link Config#maxConcurrentLoads}.
+         */
+        public void onLoadCountChanged(int inFlight, int pending) {
+        }
+
+        /**
+         * Called when a page has been loaded and added to the PagedList.
+         *
+         * @param latencyNs Time from starting the load until its result was added, in
+         *                  nanoseconds.
+         */
+        public void onPageLoaded(long latencyNs) {
+        }
+    }
+
+    /**
+     * Counters describing how a PagedList has loaded and presented data.
+     * <p>
+     * For example, a high ratio of {@link #prefetchMisses} to {@link #prefetchHits} means the
+     * prefetch distance is too small for how fast the list is scrolled, and a high
+     * {@link #pagesDropped} means {@link Config#maxSize} is too small for how the list is used.
+     *
+     * @see #getLoadStats()
+     */
+    public static class LoadStats {
+        /**
+         * Number of pages loaded after the initial load.
+         */
+        public final int pagesLoaded;
+
+        /**
+         * Total time taken by the loads counted in {@link #pagesLoaded}, in nanoseconds.
+         */
+        public final long totalLoadLatencyNs;
+
+        /**
+         * Number of loaded pages replaced with placeholders, see {@link Config#maxSize}.
+         */
+        public final int pagesDropped;
+
+        /**
+         * Number of times {@link PagedList#get(int)} returned a null placeholder.
+         */
+        public final int placeholdersServed;
+
+        /**
+         * Number of {@link PagedList#loadAround(int)} calls for an item that was already loaded.
+         */
+        public final int prefetchHits;
+
+        /**
+         * Number of {@link PagedList#loadAround(int)} calls for an item that wasn't loaded yet.
+         */
+        public final int prefetchMisses;
+
+        /**
+         * Number of DataSources that were invalidated before the one this PagedList loads from,
+         * if it was created by a {@link LivePagedListBuilder}.
+         */
+        public final int invalidationCount;
+
+        LoadStats(int pagesLoaded, long totalLoadLatencyNs, int pagesDropped,
+                int placeholdersServed, int prefetchHits, int prefetchMisses,
+                int invalidationCount) {
+            this.pagesLoaded = pagesLoaded;
+            this.totalLoadLatencyNs = totalLoadLatencyNs;
+            this.pagesDropped = pagesDropped;
+            this.placeholdersServed = placeholdersServed;
+            this.prefetchHits = prefetchHits;
+            this.prefetchMisses = prefetchMisses;
+            this.invalidationCount = invalidationCount;
+        }
+
+        @Override
+        public String toString() {
+            return "LoadStats{pagesLoaded=" + pagesLoaded
+                    + ", totalLoadLatencyNs=" + totalLoadLatencyNs
+                    + ", pagesDropped=" + pagesDropped
+                    + ", placeholdersServed=" + placeholdersServed
+                    + ", prefetchHits=" + prefetchHits
+                    + ", prefetchMisses=" + prefetchMisses
+                    + ", invalidationCount=" + invalidationCount + "}";
+        }
+    }
+
     /**
      * Configures how a PagedList loads content from its DataSource.
      * <p>
@@ -749,6 +956,18 @@ public abstract class PagedList<T> extends AbstractList<T> {
         @SuppressWarnings("WeakerAccess")
         public final int prefetchDistance;
 
+        /**
+         * Upper bound of the prefetch distance, when it adapts to access speed.
+         * <p>
+         * If larger than {@link #prefetchDistance}, the PagedList loads further ahead when items
+         * are accessed quickly relative to how long pages take to load, such as during a fling.
+         * If equal, the prefetch distance is fixed.
+         *
+         * @see PagedList#getPrefetchDistance()
+         */
+        @SuppressWarnings("WeakerAccess")
+        public final int maxPrefetchDistance;
+
         /**
          * Defines whether the PagedList may display null placeholders, if the DataSource provides
          * them.
@@ -762,12 +981,44 @@ public abstract class PagedList<T> extends AbstractList<T> {
         @SuppressWarnings("WeakerAccess")
         public final int initialLoadSizeHint;
 
-        private Config(int pageSize, int prefetchDistance,
-                boolean enablePlaceholders, int initialLoadSizeHint) {
+        /**
+         * Maximum number of items loaded in the PagedList at once, or {@link #MAX_SIZE_UNBOUNDED}.
+         * <p>
+         * When more items are loaded, pages furthest from the most recent
+         * {@link PagedList#loadAround(int)} are replaced with null placeholders, and loaded again
+         * if accessed.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public final int maxSize;
+
+        /**
+         * When {@link #maxSize} is set to MAX_SIZE_UNBOUNDED, the maximum number of items loaded
+         * is unbounded, and pages will never be dropped.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public static final int MAX_SIZE_UNBOUNDED = Integer.MAX_VALUE;
+
+        /**
+         * Maximum number of pages a PagedList loading from a {@link PositionalDataSource} passes
+         * to its DataSource at once.
+         * <p>
+         * Further pages wait until a load completes, and are then started nearest to the most
+         * recent {@link PagedList#loadAround(int)} first. Waiting pages that are no longer within
+         * the prefetch distance are not loaded.
+         */
+        @SuppressWarnings("WeakerAccess")
+        public final int maxConcurrentLoads;
+
+        private Config(int pageSize, int prefetchDistance, int maxPrefetchDistance,
+                boolean enablePlaceholders, int initialLoadSizeHint, int maxSize,
+                int maxConcurrentLoads) {
             this.pageSize = pageSize;
             this.prefetchDistance = prefetchDistance;
+            this.maxPrefetchDistance = maxPrefetchDistance;
             this.enablePlaceholders = enablePlaceholders;
             this.initialLoadSizeHint = initialLoadSizeHint;
+            this.maxSize = maxSize;
+            this.maxConcurrentLoads = maxConcurrentLoads;
         }
 
         /**
@@ -778,8 +1029,13 @@ public abstract class PagedList<T> extends AbstractList<T> {
         public static class Builder {
             private int mPageSize = -1;
             private int mPrefetchDistance = -1;
+            private int mMaxPrefetchDistance = -1;
             private int mInitialLoadSizeHint = -1;
             private boolean mEnablePlaceholders = true;
+            private int mMaxSize = MAX_SIZE_UNBOUNDED;
+            private int mMaxConcurrentLoads = DEFAULT_MAX_CONCURRENT_LOADS;
+
+            private static final int DEFAULT_MAX_CONCURRENT_LOADS = 4;
 
             /**
              * Defines the number of items loaded at once from the DataSource.
@@ -824,6 +1080,25 @@ public abstract class PagedList<T> extends AbstractList<T> {
                 return this;
             }
 
+            /**
+             * Defines how far ahead the PagedList may load when items are accessed quickly.
+             * <p>
+             * If larger than the prefetch distance, the PagedList measures how fast
+             * {@link PagedList#loadAround(int)} moves through the list and how long pages take to
+             * load, and prefetches as far as is needed to stay ahead, between the prefetch
+             * distance and this value.
+             * <p>
+             * If not set, defaults to the prefetch distance, which disables adaptation.
+             *
+             * @param maxPrefetchDistance Maximum distance the PagedList may prefetch.
+             * @return this
+             */
+            @SuppressWarnings("WeakerAccess")
+            public Builder setMaxPrefetchDistance(int maxPrefetchDistance) {
+                this.mMaxPrefetchDistance = maxPrefetchDistance;
+                return this;
+            }
+
             /**
              * Pass false to disable null placeholders in PagedLists using this Config.
              * <p>
@@ -874,6 +1149,45 @@ public abstract class PagedList<T> extends AbstractList<T> {
                 return this;
             }
 
+            /**
+             * Defines the maximum number of items that may be loaded into this pagedList before
+             * pages should be dropped.
+             * <p>
+             * Pages are only dropped from PagedLists that present placeholders, since a dropped
+             * page is replaced with nulls until it is accessed again. Pages within the prefetch
+             * distance of the most recent access are never dropped, so maxSize must be at least
+             * {@code pageSize + 2 * maxPrefetchDistance}.
+             * <p>
+             * If not set, defaults to {@link #MAX_SIZE_UNBOUNDED}, which disables page dropping.
+             *
+             * @param maxSize Maximum number of items to keep in memory, or
+             *                {@link #MAX_SIZE_UNBOUNDED} to disable page dropping.
+             * @return this
+             */
+            @SuppressWarnings("WeakerAccess")
+            public Builder setMaxSize(int maxSize) {
+                this.mMaxSize = maxSize;
+                return this;
+            }
+
+            /**
+             * Defines how many pages may be loaded at once, when loading from a
+             * {@link PositionalDataSource}.
+             * <p>
+             * Loads run on the background executor of the PagedList, so more than one only runs
+             * in parallel if that executor has multiple threads. Pages beyond this limit wait,
+             * and are loaded nearest to the most recently accessed item first.
+             * <p>
+             * If not set, defaults to 4.
+             *
+             * @param maxConcurrentLoads Maximum number of pages to load at once.
+             * @return this
+             */
+            @SuppressWarnings("WeakerAccess")
+            public Builder setMaxConcurrentLoads(int maxConcurrentLoads) {
+                this.mMaxConcurrentLoads = maxConcurrentLoads;
+                return this;
+            }
 
             /**
              * Creates a {@link Config} with the given parameters.
@@ -887,6 +1201,14 @@ public abstract class PagedList<T> extends AbstractList<T> {
                 if (mPrefetchDistance < 0) {
                     mPrefetchDistance = mPageSize;
                 }
+                if (mMaxPrefetchDistance < 0) {
+                    mMaxPrefetchDistance = mPrefetchDistance;
+                }
+                if (mMaxPrefetchDistance < mPrefetchDistance) {
+                    throw new IllegalArgumentException("Maximum prefetch distance must not be"
+                            + " smaller than prefetch distance, prefetchDist=" + mPrefetchDistance
+                            + ", maxPrefetchDist=" + mMaxPrefetchDistance);
+                }
                 if (mInitialLoadSizeHint < 0) {
                     mInitialLoadSizeHint = mPageSize * 3;
                 }
@@ -896,8 +1218,21 @@ public abstract class PagedList<T> extends AbstractList<T> {
                             + " placeholders must be enabled, or prefetch distance must be > 0.");
                 }
 
-                return new Config(mPageSize, mPrefetchDistance,
-                        mEnablePlaceholders, mInitialLoadSizeHint);
+                if (mMaxSize != MAX_SIZE_UNBOUNDED
+                        && mMaxSize < mPageSize + mMaxPrefetchDistance * 2) {
+                    throw new IllegalArgumentException("Maximum size must be at least"
+                            + " pageSize + 2*maxPrefetchDist, pageSize=" + mPageSize
+                            + ", maxPrefetchDist=" + mMaxPrefetchDistance
+                            + ", maxSize=" + mMaxSize);
+                }
+
+                if (mMaxConcurrentLoads < 1) {
+                    throw new IllegalArgumentException(
+                            "Maximum concurrent loads must be a positive number");
+                }
+
+                return new Config(mPageSize, mPrefetchDistance, mMaxPrefetchDistance,
+                        mEnablePlaceholders, mInitialLoadSizeHint, mMaxSize, mMaxConcurrentLoads);
             }
         }
     }
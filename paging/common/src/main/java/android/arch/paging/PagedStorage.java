@@ -45,7 +45,7 @@ final class PagedStorage<T> extends AbstractList<T> {
      * Non-contiguous - mPages may have nulls or a placeholder page, isTiled() always returns true.
      *     mPages may have nulls, or placeholder (empty) pages while content is loading.
      */
-    private final ArrayList<List<T>> mPages;
+    private PageIndex<T> mPages;
     private int mTrailingNullCount;
 
     private int mPositionOffset;
@@ -63,7 +63,7 @@ final class PagedStorage<T> extends AbstractList<T> {
 
     PagedStorage() {
         mLeadingNullCount = 0;
-        mPages = new ArrayList<>();
+        mPages = new PageIndex<>();
         mTrailingNullCount = 0;
         mPositionOffset = 0;
         mStorageCount = 0;
@@ -79,7 +79,8 @@ final class PagedStorage<T> extends AbstractList<T> {
 
     private PagedStorage(PagedStorage<T> other) {
         mLeadingNullCount = other.mLeadingNullCount;
-        mPages = new ArrayList<>(other.mPages);
+        // page lists themselves are never modified, so only the index of pages is copied
+        mPages = new PageIndex<>(other.mPages);
         mTrailingNullCount = other.mTrailingNullCount;
         mPositionOffset = other.mPositionOffset;
         mStorageCount = other.mStorageCount;
@@ -92,6 +93,14 @@ final class PagedStorage<T> extends AbstractList<T> {
         return new PagedStorage<>(this);
     }
 
+    /**
+     * Returns true if the reference to the page at localPageIndex is held in memory shared with
+     * the same page of other, a snapshot of this storage or the storage this is a snapshot of.
+     */
+    boolean isPageShared(@NonNull PagedStorage<T> other, int localPageIndex) {
+        return mPages.isShared(other.mPages, localPageIndex);
+    }
+
     private void init(int leadingNulls, List<T> page, int trailingNulls, int positionOffset) {
         mLeadingNullCount = leadingNulls;
         mPages.clear();
@@ -164,6 +173,10 @@ final class PagedStorage<T> extends AbstractList<T> {
         return mPageSize > 0;
     }
 
+    int getPageSize() {
+        return mPageSize;
+    }
+
     int getLeadingNullCount() {
         return mLeadingNullCount;
     }
@@ -194,6 +207,7 @@ final class PagedStorage<T> extends AbstractList<T> {
         void onPageAppended(int endPosition, int changed, int added);
         void onPagePlaceholderInserted(int pageIndex);
         void onPageInserted(int start, int count);
+        void onPageDropped(int start, int count);
     }
 
     int getPositionOffset() {
@@ -261,7 +275,7 @@ final class PagedStorage<T> extends AbstractList<T> {
             }
         }
 
-        mPages.add(0, page);
+        mPages.addFirst(page);
         mStorageCount += count;
 
         final int changedCount = Math.min(mLeadingNullCount, count);
@@ -374,7 +388,7 @@ final class PagedStorage<T> extends AbstractList<T> {
 
         if (minimumPage < leadingNullPages) {
             for (int i = 0; i < leadingNullPages - minimumPage; i++) {
-                mPages.add(0, null);
+                mPages.addFirst(null);
             }
             int newStorageAllocated = (leadingNullPages - minimumPage) * mPageSize;
             mStorageCount += newStorageAllocated;
@@ -386,7 +400,7 @@ final class PagedStorage<T> extends AbstractList<T> {
             int newStorageAllocated = Math.min(mTrailingNullCount,
                     (maximumPage + 1 - (leadingNullPages + mPages.size())) * mPageSize);
             for (int i = mPages.size(); i <= maximumPage - leadingNullPages; i++) {
-                mPages.add(mPages.size(), null);
+                mPages.add(null);
             }
             mStorageCount += newStorageAllocated;
             mTrailingNullCount -= newStorageAllocated;
@@ -423,6 +437,74 @@ final class PagedStorage<T> extends AbstractList<T> {
         }
     }
 
+    /**
+     * Replace the placeholder of a page whose load was cancelled before it started with null, so
+     * it is allocated again by {@link #allocatePlaceholders(int, int, int, Callback)}.
+     */
+    void removePlaceholder(int pageIndex) {
+        final int localPageIndex = pageIndex - mLeadingNullCount / mPageSize;
+        if (localPageIndex >= 0 && localPageIndex < mPages.size()
+                && mPages.get(localPageIndex) == PLACEHOLDER_LIST) {
+            mPages.set(localPageIndex, null);
+        }
+    }
+
+    /**
+     * Replace loaded pages with nulls, furthest from index first, until at most maxSize items are
+     * loaded.
+     * <p>
+     * Pages within prefetchDistance of index are never dropped, nor are the first and last pages
+     * of the data set, which are used to dispatch boundary callbacks. Dropped pages are loaded
+     * again through {@link #allocatePlaceholders(int, int, int, Callback)} when accessed.
+     */
+    void dropPages(int index, int prefetchDistance, int maxSize, @NonNull Callback callback) {
+        int loadedCount = 0;
+        for (int i = 0; i < mPages.size(); i++) {
+            final List<T> page = mPages.get(i);
+            if (page != null && page != PLACEHOLDER_LIST) {
+                loadedCount += page.size();
+            }
+        }
+        if (loadedCount <= maxSize) {
+            return;
+        }
+
+        final int leadingNullPages = mLeadingNullCount / mPageSize;
+        final int lastPage = (size() - 1) / mPageSize;
+        int first = 0;
+        int last = mPages.size() - 1;
+        while (loadedCount > maxSize && first <= last) {
+            // drop from whichever end is further from the accessed index
+            final int firstStart = (first + leadingNullPages) * mPageSize;
+            final int lastStart = (last + leadingNullPages) * mPageSize;
+            final int localPageIndex;
+            final int start;
+            if (index - (firstStart + mPageSize - 1) >= lastStart - index) {
+                localPageIndex = first++;
+                start = firstStart;
+                if (start + mPageSize > index - prefetchDistance) {
+                    break;
+                }
+            } else {
+                localPageIndex = last--;
+                start = lastStart;
+                if (start <= index + prefetchDistance) {
+                    break;
+                }
+            }
+
+            final int pageIndex = localPageIndex + leadingNullPages;
+            List<T> page = mPages.get(localPageIndex);
+            if (page == null || page == PLACEHOLDER_LIST || pageIndex == 0
+                    || pageIndex == lastPage) {
+                continue;
+            }
+            mPages.set(localPageIndex, null);
+            loadedCount -= page.size();
+            callback.onPageDropped(start, page.size());
+        }
+    }
+
     public boolean hasPage(int pageSize, int index) {
         // NOTE: we pass pageSize here to avoid in case mPageSize
         // not fully initialized (when last page only one loaded)
@@ -448,4 +530,120 @@ final class PagedStorage<T> extends AbstractList<T> {
         }
         return ret.toString();
     }
+
+    /**
+     * Index of pages that shares the parts it hasn't modified with the index it was copied from.
+     * <p>
+     * Page references are held in fixed size chunks. A copy shares every chunk, and a chunk is
+     * copied when one of its slots is first written, so the first change after a snapshot copies
+     * the array of chunks and a single chunk, rather than every page reference.
+     */
+    private static final class PageIndex<T> {
+        private static final int CHUNK_SHIFT = 5;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+        private Object[][] mChunks;
+        // true for each chunk only referenced by this index, which can be written in place
+        private boolean[] mOwned;
+        // true if mChunks may be referenced by a copy of this index
+        private boolean mShared;
+        // slot of the first page, slots before it are free for pages added to the front
+        private int mStart;
+        private int mSize;
+
+        PageIndex() {
+            clear();
+        }
+
+        PageIndex(PageIndex<T> other) {
+            mChunks = other.mChunks;
+            mOwned = other.mOwned;
+            mStart = other.mStart;
+            mSize = other.mSize;
+            mShared = true;
+            other.mShared = true;
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        List<T> get(int index) {
+            if (index < 0 || index >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+            }
+            final int slot = mStart + index;
+            final Object[] chunk = mChunks[slot >> CHUNK_SHIFT];
+            //noinspection unchecked
+            return chunk == null ? null : (List<T>) chunk[slot & CHUNK_MASK];
+        }
+
+        void set(int index, List<T> page) {
+            if (index < 0 || index >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+            }
+            final int slot = mStart + index;
+            writableChunk(slot >> CHUNK_SHIFT)[slot & CHUNK_MASK] = page;
+        }
+
+        void add(List<T> page) {
+            if (mStart + mSize == mChunks.length << CHUNK_SHIFT) {
+                grow(0, Math.max(1, mChunks.length / 2));
+            }
+            mSize++;
+            set(mSize - 1, page);
+        }
+
+        void addFirst(List<T> page) {
+            if (mStart == 0) {
+                grow(Math.max(1, mChunks.length / 2), 0);
+            }
+            mStart--;
+            mSize++;
+            set(0, page);
+        }
+
+        void clear() {
+            mChunks = new Object[1][];
+            mOwned = new boolean[1];
+            mShared = false;
+            mStart = CHUNK_SIZE / 2;
+            mSize = 0;
+        }
+
+        boolean isShared(PageIndex<T> other, int index) {
+            final Object[] chunk = mChunks[(mStart + index) >> CHUNK_SHIFT];
+            return chunk != null
+                    && chunk == other.mChunks[(other.mStart + index) >> CHUNK_SHIFT];
+        }
+
+        private void grow(int frontChunks, int backChunks) {
+            final int count = mChunks.length;
+            final Object[][] chunks = new Object[frontChunks + count + backChunks][];
+            final boolean[] owned = new boolean[chunks.length];
+            System.arraycopy(mChunks, 0, chunks, frontChunks, count);
+            if (!mShared) {
+                System.arraycopy(mOwned, 0, owned, frontChunks, count);
+            }
+            mChunks = chunks;
+            mOwned = owned;
+            mShared = false;
+            mStart += frontChunks << CHUNK_SHIFT;
+        }
+
+        private Object[] writableChunk(int chunkIndex) {
+            if (mShared) {
+                mChunks = mChunks.clone();
+                mOwned = new boolean[mChunks.length];
+                mShared = false;
+            }
+            if (!mOwned[chunkIndex]) {
+                final Object[] chunk = mChunks[chunkIndex];
+                mChunks[chunkIndex] = chunk == null ? new Object[CHUNK_SIZE] : chunk.clone();
+                mOwned[chunkIndex] = true;
+            }
+            return mChunks[chunkIndex];
+        }
+    }
 }
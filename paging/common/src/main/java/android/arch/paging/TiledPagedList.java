@@ -21,12 +21,23 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.WorkerThread;
 
+import java.util.Arrays;
 import java.util.concurrent.Executor;
 
 class TiledPagedList<T> extends PagedList<T>
         implements PagedStorage.Callback {
     private final PositionalDataSource<T> mDataSource;
 
+    // number of loads in flight, and the page start position and start time of each of them
+    private int mLoadsInFlight;
+    private int[] mLoadStarts = new int[4];
+    private long[] mLoadStartNs = new long[4];
+
+    // indices of placeholder pages waiting for a load slot, in ascending order, see
+    // Config#maxConcurrentLoads
+    private int mPendingCount;
+    private int[] mPendingPages = new int[4];
+
     private PageResult.Receiver<T> mReceiver = new PageResult.Receiver<T>() {
         // Creation thread for initial synchronous load, otherwise main thread
         // Safe to access main thread only state - no other thread has reference during construction
@@ -36,11 +47,17 @@ class TiledPagedList<T> extends PagedList<T>
                 @NonNull PageResult<T> pageResult) {
             if (pageResult.isInvalid()) {
                 detach();
+                if (type == PageResult.TILE) {
+                    onLoadAbandoned(pageResult.positionOffset);
+                }
                 return;
             }
 
             if (isDetached()) {
                 // No op, have detached
+                if (type == PageResult.TILE) {
+                    onLoadAbandoned(pageResult.positionOffset);
+                }
                 return;
             }
 
@@ -128,17 +145,17 @@ class TiledPagedList<T> extends PagedList<T>
         }
 
         // loop through each page and signal the callback for any pages that are present now,
-        // but not in the snapshot.
+        // but not in the snapshot, or were dropped since the snapshot.
         final int pageSize = mConfig.pageSize;
         final int leadingNullPages = mStorage.getLeadingNullCount() / pageSize;
         final int pageCount = mStorage.getPageCount();
         for (int i = 0; i < pageCount; i++) {
             int pageIndex = i + leadingNullPages;
             int updatedPages = 0;
-            // count number of consecutive pages that were added since the snapshot...
+            // count number of consecutive pages that were added or dropped since the snapshot...
             while (updatedPages < mStorage.getPageCount()
                     && mStorage.hasPage(pageSize, pageIndex + updatedPages)
-                    && !snapshot.hasPage(pageSize, pageIndex + updatedPages)) {
+                            != snapshot.hasPage(pageSize, pageIndex + updatedPages)) {
                 updatedPages++;
             }
             // and signal them all at once to the callback
@@ -151,7 +168,78 @@ class TiledPagedList<T> extends PagedList<T>
 
     @Override
     protected void loadAroundInternal(int index) {
-        mStorage.allocatePlaceholders(index, mConfig.prefetchDistance, mConfig.pageSize, this);
+        final int prefetchDistance = getPrefetchDistance();
+        mStorage.allocatePlaceholders(index, prefetchDistance, mConfig.pageSize, this);
+        cancelDistantLoads(index, prefetchDistance);
+        startPendingLoads();
+        dropDistantPages();
+    }
+
+    /**
+     * Cancel loads that haven't started yet, for pages no longer within prefetchDistance of index.
+     */
+    private void cancelDistantLoads(int index, int prefetchDistance) {
+        final int pageSize = mConfig.pageSize;
+        final int minimumPage = Math.max(index - prefetchDistance, 0) / pageSize;
+        final int maximumPage = (index + prefetchDistance) / pageSize;
+        int kept = 0;
+        for (int i = 0; i < mPendingCount; i++) {
+            final int pageIndex = mPendingPages[i];
+            if (pageIndex < minimumPage || pageIndex > maximumPage) {
+                mStorage.removePlaceholder(pageIndex);
+            } else {
+                mPendingPages[kept++] = pageIndex;
+            }
+        }
+        mPendingCount = kept;
+    }
+
+    /**
+     * Start pending loads while fewer than Config#maxConcurrentLoads are in flight, starting with
+     * the page nearest to the most recently accessed index.
+     */
+    private void startPendingLoads() {
+        if (mPendingCount > 0 && mLoadsInFlight < mConfig.maxConcurrentLoads) {
+            // pending pages are sorted, so the nearest ones form a run around the accessed page,
+            // which grows towards whichever neighbour is nearer
+            int right = Arrays.binarySearch(mPendingPages, 0, mPendingCount,
+                    mLastLoad / mConfig.pageSize);
+            if (right < 0) {
+                right = -right - 1;
+            }
+            int left = right - 1;
+            while (mLoadsInFlight < mConfig.maxConcurrentLoads
+                    && (left >= 0 || right < mPendingCount)) {
+                if (right < mPendingCount && (left < 0
+                        || getPageDistance(mPendingPages[right])
+                                < getPageDistance(mPendingPages[left]))) {
+                    loadPage(mPendingPages[right++]);
+                } else {
+                    loadPage(mPendingPages[left--]);
+                }
+            }
+            System.arraycopy(mPendingPages, right, mPendingPages, left + 1,
+                    mPendingCount - right);
+            mPendingCount -= right - left - 1;
+        }
+        onLoadCountChanged(mLoadsInFlight, mPendingCount);
+    }
+
+    /**
+     * @return The number of items between the most recently accessed index and the page.
+     */
+    private int getPageDistance(int pageIndex) {
+        final int start = pageIndex * mConfig.pageSize;
+        return mLastLoad < start
+                ? start - mLastLoad
+                : Math.max(0, mLastLoad - (start + mConfig.pageSize - 1));
+    }
+
+    private void dropDistantPages() {
+        if (mConfig.maxSize != Config.MAX_SIZE_UNBOUNDED) {
+            mStorage.dropPages(mLastLoad, getPrefetchDistance(), mConfig.maxSize,
+                    this);
+        }
     }
 
     @Override
@@ -171,19 +259,42 @@ class TiledPagedList<T> extends PagedList<T>
 
     @Override
     public void onPagePlaceholderInserted(final int pageIndex) {
-        // placeholder means initialize a load
+        // placeholder means initialize a load, once a load slot is free
+        int index = Arrays.binarySearch(mPendingPages, 0, mPendingCount, pageIndex);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (mPendingCount == mPendingPages.length) {
+            mPendingPages = Arrays.copyOf(mPendingPages, mPendingCount * 2);
+        }
+        System.arraycopy(mPendingPages, index, mPendingPages, index + 1, mPendingCount - index);
+        mPendingPages[index] = pageIndex;
+        mPendingCount++;
+    }
+
+    private void loadPage(final int pageIndex) {
+        final int startPosition = pageIndex * mConfig.pageSize;
+        if (mLoadsInFlight == mLoadStarts.length) {
+            mLoadStarts = Arrays.copyOf(mLoadStarts, mLoadsInFlight * 2);
+            mLoadStartNs = Arrays.copyOf(mLoadStartNs, mLoadsInFlight * 2);
+        }
+        mLoadStarts[mLoadsInFlight] = startPosition;
+        mLoadStartNs[mLoadsInFlight] = System.nanoTime();
+        mLoadsInFlight++;
         mBackgroundThreadExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 if (isDetached()) {
+                    abandonLoad(startPosition);
                     return;
                 }
                 final int pageSize = mConfig.pageSize;
 
                 if (mDataSource.isInvalid()) {
                     detach();
+                    abandonLoad(startPosition);
                 } else {
-                    int startPosition = pageIndex * pageSize;
                     int count = Math.min(pageSize, mStorage.size() - startPosition);
                     DataSource.LoadCallback<T> callback = new DataSource.LoadCallback<>(
                             PageResult.TILE, mMainThreadExecutor, mDataSource, mReceiver);
@@ -194,8 +305,57 @@ class TiledPagedList<T> extends PagedList<T>
         });
     }
 
+    /**
+     * Post the end of a load that won't deliver a page back to the main thread.
+     */
+    @WorkerThread
+    private void abandonLoad(final int start) {
+        mMainThreadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                onLoadAbandoned(start);
+            }
+        });
+    }
+
+    private void onLoadAbandoned(int start) {
+        final int index = indexOfLoad(start);
+        if (index >= 0) {
+            removeLoad(index);
+            onLoadCountChanged(mLoadsInFlight, mPendingCount);
+        }
+    }
+
+    private int indexOfLoad(int start) {
+        for (int i = 0; i < mLoadsInFlight; i++) {
+            if (mLoadStarts[i] == start) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeLoad(int index) {
+        mLoadsInFlight--;
+        mLoadStarts[index] = mLoadStarts[mLoadsInFlight];
+        mLoadStartNs[index] = mLoadStartNs[mLoadsInFlight];
+    }
+
     @Override
     public void onPageInserted(int start, int count) {
+        final int index = indexOfLoad(start);
+        if (index >= 0) {
+            onPageLoadFinished(System.nanoTime() - mLoadStartNs[index]);
+            removeLoad(index);
+        }
+        notifyChanged(start, count);
+        dropDistantPages();
+        startPendingLoads();
+    }
+
+    @Override
+    public void onPageDropped(int start, int count) {
+        onPageDropped();
         notifyChanged(start, count);
     }
 }
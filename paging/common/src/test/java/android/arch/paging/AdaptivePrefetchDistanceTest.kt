@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.arch.paging
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class AdaptivePrefetchDistanceTest {
+    private val distance = AdaptivePrefetchDistance(10, 100)
+
+    private fun access(fromIndex: Int, count: Int, intervalNs: Long, startNs: Long = 0): Long {
+        var timeNs = startNs
+        for (i in 0 until count) {
+            distance.onAccess(fromIndex + i, timeNs)
+            timeNs += intervalNs
+        }
+        return timeNs
+    }
+
+    @Test
+    fun initial() {
+        assertEquals(10, distance.distance)
+    }
+
+    @Test
+    fun noLatencyMeasured() {
+        access(0, 50, MS)
+        assertEquals(10, distance.distance)
+    }
+
+    @Test
+    fun fastAccessBoundedByMax() {
+        distance.onLoadFinished(100 * MS)
+        // one item per ms, a load takes 100 items worth of scrolling
+        access(0, 50, MS)
+        assertEquals(100, distance.distance)
+    }
+
+    @Test
+    fun slowAccessBoundedByMin() {
+        distance.onLoadFinished(100 * MS)
+        access(0, 50, 100 * MS)
+        assertEquals(10, distance.distance)
+    }
+
+    @Test
+    fun inBetween() {
+        distance.onLoadFinished(10 * MS)
+        // one item every 0.5ms, 20 items per load, doubled for safety
+        access(0, 50, MS / 2)
+        assertEquals(40, distance.distance)
+    }
+
+    @Test
+    fun resetAfterIdle() {
+        distance.onLoadFinished(100 * MS)
+        val timeNs = access(0, 50, MS)
+        assertEquals(100, distance.distance)
+
+        distance.onAccess(50, timeNs + 1000 * MS)
+        assertEquals(10, distance.distance)
+    }
+
+    @Test
+    fun pagedListReportsDistance() {
+        val pagedList = PagedList.Builder(ListDataSource(List(100) { it }),
+                PagedList.Config.Builder()
+                        .setPageSize(10)
+                        .setPrefetchDistance(10)
+                        .setMaxPrefetchDistance(50)
+                        .build())
+                .setMainThreadExecutor(TestExecutor())
+                .setBackgroundThreadExecutor(TestExecutor())
+                .build()
+        assertEquals(10, pagedList.prefetchDistance)
+        pagedList.loadAround(5)
+        assertTrue(pagedList.prefetchDistance in 10..50)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun maxSmallerThanPrefetch() {
+        PagedList.Config.Builder()
+                .setPageSize(10)
+                .setPrefetchDistance(20)
+                .setMaxPrefetchDistance(10)
+                .build()
+    }
+
+    companion object {
+        private const val MS = 1000 * 1000L
+    }
+}
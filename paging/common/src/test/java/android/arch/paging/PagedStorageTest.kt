@@ -406,4 +406,52 @@ class PagedStorageTest {
         assertFalse(storage.hasPage(2, 1))
         assertTrue(storage.hasPage(2, 2))
     }
+
+    @Test
+    fun snapshot_unchangedByLaterUpdates() {
+        val callback = mock(PagedStorage.Callback::class.java)
+        val storage = PagedStorage<String>()
+        storage.init(2, createPage("c", "d"), 4, 0, callback)
+
+        val snapshot = storage.snapshot()
+        storage.insertPage(4, createPage("e", "f"), callback)
+        storage.appendPage(createPage("g", "h"), callback)
+
+        assertArrayEquals(arrayOf(null, null, "c", "d", "e", "f", "g", "h"), storage.toArray())
+        assertArrayEquals(arrayOf(null, null, "c", "d", null, null, null, null),
+                snapshot.toArray())
+    }
+
+    @Test
+    fun snapshot_updatedIndependently() {
+        val callback = mock(PagedStorage.Callback::class.java)
+        val storage = PagedStorage(2, createPage("a", "b"), 2)
+
+        val first = storage.snapshot()
+        val second = storage.snapshot()
+        first.appendPage(createPage("c", "d"), callback)
+        storage.prependPage(createPage("y", "z"), callback)
+
+        assertArrayEquals(arrayOf("y", "z", "a", "b", null, null), storage.toArray())
+        assertArrayEquals(arrayOf(null, null, "a", "b", "c", "d"), first.toArray())
+        assertArrayEquals(arrayOf(null, null, "a", "b", null, null), second.toArray())
+    }
+
+    @Test
+    fun snapshot_sharesUnchangedPages() {
+        val callback = mock(PagedStorage.Callback::class.java)
+        val storage = PagedStorage<String>()
+        storage.initAndSplit(0, (0 until 200).map { "$it" }, 0, 0, 2, callback)
+        val snapshot = storage.snapshot()
+
+        // drops page 98, furthest from index 0 apart from the last page
+        storage.dropPages(0, 0, 198, callback)
+        verify(callback).onPageDropped(196, 2)
+
+        // only the part of the page index holding the dropped page was copied
+        assertTrue(storage.isPageShared(snapshot, 0))
+        assertFalse(storage.isPageShared(snapshot, 98))
+        assertEquals(null, storage[196])
+        assertEquals("196", snapshot[196])
+    }
 }
@@ -25,7 +25,9 @@ import org.junit.Assert.fail
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
+import org.mockito.ArgumentMatchers.anyLong
 import org.mockito.Mockito.mock
+import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
 import org.mockito.Mockito.verifyNoMoreInteractions
 import org.mockito.Mockito.verifyZeroInteractions
@@ -58,13 +60,17 @@ class TiledPagedListTest {
     private fun createTiledPagedList(loadPosition: Int, initPageCount: Int,
             prefetchDistance: Int = PAGE_SIZE,
             listData: List<Item> = ITEMS,
-            boundaryCallback: PagedList.BoundaryCallback<Item>? = null): TiledPagedList<Item> {
+            boundaryCallback: PagedList.BoundaryCallback<Item>? = null,
+            maxSize: Int = PagedList.Config.MAX_SIZE_UNBOUNDED,
+            maxConcurrentLoads: Int = 4): TiledPagedList<Item> {
         return TiledPagedList(
                 ListDataSource(listData), mMainThread, mBackgroundThread, boundaryCallback,
                 PagedList.Config.Builder()
                         .setPageSize(PAGE_SIZE)
                         .setInitialLoadSizeHint(PAGE_SIZE * initPageCount)
                         .setPrefetchDistance(prefetchDistance)
+                        .setMaxSize(maxSize)
+                        .setMaxConcurrentLoads(maxConcurrentLoads)
                         .build(),
                 loadPosition)
     }
@@ -283,6 +289,158 @@ class TiledPagedListTest {
         verifyNoMoreInteractions(callback)
     }
 
+    @Test
+    fun dropDistantPages() {
+        val pagedList = createTiledPagedList(
+                loadPosition = 0, initPageCount = 2, prefetchDistance = 5, maxSize = 30)
+        val callback = mock(PagedList.Callback::class.java)
+        pagedList.addWeakCallback(null, callback)
+        verifyLoadedPages(pagedList, 0, 1)
+
+        // first page is never dropped, page 1 is furthest outside prefetch window
+        pagedList.loadAround(25)
+        drain()
+        verifyLoadedPages(pagedList, 0, 2, 3)
+        verify(callback).onChanged(20, 10)
+        verify(callback).onChanged(30, 10)
+        verify(callback).onChanged(10, 10)
+        verifyNoMoreInteractions(callback)
+
+        pagedList.loadAround(44)
+        drain()
+        verifyLoadedPages(pagedList, 0, 3, 4)
+        verify(callback).onChanged(40, 5)
+        verify(callback, times(2)).onChanged(20, 10)
+        verifyNoMoreInteractions(callback)
+
+        // dropped page is loaded again on access
+        pagedList.loadAround(12)
+        drain()
+        verifyLoadedPages(pagedList, 0, 1, 4)
+    }
+
+    @Test
+    fun dropDistantPages_callbackAddedLate() {
+        val pagedList = createTiledPagedList(
+                loadPosition = 0, initPageCount = 2, prefetchDistance = 5, maxSize = 30)
+        pagedList.loadAround(25)
+        drain()
+        val snapshot = pagedList.snapshot()
+        verifyLoadedPages(snapshot, 0, 2, 3)
+
+        pagedList.loadAround(44)
+        drain()
+        verifyLoadedPages(pagedList, 0, 3, 4)
+
+        // both the dropped and the newly loaded page are signalled
+        val callback = mock(PagedList.Callback::class.java)
+        pagedList.addWeakCallback(snapshot, callback)
+        verify(callback).onChanged(20, 10)
+        verify(callback).onChanged(40, 10)
+        verifyNoMoreInteractions(callback)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun maxSizeTooSmall() {
+        PagedList.Config.Builder()
+                .setPageSize(PAGE_SIZE)
+                .setPrefetchDistance(PAGE_SIZE)
+                .setMaxSize(PAGE_SIZE * 2)
+                .build()
+    }
+
+    @Test
+    fun concurrentLoads_nearestFirst() {
+        val pagedList = createTiledPagedList(
+                loadPosition = 0, initPageCount = 2, maxConcurrentLoads = 1)
+        val listener = mock(PagedList.PageLoadListener::class.java)
+        pagedList.setPageLoadListener(listener)
+        verifyLoadedPages(pagedList, 0, 1)
+
+        // page containing the accessed index loads first, the others wait
+        pagedList.loadAround(35)
+        verify(listener).onLoadCountChanged(1, 2)
+        step()
+        verifyLoadedPages(pagedList, 0, 1, 3)
+        verify(listener).onLoadCountChanged(1, 1)
+
+        // then the nearest remaining page
+        step()
+        verifyLoadedPages(pagedList, 0, 1, 3, 4)
+        verify(listener).onLoadCountChanged(1, 0)
+        step()
+        verifyLoadedPages(pagedList, 0, 1, 2, 3, 4)
+        verify(listener).onLoadCountChanged(0, 0)
+        verify(listener, times(3)).onPageLoaded(anyLong())
+    }
+
+    @Test
+    fun concurrentLoads_abandonedLoadEnds() {
+        val pagedList = createTiledPagedList(
+                loadPosition = 0, initPageCount = 2, maxConcurrentLoads = 1)
+        val listener = mock(PagedList.PageLoadListener::class.java)
+        pagedList.setPageLoadListener(listener)
+
+        pagedList.loadAround(35)
+        verify(listener).onLoadCountChanged(1, 2)
+
+        // load started before detaching returns early, and is no longer counted as in flight
+        pagedList.detach()
+        drain()
+        verify(listener).onLoadCountChanged(0, 2)
+        verify(listener, times(0)).onPageLoaded(anyLong())
+        verifyLoadedPages(pagedList, 0, 1)
+    }
+
+    @Test
+    fun concurrentLoads_cancelDistant() {
+        val pagedList = createTiledPagedList(
+                loadPosition = 0, initPageCount = 2, prefetchDistance = 5, maxConcurrentLoads = 1)
+        verifyLoadedPages(pagedList, 0, 1)
+
+        pagedList.loadAround(25)
+
+        // page 3 hasn't started loading yet, so is cancelled
+        pagedList.loadAround(12)
+        drain()
+        verifyLoadedPages(pagedList, 0, 1, 2)
+
+        // and is loaded again when accessed
+        pagedList.loadAround(35)
+        drain()
+        verifyLoadedPages(pagedList, 0, 1, 2, 3, 4)
+    }
+
+    @Test
+    fun loadStats() {
+        val pagedList = createTiledPagedList(
+                loadPosition = 0, initPageCount = 2, prefetchDistance = 5, maxSize = 30)
+        verifyLoadedPages(pagedList, 0, 1)
+
+        pagedList.loadAround(5)
+        pagedList.loadAround(25)
+        assertNull(pagedList[25])
+        drain()
+
+        val stats = pagedList.loadStats
+        assertEquals(2, stats.pagesLoaded)
+        assertEquals(1, stats.pagesDropped)
+        assertEquals(1, stats.prefetchHits)
+        assertEquals(1, stats.prefetchMisses)
+        // first verifyLoadedPages also read the 25 unloaded items
+        assertEquals(25 + 1, stats.placeholdersServed)
+        assertEquals(0, stats.invalidationCount)
+        verifyLoadedPages(pagedList, 0, 2, 3)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun maxConcurrentLoadsTooSmall() {
+        PagedList.Config.Builder()
+                .setPageSize(PAGE_SIZE)
+                .setMaxConcurrentLoads(0)
+                .build()
+    }
+
     @Test
     fun placeholdersDisabled() {
         // disable placeholders with config, so we create a contiguous version of the pagedlist
@@ -467,6 +625,11 @@ class TiledPagedListTest {
         it.onResult(emptyList(), 0, 2)
     }
 
+    private fun step() {
+        mBackgroundThread.executeAll()
+        mMainThread.executeAll()
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -96,6 +96,64 @@ class PagedStorageDiffHelperTest {
         }
     }
 
+    @Test
+    fun changeInMiddle() {
+        validateTwoListDiff(
+                PagedStorage(2, listOf("a1", "b1", "c1", "d1", "e1"), 2),
+                PagedStorage(2, listOf("a1", "b1", "c2", "d1", "e1"), 2)) {
+            verify(it).onChanged(4, 1, null)
+            verifyNoMoreInteractions(it)
+        }
+    }
+
+    @Test
+    fun insertInMiddle() {
+        validateTwoListDiff(
+                PagedStorage(2, listOf("a1", "b1", "c1", "d1"), 2),
+                PagedStorage(2, listOf("a1", "b1", "x1", "c1", "d1"), 2)) {
+            verify(it).onInserted(4, 1)
+            verifyNoMoreInteractions(it)
+        }
+    }
+
+    @Test
+    fun insertInMiddleNoNulls() {
+        validateTwoListDiff(
+                PagedStorage(0, listOf("a1", "b1", "c1", "d1"), 0),
+                PagedStorage(0, listOf("a1", "b1", "x1", "c1", "d1"), 0)) {
+            verify(it).onInserted(2, 1)
+            verifyNoMoreInteractions(it)
+        }
+    }
+
+    @Test
+    fun changesInSeparatePages() {
+        val oldList = tiledStorage("a1", "b1", "c1", "d1", "e1", "f1", "g1", "h1")
+        val newList = tiledStorage("a2", "b1", "c1", "d1", "e1", "f1", "g2", "h1")
+
+        // the unchanged pages between the two changes aren't diffed, though newList still
+        // loaded them again, since pages aren't reused across generations
+        val diffResult = PagedStorageDiffHelper.computeDiff(oldList, newList, DIFF_CALLBACK)
+        assertEquals(2, diffResult.diffResults.size)
+
+        validateTwoListDiff(oldList, newList) {
+            verify(it).onChanged(2, 1, null)
+            verify(it).onChanged(8, 1, null)
+            verifyNoMoreInteractions(it)
+        }
+    }
+
+    @Test
+    fun shiftAcrossPages() {
+        validateTwoListDiff(
+                tiledStorage("a1", "b1", "c1", "d1", "e1", "f1"),
+                tiledStorage("a1", "x1", "b1", "c1", "d1", "f1")) {
+            verify(it).onRemoved(6, 1)
+            verify(it).onInserted(3, 1)
+            verifyNoMoreInteractions(it)
+        }
+    }
+
     companion object {
         private val DIFF_CALLBACK = object : DiffCallback<String>() {
             override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
@@ -108,6 +166,13 @@ class PagedStorageDiffHelperTest {
             }
         }
 
+        private fun tiledStorage(vararg items: String): PagedStorage<String> {
+            val storage = PagedStorage<String>()
+            storage.initAndSplit(2, items.toList(), 2, 0, 2,
+                    /* ignored */ mock(PagedStorage.Callback::class.java))
+            return storage
+        }
+
         private fun validateTwoListDiff(oldList: PagedStorage<String>,
                                         newList: PagedStorage<String>,
                                         validator: (callback: ListUpdateCallback) -> Unit) {
@@ -20,6 +20,7 @@ import android.arch.paging.TestExecutor
 import android.support.test.filters.SmallTest
 import android.support.v7.util.ListUpdateCallback
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
@@ -117,6 +118,96 @@ class ListAdapterHelperTest {
 
     }
 
+    @Test
+    fun setListSupersededBeforeDiff() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val comparedItems = ArrayList<String>()
+        val helper = createHelper(callback, object : DiffCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                comparedItems.add(newItem)
+                return oldItem == newItem
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return oldItem == newItem
+            }
+        })
+
+        helper.setList(listOf("a", "b"))
+        verify(callback).onInserted(0, 2)
+
+        // both updates scheduled before the background thread runs, only the last is diffed
+        helper.setList(listOf("c"))
+        helper.setList(listOf("d"))
+        drain()
+        assertFalse(comparedItems.contains("c"))
+
+        verify(callback).onRemoved(0, 2)
+        verify(callback).onInserted(0, 1)
+        verifyNoMoreInteractions(callback)
+        assertEquals("d", helper.getItem(0))
+    }
+
+    @Test
+    fun setListSupersededDuringDiff() {
+        val callback = mock(ListUpdateCallback::class.java)
+        lateinit var helper: ListAdapterHelper<String>
+        var comparisons = 0
+        helper = createHelper(callback, object : DiffCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                if (++comparisons == 1) {
+                    // newer list set while the first diff is running
+                    helper.setList(listOf("x"))
+                }
+                return oldItem == newItem
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return oldItem == newItem
+            }
+        })
+
+        helper.setList(listOf("a", "b"))
+        verify(callback).onInserted(0, 2)
+
+        helper.setList(listOf("a", "b", "c"))
+        drain()
+
+        // first diff stopped after its first comparison, and only the second is dispatched
+        assertEquals(listOf("x"), (0 until helper.itemCount).map { helper.getItem(it) })
+        verify(callback).onRemoved(0, 2)
+        verify(callback).onInserted(0, 1)
+        verifyNoMoreInteractions(callback)
+    }
+
+    @Test
+    fun setListMixedKeysUsesDiffUtil() {
+        val callback = mock(ListUpdateCallback::class.java)
+        val helper = createHelper(callback, object : DiffCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                return oldItem == newItem
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return oldItem == newItem
+            }
+
+            override fun getItemKey(item: String): Any? {
+                // breaks the contract, "x" has no key
+                return if (item == "x") null else item
+            }
+        })
+        helper.setList(listOf("a", "b", "x"))
+        verify(callback).onInserted(0, 3)
+        drain()
+
+        // a keyed diff would remove and insert "x", as it can't be matched
+        helper.setList(listOf("a", "b", "x", "c"))
+        drain()
+        verify(callback).onInserted(3, 1)
+        verifyNoMoreInteractions(callback)
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -175,6 +175,8 @@ public class LivePagedListBuilder<Key, Value> {
                     initializeKey = (Key) mList.getLastKey();
                 }
 
+                // each list after the first replaces one whose DataSource was invalidated
+                int invalidationCount = mList == null ? 0 : mList.mInvalidationCount + 1;
                 do {
                     if (mDataSource != null) {
                         mDataSource.removeInvalidatedCallback(mCallback);
@@ -189,6 +191,7 @@ public class LivePagedListBuilder<Key, Value> {
                             .setBoundaryCallback(boundaryCallback)
                             .setInitialKey(initializeKey)
                             .build();
+                    mList.mInvalidationCount = invalidationCount++;
                 } while (mList.isDetached());
                 return mList;
             }
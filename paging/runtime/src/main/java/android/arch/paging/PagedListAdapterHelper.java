@@ -21,10 +21,11 @@ import android.support.annotation.Nullable;
 import android.support.v7.recyclerview.extensions.DiffCallback;
 import android.support.v7.recyclerview.extensions.ListAdapterConfig;
 import android.support.v7.recyclerview.extensions.ListAdapterHelper;
-import android.support.v7.util.DiffUtil;
 import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 
+import java.util.concurrent.CancellationException;
+
 /**
  * Helper object for mapping a {@link PagedList} into a
  * {@link android.support.v7.widget.RecyclerView.Adapter RecyclerView.Adapter}.
@@ -132,8 +133,9 @@ public class PagedListAdapterHelper<T> {
     private PagedList<T> mPagedList;
     private PagedList<T> mSnapshot;
 
-    // Max generation of currently scheduled runnable
-    private int mMaxScheduledGeneration;
+    // Max generation of currently scheduled runnable, read from the background thread to cancel
+    // diffs that have been superseded by a newer list
+    private volatile int mMaxScheduledGeneration;
 
     /**
      * Convenience for {@code PagedListAdapterHelper(new ListAdapterHelper.AdapterCallback(adapter),
@@ -285,14 +287,31 @@ public class PagedListAdapterHelper<T> {
 
         final PagedList<T> oldSnapshot = mSnapshot;
         final PagedList<T> newSnapshot = (PagedList<T>) pagedList.snapshot();
+        final DiffCallback<T> diffCallback =
+                new ListAdapterHelper.CancellableDiffCallback<T>(mConfig.getDiffCallback()) {
+                    @Override
+                    protected boolean isCancelled() {
+                        return mMaxScheduledGeneration != runGeneration;
+                    }
+                };
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result;
-                result = PagedStorageDiffHelper.computeDiff(
-                        oldSnapshot.mStorage,
-                        newSnapshot.mStorage,
-                        mConfig.getDiffCallback());
+                if (mMaxScheduledGeneration != runGeneration) {
+                    // a newer list was set before this diff started, only that one is diffed
+                    return;
+                }
+
+                final PagedStorageDiffHelper.PagedDiffResult result;
+                try {
+                    result = PagedStorageDiffHelper.computeDiff(
+                            oldSnapshot.mStorage,
+                            newSnapshot.mStorage,
+                            diffCallback);
+                } catch (CancellationException e) {
+                    // superseded while computing, a newer diff has been scheduled
+                    return;
+                }
 
                 mConfig.getMainThreadExecutor().execute(new Runnable() {
                     @Override
@@ -308,7 +327,7 @@ public class PagedListAdapterHelper<T> {
 
     private void latchPagedList(
             PagedList<T> newList, PagedList<T> diffSnapshot,
-            DiffUtil.DiffResult diffResult) {
+            PagedStorageDiffHelper.PagedDiffResult diffResult) {
         if (mSnapshot == null || mPagedList != null) {
             throw new IllegalStateException("must be in snapshot state to apply diff");
         }
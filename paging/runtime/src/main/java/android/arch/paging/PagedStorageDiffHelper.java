@@ -21,26 +21,128 @@ import android.support.v7.recyclerview.extensions.DiffCallback;
 import android.support.v7.util.DiffUtil;
 import android.support.v7.util.ListUpdateCallback;
 
+import java.util.ArrayList;
+
+/**
+ * Diffs the PagedStorage of two generations of a PagedList, such as before and after the
+ * DataSource is invalidated.
+ * <p>
+ * Pages are not reused across generations: the new generation loads all of its pages from its
+ * DataSource, even the ones that didn't change. Invalidation covers a whole table, and loaded
+ * pages carry no version or content hash that could tell which of them are still valid without
+ * loading them again. Only the diffing of unchanged items and pages is skipped.
+ */
 class PagedStorageDiffHelper {
     private PagedStorageDiffHelper() {
     }
 
-    static <T> DiffUtil.DiffResult computeDiff(
+    /**
+     * Result of diffing two PagedStorages.
+     * <p>
+     * Items that are unchanged at the start and end of the loaded content are not passed to
+     * DiffUtil, so after an invalidation that only touches a few items, only the range around them
+     * is diffed. When the pages of both lists cover the same positions, unchanged pages within
+     * that range are skipped as well, and each run of changed pages is diffed separately.
+     */
+    static class PagedDiffResult {
+        // position of each diffed range within the loaded items of both lists, in order
+        final int[] starts;
+        final DiffUtil.DiffResult[] diffResults;
+
+        PagedDiffResult(int[] starts, DiffUtil.DiffResult[] diffResults) {
+            this.starts = starts;
+            this.diffResults = diffResults;
+        }
+    }
+
+    static <T> PagedDiffResult computeDiff(
             final PagedStorage<T> oldList,
             final PagedStorage<T> newList,
             final DiffCallback<T> diffCallback) {
         final int oldOffset = oldList.computeLeadingNulls();
         final int newOffset = newList.computeLeadingNulls();
 
-        final int oldSize = oldList.size() - oldOffset - oldList.computeTrailingNulls();
-        final int newSize = newList.size() - newOffset - newList.computeTrailingNulls();
+        final int oldLoadedSize = oldList.size() - oldOffset - oldList.computeTrailingNulls();
+        final int newLoadedSize = newList.size() - newOffset - newList.computeTrailingNulls();
+
+        // skip items that are unchanged at the start and end of both lists
+        final int maxUnchanged = Math.min(oldLoadedSize, newLoadedSize);
+        int prefix = 0;
+        while (prefix < maxUnchanged && isUnchanged(
+                oldList.get(oldOffset + prefix), newList.get(newOffset + prefix), diffCallback)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxUnchanged - prefix && isUnchanged(
+                oldList.get(oldOffset + oldLoadedSize - 1 - suffix),
+                newList.get(newOffset + newLoadedSize - 1 - suffix), diffCallback)) {
+            suffix++;
+        }
+
+        final int oldStart = oldOffset + prefix;
+        final int newStart = newOffset + prefix;
+        final int oldSize = oldLoadedSize - prefix - suffix;
+        final int newSize = newLoadedSize - prefix - suffix;
+
+        final int pageSize = oldList.getPageSize();
+        if (oldStart != newStart || oldSize != newSize || oldSize == 0
+                || !oldList.isTiled() || pageSize != newList.getPageSize()
+                || oldList.getLeadingNullCount() != newList.getLeadingNullCount()) {
+            // pages aren't aligned, diff the whole changed range
+            return new PagedDiffResult(new int[] {prefix}, new DiffUtil.DiffResult[] {
+                    diff(oldList, newList, oldStart, oldSize, newStart, newSize, diffCallback)});
+        }
+
+        // pages cover the same positions in both lists, so only runs of changed pages are diffed
+        final int pageOrigin = oldList.getLeadingNullCount();
+        final int end = oldStart + oldSize;
+        final ArrayList<DiffUtil.DiffResult> diffResults = new ArrayList<>();
+        final ArrayList<Integer> starts = new ArrayList<>();
+        int runStart = -1;
+        int pageStart = oldStart;
+        while (pageStart < end) {
+            final int pageEnd = Math.min(end,
+                    pageOrigin + ((pageStart - pageOrigin) / pageSize + 1) * pageSize);
+            boolean changed = false;
+            for (int i = pageStart; i < pageEnd && !changed; i++) {
+                changed = !isUnchanged(oldList.get(i), newList.get(i), diffCallback);
+            }
+            if (changed && runStart < 0) {
+                runStart = pageStart;
+            } else if (!changed && runStart >= 0) {
+                starts.add(runStart - oldOffset);
+                diffResults.add(diff(oldList, newList, runStart, pageStart - runStart,
+                        runStart, pageStart - runStart, diffCallback));
+                runStart = -1;
+            }
+            pageStart = pageEnd;
+        }
+        if (runStart >= 0) {
+            starts.add(runStart - oldOffset);
+            diffResults.add(diff(oldList, newList, runStart, end - runStart,
+                    runStart, end - runStart, diffCallback));
+        }
+
+        final int[] startArray = new int[starts.size()];
+        for (int i = 0; i < startArray.length; i++) {
+            startArray[i] = starts.get(i);
+        }
+        return new PagedDiffResult(startArray,
+                diffResults.toArray(new DiffUtil.DiffResult[diffResults.size()]));
+    }
 
+    private static <T> DiffUtil.DiffResult diff(
+            final PagedStorage<T> oldList,
+            final PagedStorage<T> newList,
+            final int oldStart, final int oldSize,
+            final int newStart, final int newSize,
+            final DiffCallback<T> diffCallback) {
         return DiffUtil.calculateDiff(new DiffUtil.Callback() {
             @Nullable
             @Override
             public Object getChangePayload(int oldItemPosition, int newItemPosition) {
-                T oldItem = oldList.get(oldItemPosition + oldOffset);
-                T newItem = newList.get(newItemPosition + newList.getLeadingNullCount());
+                T oldItem = oldList.get(oldItemPosition + oldStart);
+                T newItem = newList.get(newItemPosition + newStart);
                 if (oldItem == null || newItem == null) {
                     return null;
                 }
@@ -59,8 +161,8 @@ class PagedStorageDiffHelper {
 
             @Override
             public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                T oldItem = oldList.get(oldItemPosition + oldOffset);
-                T newItem = newList.get(newItemPosition + newList.getLeadingNullCount());
+                T oldItem = oldList.get(oldItemPosition + oldStart);
+                T newItem = newList.get(newItemPosition + newStart);
                 if (oldItem == newItem) {
                     return true;
                 }
@@ -73,8 +175,8 @@ class PagedStorageDiffHelper {
 
             @Override
             public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                T oldItem = oldList.get(oldItemPosition + oldOffset);
-                T newItem = newList.get(newItemPosition + newList.getLeadingNullCount());
+                T oldItem = oldList.get(oldItemPosition + oldStart);
+                T newItem = newList.get(newItemPosition + newStart);
                 if (oldItem == newItem) {
                     return true;
                 }
@@ -88,6 +190,19 @@ class PagedStorageDiffHelper {
         }, true);
     }
 
+    private static <T> boolean isUnchanged(@Nullable T oldItem, @Nullable T newItem,
+            DiffCallback<T> diffCallback) {
+        if (oldItem == newItem) {
+            return true;
+        }
+        //noinspection SimplifiableIfStatement
+        if (oldItem == null || newItem == null) {
+            return false;
+        }
+        return diffCallback.areItemsTheSame(oldItem, newItem)
+                && diffCallback.areContentsTheSame(oldItem, newItem);
+    }
+
     private static class OffsettingListUpdateCallback implements ListUpdateCallback {
         private final int mOffset;
         private final ListUpdateCallback mCallback;
@@ -109,7 +224,7 @@ class PagedStorageDiffHelper {
 
         @Override
         public void onMoved(int fromPosition, int toPosition) {
-            mCallback.onRemoved(fromPosition + mOffset, toPosition + mOffset);
+            mCallback.onMoved(fromPosition + mOffset, toPosition + mOffset);
         }
 
         @Override
@@ -133,7 +248,7 @@ class PagedStorageDiffHelper {
     static <T> void dispatchDiff(ListUpdateCallback callback,
             final PagedStorage<T> oldList,
             final PagedStorage<T> newList,
-            final DiffUtil.DiffResult diffResult) {
+            final PagedDiffResult pagedDiffResult) {
 
         final int trailingOld = oldList.computeTrailingNulls();
         final int trailingNew = newList.computeTrailingNulls();
@@ -145,7 +260,7 @@ class PagedStorageDiffHelper {
                 && leadingOld == 0
                 && leadingNew == 0) {
             // Simple case, dispatch & return
-            diffResult.dispatchUpdatesTo(callback);
+            dispatchRanges(callback, 0, pagedDiffResult);
             return;
         }
 
@@ -165,10 +280,20 @@ class PagedStorageDiffHelper {
         }
 
         // apply the diff, with an offset if needed
-        if (leadingNew != 0) {
-            diffResult.dispatchUpdatesTo(new OffsettingListUpdateCallback(leadingNew, callback));
-        } else {
-            diffResult.dispatchUpdatesTo(callback);
+        dispatchRanges(callback, leadingNew, pagedDiffResult);
+    }
+
+    private static void dispatchRanges(ListUpdateCallback callback, int leadingNulls,
+            PagedDiffResult pagedDiffResult) {
+        // last range first, so the updates of a range don't move the ones before it
+        for (int i = pagedDiffResult.diffResults.length - 1; i >= 0; i--) {
+            final int offset = leadingNulls + pagedDiffResult.starts[i];
+            if (offset != 0) {
+                pagedDiffResult.diffResults[i].dispatchUpdatesTo(
+                        new OffsettingListUpdateCallback(offset, callback));
+            } else {
+                pagedDiffResult.diffResults[i].dispatchUpdatesTo(callback);
+            }
         }
     }
 }
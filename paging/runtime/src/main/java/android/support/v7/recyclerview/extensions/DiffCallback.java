@@ -18,6 +18,7 @@ package android.support.v7.recyclerview.extensions;
 
 import android.arch.paging.PagedListAdapterHelper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 /**
  * Callback that informs {@link PagedListAdapterHelper} how to compute list updates when using
@@ -62,4 +63,25 @@ public abstract class DiffCallback<T> {
     public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
         return null;
     }
+
+    /**
+     * Called to get a key that uniquely identifies an item across lists, such as a database id.
+     * <p>
+     * If keys are returned, {@link ListAdapterHelper} matches old and new items by key with
+     * {@link android.support.v7.util.KeyedDiffUtil KeyedDiffUtil}, which takes
+     * O((N + M) log N) time however many items changed, instead of calling
+     * {@link #areItemsTheSame(Object, Object)} from {@link android.support.v7.util.DiffUtil}.
+     * <p>
+     * Either return a key for every item, or null for every item. If some items of a list have a
+     * key and others don't, the lists are diffed with DiffUtil. Default implementation returns
+     * {@code null}.
+     *
+     * @param item The item in the old or new list.
+     * @return The key of the item, or null to compare items with areItemsTheSame.
+     */
+    @SuppressWarnings("WeakerAccess")
+    @Nullable
+    public Object getItemKey(@NonNull T item) {
+        return null;
+    }
 }
@@ -17,12 +17,16 @@
 package android.support.v7.recyclerview.extensions;
 
 import android.arch.lifecycle.LiveData;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.RestrictTo;
 import android.support.v7.util.DiffUtil;
+import android.support.v7.util.KeyedDiffUtil;
 import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Helper object for displaying a List in {@link RecyclerView.Adapter RecyclerView.Adapter}, which
@@ -150,10 +154,66 @@ public class ListAdapterHelper<T> {
         }
     }
 
+    /**
+     * DiffCallback that wraps another, and aborts the diff it is used in by throwing a
+     * {@link CancellationException} once {@link #isCancelled()} returns true.
+     * <p>
+     * Used by AdapterHelpers to stop computing a diff as soon as a newer list has been set, instead
+     * of discarding the result after the whole diff is computed.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public abstract static class CancellableDiffCallback<T> extends DiffCallback<T> {
+        private final DiffCallback<T> mDiffCallback;
+
+        public CancellableDiffCallback(DiffCallback<T> diffCallback) {
+            mDiffCallback = diffCallback;
+        }
+
+        /**
+         * Called from the background thread before each comparison.
+         *
+         * @return True if the result of the diff is no longer needed.
+         */
+        protected abstract boolean isCancelled();
+
+        private void throwIfCancelled() {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+        }
+
+        @Override
+        public boolean areItemsTheSame(@NonNull T oldItem, @NonNull T newItem) {
+            throwIfCancelled();
+            return mDiffCallback.areItemsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem) {
+            throwIfCancelled();
+            return mDiffCallback.areContentsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
+            throwIfCancelled();
+            return mDiffCallback.getChangePayload(oldItem, newItem);
+        }
+
+        @Override
+        public Object getItemKey(@NonNull T item) {
+            throwIfCancelled();
+            return mDiffCallback.getItemKey(item);
+        }
+    }
+
     private List<T> mList;
 
-    // Max generation of currently scheduled runnable
-    private int mMaxScheduledGeneration;
+    // Max generation of currently scheduled runnable, read from the background thread to cancel
+    // diffs that have been superseded by a newer list
+    private volatile int mMaxScheduledGeneration;
 
 
     /**
@@ -216,10 +276,95 @@ public class ListAdapterHelper<T> {
         }
 
         final List<T> oldList = mList;
+        final DiffCallback<T> diffCallback =
+                new CancellableDiffCallback<T>(mConfig.getDiffCallback()) {
+                    @Override
+                    protected boolean isCancelled() {
+                        return mMaxScheduledGeneration != runGeneration;
+                    }
+                };
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                if (mMaxScheduledGeneration != runGeneration) {
+                    // a newer list was set before this diff started, only that one is diffed
+                    return;
+                }
+
+                final DiffUtil.DiffResult result;
+                final KeyedDiffUtil.DiffResult keyedResult;
+                try {
+                    KeyedDiffUtil.DiffResult keyed = null;
+                    if (hasItemKeys(diffCallback, oldList, newList)) {
+                        // returns null if some items have no key, those can only be matched
+                        // with areItemsTheSame
+                        keyed = calculateKeyedDiff(diffCallback, oldList, newList);
+                    }
+                    keyedResult = keyed;
+                    result = keyed == null ? calculateDiff(diffCallback, oldList, newList) : null;
+                } catch (CancellationException e) {
+                    // superseded while computing, a newer diff has been scheduled
+                    return;
+                }
+
+                mConfig.getMainThreadExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mMaxScheduledGeneration == runGeneration) {
+                            latchList(newList, result, keyedResult);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static <T> boolean hasItemKeys(DiffCallback<T> diffCallback, List<T> oldList,
+            List<T> newList) {
+        // the first key decides whether to try the keyed diff, which checks the other keys
+        if (!oldList.isEmpty()) {
+            return diffCallback.getItemKey(oldList.get(0)) != null;
+        }
+        return !newList.isEmpty() && diffCallback.getItemKey(newList.get(0)) != null;
+    }
+
+    private static <T> DiffUtil.DiffResult calculateDiff(final DiffCallback<T> diffCallback,
+            final List<T> oldList, final List<T> newList) {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return diffCallback.areItemsTheSame(
+                        oldList.get(oldItemPosition), newList.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return diffCallback.areContentsTheSame(
+                        oldList.get(oldItemPosition), newList.get(newItemPosition));
+            }
+        });
+    }
+
+    /**
+     * Returns null if an item has no key, as the lists can then only be diffed with
+     * {@link DiffUtil}.
+     */
+    @Nullable
+    private static <T> KeyedDiffUtil.DiffResult calculateKeyedDiff(
+            final DiffCallback<T> diffCallback, final List<T> oldList, final List<T> newList) {
+        final boolean[] missingKey = new boolean[1];
+        final KeyedDiffUtil.DiffResult result = KeyedDiffUtil.calculateDiff(
+                new KeyedDiffUtil.Callback() {
                     @Override
                     public int getOldListSize() {
                         return oldList.size();
@@ -231,32 +376,45 @@ public class ListAdapterHelper<T> {
                     }
 
                     @Override
-                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                        return mConfig.getDiffCallback().areItemsTheSame(
-                                oldList.get(oldItemPosition), newList.get(newItemPosition));
+                    public Object getOldItemKey(int oldItemPosition) {
+                        return getKey(oldList.get(oldItemPosition));
+                    }
+
+                    @Override
+                    public Object getNewItemKey(int newItemPosition) {
+                        return getKey(newList.get(newItemPosition));
+                    }
+
+                    private Object getKey(T item) {
+                        final Object key = diffCallback.getItemKey(item);
+                        if (key == null) {
+                            missingKey[0] = true;
+                        }
+                        return key;
                     }
 
                     @Override
                     public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                        return mConfig.getDiffCallback().areContentsTheSame(
+                        return diffCallback.areContentsTheSame(
                                 oldList.get(oldItemPosition), newList.get(newItemPosition));
                     }
-                });
 
-                mConfig.getMainThreadExecutor().execute(new Runnable() {
                     @Override
-                    public void run() {
-                        if (mMaxScheduledGeneration == runGeneration) {
-                            latchList(newList, result);
-                        }
+                    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+                        return diffCallback.getChangePayload(
+                                oldList.get(oldItemPosition), newList.get(newItemPosition));
                     }
                 });
-            }
-        });
+        return missingKey[0] ? null : result;
     }
 
-    private void latchList(List<T> newList, DiffUtil.DiffResult diffResult) {
-        diffResult.dispatchUpdatesTo(mUpdateCallback);
+    private void latchList(List<T> newList, @Nullable DiffUtil.DiffResult diffResult,
+            @Nullable KeyedDiffUtil.DiffResult keyedDiffResult) {
+        if (keyedDiffResult != null) {
+            keyedDiffResult.dispatchUpdatesTo(mUpdateCallback);
+        } else {
+            diffResult.dispatchUpdatesTo(mUpdateCallback);
+        }
         mList = newList;
     }
 }
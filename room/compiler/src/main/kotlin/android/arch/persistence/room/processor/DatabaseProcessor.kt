@@ -16,6 +16,7 @@
 
 package android.arch.persistence.room.processor
 
+import android.arch.persistence.room.Query
 import android.arch.persistence.room.SkipQueryVerification
 import android.arch.persistence.room.ext.RoomTypeNames
 import android.arch.persistence.room.ext.getAsBoolean
@@ -79,7 +80,7 @@ class DatabaseProcessor(baseContext: Context, val element: TypeElement) {
         context.databaseVerifier = dbVerifier
 
         val declaredType = MoreTypes.asDeclared(element.asType())
-        val daoMethods = allMembers.filter {
+        val daoMethodElements = allMembers.filter {
             it.hasAnyOf(Modifier.ABSTRACT) && it.kind == ElementKind.METHOD
         }.filterNot {
             // remove methods that belong to room
@@ -87,10 +88,13 @@ class DatabaseProcessor(baseContext: Context, val element: TypeElement) {
             MoreElements.isType(containing) &&
                     TypeName.get(containing.asType()) == RoomTypeNames.ROOM_DB
         }.map {
-            val executable = MoreElements.asExecutable(it)
-            // TODO when we add support for non Dao return types (e.g. database), this code needs
-            // to change
-            val daoType = MoreTypes.asTypeElement(executable.returnType)
+            MoreElements.asExecutable(it)
+        }
+        // TODO when we add support for non Dao return types (e.g. database), this code needs
+        // to change
+        val daoTypes = daoMethodElements.map { MoreTypes.asTypeElement(it.returnType) }
+        dbVerifier?.prepare(collectVerifiableQueries(daoTypes))
+        val daoMethods = daoMethodElements.zip(daoTypes) { executable, daoType ->
             val dao = DaoProcessor(context, daoType, declaredType, dbVerifier).process()
             DaoMethod(executable, executable.simpleName.toString(), dao)
         }
@@ -114,6 +118,25 @@ class DatabaseProcessor(baseContext: Context, val element: TypeElement) {
         return database
     }
 
+    /**
+     * Reads the queries of the given DAOs that will be verified so that the verifier can analyze
+     * them in parallel before the DAOs are processed one by one.
+     */
+    private fun collectVerifiableQueries(daoTypes: List<TypeElement>): List<String> {
+        return daoTypes.distinct().filterNot {
+            it.hasAnnotation(SkipQueryVerification::class)
+        }.flatMap { daoType ->
+            context.processingEnv.elementUtils.getAllMembers(daoType).filter {
+                it.kind == ElementKind.METHOD && it.hasAnnotation(Query::class)
+                        && !it.hasAnnotation(SkipQueryVerification::class)
+            }.mapNotNull {
+                MoreElements.getAnnotationMirror(it, Query::class.java).orNull()
+            }.map {
+                AnnotationMirrors.getAnnotationValue(it, "value").value.toString()
+            }
+        }
+    }
+
     private fun validateForeignKeys(element: TypeElement, entities: List<Entity>) {
         val byTableName = entities.associateBy { it.tableName }
         entities.forEach { entity ->
@@ -17,6 +17,7 @@
 package android.arch.persistence.room.solver.query.result
 
 import android.arch.persistence.room.ext.L
+import android.arch.persistence.room.ext.N
 import android.arch.persistence.room.ext.S
 import android.arch.persistence.room.ext.T
 import android.arch.persistence.room.processor.Context
@@ -29,6 +30,7 @@ import android.arch.persistence.room.vo.Pojo
 import android.arch.persistence.room.vo.RelationCollector
 import android.arch.persistence.room.vo.Warning
 import android.arch.persistence.room.writer.FieldReadWriteWriter
+import android.arch.persistence.room.writer.PojoCursorConverterWriter
 import com.squareup.javapoet.TypeName
 import stripNonJava
 import javax.lang.model.type.TypeMirror
@@ -112,6 +114,20 @@ class PojoRowAdapter(context: Context, val info: QueryResultInfo,
     }
 
     override fun convert(outVarName: String, cursorVarName: String, scope: CodeGenScope) {
+        if (relationCollectors.isEmpty()) {
+            // delegate to a converter shared by all queries reading the same fields. Fields are
+            // ordered as declared in the pojo so that the column order of the query does not
+            // matter.
+            val fieldsWithIndices = mapping.fieldsWithIndices.sortedBy {
+                pojo.fields.indexOf(it.field)
+            }
+            val methodSpec = scope.writer.getOrCreateMethod(
+                    PojoCursorConverterWriter(pojo, fieldsWithIndices.map { it.field }))
+            val args = listOf(cursorVarName) + fieldsWithIndices.map { it.indexVar }
+            scope.builder().addStatement("$L = $N($L)", outVarName, methodSpec,
+                    args.joinToString(", "))
+            return
+        }
         scope.builder().apply {
             FieldReadWriteWriter.readFromCursor(
                     outVar = outVarName,
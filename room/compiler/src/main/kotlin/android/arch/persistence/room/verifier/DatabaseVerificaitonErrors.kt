@@ -35,6 +35,12 @@ object DatabaseVerificaitonErrors {
         return CANNOT_CREATE_SQLITE_CONNECTION.format(exception.message)
     }
 
+    private val CANNOT_VERIFY_QUERIES_IN_PARALLEL : String = "Room cannot verify some of the" +
+            " queries in parallel, they will be verified one at a time. Error: %s"
+    fun cannotVerifyQueriesInParallel(throwable: Throwable) : String {
+        return CANNOT_VERIFY_QUERIES_IN_PARALLEL.format(throwable.message)
+    }
+
     val CANNOT_GET_TMP_JAVA_DIR = "Cannot read tmp java dir which is necessary to load sqlite" +
             " lib. Database SQL verification will be disabled"
 }
@@ -26,16 +26,26 @@ import java.sql.Connection
 import java.sql.DriverManager
 import java.sql.SQLException
 import java.util.UUID
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 import javax.lang.model.element.Element
 
 /**
  * Builds an in-memory version of the database and verifies the queries against it.
  * This class is also used to resolve the return types.
+ * <p>
+ * Queries that are known upfront can be verified in parallel via {@link #prepare}. Each worker
+ * uses its own in-memory connection since a JDBC connection cannot be shared between threads.
  */
 class DatabaseVerifier private constructor(
         val connection : Connection, val context : Context, val entities : List<Entity>) {
     companion object {
         private const val CONNECTION_URL = "jdbc:sqlite::memory:"
+        // below this many queries, creating the extra databases costs more than it saves.
+        private const val MIN_QUERIES_PER_WORKER = 8
+        private const val MAX_WORKERS = 8
 
         init {
             // see: https://github.com/xerial/sqlite-jdbc/issues/97
@@ -81,22 +91,84 @@ class DatabaseVerifier private constructor(
             }
         }
     }
+    // results of the queries verified by prepare
+    private val preparedResults = ConcurrentHashMap<String, QueryResultInfo>()
+
     init {
+        createTables(connection)
+    }
+
+    private fun createTables(conn : Connection) {
         entities.forEach { entity ->
-            val stmt = connection.createStatement()
+            val stmt = conn.createStatement()
             stmt.executeUpdate(entity.createTableQuery)
         }
     }
 
     fun analyze(sql : String) : QueryResultInfo {
+        return preparedResults[sql] ?: analyze(connection, sql)
+    }
+
+    private fun analyze(conn : Connection, sql : String) : QueryResultInfo {
         return try {
-            val stmt = connection.prepareStatement(sql)
+            val stmt = conn.prepareStatement(sql)
             QueryResultInfo(stmt.columnInfo())
         } catch (ex : SQLException) {
             QueryResultInfo(emptyList(), ex)
         }
     }
 
+    /**
+     * Verifies the given queries in parallel on a pool of connections so that subsequent
+     * {@link #analyze} calls for them return immediately.
+     * <p>
+     * If a worker fails, for instance because its connection cannot be created, a warning is
+     * reported and its remaining queries are left to be analyzed lazily on the main connection.
+     */
+    fun prepare(queries : Collection<String>) {
+        val pending = queries.filterNot { preparedResults.containsKey(it) }.distinct()
+        val workerCount = Math.min(Math.min(MAX_WORKERS,
+                Runtime.getRuntime().availableProcessors()),
+                pending.size / MIN_QUERIES_PER_WORKER)
+        if (workerCount < 2) {
+            return
+        }
+        val executor = Executors.newFixedThreadPool(workerCount)
+        try {
+            val tasks = (0 until workerCount).map { worker ->
+                pending.filterIndexed { index, _ -> index % workerCount == worker }
+            }.map { chunk ->
+                Callable {
+                    val conn = JDBC.createConnection(CONNECTION_URL, java.util.Properties())
+                    try {
+                        createTables(conn)
+                        chunk.forEach { sql ->
+                            preparedResults[sql] = analyze(conn, sql)
+                        }
+                    } finally {
+                        conn.close()
+                    }
+                }
+            }
+            val failure = executor.invokeAll(tasks).mapNotNull { future ->
+                try {
+                    future.get()
+                    null
+                } catch (ex : ExecutionException) {
+                    ex.cause ?: ex
+                } catch (t : Throwable) {
+                    t
+                }
+            }.firstOrNull()
+            if (failure != null) {
+                context.logger.w(Warning.CANNOT_CREATE_VERIFICATION_DATABASE,
+                        DatabaseVerificaitonErrors.cannotVerifyQueriesInParallel(failure))
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
     fun closeConnection(context: Context) {
         if (!connection.isClosed) {
             try {
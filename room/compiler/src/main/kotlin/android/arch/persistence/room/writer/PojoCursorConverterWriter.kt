@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.arch.persistence.room.writer
+
+import android.arch.persistence.room.ext.AndroidTypeNames
+import android.arch.persistence.room.ext.L
+import android.arch.persistence.room.ext.T
+import android.arch.persistence.room.solver.CodeGenScope
+import android.arch.persistence.room.solver.types.CompositeAdapter
+import android.arch.persistence.room.solver.types.CompositeTypeConverter
+import android.arch.persistence.room.solver.types.CursorValueReader
+import android.arch.persistence.room.solver.types.CustomTypeConverterWrapper
+import android.arch.persistence.room.solver.types.TypeConverter
+import android.arch.persistence.room.vo.Field
+import android.arch.persistence.room.vo.FieldWithIndex
+import android.arch.persistence.room.vo.Pojo
+import com.squareup.javapoet.CodeBlock
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.TypeName
+import stripNonJava
+import javax.lang.model.element.Modifier.PRIVATE
+
+/**
+ * Writes a method that reads a Pojo from the current row of a cursor.
+ * <p>
+ * The column indices are passed as parameters so that all queries which read the same fields of
+ * the same Pojo can share the method, regardless of the column order in their result.
+ */
+class PojoCursorConverterWriter(val pojo: Pojo, val fields: List<Field>)
+    : ClassWriter.SharedMethodSpec(
+        "pojoCursorConverter_${pojo.typeName.toString().stripNonJava()}") {
+    override fun getUniqueKey(): String {
+        // the same pojo type might be processed with different type converters so the way each
+        // field is read is part of the key.
+        return "generic_pojo_converter_of_${pojo.typeName}_" +
+                fields.joinToString(",") { "${it.getPath()}:${readerKey(it.cursorValueReader)}" }
+    }
+
+    override fun prepare(writer: ClassWriter, builder: MethodSpec.Builder) {
+        val scope = CodeGenScope(writer)
+        val cursorParam = ParameterSpec
+                .builder(AndroidTypeNames.CURSOR, "cursor").build()
+        val fieldsWithIndices = fields.map {
+            val indexVar = scope.getTmpVar("_cursorIndexOf${it.name.stripNonJava().capitalize()}")
+            FieldWithIndex(field = it, indexVar = indexVar, alwaysExists = true)
+        }
+        builder.apply {
+            addParameter(cursorParam)
+            fieldsWithIndices.forEach {
+                addParameter(TypeName.INT, it.indexVar)
+            }
+            addModifiers(PRIVATE)
+            returns(pojo.typeName)
+            addCode(buildConvertMethodBody(scope, cursorParam, fieldsWithIndices))
+        }
+    }
+
+    private fun buildConvertMethodBody(scope: CodeGenScope, cursorParam: ParameterSpec,
+                                       fieldsWithIndices: List<FieldWithIndex>): CodeBlock {
+        val pojoVar = scope.getTmpVar("_pojo")
+        scope.builder().apply {
+            addStatement("final $T $L", pojo.typeName, pojoVar)
+            FieldReadWriteWriter.readFromCursor(
+                    outVar = pojoVar,
+                    outPojo = pojo,
+                    cursorVar = cursorParam.name,
+                    fieldsWithIndices = fieldsWithIndices,
+                    relationCollectors = emptyList(), // relations are read by the query method
+                    scope = scope)
+            addStatement("return $L", pojoVar)
+        }
+        return scope.builder().build()
+    }
+
+    companion object {
+        private fun readerKey(reader: CursorValueReader?): String = when (reader) {
+            null -> "none"
+            is CompositeAdapter -> "${readerKey(reader.columnTypeAdapter)}" +
+                    ">${converterKey(reader.fromCursorConverter)}"
+            else -> "${reader.javaClass.simpleName}<${reader.typeMirror()}>"
+        }
+
+        private fun converterKey(converter: TypeConverter?): String = when (converter) {
+            null -> "none"
+            is CompositeTypeConverter -> "${converterKey(converter.conv1)}" +
+                    ">${converterKey(converter.conv2)}"
+            is CustomTypeConverterWrapper ->
+                "${converter.custom.typeName}.${converter.custom.methodName}"
+            else -> "${converter.javaClass.simpleName}<${converter.from},${converter.to}>"
+        }
+    }
+}
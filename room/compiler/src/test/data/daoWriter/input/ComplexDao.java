@@ -39,6 +39,9 @@ abstract class ComplexDao {
     @Query("SELECT name || lastName as fullName, uid as id FROM user where uid = :id")
     abstract public List<FullName> fullNames(int id);
 
+    @Query("SELECT uid as id, name || lastName as fullName FROM user where uid = :id")
+    abstract public List<FullName> fullNamesIdFirst(int id);
+
     @Query("SELECT * FROM user where uid = :id")
     abstract public User getById(int id);
 
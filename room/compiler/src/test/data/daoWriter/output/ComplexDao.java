@@ -51,9 +51,30 @@ public class ComplexDao_Impl extends ComplexDao {
             final List<ComplexDao.FullName> _result = new ArrayList<ComplexDao.FullName>(_cursor.getCount());
             while(_cursor.moveToNext()) {
                 final ComplexDao.FullName _item;
-                _item = new ComplexDao.FullName();
-                _item.fullName = _cursor.getString(_cursorIndexOfFullName);
-                _item.id = _cursor.getInt(_cursorIndexOfId);
+                _item = __pojoCursorConverter_fooBarComplexDaoFullName(_cursor, _cursorIndexOfId, _cursorIndexOfFullName);
+                _result.add(_item);
+            }
+            return _result;
+        } finally {
+            _cursor.close();
+            _statement.release();
+        }
+    }
+
+    @Override
+    public List<ComplexDao.FullName> fullNamesIdFirst(int id) {
+        final String _sql = "SELECT uid as id, name || lastName as fullName FROM user where uid = ?";
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 1);
+        int _argIndex = 1;
+        _statement.bindLong(_argIndex, id);
+        final Cursor _cursor = __db.query(_statement);
+        try {
+            final int _cursorIndexOfId = _cursor.getColumnIndexOrThrow("id");
+            final int _cursorIndexOfFullName = _cursor.getColumnIndexOrThrow("fullName");
+            final List<ComplexDao.FullName> _result = new ArrayList<ComplexDao.FullName>(_cursor.getCount());
+            while(_cursor.moveToNext()) {
+                final ComplexDao.FullName _item;
+                _item = __pojoCursorConverter_fooBarComplexDaoFullName(_cursor, _cursorIndexOfId, _cursorIndexOfFullName);
                 _result.add(_item);
             }
             return _result;
@@ -77,13 +98,7 @@ public class ComplexDao_Impl extends ComplexDao {
             final int _cursorIndexOfAge = _cursor.getColumnIndexOrThrow("ageColumn");
             final User _result;
             if(_cursor.moveToFirst()) {
-                _result = new User();
-                _result.uid = _cursor.getInt(_cursorIndexOfUid);
-                _result.name = _cursor.getString(_cursorIndexOfName);
-                final String _tmpLastName;
-                _tmpLastName = _cursor.getString(_cursorIndexOfLastName);
-                _result.setLastName(_tmpLastName);
-                _result.age = _cursor.getInt(_cursorIndexOfAge);
+                _result = __pojoCursorConverter_fooBarUser(_cursor, _cursorIndexOfUid, _cursorIndexOfName, _cursorIndexOfLastName, _cursorIndexOfAge);
             } else {
                 _result = null;
             }
@@ -118,13 +133,7 @@ public class ComplexDao_Impl extends ComplexDao {
             final int _cursorIndexOfAge = _cursor.getColumnIndexOrThrow("ageColumn");
             final User _result;
             if(_cursor.moveToFirst()) {
-                _result = new User();
-                _result.uid = _cursor.getInt(_cursorIndexOfUid);
-                _result.name = _cursor.getString(_cursorIndexOfName);
-                final String _tmpLastName;
-                _tmpLastName = _cursor.getString(_cursorIndexOfLastName);
-                _result.setLastName(_tmpLastName);
-                _result.age = _cursor.getInt(_cursorIndexOfAge);
+                _result = __pojoCursorConverter_fooBarUser(_cursor, _cursorIndexOfUid, _cursorIndexOfName, _cursorIndexOfLastName, _cursorIndexOfAge);
             } else {
                 _result = null;
             }
@@ -159,13 +168,7 @@ public class ComplexDao_Impl extends ComplexDao {
             final List<User> _result = new ArrayList<User>(_cursor.getCount());
             while(_cursor.moveToNext()) {
                 final User _item_1;
-                _item_1 = new User();
-                _item_1.uid = _cursor.getInt(_cursorIndexOfUid);
-                _item_1.name = _cursor.getString(_cursorIndexOfName);
-                final String _tmpLastName;
-                _tmpLastName = _cursor.getString(_cursorIndexOfLastName);
-                _item_1.setLastName(_tmpLastName);
-                _item_1.age = _cursor.getInt(_cursorIndexOfAge);
+                _item_1 = __pojoCursorConverter_fooBarUser(_cursor, _cursorIndexOfUid, _cursorIndexOfName, _cursorIndexOfLastName, _cursorIndexOfAge);
                 _result.add(_item_1);
             }
             return _result;
@@ -294,13 +297,7 @@ public class ComplexDao_Impl extends ComplexDao {
                     final int _cursorIndexOfAge = _cursor.getColumnIndexOrThrow("ageColumn");
                     final User _result;
                     if(_cursor.moveToFirst()) {
-                        _result = new User();
-                        _result.uid = _cursor.getInt(_cursorIndexOfUid);
-                        _result.name = _cursor.getString(_cursorIndexOfName);
-                        final String _tmpLastName;
-                        _tmpLastName = _cursor.getString(_cursorIndexOfLastName);
-                        _result.setLastName(_tmpLastName);
-                        _result.age = _cursor.getInt(_cursorIndexOfAge);
+                        _result = __pojoCursorConverter_fooBarUser(_cursor, _cursorIndexOfUid, _cursorIndexOfName, _cursorIndexOfLastName, _cursorIndexOfAge);
                     } else {
                         _result = null;
                     }
@@ -355,13 +352,7 @@ public class ComplexDao_Impl extends ComplexDao {
                     final List<User> _result = new ArrayList<User>(_cursor.getCount());
                     while(_cursor.moveToNext()) {
                         final User _item_1;
-                        _item_1 = new User();
-                        _item_1.uid = _cursor.getInt(_cursorIndexOfUid);
-                        _item_1.name = _cursor.getString(_cursorIndexOfName);
-                        final String _tmpLastName;
-                        _tmpLastName = _cursor.getString(_cursorIndexOfLastName);
-                        _item_1.setLastName(_tmpLastName);
-                        _item_1.age = _cursor.getInt(_cursorIndexOfAge);
+                        _item_1 = __pojoCursorConverter_fooBarUser(_cursor, _cursorIndexOfUid, _cursorIndexOfName, _cursorIndexOfLastName, _cursorIndexOfAge);
                         _result.add(_item_1);
                     }
                     return _result;
@@ -430,4 +421,26 @@ public class ComplexDao_Impl extends ComplexDao {
             _statement.release();
         }
     }
+
+    private ComplexDao.FullName __pojoCursorConverter_fooBarComplexDaoFullName(Cursor cursor,
+            int _cursorIndexOfId, int _cursorIndexOfFullName) {
+        final ComplexDao.FullName _pojo;
+        _pojo = new ComplexDao.FullName();
+        _pojo.id = cursor.getInt(_cursorIndexOfId);
+        _pojo.fullName = cursor.getString(_cursorIndexOfFullName);
+        return _pojo;
+    }
+
+    private User __pojoCursorConverter_fooBarUser(Cursor cursor, int _cursorIndexOfUid,
+            int _cursorIndexOfName, int _cursorIndexOfLastName, int _cursorIndexOfAge) {
+        final User _pojo;
+        _pojo = new User();
+        _pojo.uid = cursor.getInt(_cursorIndexOfUid);
+        _pojo.name = cursor.getString(_cursorIndexOfName);
+        final String _tmpLastName;
+        _tmpLastName = cursor.getString(_cursorIndexOfLastName);
+        _pojo.setLastName(_tmpLastName);
+        _pojo.age = cursor.getInt(_cursorIndexOfAge);
+        return _pojo;
+    }
 }
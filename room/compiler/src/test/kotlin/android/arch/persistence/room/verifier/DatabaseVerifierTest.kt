@@ -162,6 +162,24 @@ class DatabaseVerifierTest {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testPreparedQueries() {
+        simpleRun { invocation ->
+            val queries = (0 until 40).map { "select id, name as alias$it from User" } +
+                    "select foo from User"
+            val expected = createVerifier(invocation).let { verifier ->
+                queries.map { verifier.analyze(it) }
+            }
+            val verifier = createVerifier(invocation)
+            verifier.prepare(queries)
+            queries.forEachIndexed { index, sql ->
+                val info = verifier.analyze(sql)
+                assertThat(info.columns, `is`(expected[index].columns))
+                assertThat(info.error == null, `is`(expected[index].error == null))
+            }
+        }.compilesWithoutError()
+    }
+
     private fun validQueryTest(sql: String, cb: (QueryResultInfo) -> Unit) {
         simpleRun { invocation ->
             val verifier = createVerifier(invocation)
@@ -16,12 +16,15 @@
 
 package android.support.v7.util;
 
+import android.support.annotation.Nullable;
 import android.support.annotation.UiThread;
 import android.support.annotation.WorkerThread;
 import android.util.Log;
 import android.util.SparseBooleanArray;
 import android.util.SparseIntArray;
 
+import java.util.concurrent.Executor;
+
 /**
  * A utility class that supports asynchronous content loading.
  * <p>
@@ -36,8 +39,10 @@ import android.util.SparseIntArray;
  * {@link ViewCallback} when the data is loaded. It may load some extra items for smoother
  * scrolling.
  * <p>
- * Note that this class uses a single thread to load the data, so it suitable to load data from
- * secondary storage such as disk, but not from network.
+ * Note that by default this class uses a single thread to load the data, so it suitable to load
+ * data from secondary storage such as disk, but not from network. Use
+ * {@link #AsyncListUtil(Class, int, DataCallback, ViewCallback, Executor, int)} to load multiple
+ * tiles at once.
  * <p>
  * This class is designed to work with {@link android.support.v7.widget.RecyclerView}, but it does
  * not depend on it and can be used with other list views.
@@ -53,6 +58,13 @@ public class AsyncListUtil<T> {
     final DataCallback<T> mDataCallback;
     final ViewCallback mViewCallback;
 
+    // Runs DataCallback#fillData for up to mMaxConcurrentLoads tiles at once, or null to fill
+    // tiles on the background thread
+    final Executor mLoadExecutor;
+    final int mMaxConcurrentLoads;
+    // Tiles waiting for and taking a load on mLoadExecutor, null if there is no executor
+    final TileLoadQueue mLoadQueue;
+
     final TileList<T> mTileList;
 
     final ThreadUtil.MainThreadCallback<T> mMainThreadProxy;
@@ -72,6 +84,9 @@ public class AsyncListUtil<T> {
 
     final SparseIntArray mMissingPositions = new SparseIntArray();
 
+    int mItemHitCount;
+    int mItemMissCount;
+
     void log(String s, Object... args) {
         Log.d(TAG, "[MAIN] " + String.format(s, args));
     }
@@ -86,10 +101,38 @@ public class AsyncListUtil<T> {
      */
     public AsyncListUtil(Class<T> klass, int tileSize, DataCallback<T> dataCallback,
                          ViewCallback viewCallback) {
+        this(klass, tileSize, dataCallback, viewCallback, null, 1);
+    }
+
+    /**
+     * Creates an AsyncListUtil that loads multiple tiles at once on the given executor.
+     * <p>
+     * {@link DataCallback#fillData(Object[], int, int)} is called on the executor, for up to
+     * <code>maxConcurrentLoads</code> tiles at the same time, so it has to be thread safe. The
+     * other {@link DataCallback} methods are still called on a single background thread. Tiles
+     * that leave the extended range (see {@link ViewCallback#extendRangeInto}) before their load
+     * starts are not loaded.
+     *
+     * @param klass Class of the data item.
+     * @param tileSize Number of item per chunk loaded at once.
+     * @param dataCallback Data access callback.
+     * @param viewCallback Callback for querying visible item range and update notifications.
+     * @param loadExecutor Executor to fill tiles on, or null to fill them one at a time on the
+     *                     background thread.
+     * @param maxConcurrentLoads Maximum number of tiles filled at the same time.
+     */
+    public AsyncListUtil(Class<T> klass, int tileSize, DataCallback<T> dataCallback,
+            ViewCallback viewCallback, @Nullable Executor loadExecutor, int maxConcurrentLoads) {
+        if (maxConcurrentLoads < 1) {
+            throw new IllegalArgumentException("maxConcurrentLoads must be positive");
+        }
         mTClass = klass;
         mTileSize = tileSize;
         mDataCallback = dataCallback;
         mViewCallback = viewCallback;
+        mLoadExecutor = loadExecutor;
+        mMaxConcurrentLoads = loadExecutor == null ? 1 : maxConcurrentLoads;
+        mLoadQueue = loadExecutor == null ? null : new TileLoadQueue(mMaxConcurrentLoads);
 
         mTileList = new TileList<T>(mTileSize);
 
@@ -152,12 +195,32 @@ public class AsyncListUtil<T> {
             throw new IndexOutOfBoundsException(position + " is not within 0 and " + mItemCount);
         }
         T item = mTileList.getItemAt(position);
-        if (item == null && !isRefreshPending()) {
-            mMissingPositions.put(position, 0);
+        if (item != null) {
+            mItemHitCount++;
+        } else {
+            mItemMissCount++;
+            if (!isRefreshPending()) {
+                mMissingPositions.put(position, 0);
+            }
         }
         return item;
     }
 
+    /**
+     * Returns the number of times {@link #getItem(int)} returned a loaded item.
+     */
+    public int getItemHitCount() {
+        return mItemHitCount;
+    }
+
+    /**
+     * Returns the number of times {@link #getItem(int)} returned <code>null</code>, because the
+     * item was not loaded yet.
+     */
+    public int getItemMissCount() {
+        return mItemMissCount;
+    }
+
     /**
      * Returns the number of items in the data set.
      *
@@ -293,16 +356,25 @@ public class AsyncListUtil<T> {
 
         final SparseBooleanArray mLoadedTiles = new SparseBooleanArray();
 
-        private int mGeneration;
+        // When each loaded tile was last required, to evict the least recently used tile first
+        final SparseIntArray mTileLastRequired = new SparseIntArray();
+        private int mRequestCount;
+
+        // Read by the loads on mLoadExecutor, to skip tiles that are no longer required
+        private volatile int mGeneration;
         private int mItemCount;
 
-        private int mFirstRequiredTileStart;
-        private int mLastRequiredTileStart;
+        private volatile int mFirstRequiredTileStart;
+        private volatile int mLastRequiredTileStart;
 
         @Override
         public void refresh(int generation) {
             mGeneration = generation;
             mLoadedTiles.clear();
+            mTileLastRequired.clear();
+            if (mLoadQueue != null) {
+                mLoadQueue.clear();
+            }
             mItemCount = mDataCallback.refreshData();
             mMainThreadProxy.updateItemCount(mGeneration, mItemCount);
         }
@@ -329,8 +401,12 @@ public class AsyncListUtil<T> {
                         mFirstRequiredTileStart, mLastRequiredTileStart);
             }
 
-            // All pending tile requests are removed by ThreadUtil at this point.
-            // Re-request all required tiles in the most optimal order.
+            // All pending tile requests are removed by ThreadUtil at this point, and tiles that
+            // wait for a free load are dropped. Re-request all required tiles in the most optimal
+            // order.
+            if (mLoadQueue != null) {
+                mLoadQueue.clearPendingTiles();
+            }
             if (scrollHint == ViewCallback.HINT_SCROLL_DESC) {
                 requestTiles(mFirstRequiredTileStart, lastVisibleTileStart, scrollHint, true);
                 requestTiles(lastVisibleTileStart + mTileSize, mLastRequiredTileStart, scrollHint,
@@ -360,24 +436,96 @@ public class AsyncListUtil<T> {
         @Override
         public void loadTile(int position, int scrollHint) {
             if (isTileLoaded(position)) {
+                mTileLastRequired.put(position, ++mRequestCount);
                 if (DEBUG) {
                     log("already loaded tile @%d", position);
                 }
                 return;
             }
+            if (mLoadExecutor != null) {
+                mLoadQueue.addPendingTile(position);
+                startPendingLoads();
+                return;
+            }
             TileList.Tile<T> tile = acquireTile();
             tile.mStartPosition = position;
             tile.mItemCount = Math.min(mTileSize, mItemCount - tile.mStartPosition);
             mDataCallback.fillData(tile.mItems, tile.mStartPosition, tile.mItemCount);
-            flushTileCache(scrollHint);
+            flushTileCache();
             addTile(tile);
         }
 
+        @Override
+        public void addLoadedTile(int generation, TileList.Tile<T> tile) {
+            final int position = tile.mStartPosition;
+            mLoadQueue.finishLoad(position, generation == mGeneration);
+            if (generation != mGeneration) {
+                // Refreshed while loading.
+                releaseTile(tile);
+            } else {
+                if (tile.mItemCount > 0 && isTileRequired(position)) {
+                    flushTileCache();
+                    addTile(tile);
+                } else {
+                    if (DEBUG) {
+                        log("dropping tile @%d, out of range", position);
+                    }
+                    releaseTile(tile);
+                    if (isTileRequired(position)) {
+                        // Skipped, but required again since.
+                        mLoadQueue.addPendingTile(position);
+                    }
+                }
+            }
+            startPendingLoads();
+        }
+
+        private void startPendingLoads() {
+            int position;
+            while ((position = mLoadQueue.startNextLoad()) >= 0) {
+                final TileList.Tile<T> tile = acquireTile();
+                tile.mStartPosition = position;
+                tile.mItemCount = Math.min(mTileSize, mItemCount - tile.mStartPosition);
+                mLoadExecutor.execute(new TileLoader(tile, mGeneration));
+            }
+        }
+
+        private boolean isTileRequired(int position) {
+            return mFirstRequiredTileStart <= position && position <= mLastRequiredTileStart;
+        }
+
+        /**
+         * Fills a tile on mLoadExecutor, unless it is no longer required when the load starts.
+         */
+        final class TileLoader implements Runnable {
+            private final TileList.Tile<T> mTile;
+            private final int mTileGeneration;
+
+            TileLoader(TileList.Tile<T> tile, int generation) {
+                mTile = tile;
+                mTileGeneration = generation;
+            }
+
+            @Override
+            public void run() {
+                if (mTileGeneration == mGeneration && isTileRequired(mTile.mStartPosition)) {
+                    mDataCallback.fillData(mTile.mItems, mTile.mStartPosition, mTile.mItemCount);
+                } else {
+                    mTile.mItemCount = 0;
+                }
+                mBackgroundProxy.addLoadedTile(mTileGeneration, mTile);
+            }
+        }
+
         @Override
         public void recycleTile(TileList.Tile<T> tile) {
             if (DEBUG) {
                 log("recycling tile @%d", tile.mStartPosition);
             }
+            releaseTile(tile);
+        }
+
+        private void releaseTile(TileList.Tile<T> tile) {
             mDataCallback.recycleData(tile.mItems, tile.mItemCount);
 
             tile.mNext = mRecycledRoot;
@@ -399,6 +547,7 @@ public class AsyncListUtil<T> {
 
         private void addTile(TileList.Tile<T> tile) {
             mLoadedTiles.put(tile.mStartPosition, true);
+            mTileLastRequired.put(tile.mStartPosition, ++mRequestCount);
             mMainThreadProxy.addTile(mGeneration, tile);
             if (DEBUG) {
                 log("loaded tile @%d, total tiles: %d", tile.mStartPosition, mLoadedTiles.size());
@@ -407,29 +556,36 @@ public class AsyncListUtil<T> {
 
         private void removeTile(int position) {
             mLoadedTiles.delete(position);
+            mTileLastRequired.delete(position);
             mMainThreadProxy.removeTile(mGeneration, position);
             if (DEBUG) {
                 log("flushed tile @%d, total tiles: %s", position, mLoadedTiles.size());
             }
         }
 
-        private void flushTileCache(int scrollHint) {
+        private void flushTileCache() {
             final int cacheSizeLimit = mDataCallback.getMaxCachedTiles();
-            while (mLoadedTiles.size() >= cacheSizeLimit) {
-                int firstLoadedTileStart = mLoadedTiles.keyAt(0);
-                int lastLoadedTileStart = mLoadedTiles.keyAt(mLoadedTiles.size() - 1);
-                int startMargin = mFirstRequiredTileStart - firstLoadedTileStart;
-                int endMargin = lastLoadedTileStart - mLastRequiredTileStart;
-                if (startMargin > 0 && (startMargin >= endMargin ||
-                        (scrollHint == ViewCallback.HINT_SCROLL_ASC))) {
-                    removeTile(firstLoadedTileStart);
-                } else if (endMargin > 0 && (startMargin < endMargin ||
-                        (scrollHint == ViewCallback.HINT_SCROLL_DESC))){
-                    removeTile(lastLoadedTileStart);
-                } else {
-                    // Could not flush on either side, bail out.
+            final int loadingTileCount = mLoadQueue == null ? 0 : mLoadQueue.getLoadingTileCount();
+            while (mLoadedTiles.size() + loadingTileCount >= cacheSizeLimit) {
+                // Evict the least recently required tile outside of the required range.
+                int evictedTileStart = -1;
+                int evictedLastRequired = Integer.MAX_VALUE;
+                for (int i = 0; i < mLoadedTiles.size(); i++) {
+                    final int tileStart = mLoadedTiles.keyAt(i);
+                    if (isTileRequired(tileStart)) {
+                        continue;
+                    }
+                    final int lastRequired = mTileLastRequired.get(tileStart);
+                    if (lastRequired < evictedLastRequired) {
+                        evictedTileStart = tileStart;
+                        evictedLastRequired = lastRequired;
+                    }
+                }
+                if (evictedTileStart < 0) {
+                    // Could not flush any tile, bail out.
                     return;
                 }
+                removeTile(evictedTileStart);
             }
         }
 
@@ -22,9 +22,8 @@ import android.support.v7.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * DiffUtil is a utility class that can calculate the difference between two lists and output a
@@ -69,14 +68,6 @@ public class DiffUtil {
         // utility class, no instance.
     }
 
-    private static final Comparator<Snake> SNAKE_COMPARATOR = new Comparator<Snake>() {
-        @Override
-        public int compare(Snake o1, Snake o2) {
-            int cmpX = o1.x - o2.x;
-            return cmpX == 0 ? o1.y - o2.y : cmpX;
-        }
-    };
-
     // Myers' algorithm uses two lists as axis labels. In DiffUtil's implementation, `x` axis is
     // used for old list and `y` axis is used for new list.
 
@@ -109,7 +100,7 @@ public class DiffUtil {
         final int oldSize = cb.getOldListSize();
         final int newSize = cb.getNewListSize();
 
-        final List<Snake> snakes = new ArrayList<>();
+        final SnakeList snakes = new SnakeList();
 
         // instead of a recursive implementation, we keep our own stack to avoid potential stack
         // overflow exceptions
@@ -126,72 +117,251 @@ public class DiffUtil {
 
         // We pool the ranges to avoid allocations for each recursive call.
         final List<Range> rangePool = new ArrayList<>();
+        // the middle snake of each range is written to the same object, and copied to the list
+        final Snake snake = new Snake();
         while (!stack.isEmpty()) {
             final Range range = stack.remove(stack.size() - 1);
-            final Snake snake = diffPartial(cb, range.oldListStart, range.oldListEnd,
-                    range.newListStart, range.newListEnd, forward, backward, max);
-            if (snake != null) {
-                if (snake.size > 0) {
-                    snakes.add(snake);
-                }
-                // offset the snake to convert its coordinates from the Range's area to global
-                snake.x += range.oldListStart;
-                snake.y += range.newListStart;
-
-                // add new ranges for left and right
+            if (diffPartial(cb, range.oldListStart, range.oldListEnd,
+                    range.newListStart, range.newListEnd, forward, backward, max, snake)) {
                 final Range left = rangePool.isEmpty() ? new Range() : rangePool.remove(
                         rangePool.size() - 1);
-                left.oldListStart = range.oldListStart;
-                left.newListStart = range.newListStart;
-                if (snake.reverse) {
-                    left.oldListEnd = snake.x;
-                    left.newListEnd = snake.y;
-                } else {
-                    if (snake.removal) {
-                        left.oldListEnd = snake.x - 1;
-                        left.newListEnd = snake.y;
-                    } else {
-                        left.oldListEnd = snake.x;
-                        left.newListEnd = snake.y - 1;
-                    }
-                }
-                stack.add(left);
-
                 // re-use range for right
-                //noinspection UnnecessaryLocalVariable
-                final Range right = range;
-                if (snake.reverse) {
-                    if (snake.removal) {
-                        right.oldListStart = snake.x + snake.size + 1;
-                        right.newListStart = snake.y + snake.size;
-                    } else {
-                        right.oldListStart = snake.x + snake.size;
-                        right.newListStart = snake.y + snake.size + 1;
-                    }
-                } else {
-                    right.oldListStart = snake.x + snake.size;
-                    right.newListStart = snake.y + snake.size;
+                splitRange(range, snake, left);
+                if (snake.size > 0) {
+                    snakes.add(snake.x, snake.y, snake.size);
                 }
-                stack.add(right);
+                stack.add(left);
+                stack.add(range);
             } else {
                 rangePool.add(range);
             }
 
         }
         // sort snakes
-        Collections.sort(snakes, SNAKE_COMPARATOR);
+        snakes.sort();
 
         return new DiffResult(cb, snakes, forward, backward, detectMoves);
 
     }
 
-    private static Snake diffPartial(Callback cb, int startOld, int endOld,
-            int startNew, int endNew, int[] forward, int[] backward, int kOffset) {
+    /**
+     * Calculates the list of update operations that can covert one list into the other one, using
+     * additional threads from the given executor.
+     * <p>
+     * Myers' algorithm splits the lists at the middle snake of the edit path, and solves the two
+     * halves independently. This method solves the halves on up to {@code parallelism} threads:
+     * the calling thread and {@code parallelism - 1} tasks posted to the executor. The result is
+     * the same as the one returned by {@link #calculateDiff(Callback, boolean)}.
+     * <p>
+     * The first split is always computed on a single thread, so the speedup is bounded even for
+     * many threads. This is only worth it for very large lists, such as tens of thousands of
+     * items. Move detection also runs on the calling thread only.
+     * <p>
+     * The callback is called concurrently from multiple threads, so it must be thread safe, and
+     * both lists must not change during the calculation.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @param executor Executor to run the additional tasks on. Tasks that start after the diff
+     *                 is complete return immediately, so a busy executor can't block the
+     *                 calculation.
+     * @param parallelism Maximum number of threads to use, including the calling thread.
+     *
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    public static DiffResult calculateDiff(Callback cb, boolean detectMoves, Executor executor,
+            int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+        final int max = oldSize + newSize + Math.abs(oldSize - newSize);
+        final int[] forward = new int[max * 2];
+        final int[] backward = new int[max * 2];
+
+        final ParallelDiff parallelDiff = new ParallelDiff(cb, max,
+                new Range(0, oldSize, 0, newSize));
+        for (int i = 1; i < parallelism; i++) {
+            executor.execute(parallelDiff);
+        }
+        parallelDiff.solve(forward, backward);
+
+        final SnakeList snakes = parallelDiff.getSnakes();
+        snakes.sort();
+        return new DiffResult(cb, snakes, forward, backward, detectMoves);
+    }
+
+    /**
+     * Converts the coordinates of the middle snake of the range to global ones, and splits the
+     * range into the parts before and after it.
+     *
+     * @param range The range that was solved, which is re-used for the part after the snake.
+     * @param snake The middle snake of the range, relative to the range.
+     * @param left Range to set to the part before the snake.
+     */
+    private static void splitRange(Range range, Snake snake, Range left) {
+        // offset the snake to convert its coordinates from the Range's area to global
+        snake.x += range.oldListStart;
+        snake.y += range.newListStart;
+
+        // add new ranges for left and right
+        left.oldListStart = range.oldListStart;
+        left.newListStart = range.newListStart;
+        if (snake.reverse) {
+            left.oldListEnd = snake.x;
+            left.newListEnd = snake.y;
+        } else {
+            if (snake.removal) {
+                left.oldListEnd = snake.x - 1;
+                left.newListEnd = snake.y;
+            } else {
+                left.oldListEnd = snake.x;
+                left.newListEnd = snake.y - 1;
+            }
+        }
+
+        //noinspection UnnecessaryLocalVariable
+        final Range right = range;
+        if (snake.reverse) {
+            if (snake.removal) {
+                right.oldListStart = snake.x + snake.size + 1;
+                right.newListStart = snake.y + snake.size;
+            } else {
+                right.oldListStart = snake.x + snake.size;
+                right.newListStart = snake.y + snake.size + 1;
+            }
+        } else {
+            right.oldListStart = snake.x + snake.size;
+            right.newListStart = snake.y + snake.size;
+        }
+    }
+
+    /**
+     * Shared state of a diff calculated on multiple threads.
+     * <p>
+     * Each thread takes a range from the shared stack, finds its middle snake with its own k-line
+     * arrays, and pushes the two halves back, until no range is left and no thread is solving
+     * one.
+     */
+    private static class ParallelDiff implements Runnable {
+        private final Callback mCallback;
+        private final int mMax;
+        private final List<Range> mStack = new ArrayList<>();
+        private final SnakeList mSnakes = new SnakeList();
+        private int mActiveCount;
+        // RuntimeException or Error thrown by the first range that failed
+        private Throwable mError;
+
+        ParallelDiff(Callback callback, int max, Range range) {
+            mCallback = callback;
+            mMax = max;
+            mStack.add(range);
+        }
+
+        @Override
+        public void run() {
+            solve(null, null);
+        }
+
+        /**
+         * Solves ranges until the diff is complete, allocating k-line arrays on first use if none
+         * are given.
+         */
+        void solve(int[] forward, int[] backward) {
+            final Snake snake = new Snake();
+            while (true) {
+                final Range range;
+                synchronized (this) {
+                    while (mStack.isEmpty() && mActiveCount > 0 && mError == null) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            mError = new IllegalStateException("Interrupted while diffing", e);
+                        }
+                    }
+                    if (mStack.isEmpty() || mError != null) {
+                        notifyAll();
+                        return;
+                    }
+                    range = mStack.remove(mStack.size() - 1);
+                    mActiveCount++;
+                }
+
+                boolean found = false;
+                Throwable error = null;
+                try {
+                    if (forward == null) {
+                        forward = new int[mMax * 2];
+                        backward = new int[mMax * 2];
+                    }
+                    found = diffPartial(mCallback, range.oldListStart, range.oldListEnd,
+                            range.newListStart, range.newListEnd, forward, backward, mMax, snake);
+                } catch (RuntimeException | Error e) {
+                    error = e;
+                }
+
+                synchronized (this) {
+                    mActiveCount--;
+                    if (error != null) {
+                        mError = error;
+                    } else if (found) {
+                        final Range left = new Range();
+                        splitRange(range, snake, left);
+                        if (snake.size > 0) {
+                            mSnakes.add(snake.x, snake.y, snake.size);
+                        }
+                        mStack.add(left);
+                        mStack.add(range);
+                    }
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Returns the snakes found, or throws the first error thrown while solving a range.
+         * <p>
+         * After an error, waits for the other threads to finish the ranges they are solving, so
+         * the Callback is no longer used once this returns or throws.
+         */
+        synchronized SnakeList getSnakes() {
+            boolean interrupted = false;
+            while (mActiveCount > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (mError instanceof Error) {
+                throw (Error) mError;
+            }
+            if (mError != null) {
+                throw (RuntimeException) mError;
+            }
+            return mSnakes;
+        }
+    }
+
+    /**
+     * Finds the middle snake of the given range, relative to the range.
+     *
+     * @return True if the middle snake was written to outSnake, false if the range is empty.
+     */
+    private static boolean diffPartial(Callback cb, int startOld, int endOld,
+            int startNew, int endNew, int[] forward, int[] backward, int kOffset,
+            Snake outSnake) {
         final int oldSize = endOld - startOld;
         final int newSize = endNew - startNew;
 
         if (endOld - startOld < 1 || endNew - startNew < 1) {
-            return null;
+            return false;
         }
 
         final int delta = oldSize - newSize;
@@ -223,13 +393,12 @@ public class DiffUtil {
                 forward[kOffset + k] = x;
                 if (checkInFwd && k >= delta - d + 1 && k <= delta + d - 1) {
                     if (forward[kOffset + k] >= backward[kOffset + k]) {
-                        Snake outSnake = new Snake();
                         outSnake.x = backward[kOffset + k];
                         outSnake.y = outSnake.x - k;
                         outSnake.size = forward[kOffset + k] - backward[kOffset + k];
                         outSnake.removal = removal;
                         outSnake.reverse = false;
-                        return outSnake;
+                        return true;
                     }
                 }
             }
@@ -258,14 +427,13 @@ public class DiffUtil {
                 backward[kOffset + backwardK] = x;
                 if (!checkInFwd && k + delta >= -d && k + delta <= d) {
                     if (forward[kOffset + backwardK] >= backward[kOffset + backwardK]) {
-                        Snake outSnake = new Snake();
                         outSnake.x = backward[kOffset + backwardK];
                         outSnake.y = outSnake.x - backwardK;
                         outSnake.size =
                                 forward[kOffset + backwardK] - backward[kOffset + backwardK];
                         outSnake.removal = removal;
                         outSnake.reverse = true;
-                        return outSnake;
+                        return true;
                     }
                 }
             }
@@ -380,6 +548,106 @@ public class DiffUtil {
         boolean reverse;
     }
 
+    /**
+     * The diagonals of Myers' snakes, which is all DiffResult needs of them.
+     * <p>
+     * Snakes are packed as (x, y, size) triples in a single int array, so that diffs of large
+     * lists don't keep an object for each snake.
+     */
+    static class SnakeList {
+        private static final int STRIDE = 3;
+
+        private int[] mData = new int[STRIDE * 16];
+
+        private int mSize;
+
+        void add(int x, int y, int size) {
+            ensureCapacity(mSize + 1);
+            final int offset = mSize * STRIDE;
+            mData[offset] = x;
+            mData[offset + 1] = y;
+            mData[offset + 2] = size;
+            mSize++;
+        }
+
+        /**
+         * Adds a snake before all others.
+         */
+        void addFirst(int x, int y, int size) {
+            ensureCapacity(mSize + 1);
+            System.arraycopy(mData, 0, mData, STRIDE, mSize * STRIDE);
+            mData[0] = x;
+            mData[1] = y;
+            mData[2] = size;
+            mSize++;
+        }
+
+        private void ensureCapacity(int size) {
+            if (size * STRIDE > mData.length) {
+                mData = Arrays.copyOf(mData, Math.max(size * STRIDE, mData.length * 2));
+            }
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        /**
+         * Position of the snake in the old list
+         */
+        int getX(int index) {
+            return mData[index * STRIDE];
+        }
+
+        /**
+         * Position of the snake in the new list
+         */
+        int getY(int index) {
+            return mData[index * STRIDE + 1];
+        }
+
+        /**
+         * Number of matches.
+         */
+        int getSize(int index) {
+            return mData[index * STRIDE + 2];
+        }
+
+        /**
+         * Sorts the snakes by their position in the lists.
+         */
+        void sort() {
+            if (mSize < 2) {
+                return;
+            }
+            // Snakes with matches don't overlap, so no two of them start at the same x. Sort
+            // (x, index) pairs packed into longs to avoid boxing and comparator calls.
+            final long[] keys = new long[mSize];
+            for (int i = 0; i < mSize; i++) {
+                keys[i] = ((long) getX(i) << 32) | i;
+            }
+            Arrays.sort(keys);
+            final int[] sorted = new int[mSize * STRIDE];
+            for (int i = 0; i < mSize; i++) {
+                System.arraycopy(mData, (int) keys[i] * STRIDE, sorted, i * STRIDE, STRIDE);
+            }
+            mData = sorted;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("SnakeList{");
+            for (int i = 0; i < mSize; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append('[').append(getX(i)).append(',').append(getY(i)).append(',')
+                        .append(getSize(i)).append(']');
+            }
+            return sb.append('}').toString();
+        }
+    }
+
     /**
      * Represents a range in two lists that needs to be solved.
      * <p>
@@ -445,7 +713,7 @@ public class DiffUtil {
         private static final int FLAG_MASK = (1 << FLAG_OFFSET) - 1;
 
         // The Myers' snakes. At this point, we only care about their diagonal sections.
-        private final List<Snake> mSnakes;
+        private final SnakeList mSnakes;
 
         // The list to keep oldItemStatuses. As we traverse old items, we assign flags to them
         // which also includes whether they were a real removal or a move (and its new index).
@@ -469,7 +737,7 @@ public class DiffUtil {
          * @param newItemStatuses An int[] that can be re-purposed to keep metadata
          * @param detectMoves True if this DiffResult will try to detect moved items
          */
-        DiffResult(Callback callback, List<Snake> snakes, int[] oldItemStatuses,
+        DiffResult(Callback callback, SnakeList snakes, int[] oldItemStatuses,
                 int[] newItemStatuses, boolean detectMoves) {
             mSnakes = snakes;
             mOldItemStatuses = oldItemStatuses;
@@ -489,15 +757,8 @@ public class DiffUtil {
          * when we run out of snakes.
          */
         private void addRootSnake() {
-            Snake firstSnake = mSnakes.isEmpty() ? null : mSnakes.get(0);
-            if (firstSnake == null || firstSnake.x != 0 || firstSnake.y != 0) {
-                Snake root = new Snake();
-                root.x = 0;
-                root.y = 0;
-                root.removal = false;
-                root.size = 0;
-                root.reverse = false;
-                mSnakes.add(0, root);
+            if (mSnakes.size() == 0 || mSnakes.getX(0) != 0 || mSnakes.getY(0) != 0) {
+                mSnakes.addFirst(0, 0, 0);
             }
         }
 
@@ -517,9 +778,11 @@ public class DiffUtil {
             int posNew = mNewListSize;
             // traverse the matrix from right bottom to 0,0.
             for (int i = mSnakes.size() - 1; i >= 0; i--) {
-                final Snake snake = mSnakes.get(i);
-                final int endX = snake.x + snake.size;
-                final int endY = snake.y + snake.size;
+                final int snakeX = mSnakes.getX(i);
+                final int snakeY = mSnakes.getY(i);
+                final int snakeSize = mSnakes.getSize(i);
+                final int endX = snakeX + snakeSize;
+                final int endY = snakeY + snakeSize;
                 if (mDetectMoves) {
                     while (posOld > endX) {
                         // this is a removal. Check remaining snakes to see if this was added before
@@ -533,18 +796,18 @@ public class DiffUtil {
                         posNew--;
                     }
                 }
-                for (int j = 0; j < snake.size; j++) {
+                for (int j = 0; j < snakeSize; j++) {
                     // matching items. Check if it is changed or not
-                    final int oldItemPos = snake.x + j;
-                    final int newItemPos = snake.y + j;
+                    final int oldItemPos = snakeX + j;
+                    final int newItemPos = snakeY + j;
                     final boolean theSame = mCallback
                             .areContentsTheSame(oldItemPos, newItemPos);
                     final int changeFlag = theSame ? FLAG_NOT_CHANGED : FLAG_CHANGED;
                     mOldItemStatuses[oldItemPos] = (newItemPos << FLAG_OFFSET) | changeFlag;
                     mNewItemStatuses[newItemPos] = (oldItemPos << FLAG_OFFSET) | changeFlag;
                 }
-                posOld = snake.x;
-                posNew = snake.y;
+                posOld = snakeX;
+                posNew = snakeY;
             }
         }
 
@@ -588,9 +851,11 @@ public class DiffUtil {
                 curY = y;
             }
             for (int i = snakeIndex; i >= 0; i--) {
-                final Snake snake = mSnakes.get(i);
-                final int endX = snake.x + snake.size;
-                final int endY = snake.y + snake.size;
+                final int snakeX = mSnakes.getX(i);
+                final int snakeY = mSnakes.getY(i);
+                final int snakeSize = mSnakes.getSize(i);
+                final int endX = snakeX + snakeSize;
+                final int endY = snakeY + snakeSize;
                 if (removal) {
                     // check removals for a match
                     for (int pos = curX - 1; pos >= endX; pos--) {
@@ -618,8 +883,8 @@ public class DiffUtil {
                         }
                     }
                 }
-                curX = snake.x;
-                curY = snake.y;
+                curX = snakeX;
+                curY = snakeY;
             }
             return false;
         }
@@ -701,14 +966,15 @@ public class DiffUtil {
             }
             // These are add/remove ops that are converted to moves. We track their positions until
             // their respective update operations are processed.
-            final List<PostponedUpdate> postponedUpdates = new ArrayList<>();
+            final PostponedUpdates postponedUpdates = new PostponedUpdates();
             int posOld = mOldListSize;
             int posNew = mNewListSize;
             for (int snakeIndex = mSnakes.size() - 1; snakeIndex >= 0; snakeIndex--) {
-                final Snake snake = mSnakes.get(snakeIndex);
-                final int snakeSize = snake.size;
-                final int endX = snake.x + snakeSize;
-                final int endY = snake.y + snakeSize;
+                final int snakeX = mSnakes.getX(snakeIndex);
+                final int snakeY = mSnakes.getY(snakeIndex);
+                final int snakeSize = mSnakes.getSize(snakeIndex);
+                final int endX = snakeX + snakeSize;
+                final int endY = snakeY + snakeSize;
                 if (endX < posOld) {
                     dispatchRemovals(postponedUpdates, batchingCallback, endX, posOld - endX, endX);
                 }
@@ -718,34 +984,18 @@ public class DiffUtil {
                             endY);
                 }
                 for (int i = snakeSize - 1; i >= 0; i--) {
-                    if ((mOldItemStatuses[snake.x + i] & FLAG_MASK) == FLAG_CHANGED) {
-                        batchingCallback.onChanged(snake.x + i, 1,
-                                mCallback.getChangePayload(snake.x + i, snake.y + i));
+                    if ((mOldItemStatuses[snakeX + i] & FLAG_MASK) == FLAG_CHANGED) {
+                        batchingCallback.onChanged(snakeX + i, 1,
+                                mCallback.getChangePayload(snakeX + i, snakeY + i));
                     }
                 }
-                posOld = snake.x;
-                posNew = snake.y;
+                posOld = snakeX;
+                posNew = snakeY;
             }
             batchingCallback.dispatchLastEvent();
         }
 
-        private static PostponedUpdate removePostponedUpdate(List<PostponedUpdate> updates,
-                int pos, boolean removal) {
-            for (int i = updates.size() - 1; i >= 0; i--) {
-                final PostponedUpdate update = updates.get(i);
-                if (update.posInOwnerList == pos && update.removal == removal) {
-                    updates.remove(i);
-                    for (int j = i; j < updates.size(); j++) {
-                        // offset other ops since they swapped positions
-                        updates.get(j).currentPos += removal ? 1 : -1;
-                    }
-                    return update;
-                }
-            }
-            return null;
-        }
-
-        private void dispatchAdditions(List<PostponedUpdate> postponedUpdates,
+        private void dispatchAdditions(PostponedUpdates postponedUpdates,
                 ListUpdateCallback updateCallback, int start, int count, int globalIndex) {
             if (!mDetectMoves) {
                 updateCallback.onInserted(start, count);
@@ -756,18 +1006,14 @@ public class DiffUtil {
                 switch (status) {
                     case 0: // real addition
                         updateCallback.onInserted(start, 1);
-                        for (PostponedUpdate update : postponedUpdates) {
-                            update.currentPos += 1;
-                        }
+                        postponedUpdates.offsetAll(1);
                         break;
                     case FLAG_MOVED_CHANGED:
                     case FLAG_MOVED_NOT_CHANGED:
                         final int pos = mNewItemStatuses[globalIndex + i] >> FLAG_OFFSET;
-                        final PostponedUpdate update = removePostponedUpdate(postponedUpdates, pos,
-                                true);
+                        final int currentPos = postponedUpdates.remove(pos, true);
                         // the item was moved from that position
-                        //noinspection ConstantConditions
-                        updateCallback.onMoved(update.currentPos, start);
+                        updateCallback.onMoved(currentPos, start);
                         if (status == FLAG_MOVED_CHANGED) {
                             // also dispatch a change
                             updateCallback.onChanged(start, 1,
@@ -775,7 +1021,7 @@ public class DiffUtil {
                         }
                         break;
                     case FLAG_IGNORE: // ignoring this
-                        postponedUpdates.add(new PostponedUpdate(globalIndex + i, start, false));
+                        postponedUpdates.add(globalIndex + i, start, false);
                         break;
                     default:
                         throw new IllegalStateException(
@@ -785,7 +1031,7 @@ public class DiffUtil {
             }
         }
 
-        private void dispatchRemovals(List<PostponedUpdate> postponedUpdates,
+        private void dispatchRemovals(PostponedUpdates postponedUpdates,
                 ListUpdateCallback updateCallback, int start, int count, int globalIndex) {
             if (!mDetectMoves) {
                 updateCallback.onRemoved(start, count);
@@ -796,27 +1042,23 @@ public class DiffUtil {
                 switch (status) {
                     case 0: // real removal
                         updateCallback.onRemoved(start + i, 1);
-                        for (PostponedUpdate update : postponedUpdates) {
-                            update.currentPos -= 1;
-                        }
+                        postponedUpdates.offsetAll(-1);
                         break;
                     case FLAG_MOVED_CHANGED:
                     case FLAG_MOVED_NOT_CHANGED:
                         final int pos = mOldItemStatuses[globalIndex + i] >> FLAG_OFFSET;
-                        final PostponedUpdate update = removePostponedUpdate(postponedUpdates, pos,
-                                false);
+                        final int currentPos = postponedUpdates.remove(pos, false);
                         // the item was moved to that position. we do -1 because this is a move not
                         // add and removing current item offsets the target move by 1
-                        //noinspection ConstantConditions
-                        updateCallback.onMoved(start + i, update.currentPos - 1);
+                        updateCallback.onMoved(start + i, currentPos - 1);
                         if (status == FLAG_MOVED_CHANGED) {
                             // also dispatch a change
-                            updateCallback.onChanged(update.currentPos - 1, 1,
+                            updateCallback.onChanged(currentPos - 1, 1,
                                     mCallback.getChangePayload(globalIndex + i, pos));
                         }
                         break;
                     case FLAG_IGNORE: // ignoring this
-                        postponedUpdates.add(new PostponedUpdate(globalIndex + i, start + i, true));
+                        postponedUpdates.add(globalIndex + i, start + i, true);
                         break;
                     default:
                         throw new IllegalStateException(
@@ -827,30 +1069,70 @@ public class DiffUtil {
         }
 
         @VisibleForTesting
-        List<Snake> getSnakes() {
+        SnakeList getSnakes() {
             return mSnakes;
         }
     }
 
     /**
-     * Represents an update that we skipped because it was a move.
+     * Represents the updates that we skipped because they were moves.
      * <p>
      * When an update is skipped, it is tracked as other updates are dispatched until the matching
      * add/remove operation is found at which point the tracked position is used to dispatch the
      * update.
+     * <p>
+     * Updates are packed as (posInOwnerList, currentPos, removal) triples in a single int array, so
+     * that dispatching a diff with many moves doesn't allocate an object for each of them.
      */
-    private static class PostponedUpdate {
+    private static class PostponedUpdates {
+        private static final int STRIDE = 3;
 
-        int posInOwnerList;
+        private int[] mData = new int[STRIDE * 16];
 
-        int currentPos;
+        private int mSize;
 
-        boolean removal;
+        void add(int posInOwnerList, int currentPos, boolean removal) {
+            if ((mSize + 1) * STRIDE > mData.length) {
+                mData = Arrays.copyOf(mData, mData.length * 2);
+            }
+            final int offset = mSize * STRIDE;
+            mData[offset] = posInOwnerList;
+            mData[offset + 1] = currentPos;
+            mData[offset + 2] = removal ? 1 : 0;
+            mSize++;
+        }
+
+        /**
+         * Offsets the current position of all updates.
+         */
+        void offsetAll(int delta) {
+            for (int i = 0; i < mSize; i++) {
+                mData[i * STRIDE + 1] += delta;
+            }
+        }
 
-        public PostponedUpdate(int posInOwnerList, int currentPos, boolean removal) {
-            this.posInOwnerList = posInOwnerList;
-            this.currentPos = currentPos;
-            this.removal = removal;
+        /**
+         * Removes the update of the given item.
+         *
+         * @return The current position of the update.
+         */
+        int remove(int posInOwnerList, boolean removal) {
+            final int removalFlag = removal ? 1 : 0;
+            for (int i = mSize - 1; i >= 0; i--) {
+                final int offset = i * STRIDE;
+                if (mData[offset] == posInOwnerList && mData[offset + 2] == removalFlag) {
+                    final int currentPos = mData[offset + 1];
+                    System.arraycopy(mData, offset + STRIDE, mData, offset,
+                            (mSize - i - 1) * STRIDE);
+                    mSize--;
+                    for (int j = i; j < mSize; j++) {
+                        // offset other ops since they swapped positions
+                        mData[j * STRIDE + 1] += removal ? 1 : -1;
+                    }
+                    return currentPos;
+                }
+            }
+            throw new IllegalStateException("no postponed update for pos " + posInOwnerList);
         }
     }
 }
@@ -0,0 +1,860 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.util;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A sorted list that behaves like {@link SortedList}, but edits it without shifting all of the
+ * items, so that it scales to very large lists.
+ * <p>
+ * SortedList keeps its items in a single array, so each add or remove shifts every item after
+ * it. IndexedSortedList keeps its items in chunks of up to B = 128 items, and a tree of the
+ * chunk sizes to find the chunk of an index. {@link #get(int)} and {@link #indexOf(Object)}
+ * take O(log n) time. {@link #add(Object)}, {@link #remove(Object)},
+ * {@link #removeItemAt(int)} and {@link #updateItemAt(int, Object)} shift the items of one
+ * chunk, which takes O(B + log n) time. When an edit splits, merges or removes a chunk, the
+ * chunk arrays are shifted and the tree is rebuilt, which takes O(n / B) more. That happens
+ * at most about once every B / 4 edits of the same chunk.
+ * <p>
+ * For lists of up to a few thousand items SortedList is just as fast and uses less memory. Use
+ * IndexedSortedList for large lists that change an item at a time, such as a live list of
+ * messages.
+ * <p>
+ * IndexedSortedList uses the same {@link SortedList.Callback} as SortedList and dispatches the
+ * same events, batched by {@link #beginBatchedUpdates()} or a
+ * {@link SortedList.BatchedCallback}, so it can be used with
+ * {@link android.support.v7.widget.util.SortedListAdapterCallback SortedListAdapterCallback}.
+ * The only difference is that a new item that compares as equal to existing items, but isn't
+ * the same as any of them, is always added after them.
+ */
+@SuppressWarnings("unchecked")
+public class IndexedSortedList<T> {
+
+    /**
+     * Used by {@link #indexOf(Object)} when the item cannot be found in the list.
+     */
+    public static final int INVALID_POSITION = -1;
+
+    private static final int DEFAULT_CHUNK_CAPACITY = 128;
+    private static final int MIN_CHUNK_COUNT = 4;
+    private static final int INSERTION = 1;
+    private static final int DELETION = 1 << 1;
+    private static final int LOOKUP = 1 << 2;
+
+    private final int mChunkCapacity;
+
+    /**
+     * The items, in order. Only the first mChunkCount chunks are used, and only the first
+     * mChunkSizes[i] items of each chunk. Chunks are never empty.
+     */
+    Object[][] mChunks;
+    int[] mChunkSizes;
+    int mChunkCount;
+
+    /**
+     * A Fenwick tree of mChunkSizes, to find the chunk of an index. Updated when the size of a
+     * chunk changes, and rebuilt on the next lookup after chunks are added or removed.
+     */
+    private int[] mTree;
+    private boolean mTreeValid;
+
+    /**
+     * The chunk and the offset in the chunk found by {@link #locate(int)}.
+     */
+    private int mLocatedChunk;
+    private int mLocatedOffset;
+
+    /**
+     * True while running addAll, when the callback must not edit the list.
+     */
+    private boolean mAddingAll;
+
+    /**
+     * A copy of the previous list contents used during the merge phase of addAll.
+     */
+    private T[] mOldData;
+    private int mOldDataStart;
+    private int mOldDataSize;
+
+    /**
+     * The merged items and the size of their valid portion during the merge phase of addAll.
+     */
+    private T[] mMergedData;
+    private int mMergedSize;
+
+    /**
+     * The callback instance that controls the behavior of the list and get notified when
+     * changes happen.
+     */
+    private SortedList.Callback mCallback;
+
+    private SortedList.BatchedCallback mBatchedCallback;
+
+    private int mSize;
+    private final Class<T> mTClass;
+
+    /**
+     * Creates a new IndexedSortedList of type T.
+     *
+     * @param klass    The class of the contents of the list.
+     * @param callback The callback that controls the behavior of the list.
+     */
+    public IndexedSortedList(Class<T> klass, SortedList.Callback<T> callback) {
+        this(klass, callback, DEFAULT_CHUNK_CAPACITY);
+    }
+
+    IndexedSortedList(Class<T> klass, SortedList.Callback<T> callback, int chunkCapacity) {
+        if (chunkCapacity < 4) {
+            throw new IllegalArgumentException("Chunk capacity must be at least 4");
+        }
+        mTClass = klass;
+        mCallback = callback;
+        mChunkCapacity = chunkCapacity;
+        mChunks = new Object[MIN_CHUNK_COUNT][];
+        mChunkSizes = new int[MIN_CHUNK_COUNT];
+        mTree = new int[MIN_CHUNK_COUNT + 1];
+        mTreeValid = true;
+    }
+
+    /**
+     * The number of items in the list.
+     *
+     * @return The number of items in the list.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Adds the given item to the list. If this is a new item, the list calls
+     * {@link SortedList.Callback#onInserted(int, int)}.
+     * <p>
+     * If the item already exists in the list and its sorting criteria is not changed, it is
+     * replaced with the existing Item, exactly like {@link SortedList#add(Object)}.
+     *
+     * @param item The item to be added into the list.
+     *
+     * @return The index of the newly added item.
+     * @see SortedList#add(Object)
+     */
+    public int add(T item) {
+        throwIfMerging();
+        return add(item, true);
+    }
+
+    /**
+     * Adds the given items to the list. Equivalent to calling {@link #add(Object)} in a loop,
+     * except the callback events may be in a different order/granularity since addAll can batch
+     * them for better performance.
+     * <p>
+     * If allowed, may modify the input array in order to avoid extra memory allocation during
+     * sorting and deduplication.
+     * </p>
+     * @param items Array of items to be added into the list.
+     * @param mayModifyInput If true, the list is allowed to modify the input.
+     * @see SortedList#addAll(Object[], boolean)
+     */
+    public void addAll(T[] items, boolean mayModifyInput) {
+        throwIfMerging();
+        if (items.length == 0) {
+            return;
+        }
+        if (mayModifyInput) {
+            addAllInternal(items);
+        } else {
+            T[] copy = (T[]) Array.newInstance(mTClass, items.length);
+            System.arraycopy(items, 0, copy, 0, items.length);
+            addAllInternal(copy);
+        }
+    }
+
+    /**
+     * Adds the given items to the list. Does not modify the input.
+     *
+     * @see #addAll(Object[], boolean)
+     *
+     * @param items Array of items to be added into the list.
+     */
+    public void addAll(T... items) {
+        addAll(items, false);
+    }
+
+    /**
+     * Adds the given items to the list. Does not modify the input.
+     *
+     * @see #addAll(Object[], boolean)
+     *
+     * @param items Collection of items to be added into the list.
+     */
+    public void addAll(Collection<T> items) {
+        T[] copy = (T[]) Array.newInstance(mTClass, items.size());
+        addAll(items.toArray(copy), true);
+    }
+
+    private void addAllInternal(T[] newItems) {
+        final boolean forceBatchedUpdates = !(mCallback instanceof SortedList.BatchedCallback);
+        if (forceBatchedUpdates) {
+            beginBatchedUpdates();
+        }
+        mAddingAll = true;
+        try {
+            Arrays.sort(newItems, mCallback);  // Arrays.sort is stable.
+
+            final int newSize = deduplicate(newItems);
+            if (mSize == 0) {
+                setData(newItems, newSize);
+                mCallback.onInserted(0, newSize);
+            } else if (newSize < mSize / mChunkCapacity) {
+                // Merging copies the whole list, adding a few items one by one is faster.
+                for (int i = 0; i < newSize; i++) {
+                    add(newItems[i], true);
+                }
+            } else {
+                merge(newItems, newSize);
+            }
+        } finally {
+            mAddingAll = false;
+        }
+
+        if (forceBatchedUpdates) {
+            endBatchedUpdates();
+        }
+    }
+
+    /**
+     * Remove duplicate items, leaving only the last item from each group of "same" items.
+     * Move the remaining items to the beginning of the array.
+     *
+     * @return Number of deduplicated items at the beginning of the array.
+     */
+    private int deduplicate(T[] items) {
+        // Keep track of the range of equal items at the end of the output.
+        // Start with the range containing just the first item.
+        int rangeStart = 0;
+        int rangeEnd = 1;
+
+        for (int i = 1; i < items.length; ++i) {
+            T currentItem = items[i];
+
+            int compare = mCallback.compare(items[rangeStart], currentItem);
+            if (compare > 0) {
+                throw new IllegalArgumentException("Input must be sorted in ascending order.");
+            }
+
+            if (compare == 0) {
+                // The range of equal items continues, update it.
+                final int sameItemPos = findSameItem(currentItem, items, rangeStart, rangeEnd);
+                if (sameItemPos != INVALID_POSITION) {
+                    // Replace the duplicate item.
+                    items[sameItemPos] = currentItem;
+                } else {
+                    // Expand the range.
+                    if (rangeEnd != i) {  // Avoid redundant copy.
+                        items[rangeEnd] = currentItem;
+                    }
+                    rangeEnd++;
+                }
+            } else {
+                // The range has ended. Reset it to contain just the current item.
+                if (rangeEnd != i) {  // Avoid redundant copy.
+                    items[rangeEnd] = currentItem;
+                }
+                rangeStart = rangeEnd++;
+            }
+        }
+        return rangeEnd;
+    }
+
+    private int findSameItem(T item, T[] items, int from, int to) {
+        for (int pos = from; pos < to; pos++) {
+            if (mCallback.areItemsTheSame(items[pos], item)) {
+                return pos;
+            }
+        }
+        return INVALID_POSITION;
+    }
+
+    /**
+     * This method assumes that newItems are sorted and deduplicated.
+     */
+    private void merge(T[] newData, int newDataSize) {
+        mOldData = toArray();
+        mOldDataStart = 0;
+        mOldDataSize = mSize;
+        mMergedData = (T[]) Array.newInstance(mTClass, mSize + newDataSize);
+        mMergedSize = 0;
+
+        int newDataStart = 0;
+        while (mOldDataStart < mOldDataSize || newDataStart < newDataSize) {
+            if (mOldDataStart == mOldDataSize) {
+                // No more old items, copy the remaining new items.
+                int itemCount = newDataSize - newDataStart;
+                System.arraycopy(newData, newDataStart, mMergedData, mMergedSize, itemCount);
+                mMergedSize += itemCount;
+                mSize += itemCount;
+                mCallback.onInserted(mMergedSize - itemCount, itemCount);
+                break;
+            }
+
+            if (newDataStart == newDataSize) {
+                // No more new items, copy the remaining old items.
+                int itemCount = mOldDataSize - mOldDataStart;
+                System.arraycopy(mOldData, mOldDataStart, mMergedData, mMergedSize, itemCount);
+                mMergedSize += itemCount;
+                break;
+            }
+
+            T oldItem = mOldData[mOldDataStart];
+            T newItem = newData[newDataStart];
+            int compare = mCallback.compare(oldItem, newItem);
+            if (compare > 0) {
+                // New item is lower, output it.
+                mMergedData[mMergedSize++] = newItem;
+                mSize++;
+                newDataStart++;
+                mCallback.onInserted(mMergedSize - 1, 1);
+            } else if (compare == 0 && mCallback.areItemsTheSame(oldItem, newItem)) {
+                // Items are the same. Output the new item, but consume both.
+                mMergedData[mMergedSize++] = newItem;
+                newDataStart++;
+                mOldDataStart++;
+                if (!mCallback.areContentsTheSame(oldItem, newItem)) {
+                    mCallback.onChanged(mMergedSize - 1, 1);
+                }
+            } else {
+                // Old item is lower than or equal to (but not the same as the new). Output it.
+                // New item with the same sort order will be inserted later.
+                mMergedData[mMergedSize++] = oldItem;
+                mOldDataStart++;
+            }
+        }
+
+        setData(mMergedData, mMergedSize);
+        mOldData = null;
+        mMergedData = null;
+    }
+
+    private void throwIfMerging() {
+        if (mAddingAll) {
+            throw new IllegalStateException("Cannot call this method from within addAll");
+        }
+    }
+
+    /**
+     * Batches adapter updates that happen between calling this method until calling
+     * {@link #endBatchedUpdates()}, exactly like {@link SortedList#beginBatchedUpdates()}.
+     * <p>
+     * If the current Callback is an instance of {@link SortedList.BatchedCallback}, calling this
+     * method has no effect.
+     */
+    public void beginBatchedUpdates() {
+        throwIfMerging();
+        if (mCallback instanceof SortedList.BatchedCallback) {
+            return;
+        }
+        if (mBatchedCallback == null) {
+            mBatchedCallback = new SortedList.BatchedCallback(mCallback);
+        }
+        mCallback = mBatchedCallback;
+    }
+
+    /**
+     * Ends the update transaction and dispatches any remaining event to the callback.
+     */
+    public void endBatchedUpdates() {
+        throwIfMerging();
+        if (mCallback instanceof SortedList.BatchedCallback) {
+            ((SortedList.BatchedCallback) mCallback).dispatchLastEvent();
+        }
+        if (mCallback == mBatchedCallback) {
+            mCallback = mBatchedCallback.mWrappedCallback;
+        }
+    }
+
+    private int add(T item, boolean notify) {
+        final int index = findIndexOf(item, INSERTION);
+        if (index < mSize) {
+            locate(index);
+            final Object[] items = mChunks[mLocatedChunk];
+            final T existing = (T) items[mLocatedOffset];
+            // INSERTION returns either the same item, or the first item greater than the new one
+            if (mCallback.compare(existing, item) == 0) {
+                items[mLocatedOffset] = item;
+                if (!mCallback.areContentsTheSame(existing, item)) {
+                    mCallback.onChanged(index, 1);
+                }
+                return index;
+            }
+        }
+        addToData(index, item);
+        if (notify) {
+            mCallback.onInserted(index, 1);
+        }
+        return index;
+    }
+
+    /**
+     * Removes the provided item from the list and calls
+     * {@link SortedList.Callback#onRemoved(int, int)}.
+     *
+     * @param item The item to be removed from the list.
+     *
+     * @return True if item is removed, false if item cannot be found in the list.
+     */
+    public boolean remove(T item) {
+        throwIfMerging();
+        final int index = findIndexOf(item, DELETION);
+        if (index == INVALID_POSITION) {
+            return false;
+        }
+        removeFromData(index);
+        mCallback.onRemoved(index, 1);
+        return true;
+    }
+
+    /**
+     * Removes the item at the given index and calls
+     * {@link SortedList.Callback#onRemoved(int, int)}.
+     *
+     * @param index The index of the item to be removed.
+     *
+     * @return The removed item.
+     */
+    public T removeItemAt(int index) {
+        throwIfMerging();
+        T item = get(index);
+        removeFromData(index);
+        mCallback.onRemoved(index, 1);
+        return item;
+    }
+
+    /**
+     * Updates the item at the given index and calls {@link SortedList.Callback#onChanged(int, int)}
+     * and/or {@link SortedList.Callback#onMoved(int, int)} if necessary, exactly like
+     * {@link SortedList#updateItemAt(int, Object)}.
+     *
+     * @param index The index of the item to replace
+     * @param item  The item to replace the item at the given Index.
+     * @see SortedList#updateItemAt(int, Object)
+     */
+    public void updateItemAt(int index, T item) {
+        throwIfMerging();
+        final T existing = get(index);
+        // assume changed if the same object is given back
+        boolean contentsChanged = existing == item || !mCallback.areContentsTheSame(existing, item);
+        if (existing != item) {
+            // different items, we can use comparison and may avoid lookup
+            final int cmp = mCallback.compare(existing, item);
+            if (cmp == 0) {
+                locate(index);
+                mChunks[mLocatedChunk][mLocatedOffset] = item;
+                if (contentsChanged) {
+                    mCallback.onChanged(index, 1);
+                }
+                return;
+            }
+        }
+        if (contentsChanged) {
+            mCallback.onChanged(index, 1);
+        }
+        removeFromData(index);
+        int newIndex = add(item, false);
+        if (index != newIndex) {
+            mCallback.onMoved(index, newIndex);
+        }
+    }
+
+    /**
+     * Recalculates the position of the item at the given index, without triggering an
+     * {@link SortedList.Callback#onChanged(int, int)} callback, exactly like
+     * {@link SortedList#recalculatePositionOfItemAt(int)}.
+     *
+     * @param index The current index of the Item whose position should be re-calculated.
+     * @see SortedList#recalculatePositionOfItemAt(int)
+     */
+    public void recalculatePositionOfItemAt(int index) {
+        throwIfMerging();
+        final T item = get(index);
+        removeFromData(index);
+        int newIndex = add(item, false);
+        if (index != newIndex) {
+            mCallback.onMoved(index, newIndex);
+        }
+    }
+
+    /**
+     * Returns the item at the given index.
+     *
+     * @param index The index of the item to retrieve.
+     *
+     * @return The item at the given index.
+     * @throws java.lang.IndexOutOfBoundsException if provided index is negative or larger than the
+     *                                             size of the list.
+     */
+    public T get(int index) throws IndexOutOfBoundsException {
+        if (index >= mSize || index < 0) {
+            throw new IndexOutOfBoundsException("Asked to get item at " + index + " but size is "
+                    + mSize);
+        }
+        if (mOldData != null) {
+            // The call is made from a callback during the merge phase of addAll. The data is
+            // split between mMergedData and mOldData.
+            if (index >= mMergedSize) {
+                return mOldData[index - mMergedSize + mOldDataStart];
+            }
+            return mMergedData[index];
+        }
+        locate(index);
+        return (T) mChunks[mLocatedChunk][mLocatedOffset];
+    }
+
+    /**
+     * Returns the position of the provided item.
+     *
+     * @param item The item to query for position.
+     *
+     * @return The position of the provided item or {@link #INVALID_POSITION} if item is not in the
+     * list.
+     */
+    public int indexOf(T item) {
+        if (mOldData != null) {
+            int index = findIndexOf(item, mMergedData, 0, mMergedSize);
+            if (index != INVALID_POSITION) {
+                return index;
+            }
+            index = findIndexOf(item, mOldData, mOldDataStart, mOldDataSize);
+            if (index != INVALID_POSITION) {
+                return index - mOldDataStart + mMergedSize;
+            }
+            return INVALID_POSITION;
+        }
+        return findIndexOf(item, LOOKUP);
+    }
+
+    /**
+     * Finds the item in the chunks.
+     *
+     * @return The index of the same item, or {@link #INVALID_POSITION} if it isn't in the list.
+     * For {@link #INSERTION}, the index after the items that compare as equal instead.
+     */
+    private int findIndexOf(T item, int reason) {
+        // find the first chunk that ends with an item greater than or equal to the item
+        int left = 0;
+        int right = mChunkCount;
+        while (left < right) {
+            final int middle = (left + right) >>> 1;
+            final T lastItem = (T) mChunks[middle][mChunkSizes[middle] - 1];
+            if (mCallback.compare(lastItem, item) < 0) {
+                left = middle + 1;
+            } else {
+                right = middle;
+            }
+        }
+        if (left == mChunkCount) {
+            return reason == INSERTION ? mSize : INVALID_POSITION;
+        }
+        int chunk = left;
+        Object[] items = mChunks[chunk];
+        left = 0;
+        right = mChunkSizes[chunk];
+        while (left < right) {
+            final int middle = (left + right) >>> 1;
+            if (mCallback.compare(items[middle], item) < 0) {
+                left = middle + 1;
+            } else {
+                right = middle;
+            }
+        }
+
+        // check the items that compare as equal, which may span multiple chunks
+        int index = getChunkStart(chunk) + left;
+        int offset = left;
+        while (true) {
+            if (offset == mChunkSizes[chunk]) {
+                if (++chunk == mChunkCount) {
+                    break;
+                }
+                items = mChunks[chunk];
+                offset = 0;
+            }
+            final T nextItem = (T) items[offset];
+            if (mCallback.compare(nextItem, item) != 0) {
+                break;
+            }
+            if (mCallback.areItemsTheSame(nextItem, item)) {
+                return index;
+            }
+            offset++;
+            index++;
+        }
+        return reason == INSERTION ? index : INVALID_POSITION;
+    }
+
+    /**
+     * Finds the item in a sorted array, during the merge phase of addAll.
+     */
+    private int findIndexOf(T item, T[] data, int left, int right) {
+        final int end = right;
+        while (left < right) {
+            final int middle = (left + right) >>> 1;
+            if (mCallback.compare(data[middle], item) < 0) {
+                left = middle + 1;
+            } else {
+                right = middle;
+            }
+        }
+        for (int next = left; next < end; next++) {
+            final T nextItem = data[next];
+            if (mCallback.compare(nextItem, item) != 0) {
+                break;
+            }
+            if (mCallback.areItemsTheSame(nextItem, item)) {
+                return next;
+            }
+        }
+        return INVALID_POSITION;
+    }
+
+    private void addToData(int index, T item) {
+        if (index > mSize) {
+            throw new IndexOutOfBoundsException(
+                    "cannot add item to " + index + " because size is " + mSize);
+        }
+        int chunk;
+        int offset;
+        if (mChunkCount == 0) {
+            addChunk(0, new Object[mChunkCapacity], 0);
+            chunk = 0;
+            offset = 0;
+        } else if (index == mSize) {
+            chunk = mChunkCount - 1;
+            offset = mChunkSizes[chunk];
+        } else {
+            locate(index);
+            chunk = mLocatedChunk;
+            offset = mLocatedOffset;
+            if (offset == 0 && chunk > 0 && mChunkSizes[chunk - 1] < mChunkCapacity) {
+                // append to the previous chunk instead, to avoid a split
+                chunk--;
+                offset = mChunkSizes[chunk];
+            }
+        }
+
+        if (mChunkSizes[chunk] == mChunkCapacity) {
+            if (offset == mChunkCapacity) {
+                // appending, start a new chunk so that the full one stays full
+                addChunk(chunk + 1, new Object[mChunkCapacity], 0);
+                chunk++;
+                offset = 0;
+            } else {
+                splitChunk(chunk);
+                if (offset > mChunkSizes[chunk]) {
+                    offset -= mChunkSizes[chunk];
+                    chunk++;
+                }
+            }
+        }
+
+        final Object[] items = mChunks[chunk];
+        System.arraycopy(items, offset, items, offset + 1, mChunkSizes[chunk] - offset);
+        items[offset] = item;
+        mChunkSizes[chunk]++;
+        mSize++;
+        updateTree(chunk, 1);
+    }
+
+    private void removeFromData(int index) {
+        locate(index);
+        final int chunk = mLocatedChunk;
+        final int offset = mLocatedOffset;
+        final Object[] items = mChunks[chunk];
+        final int chunkSize = mChunkSizes[chunk] - 1;
+        System.arraycopy(items, offset + 1, items, offset, chunkSize - offset);
+        items[chunkSize] = null;
+        mChunkSizes[chunk] = chunkSize;
+        mSize--;
+
+        if (chunkSize == 0) {
+            removeChunk(chunk);
+        } else if (chunkSize <= mChunkCapacity / 4 && chunk + 1 < mChunkCount
+                && chunkSize + mChunkSizes[chunk + 1] <= mChunkCapacity / 2) {
+            // merge sparse neighbours, so that the number of chunks stays proportional to size
+            mergeChunks(chunk);
+        } else if (chunkSize <= mChunkCapacity / 4 && chunk > 0
+                && chunkSize + mChunkSizes[chunk - 1] <= mChunkCapacity / 2) {
+            mergeChunks(chunk - 1);
+        } else {
+            updateTree(chunk, -1);
+        }
+    }
+
+    /**
+     * Moves the items of the chunk after the given one to the end of the given one.
+     */
+    private void mergeChunks(int chunk) {
+        final int size = mChunkSizes[chunk];
+        final int nextSize = mChunkSizes[chunk + 1];
+        System.arraycopy(mChunks[chunk + 1], 0, mChunks[chunk], size, nextSize);
+        mChunkSizes[chunk] = size + nextSize;
+        removeChunk(chunk + 1);
+    }
+
+    private void splitChunk(int chunk) {
+        final Object[] items = mChunks[chunk];
+        final int size = mChunkSizes[chunk];
+        final int half = size / 2;
+        final Object[] newItems = new Object[mChunkCapacity];
+        System.arraycopy(items, half, newItems, 0, size - half);
+        Arrays.fill(items, half, size, null);
+        mChunkSizes[chunk] = half;
+        addChunk(chunk + 1, newItems, size - half);
+    }
+
+    private void addChunk(int chunk, Object[] items, int size) {
+        if (mChunkCount == mChunks.length) {
+            final int capacity = mChunkCount * 2;
+            mChunks = Arrays.copyOf(mChunks, capacity);
+            mChunkSizes = Arrays.copyOf(mChunkSizes, capacity);
+            mTree = new int[capacity + 1];
+        }
+        System.arraycopy(mChunks, chunk, mChunks, chunk + 1, mChunkCount - chunk);
+        System.arraycopy(mChunkSizes, chunk, mChunkSizes, chunk + 1, mChunkCount - chunk);
+        mChunks[chunk] = items;
+        mChunkSizes[chunk] = size;
+        mChunkCount++;
+        mTreeValid = false;
+    }
+
+    private void removeChunk(int chunk) {
+        System.arraycopy(mChunks, chunk + 1, mChunks, chunk, mChunkCount - chunk - 1);
+        System.arraycopy(mChunkSizes, chunk + 1, mChunkSizes, chunk, mChunkCount - chunk - 1);
+        mChunkCount--;
+        mChunks[mChunkCount] = null;
+        mChunkSizes[mChunkCount] = 0;
+        mTreeValid = false;
+    }
+
+    /**
+     * Replaces the contents of the list with the given sorted items.
+     */
+    private void setData(T[] data, int size) {
+        // leave some room in each chunk, so that the first adds don't split them
+        final int perChunk = mChunkCapacity * 3 / 4;
+        final int chunkCount = (size + perChunk - 1) / perChunk;
+        mChunks = new Object[Math.max(MIN_CHUNK_COUNT, chunkCount * 2)][];
+        mChunkSizes = new int[mChunks.length];
+        mTree = new int[mChunks.length + 1];
+        mChunkCount = 0;
+        for (int start = 0; start < size; start += perChunk) {
+            final int chunkSize = Math.min(perChunk, size - start);
+            final Object[] items = new Object[mChunkCapacity];
+            System.arraycopy(data, start, items, 0, chunkSize);
+            mChunks[mChunkCount] = items;
+            mChunkSizes[mChunkCount] = chunkSize;
+            mChunkCount++;
+        }
+        mSize = size;
+        mTreeValid = false;
+    }
+
+    private T[] toArray() {
+        final T[] data = (T[]) Array.newInstance(mTClass, mSize);
+        int start = 0;
+        for (int i = 0; i < mChunkCount; i++) {
+            System.arraycopy(mChunks[i], 0, data, start, mChunkSizes[i]);
+            start += mChunkSizes[i];
+        }
+        return data;
+    }
+
+    private void ensureTree() {
+        if (mTreeValid) {
+            return;
+        }
+        final int[] tree = mTree;
+        for (int i = 1; i <= mChunkCount; i++) {
+            tree[i] = mChunkSizes[i - 1];
+        }
+        for (int i = 1; i <= mChunkCount; i++) {
+            final int parent = i + (i & -i);
+            if (parent <= mChunkCount) {
+                tree[parent] += tree[i];
+            }
+        }
+        mTreeValid = true;
+    }
+
+    private void updateTree(int chunk, int delta) {
+        if (!mTreeValid) {
+            return;
+        }
+        for (int i = chunk + 1; i <= mChunkCount; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    /**
+     * @return The number of items in the chunks before the given one.
+     */
+    private int getChunkStart(int chunk) {
+        ensureTree();
+        int start = 0;
+        for (int i = chunk; i > 0; i -= i & -i) {
+            start += mTree[i];
+        }
+        return start;
+    }
+
+    /**
+     * Finds the chunk of a valid index, and stores it in mLocatedChunk and mLocatedOffset.
+     */
+    private void locate(int index) {
+        ensureTree();
+        int chunk = 0;
+        int offset = index;
+        for (int step = Integer.highestOneBit(mChunkCount); step > 0; step >>= 1) {
+            final int next = chunk + step;
+            if (next <= mChunkCount && mTree[next] <= offset) {
+                chunk = next;
+                offset -= mTree[next];
+            }
+        }
+        mLocatedChunk = chunk;
+        mLocatedOffset = offset;
+    }
+
+    /**
+     * Removes all items from the list.
+     */
+    public void clear() {
+        throwIfMerging();
+        if (mSize == 0) {
+            return;
+        }
+        final int prevSize = mSize;
+        mChunks = new Object[MIN_CHUNK_COUNT][];
+        mChunkSizes = new int[MIN_CHUNK_COUNT];
+        mTree = new int[MIN_CHUNK_COUNT + 1];
+        mChunkCount = 0;
+        mTreeValid = true;
+        mSize = 0;
+        mCallback.onRemoved(0, prevSize);
+    }
+}
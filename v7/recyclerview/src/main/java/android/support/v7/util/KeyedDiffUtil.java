@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.util;
+
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * KeyedDiffUtil calculates the update operations that convert one list into another, for lists
+ * where each item has a unique, stable key, such as a database id.
+ * <p>
+ * Unlike {@link DiffUtil}, which searches for the longest common subsequence of items and takes
+ * O((N + M) * D) time, KeyedDiffUtil matches old and new items by looking up their keys in a hash
+ * table, as in Heckel's diff algorithm. It then keeps the longest run of matched items that are
+ * already in order in place, and moves the others. This takes O((N + M) log N) time regardless of
+ * how many items changed, and detects moves without an extra pass.
+ * <p>
+ * Items are only matched if their keys are equal, so keys must be unique within each list. If a
+ * key occurs more than once, only its first occurrence in each list is matched, and the others are
+ * removed and inserted.
+ * <p>
+ * The result is dispatched to a {@link ListUpdateCallback} in the same way as a
+ * {@link DiffUtil.DiffResult}, though the operations may differ from the ones DiffUtil would
+ * produce for the same lists.
+ */
+public class KeyedDiffUtil {
+
+    private KeyedDiffUtil() {
+        // utility class, no instance.
+    }
+
+    /**
+     * Calculates the list of update operations that convert the old list into the new list.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     *
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    public static DiffResult calculateDiff(Callback cb) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+        final DiffResult result = new DiffResult();
+
+        // match items through their keys
+        final HashMap<Object, Integer> newPositions = new HashMap<>(newSize * 4 / 3 + 1);
+        for (int i = 0; i < newSize; i++) {
+            final Object key = cb.getNewItemKey(i);
+            if (key != null && !newPositions.containsKey(key)) {
+                newPositions.put(key, i);
+            }
+        }
+        // new position of each old item, or -1 if removed
+        final int[] oldToNew = new int[oldSize];
+        // rank of each new item among the kept old items, in old order, or -1 if inserted
+        final int[] newToRank = new int[newSize];
+        Arrays.fill(newToRank, -1);
+        int keptCount = 0;
+        for (int i = 0; i < oldSize; i++) {
+            final Object key = cb.getOldItemKey(i);
+            final Integer newPosition = key == null ? null : newPositions.remove(key);
+            if (newPosition == null) {
+                oldToNew[i] = -1;
+            } else {
+                oldToNew[i] = newPosition;
+                newToRank[newPosition] = keptCount++;
+            }
+        }
+
+        // removals, from the end so positions of the remaining items are still valid
+        for (int i = oldSize - 1; i >= 0; i--) {
+            if (oldToNew[i] == -1) {
+                result.add(DiffResult.OP_REMOVE, i, 1, null);
+            }
+        }
+
+        // old position of each kept item, by rank
+        final int[] rankToOld = new int[keptCount];
+        final int[] rankToNew = new int[keptCount];
+        for (int i = 0, rank = 0; i < oldSize; i++) {
+            if (oldToNew[i] != -1) {
+                rankToOld[rank] = i;
+                rankToNew[rank] = oldToNew[i];
+                rank++;
+            }
+        }
+        final boolean[] stable = longestIncreasingSubsequence(rankToNew);
+
+        // The current list is tracked as a sequence of buckets: bucket 2 * (rank + 1) holds the
+        // kept item of that rank until it is moved, and bucket 2 * (rank + 1) + 1 holds items
+        // placed after the stable item of that rank, in new order. Bucket 1 holds items placed
+        // before the first stable item. The position of an item is the number of items in the
+        // buckets before it.
+        final PositionTree tree = new PositionTree(2 * (keptCount + 1));
+        for (int rank = 0; rank < keptCount; rank++) {
+            tree.add(2 * (rank + 1), 1);
+        }
+
+        int anchorRank = -1;
+        for (int i = 0; i < newSize; i++) {
+            final int rank = newToRank[i];
+            final int placedBucket = 2 * (anchorRank + 1) + 1;
+            if (rank == -1) {
+                result.add(DiffResult.OP_INSERT, tree.countUpTo(placedBucket), 1, null);
+                tree.add(placedBucket, 1);
+                continue;
+            }
+
+            final int itemBucket = 2 * (rank + 1);
+            final int position;
+            if (stable[rank]) {
+                anchorRank = rank;
+                position = tree.countUpTo(itemBucket - 1);
+            } else {
+                final int from = tree.countUpTo(itemBucket - 1);
+                tree.add(itemBucket, -1);
+                position = tree.countUpTo(placedBucket);
+                tree.add(placedBucket, 1);
+                if (from != position) {
+                    result.add(DiffResult.OP_MOVE, from, position, null);
+                }
+            }
+
+            final int oldPosition = rankToOld[rank];
+            if (!cb.areContentsTheSame(oldPosition, i)) {
+                result.add(DiffResult.OP_CHANGE, position, 1,
+                        cb.getChangePayload(oldPosition, i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns which values are part of a longest strictly increasing subsequence of the array.
+     */
+    private static boolean[] longestIncreasingSubsequence(int[] values) {
+        final int count = values.length;
+        // tails[l] is the index of the smallest value ending an increasing run of length l + 1
+        final int[] tails = new int[count];
+        final int[] previous = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        final boolean[] result = new boolean[count];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            result[i] = true;
+        }
+        return result;
+    }
+
+    /**
+     * Fenwick tree of item counts per bucket, to find the current position of an item in
+     * O(log N) time while items are moved and inserted.
+     */
+    private static class PositionTree {
+        private final int[] mTree;
+
+        PositionTree(int size) {
+            mTree = new int[size + 1];
+        }
+
+        void add(int bucket, int delta) {
+            for (int i = bucket + 1; i < mTree.length; i += i & -i) {
+                mTree[i] += delta;
+            }
+        }
+
+        /**
+         * Returns the number of items in buckets 0 to bucket, inclusive.
+         */
+        int countUpTo(int bucket) {
+            int count = 0;
+            for (int i = bucket + 1; i > 0; i -= i & -i) {
+                count += mTree[i];
+            }
+            return count;
+        }
+    }
+
+    /**
+     * A Callback class used by KeyedDiffUtil while calculating the diff between two lists.
+     */
+    public abstract static class Callback {
+        /**
+         * Returns the size of the old list.
+         *
+         * @return The size of the old list.
+         */
+        public abstract int getOldListSize();
+
+        /**
+         * Returns the size of the new list.
+         *
+         * @return The size of the new list.
+         */
+        public abstract int getNewListSize();
+
+        /**
+         * Returns the key of an item in the old list. Items in the old and new list with equal
+         * keys, as defined by {@link Object#equals(Object)} and {@link Object#hashCode()},
+         * represent the same item.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @return The key of the item, or null if it can't be matched to any new item.
+         */
+        @Nullable
+        public abstract Object getOldItemKey(int oldItemPosition);
+
+        /**
+         * Returns the key of an item in the new list.
+         *
+         * @param newItemPosition The position of the item in the new list
+         * @return The key of the item, or null if it can't be matched to any old item.
+         * @see #getOldItemKey(int)
+         */
+        @Nullable
+        public abstract Object getNewItemKey(int newItemPosition);
+
+        /**
+         * Called for items with equal keys, to check whether they have the same data.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @param newItemPosition The position of the item in the new list
+         * @return True if the contents of the items are the same or false if they are different.
+         * @see DiffUtil.Callback#areContentsTheSame(int, int)
+         */
+        public abstract boolean areContentsTheSame(int oldItemPosition, int newItemPosition);
+
+        /**
+         * Called for items with equal keys whose contents are not the same, to get a payload
+         * about the change.
+         * <p>
+         * Default implementation returns {@code null}.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         * @param newItemPosition The position of the item in the new list
+         * @return A payload object that represents the change between the two items.
+         * @see DiffUtil.Callback#getChangePayload(int, int)
+         */
+        @Nullable
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return null;
+        }
+    }
+
+    /**
+     * This class holds the update operations calculated by
+     * {@link KeyedDiffUtil#calculateDiff(Callback)}.
+     * <p>
+     * The operations are computed up front, so a DiffResult can be calculated on a background
+     * thread and dispatched on the main thread.
+     */
+    public static class DiffResult {
+        static final int OP_INSERT = 0;
+        static final int OP_REMOVE = 1;
+        static final int OP_MOVE = 2;
+        static final int OP_CHANGE = 3;
+
+        // three ints per operation: type, position (or from), count (or to)
+        private int[] mOps = new int[24];
+        private int mOpCount;
+        // payloads of change operations, in order
+        private final List<Object> mPayloads = new ArrayList<>();
+
+        DiffResult() {
+        }
+
+        void add(int type, int first, int second, Object payload) {
+            final int index = mOpCount * 3;
+            if (index + 3 > mOps.length) {
+                mOps = Arrays.copyOf(mOps, mOps.length * 2);
+            }
+            mOps[index] = type;
+            mOps[index + 1] = first;
+            mOps[index + 2] = second;
+            if (type == OP_CHANGE) {
+                mPayloads.add(payload);
+            }
+            mOpCount++;
+        }
+
+        /**
+         * Dispatches the updates to the given adapter.
+         *
+         * @param adapter A RecyclerView adapter which was displaying the old list and will start
+         *                displaying the new list.
+         * @see DiffUtil.DiffResult#dispatchUpdatesTo(RecyclerView.Adapter)
+         */
+        public void dispatchUpdatesTo(final RecyclerView.Adapter adapter) {
+            dispatchUpdatesTo(new ListUpdateCallback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    adapter.notifyItemRangeInserted(position, count);
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    adapter.notifyItemRangeRemoved(position, count);
+                }
+
+                @Override
+                public void onMoved(int fromPosition, int toPosition) {
+                    adapter.notifyItemMoved(fromPosition, toPosition);
+                }
+
+                @Override
+                public void onChanged(int position, int count, Object payload) {
+                    adapter.notifyItemRangeChanged(position, count, payload);
+                }
+            });
+        }
+
+        /**
+         * Dispatches update operations to the given Callback.
+         * <p>
+         * These updates are atomic such that the first update call effects every update call that
+         * comes after it (the same as RecyclerView).
+         *
+         * @param updateCallback The callback to receive the update operations.
+         */
+        public void dispatchUpdatesTo(ListUpdateCallback updateCallback) {
+            final BatchingListUpdateCallback batchingCallback;
+            if (updateCallback instanceof BatchingListUpdateCallback) {
+                batchingCallback = (BatchingListUpdateCallback) updateCallback;
+            } else {
+                batchingCallback = new BatchingListUpdateCallback(updateCallback);
+            }
+            int payloadIndex = 0;
+            for (int i = 0; i < mOpCount; i++) {
+                final int first = mOps[i * 3 + 1];
+                final int second = mOps[i * 3 + 2];
+                switch (mOps[i * 3]) {
+                    case OP_INSERT:
+                        batchingCallback.onInserted(first, second);
+                        break;
+                    case OP_REMOVE:
+                        batchingCallback.onRemoved(first, second);
+                        break;
+                    case OP_MOVE:
+                        batchingCallback.onMoved(first, second);
+                        break;
+                    case OP_CHANGE:
+                        batchingCallback.onChanged(first, second, mPayloads.get(payloadIndex++));
+                        break;
+                }
+            }
+            batchingCallback.dispatchLastEvent();
+        }
+    }
+}
@@ -93,6 +93,7 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
             static final int UPDATE_RANGE = 2;
             static final int LOAD_TILE = 3;
             static final int RECYCLE_TILE = 4;
+            static final int ADD_LOADED_TILE = 5;
 
             @Override
             public void refresh(int generation) {
@@ -116,6 +117,11 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
                 sendMessage(SyncQueueItem.obtainMessage(RECYCLE_TILE, 0, tile));
             }
 
+            @Override
+            public void addLoadedTile(int generation, TileList.Tile<T> tile) {
+                sendMessage(SyncQueueItem.obtainMessage(ADD_LOADED_TILE, generation, tile));
+            }
+
             private void sendMessage(SyncQueueItem msg) {
                 mQueue.sendMessage(msg);
                 maybeExecuteBackgroundRunnable();
@@ -138,7 +144,14 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
                     while (true) {
                         SyncQueueItem msg = mQueue.next();
                         if (msg == null) {
-                            break;
+                            mBackgroundRunning.set(false);
+                            // a message sent since next() returned null found this runnable
+                            // still running, so it is ours to handle unless another one started
+                            if (mQueue.isEmpty()
+                                    || !mBackgroundRunning.compareAndSet(false, true)) {
+                                break;
+                            }
+                            continue;
                         }
                         switch (msg.what) {
                             case REFRESH:
@@ -158,11 +171,14 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
                                 //noinspection unchecked
                                 callback.recycleTile((TileList.Tile<T>) msg.data);
                                 break;
+                            case ADD_LOADED_TILE:
+                                //noinspection unchecked
+                                callback.addLoadedTile(msg.arg1, (TileList.Tile<T>) msg.data);
+                                break;
                             default:
                                 Log.e("ThreadUtil", "Unsupported message, what=" + msg.what);
                         }
                     }
-                    mBackgroundRunning.set(false);
                 }
             };
         };
@@ -241,6 +257,10 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
             return next;
         }
 
+        synchronized boolean isEmpty() {
+            return mRoot == null;
+        }
+
         synchronized void sendMessageAtFrontOfQueue(SyncQueueItem item) {
             item.next = mRoot;
             mRoot = item;
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.util;
+
+/**
+ * Tiles waiting for a free load, and the tiles being loaded, for the concurrent loads of
+ * {@link AsyncListUtil}.
+ * <p>
+ * Only accessed on the background thread. Tiles are keyed by start position.
+ */
+class TileLoadQueue {
+
+    private final int mMaxConcurrentLoads;
+
+    // Loads started and not finished yet, including the loads of a previous generation
+    private int mLoadsInFlight;
+
+    // Tiles of the current generation being loaded, at most mMaxConcurrentLoads of them
+    private final int[] mLoadingTiles;
+    private int mLoadingTileCount;
+
+    // Tiles waiting for a free load, in the order they were requested
+    private int[] mPendingTiles = new int[8];
+    private int mPendingTileCount;
+
+    TileLoadQueue(int maxConcurrentLoads) {
+        mMaxConcurrentLoads = maxConcurrentLoads;
+        mLoadingTiles = new int[maxConcurrentLoads];
+    }
+
+    int getLoadsInFlight() {
+        return mLoadsInFlight;
+    }
+
+    int getLoadingTileCount() {
+        return mLoadingTileCount;
+    }
+
+    int getPendingTileCount() {
+        return mPendingTileCount;
+    }
+
+    boolean isLoading(int position) {
+        for (int i = 0; i < mLoadingTileCount; i++) {
+            if (mLoadingTiles[i] == position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues a tile, unless it is already queued or being loaded.
+     */
+    void addPendingTile(int position) {
+        if (isLoading(position)) {
+            return;
+        }
+        for (int i = 0; i < mPendingTileCount; i++) {
+            if (mPendingTiles[i] == position) {
+                return;
+            }
+        }
+        if (mPendingTileCount == mPendingTiles.length) {
+            final int[] pendingTiles = new int[mPendingTileCount * 2];
+            System.arraycopy(mPendingTiles, 0, pendingTiles, 0, mPendingTileCount);
+            mPendingTiles = pendingTiles;
+        }
+        mPendingTiles[mPendingTileCount++] = position;
+    }
+
+    /**
+     * Drops the tiles waiting for a free load.
+     */
+    void clearPendingTiles() {
+        mPendingTileCount = 0;
+    }
+
+    /**
+     * Drops the tiles waiting for a free load and forgets the tiles being loaded, when the
+     * generation changes. The loads in flight still take a load until they finish.
+     */
+    void clear() {
+        mPendingTileCount = 0;
+        mLoadingTileCount = 0;
+    }
+
+    /**
+     * Starts loading the oldest queued tile, if a load is free.
+     *
+     * @return The start position of the tile to load, or -1 if there is no free load or no
+     * queued tile.
+     */
+    int startNextLoad() {
+        if (mPendingTileCount == 0 || mLoadsInFlight >= mMaxConcurrentLoads) {
+            return -1;
+        }
+        final int position = mPendingTiles[0];
+        mPendingTileCount--;
+        System.arraycopy(mPendingTiles, 1, mPendingTiles, 0, mPendingTileCount);
+        mLoadingTiles[mLoadingTileCount++] = position;
+        mLoadsInFlight++;
+        return position;
+    }
+
+    /**
+     * Frees the load of a tile.
+     *
+     * @param position The start position of the tile.
+     * @param sameGeneration False if the load was started before the last {@link #clear()}.
+     */
+    void finishLoad(int position, boolean sameGeneration) {
+        mLoadsInFlight--;
+        if (!sameGeneration) {
+            return;
+        }
+        for (int i = 0; i < mLoadingTileCount; i++) {
+            if (mLoadingTiles[i] == position) {
+                mLoadingTileCount--;
+                mLoadingTiles[i] = mLoadingTiles[mLoadingTileCount];
+                return;
+            }
+        }
+    }
+}
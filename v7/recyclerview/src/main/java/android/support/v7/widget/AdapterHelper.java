@@ -40,6 +40,11 @@ import java.util.List;
  * <p>
  * Although operations may be forwarded to LayoutManager in different orders, resulting data set
  * is guaranteed to be the consistent.
+ * <p>
+ * Adjacent operations of the same type are merged as they are enqueued, so notifying each item
+ * of a range separately results in a single UpdateOp. If the number of pending operations still
+ * grows past {@link #MAX_PENDING_UPDATES}, RecyclerView stops tracking them and rebinds
+ * everything instead, since re-ordering them would cost more than a full layout.
  */
 class AdapterHelper implements OpReorderer.Callback {
 
@@ -47,6 +52,12 @@ class AdapterHelper implements OpReorderer.Callback {
 
     static final int POSITION_TYPE_NEW_OR_LAID_OUT = 1;
 
+    /**
+     * Number of pending update operations after which RecyclerView falls back to treating the
+     * changes like a {@link RecyclerView.Adapter#notifyDataSetChanged()}.
+     */
+    static final int MAX_PENDING_UPDATES = 500;
+
     private static final boolean DEBUG = false;
 
     private static final String TAG = "AHT";
@@ -503,6 +514,9 @@ class AdapterHelper implements OpReorderer.Callback {
         if (itemCount < 1) {
             return false;
         }
+        if (mergeWithLastUpdateOp(UpdateOp.UPDATE, positionStart, itemCount, payload)) {
+            return false;
+        }
         mPendingUpdates.add(obtainUpdateOp(UpdateOp.UPDATE, positionStart, itemCount, payload));
         mExistingUpdateTypes |= UpdateOp.UPDATE;
         return mPendingUpdates.size() == 1;
@@ -515,6 +529,9 @@ class AdapterHelper implements OpReorderer.Callback {
         if (itemCount < 1) {
             return false;
         }
+        if (mergeWithLastUpdateOp(UpdateOp.ADD, positionStart, itemCount, null)) {
+            return false;
+        }
         mPendingUpdates.add(obtainUpdateOp(UpdateOp.ADD, positionStart, itemCount, null));
         mExistingUpdateTypes |= UpdateOp.ADD;
         return mPendingUpdates.size() == 1;
@@ -527,6 +544,9 @@ class AdapterHelper implements OpReorderer.Callback {
         if (itemCount < 1) {
             return false;
         }
+        if (mergeWithLastUpdateOp(UpdateOp.REMOVE, positionStart, itemCount, null)) {
+            return false;
+        }
         mPendingUpdates.add(obtainUpdateOp(UpdateOp.REMOVE, positionStart, itemCount, null));
         mExistingUpdateTypes |= UpdateOp.REMOVE;
         return mPendingUpdates.size() == 1;
@@ -547,6 +567,69 @@ class AdapterHelper implements OpReorderer.Callback {
         return mPendingUpdates.size() == 1;
     }
 
+    /**
+     * Tries to fold a new operation into the last pending one so that a sequence of per item
+     * notifications does not create an UpdateOp per item. Only operations of the same type that
+     * touch a contiguous range are merged, the result is the same as applying both in order.
+     *
+     * @return True if the operation was merged and should not be enqueued.
+     */
+    private boolean mergeWithLastUpdateOp(int cmd, int positionStart, int itemCount,
+            Object payload) {
+        final int size = mPendingUpdates.size();
+        if (size == 0) {
+            return false;
+        }
+        final UpdateOp last = mPendingUpdates.get(size - 1);
+        if (last.cmd != cmd) {
+            return false;
+        }
+        final int lastEnd = last.positionStart + last.itemCount;
+        switch (cmd) {
+            case UpdateOp.ADD:
+                // inserted inside or right next to the previously inserted range
+                if (positionStart < last.positionStart || positionStart > lastEnd) {
+                    return false;
+                }
+                last.itemCount += itemCount;
+                return true;
+            case UpdateOp.REMOVE:
+                // the previously removed range sits at last.positionStart in the new positions
+                if (last.positionStart < positionStart
+                        || last.positionStart > positionStart + itemCount) {
+                    return false;
+                }
+                last.positionStart = positionStart;
+                last.itemCount += itemCount;
+                return true;
+            case UpdateOp.UPDATE:
+                if (last.payload != payload) {
+                    return false;
+                }
+                final int end = positionStart + itemCount;
+                // items are notified once per payload, so only a null payload, which requests
+                // a full re-bind, may be merged with an overlapping range.
+                final boolean mergeable = payload == null
+                        ? positionStart <= lastEnd && end >= last.positionStart
+                        : positionStart == lastEnd || end == last.positionStart;
+                if (!mergeable) {
+                    return false;
+                }
+                last.positionStart = Math.min(last.positionStart, positionStart);
+                last.itemCount = Math.max(lastEnd, end) - last.positionStart;
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return True if there are more pending update operations than it is worth re-ordering and
+     * RecyclerView should rebind everything instead.
+     */
+    boolean hasTooManyPendingUpdates() {
+        return mPendingUpdates.size() > MAX_PENDING_UPDATES;
+    }
+
     /**
      * Skips pre-processing and applies all updates in one pass.
      */
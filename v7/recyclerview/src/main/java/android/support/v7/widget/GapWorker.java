@@ -15,6 +15,8 @@
  */
 package android.support.v7.widget;
 
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.annotation.Nullable;
 import android.support.v4.os.TraceCompat;
 import android.view.View;
@@ -33,6 +35,40 @@ final class GapWorker implements Runnable {
     long mPostTimeNs;
     long mFrameIntervalNs;
 
+    // true while mIdleHandler is registered with the main thread's queue
+    private boolean mIdleHandlerAdded;
+
+    /**
+     * Prefetches a chunk of the idle work whenever the main thread's queue runs out of messages,
+     * i.e. when no frame or input is being processed, until all idle work is complete.
+     */
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            final boolean hasMoreWork;
+            try {
+                TraceCompat.beginSection(RecyclerView.TRACE_PREFETCH_TAG);
+                hasMoreWork = !mRecyclerViews.isEmpty() && prefetchIdle(System.nanoTime());
+            } finally {
+                TraceCompat.endSection();
+            }
+            if (hasMoreWork) {
+                // Idle handlers are only called again once another message was processed. Post
+                // an empty one, so that the next chunk runs after any pending frame.
+                mRecyclerViews.get(0).post(mIdleWakeup);
+                return true;
+            }
+            mIdleHandlerAdded = false;
+            return false;
+        }
+    };
+
+    private final Runnable mIdleWakeup = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
     static class Task {
         public boolean immediate;
         public int viewVelocity;
@@ -65,6 +101,9 @@ final class GapWorker implements Runnable {
         int mPrefetchDy;
         int[] mPrefetchArray;
 
+        // true if the view stopped scrolling, and prefetches in both directions while idle
+        boolean mIdlePrefetch;
+
         int mCount;
 
         void setPrefetchVector(int dx, int dy) {
@@ -104,6 +143,37 @@ final class GapWorker implements Runnable {
             }
         }
 
+        /**
+         * Collects the items next to the viewport in both scroll directions, for prefetching
+         * while the view doesn't scroll.
+         */
+        void collectIdlePrefetchPositionsFromView(RecyclerView view) {
+            mCount = 0;
+            if (mPrefetchArray != null) {
+                Arrays.fill(mPrefetchArray, -1);
+            }
+
+            final RecyclerView.LayoutManager layout = view.mLayout;
+            if (view.mAdapter != null
+                    && layout != null
+                    && layout.isItemPrefetchEnabled()
+                    && !view.hasPendingAdapterUpdates()) {
+                // LayoutManagers collect the items past the edge in the direction of the vector,
+                // so any distance works
+                final boolean vertical = layout.canScrollVertically();
+                layout.collectAdjacentPrefetchPositions(vertical ? 0 : 1, vertical ? 1 : 0,
+                        view.mState, this);
+                layout.collectAdjacentPrefetchPositions(vertical ? 0 : -1, vertical ? -1 : 0,
+                        view.mState, this);
+
+                if (mCount > layout.mPrefetchMaxCountObserved) {
+                    layout.mPrefetchMaxCountObserved = mCount;
+                    layout.mPrefetchMaxObservedInInitialPrefetch = false;
+                    view.mRecycler.updateViewCacheSize();
+                }
+            }
+        }
+
         @Override
         public void addPosition(int layoutPosition, int pixelDistance) {
             if (layoutPosition < 0) {
@@ -171,6 +241,7 @@ final class GapWorker implements Runnable {
      * Schedule a prefetch immediately after the current traversal.
      */
     void postFromTraversal(RecyclerView recyclerView, int prefetchDx, int prefetchDy) {
+        recyclerView.mPrefetchRegistry.mIdlePrefetch = false;
         if (recyclerView.isAttachedToWindow()) {
             if (RecyclerView.DEBUG && !mRecyclerViews.contains(recyclerView)) {
                 throw new IllegalStateException("attempting to post unregistered view!");
@@ -184,6 +255,21 @@ final class GapWorker implements Runnable {
         recyclerView.mPrefetchRegistry.setPrefetchVector(prefetchDx, prefetchDy);
     }
 
+    /**
+     * Schedule a prefetch of the items on both sides of the viewport, while the main thread is
+     * idle.
+     */
+    void postIdlePrefetch(RecyclerView recyclerView) {
+        if (!recyclerView.isAttachedToWindow()) {
+            return;
+        }
+        recyclerView.mPrefetchRegistry.mIdlePrefetch = true;
+        if (!mIdleHandlerAdded) {
+            mIdleHandlerAdded = true;
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+    }
+
     static Comparator<Task> sTaskComparator = new Comparator<Task>() {
         @Override
         public int compare(Task lhs, Task rhs) {
@@ -258,6 +344,51 @@ final class GapWorker implements Runnable {
         Collections.sort(mTasks, sTaskComparator);
     }
 
+    private void buildIdleTaskList() {
+        final int viewCount = mRecyclerViews.size();
+        int totalTaskIndex = 0;
+        for (int i = 0; i < viewCount; i++) {
+            RecyclerView view = mRecyclerViews.get(i);
+            LayoutPrefetchRegistryImpl prefetchRegistry = view.mPrefetchRegistry;
+            if (!prefetchRegistry.mIdlePrefetch
+                    || view.getWindowVisibility() != View.VISIBLE) {
+                continue;
+            }
+            prefetchRegistry.collectIdlePrefetchPositionsFromView(view);
+            for (int j = 0; j < prefetchRegistry.mCount * 2; j += 2) {
+                final Task task;
+                if (totalTaskIndex >= mTasks.size()) {
+                    task = new Task();
+                    mTasks.add(task);
+                } else {
+                    task = mTasks.get(totalTaskIndex);
+                }
+                task.immediate = false;
+                task.viewVelocity = 0;
+                task.distanceToItem = prefetchRegistry.mPrefetchArray[j + 1];
+                task.view = view;
+                task.position = prefetchRegistry.mPrefetchArray[j];
+
+                totalTaskIndex++;
+            }
+        }
+
+        // nearest items first
+        Collections.sort(mTasks, sTaskComparator);
+    }
+
+    static boolean isPrefetchPositionCached(RecyclerView view, int position) {
+        final ArrayList<RecyclerView.ViewHolder> cachedViews = view.mRecycler.mCachedViews;
+        final int cacheSize = cachedViews.size();
+        for (int i = 0; i < cacheSize; i++) {
+            final RecyclerView.ViewHolder holder = cachedViews.get(i);
+            if (holder.mPosition == position && holder.isBound() && !holder.isInvalid()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     static boolean isPrefetchPositionAttached(RecyclerView view, int position) {
         final int childCount = view.mChildHelper.getUnfilteredChildCount();
         for (int i = 0; i < childCount; i++) {
@@ -280,6 +411,8 @@ final class GapWorker implements Runnable {
 
         RecyclerView.Recycler recycler = view.mRecycler;
         RecyclerView.ViewHolder holder;
+        final boolean wasCached = isPrefetchPositionCached(view, position);
+        final long startNs = view.getNanoTime();
         try {
             view.onEnterLayoutOrScroll();
             holder = recycler.tryGetViewHolderForPositionByDeadline(
@@ -287,6 +420,13 @@ final class GapWorker implements Runnable {
 
             if (holder != null) {
                 if (holder.isBound() && !holder.isInvalid()) {
+                    if (!wasCached) {
+                        holder.addFlags(RecyclerView.ViewHolder.FLAG_PREFETCHED);
+                        view.mPrefetchedItemCount++;
+                        if (view.mMetricsListener != null) {
+                            view.mMetricsListener.onItemPrefetched(view, holder.getItemViewType());
+                        }
+                    }
                     // Only give the view a chance to go into the cache if binding succeeded
                     // Note that we must use public method, since item may need cleanup
                     recycler.recycleView(holder.itemView);
@@ -300,6 +440,7 @@ final class GapWorker implements Runnable {
             }
         } finally {
             view.onExitLayoutOrScroll(false);
+            view.mPrefetchTimeNs += view.getNanoTime() - startNs;
         }
         return holder;
     }
@@ -337,16 +478,22 @@ final class GapWorker implements Runnable {
         }
     }
 
-    private void flushTaskWithDeadline(Task task, long deadlineNs) {
+    /**
+     * @return True if the item of the task is bound, false if it didn't fit in the deadline.
+     */
+    private boolean flushTaskWithDeadline(Task task, long deadlineNs) {
         long taskDeadlineNs = task.immediate ? RecyclerView.FOREVER_NS : deadlineNs;
         RecyclerView.ViewHolder holder = prefetchPositionWithDeadline(task.view,
                 task.position, taskDeadlineNs);
-        if (holder != null
-                && holder.mNestedRecyclerView != null
-                && holder.isBound()
-                && !holder.isInvalid()) {
+        if (holder == null) {
+            // either attached, or didn't fit in the deadline
+            return isPrefetchPositionAttached(task.view, task.position);
+        }
+        final boolean bound = holder.isBound() && !holder.isInvalid();
+        if (bound && holder.mNestedRecyclerView != null) {
             prefetchInnerRecyclerViewWithDeadline(holder.mNestedRecyclerView.get(), deadlineNs);
         }
+        return bound;
     }
 
     private void flushTasksWithDeadline(long deadlineNs) {
@@ -365,6 +512,42 @@ final class GapWorker implements Runnable {
         flushTasksWithDeadline(deadlineNs);
     }
 
+    /**
+     * Prefetches the items on both sides of idle RecyclerViews, nearest first, for up to half a
+     * frame interval.
+     * <p>
+     * The first item that isn't cached yet is prefetched without deadline, so that an item that
+     * takes longer than the budget to bind still gets prefetched, one per chunk.
+     *
+     * @return True if there are items left to prefetch.
+     */
+    boolean prefetchIdle(long nowNs) {
+        buildIdleTaskList();
+        final long deadlineNs = nowNs + mFrameIntervalNs / 2;
+        boolean complete = true;
+        boolean first = true;
+        for (int i = 0; i < mTasks.size(); i++) {
+            final Task task = mTasks.get(i);
+            if (task.view == null) {
+                break; // done with populated tasks
+            }
+            if (!isPrefetchPositionCached(task.view, task.position)) {
+                task.immediate = first;
+                first = false;
+                if (!flushTaskWithDeadline(task, deadlineNs)) {
+                    complete = false;
+                }
+            }
+            task.clear();
+        }
+        if (complete) {
+            for (int i = 0; i < mRecyclerViews.size(); i++) {
+                mRecyclerViews.get(i).mPrefetchRegistry.mIdlePrefetch = false;
+            }
+        }
+        return !complete;
+    }
+
     @Override
     public void run() {
         try {
@@ -198,27 +198,32 @@ public class GridLayoutManager extends LinearLayoutManager {
     @Override
     public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
         mSpanSizeLookup.invalidateSpanIndexCache();
+        mSpanSizeLookup.invalidateSpanGroupIndexCache();
     }
 
     @Override
     public void onItemsChanged(RecyclerView recyclerView) {
         mSpanSizeLookup.invalidateSpanIndexCache();
+        mSpanSizeLookup.invalidateSpanGroupIndexCache();
     }
 
     @Override
     public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
         mSpanSizeLookup.invalidateSpanIndexCache();
+        mSpanSizeLookup.invalidateSpanGroupIndexCache();
     }
 
     @Override
     public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount,
             Object payload) {
         mSpanSizeLookup.invalidateSpanIndexCache();
+        mSpanSizeLookup.invalidateSpanGroupIndexCache();
     }
 
     @Override
     public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
         mSpanSizeLookup.invalidateSpanIndexCache();
+        mSpanSizeLookup.invalidateSpanGroupIndexCache();
     }
 
     @Override
@@ -448,7 +453,7 @@ public class GridLayoutManager extends LinearLayoutManager {
     private int getSpanGroupIndex(RecyclerView.Recycler recycler, RecyclerView.State state,
             int viewPosition) {
         if (!state.isPreLayout()) {
-            return mSpanSizeLookup.getSpanGroupIndex(viewPosition, mSpanCount);
+            return mSpanSizeLookup.getCachedSpanGroupIndex(viewPosition, mSpanCount);
         }
         final int adapterPosition = recycler.convertPreLayoutPositionToPostLayout(viewPosition);
         if (adapterPosition == -1) {
@@ -459,7 +464,7 @@ public class GridLayoutManager extends LinearLayoutManager {
             Log.w(TAG, "Cannot find span size for pre layout position. " + viewPosition);
             return 0;
         }
-        return mSpanSizeLookup.getSpanGroupIndex(adapterPosition, mSpanCount);
+        return mSpanSizeLookup.getCachedSpanGroupIndex(adapterPosition, mSpanCount);
     }
 
     private int getSpanIndex(RecyclerView.Recycler recycler, RecyclerView.State state, int pos) {
@@ -816,6 +821,7 @@ public class GridLayoutManager extends LinearLayoutManager {
         }
         mSpanCount = spanCount;
         mSpanSizeLookup.invalidateSpanIndexCache();
+        mSpanSizeLookup.invalidateSpanGroupIndexCache();
         requestLayout();
     }
 
@@ -829,8 +835,10 @@ public class GridLayoutManager extends LinearLayoutManager {
     public abstract static class SpanSizeLookup {
 
         final SparseIntArray mSpanIndexCache = new SparseIntArray();
+        final SparseIntArray mSpanGroupIndexCache = new SparseIntArray();
 
         private boolean mCacheSpanIndices = false;
+        private boolean mCacheSpanGroupIndices = false;
 
         /**
          * Returns the number of span occupied by the item at <code>position</code>.
@@ -868,6 +876,45 @@ public class GridLayoutManager extends LinearLayoutManager {
             return mCacheSpanIndices;
         }
 
+        /**
+         * Sets whether the results of {@link #getSpanGroupIndex(int, int)} method should be cached
+         * or not. By default these values are not cached. If you are not overriding
+         * {@link #getSpanGroupIndex(int, int)}, you should set this to true for better
+         * performance. The span group of a position is then calculated from the closest cached
+         * position before it.
+         * <p>
+         * That calculation needs the span index of the cached position. Enable the span index
+         * cache as well so that it is looked up as fast as the span group, in O(log n) plus the
+         * distance from the cached position. Otherwise it is calculated by traversing all items
+         * from 0 for each lookup. Both caches are cleared on every adapter change, so the first
+         * lookups after a change traverse the items again.
+         *
+         * @param cacheSpanGroupIndices Whether results of getSpanGroupIndex should be cached or
+         *                              not.
+         * @see #setSpanIndexCacheEnabled(boolean)
+         */
+        public void setSpanGroupIndexCacheEnabled(boolean cacheSpanGroupIndices) {
+            mCacheSpanGroupIndices = cacheSpanGroupIndices;
+        }
+
+        /**
+         * Clears the span group index cache. GridLayoutManager automatically calls this method
+         * when adapter changes occur.
+         */
+        public void invalidateSpanGroupIndexCache() {
+            mSpanGroupIndexCache.clear();
+        }
+
+        /**
+         * Returns whether results of {@link #getSpanGroupIndex(int, int)} method are cached or
+         * not.
+         *
+         * @return True if results of {@link #getSpanGroupIndex(int, int)} are cached.
+         */
+        public boolean isSpanGroupIndexCacheEnabled() {
+            return mCacheSpanGroupIndices;
+        }
+
         int getCachedSpanIndex(int position, int spanCount) {
             if (!mCacheSpanIndices) {
                 return getSpanIndex(position, spanCount);
@@ -936,12 +983,16 @@ public class GridLayoutManager extends LinearLayoutManager {
         }
 
         int findReferenceIndexFromCache(int position) {
+            return findReferenceIndexFromCache(mSpanIndexCache, position);
+        }
+
+        static int findReferenceIndexFromCache(SparseIntArray cache, int position) {
             int lo = 0;
-            int hi = mSpanIndexCache.size() - 1;
+            int hi = cache.size() - 1;
 
             while (lo <= hi) {
                 final int mid = (lo + hi) >>> 1;
-                final int midVal = mSpanIndexCache.keyAt(mid);
+                final int midVal = cache.keyAt(mid);
                 if (midVal < position) {
                     lo = mid + 1;
                 } else {
@@ -949,17 +1000,40 @@ public class GridLayoutManager extends LinearLayoutManager {
                 }
             }
             int index = lo - 1;
-            if (index >= 0 && index < mSpanIndexCache.size()) {
-                return mSpanIndexCache.keyAt(index);
+            if (index >= 0 && index < cache.size()) {
+                return cache.keyAt(index);
             }
             return -1;
         }
 
+        int getCachedSpanGroupIndex(int adapterPosition, int spanCount) {
+            if (!mCacheSpanGroupIndices) {
+                return getSpanGroupIndex(adapterPosition, spanCount);
+            }
+            final int existing = mSpanGroupIndexCache.get(adapterPosition, -1);
+            if (existing != -1) {
+                return existing;
+            }
+            final int value = getSpanGroupIndex(adapterPosition, spanCount);
+            mSpanGroupIndexCache.put(adapterPosition, value);
+            if (mCacheSpanIndices) {
+                // a later lookup that starts from this position needs its span index, cache it
+                // now while the span index of the reference position is cached as well
+                getCachedSpanIndex(adapterPosition, spanCount);
+            }
+            return value;
+        }
+
         /**
          * Returns the index of the group this position belongs.
          * <p>
          * For example, if grid has 3 columns and each item occupies 1 span, span group index
          * for item 1 will be 0, item 5 will be 1.
+         * <p>
+         * When caching is disabled, default implementation traverses all items from 0 to
+         * <code>adapterPosition</code>. When caching is enabled
+         * ({@link #setSpanGroupIndexCacheEnabled(boolean)}), it calculates from the closest cached
+         * value before the <code>adapterPosition</code>.
          *
          * @param adapterPosition The position in adapter
          * @param spanCount The total number of spans in the grid
@@ -968,8 +1042,22 @@ public class GridLayoutManager extends LinearLayoutManager {
         public int getSpanGroupIndex(int adapterPosition, int spanCount) {
             int span = 0;
             int group = 0;
+            int startPos = 0;
+            // If caching is enabled, try to jump
+            if (mCacheSpanGroupIndices && mSpanGroupIndexCache.size() > 0) {
+                int prevKey = findReferenceIndexFromCache(mSpanGroupIndexCache, adapterPosition);
+                if (prevKey >= 0) {
+                    group = mSpanGroupIndexCache.get(prevKey);
+                    span = getCachedSpanIndex(prevKey, spanCount) + getSpanSize(prevKey);
+                    if (span == spanCount) {
+                        span = 0;
+                        group++;
+                    }
+                    startPos = prevKey + 1;
+                }
+            }
             int positionSpanSize = getSpanSize(adapterPosition);
-            for (int i = 0; i < adapterPosition; i++) {
+            for (int i = startPos; i < adapterPosition; i++) {
                 int size = getSpanSize(i);
                 span += size;
                 if (span == spanCount) {
@@ -1130,6 +1218,11 @@ public class GridLayoutManager extends LinearLayoutManager {
         public int getSpanIndex(int position, int spanCount) {
             return position % spanCount;
         }
+
+        @Override
+        public int getSpanGroupIndex(int adapterPosition, int spanCount) {
+            return adapterPosition / spanCount;
+        }
     }
 
     /**
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.support.v7.widget;
+
+import android.support.v4.util.LongSparseArray;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the measured size of items along the layout direction so that scroll offsets can be
+ * computed from real sizes instead of the average size of the visible children.
+ * <p>
+ * Sizes are kept by adapter position, with a Fenwick tree on top that answers the offset of a
+ * position in O(log n). Items that were never measured are assumed to have the average size of
+ * the measured ones. Adapter updates shift the sizes and the tree is rebuilt lazily on the next
+ * query. When the adapter has stable ids, sizes are also matched by id so they survive
+ * {@link RecyclerView.Adapter#notifyDataSetChanged()}.
+ */
+class ItemSizeCache {
+    private static final int UNKNOWN = -1;
+
+    // sizes and ids by adapter position, valid up to mLength
+    private int[] mSizes = new int[0];
+    private long[] mIds = new long[0];
+    private int mLength;
+
+    // 1 based Fenwick trees of the known sizes and of the number of known sizes
+    private long[] mSizeTree;
+    private int[] mKnownTree;
+    private boolean mTreeValid;
+
+    /**
+     * Records the size of the item at the given position.
+     *
+     * @param id The stable id of the item or {@link RecyclerView#NO_ID}
+     */
+    void setSize(int position, long id, int size) {
+        ensureCapacity(position + 1);
+        if (position >= mLength) {
+            mLength = position + 1;
+        }
+        final int oldSize = mSizes[position];
+        mSizes[position] = size;
+        mIds[position] = id;
+        if (mTreeValid && oldSize != size) {
+            update(position, size - (oldSize == UNKNOWN ? 0 : oldSize),
+                    oldSize == UNKNOWN ? 1 : 0);
+        }
+    }
+
+    /**
+     * Returns the recorded size of the item at the given position or -1 if it is unknown.
+     */
+    int getSize(int position) {
+        return position < mLength ? mSizes[position] : UNKNOWN;
+    }
+
+    /**
+     * Returns true if the size of at least one item is known.
+     */
+    boolean hasSizes() {
+        ensureTree();
+        return knownCount(mLength) > 0;
+    }
+
+    /**
+     * Returns the total size of the items before the given position.
+     *
+     * @param itemCount The number of items in the adapter, used to estimate the unknown items
+     */
+    int getOffset(int position, int itemCount) {
+        ensureTree();
+        final int known = Math.min(position, mLength);
+        final long knownSize = knownSize(known);
+        final int knownCount = knownCount(known);
+        final int allKnownCount = knownCount(mLength);
+        if (allKnownCount == 0) {
+            return 0;
+        }
+        final float average = (float) knownSize(mLength) / allKnownCount;
+        final int unknownCount = Math.min(position, itemCount) - knownCount;
+        return (int) Math.min(Integer.MAX_VALUE,
+                knownSize + Math.round(Math.max(0, unknownCount) * average));
+    }
+
+    /**
+     * Returns the total size of all items in the adapter.
+     */
+    int getTotalSize(int itemCount) {
+        return getOffset(itemCount, itemCount);
+    }
+
+    void clear() {
+        Arrays.fill(mSizes, 0, mLength, UNKNOWN);
+        mLength = 0;
+        mTreeValid = false;
+    }
+
+    void onItemsAdded(int positionStart, int itemCount) {
+        if (positionStart >= mLength) {
+            return;
+        }
+        ensureCapacity(mLength + itemCount);
+        System.arraycopy(mSizes, positionStart, mSizes, positionStart + itemCount,
+                mLength - positionStart);
+        System.arraycopy(mIds, positionStart, mIds, positionStart + itemCount,
+                mLength - positionStart);
+        Arrays.fill(mSizes, positionStart, positionStart + itemCount, UNKNOWN);
+        mLength += itemCount;
+        mTreeValid = false;
+    }
+
+    void onItemsRemoved(int positionStart, int itemCount) {
+        if (positionStart >= mLength) {
+            return;
+        }
+        final int end = Math.min(positionStart + itemCount, mLength);
+        System.arraycopy(mSizes, end, mSizes, positionStart, mLength - end);
+        System.arraycopy(mIds, end, mIds, positionStart, mLength - end);
+        final int newLength = mLength - (end - positionStart);
+        Arrays.fill(mSizes, newLength, mLength, UNKNOWN);
+        mLength = newLength;
+        mTreeValid = false;
+    }
+
+    void onItemsMoved(int from, int to, int itemCount) {
+        for (int i = 0; i < itemCount; i++) {
+            final int size = getSize(from + i);
+            final long id = from + i < mLength ? mIds[from + i] : RecyclerView.NO_ID;
+            onItemsRemoved(from + i, 1);
+            onItemsAdded(to + i, 1);
+            if (size != UNKNOWN) {
+                setSize(to + i, id, size);
+            }
+        }
+    }
+
+    void onItemsUpdated(int positionStart, int itemCount) {
+        final int end = Math.min(positionStart + itemCount, mLength);
+        if (positionStart >= end) {
+            return;
+        }
+        Arrays.fill(mSizes, positionStart, end, UNKNOWN);
+        mTreeValid = false;
+    }
+
+    /**
+     * Called when the whole data set changed. Sizes are kept for the items whose stable id is
+     * still in the adapter, everything else is forgotten.
+     */
+    void onItemsChanged(RecyclerView.Adapter adapter) {
+        if (adapter == null || !adapter.hasStableIds() || mLength == 0) {
+            clear();
+            return;
+        }
+        final LongSparseArray<Integer> sizesById = new LongSparseArray<>(mLength);
+        for (int i = 0; i < mLength; i++) {
+            if (mSizes[i] != UNKNOWN && mIds[i] != RecyclerView.NO_ID) {
+                sizesById.put(mIds[i], mSizes[i]);
+            }
+        }
+        clear();
+        if (sizesById.size() == 0) {
+            return;
+        }
+        final int itemCount = adapter.getItemCount();
+        for (int i = 0; i < itemCount; i++) {
+            final long id = adapter.getItemId(i);
+            final Integer size = sizesById.get(id);
+            if (size != null) {
+                setSize(i, id, size);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mSizes.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, Math.max(16, mSizes.length * 2));
+        final int oldCapacity = mSizes.length;
+        mSizes = Arrays.copyOf(mSizes, newCapacity);
+        mIds = Arrays.copyOf(mIds, newCapacity);
+        Arrays.fill(mSizes, oldCapacity, newCapacity, UNKNOWN);
+        mTreeValid = false;
+    }
+
+    private void ensureTree() {
+        if (mTreeValid) {
+            return;
+        }
+        final int capacity = mSizes.length;
+        if (mSizeTree == null || mSizeTree.length != capacity + 1) {
+            mSizeTree = new long[capacity + 1];
+            mKnownTree = new int[capacity + 1];
+        } else {
+            Arrays.fill(mSizeTree, 0);
+            Arrays.fill(mKnownTree, 0);
+        }
+        for (int i = 1; i <= capacity; i++) {
+            final int size = mSizes[i - 1];
+            if (size != UNKNOWN) {
+                mSizeTree[i] += size;
+                mKnownTree[i]++;
+            }
+            final int parent = i + (i & -i);
+            if (parent <= capacity) {
+                mSizeTree[parent] += mSizeTree[i];
+                mKnownTree[parent] += mKnownTree[i];
+            }
+        }
+        mTreeValid = true;
+    }
+
+    private void update(int position, int sizeDelta, int knownDelta) {
+        for (int i = position + 1; i < mSizeTree.length; i += i & -i) {
+            mSizeTree[i] += sizeDelta;
+            mKnownTree[i] += knownDelta;
+        }
+    }
+
+    // sum of the known sizes in [0, end)
+    private long knownSize(int end) {
+        long sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += mSizeTree[i];
+        }
+        return sum;
+    }
+
+    // number of known sizes in [0, end)
+    private int knownCount(int end) {
+        int count = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            count += mKnownTree[i];
+        }
+        return count;
+    }
+}
@@ -116,6 +116,12 @@ public class LinearLayoutManager extends RecyclerView.LayoutManager implements
      */
     private boolean mSmoothScrollbarEnabled = true;
 
+    /**
+     * Measured item sizes used for the smooth scrollbar, or null if it is disabled.
+     * see {@link #setItemSizeCacheEnabled(boolean)}
+     */
+    ItemSizeCache mItemSizeCache;
+
     /**
      * When LayoutManager needs to scroll to a position, it sets this variable and requests a
      * layout which will check this variable and re-layout accordingly.
@@ -341,6 +347,9 @@ public class LinearLayoutManager extends RecyclerView.LayoutManager implements
         }
         mOrientation = orientation;
         mOrientationHelper = null;
+        if (mItemSizeCache != null) {
+            mItemSizeCache.clear();
+        }
         requestLayout();
     }
 
@@ -1111,6 +1120,12 @@ public class LinearLayoutManager extends RecyclerView.LayoutManager implements
             return 0;
         }
         ensureLayoutState();
+        if (useItemSizeCache()) {
+            return ScrollbarHelper.computeScrollOffset(state, mOrientationHelper,
+                    findFirstVisibleChildClosestToStart(false, true),
+                    findFirstVisibleChildClosestToEnd(false, true),
+                    this, mItemSizeCache, mShouldReverseLayout);
+        }
         return ScrollbarHelper.computeScrollOffset(state, mOrientationHelper,
                 findFirstVisibleChildClosestToStart(!mSmoothScrollbarEnabled, true),
                 findFirstVisibleChildClosestToEnd(!mSmoothScrollbarEnabled, true),
@@ -1133,6 +1148,9 @@ public class LinearLayoutManager extends RecyclerView.LayoutManager implements
             return 0;
         }
         ensureLayoutState();
+        if (useItemSizeCache()) {
+            return ScrollbarHelper.computeScrollRange(state, this, mItemSizeCache);
+        }
         return ScrollbarHelper.computeScrollRange(state, mOrientationHelper,
                 findFirstVisibleChildClosestToStart(!mSmoothScrollbarEnabled, true),
                 findFirstVisibleChildClosestToEnd(!mSmoothScrollbarEnabled, true),
@@ -1171,6 +1189,86 @@ public class LinearLayoutManager extends RecyclerView.LayoutManager implements
         return mSmoothScrollbarEnabled;
     }
 
+    /**
+     * When enabled, LinearLayoutManager remembers the size of every item it lays out and the
+     * smooth scrollbar is computed from these sizes instead of the average size of the visible
+     * items. Items that were never laid out are assumed to have the average size of the ones
+     * that were. This keeps the scrollbar stable in lists whose items have very different sizes.
+     * <p>
+     * Sizes are forgotten when the items are updated, and on
+     * {@link RecyclerView.Adapter#notifyDataSetChanged()} unless the adapter has stable ids.
+     * It is disabled by default and has no effect when smooth scrollbar is disabled or on
+     * {@link GridLayoutManager}.
+     *
+     * @param enabled Whether or not to remember item sizes.
+     *
+     * @see #setSmoothScrollbarEnabled(boolean)
+     */
+    public void setItemSizeCacheEnabled(boolean enabled) {
+        if (enabled == (mItemSizeCache != null)) {
+            return;
+        }
+        mItemSizeCache = enabled ? new ItemSizeCache() : null;
+    }
+
+    /**
+     * Returns whether item sizes are remembered for the smooth scrollbar.
+     *
+     * @return True if the item size cache is enabled, false otherwise.
+     *
+     * @see #setItemSizeCacheEnabled(boolean)
+     */
+    public boolean isItemSizeCacheEnabled() {
+        return mItemSizeCache != null;
+    }
+
+    private boolean useItemSizeCache() {
+        return mSmoothScrollbarEnabled && mItemSizeCache != null && mItemSizeCache.hasSizes();
+    }
+
+    @Override
+    public void onAdapterChanged(RecyclerView.Adapter oldAdapter,
+            RecyclerView.Adapter newAdapter) {
+        if (mItemSizeCache != null) {
+            mItemSizeCache.clear();
+        }
+    }
+
+    @Override
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+        if (mItemSizeCache != null) {
+            mItemSizeCache.onItemsAdded(positionStart, itemCount);
+        }
+    }
+
+    @Override
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+        if (mItemSizeCache != null) {
+            mItemSizeCache.onItemsRemoved(positionStart, itemCount);
+        }
+    }
+
+    @Override
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+        if (mItemSizeCache != null) {
+            mItemSizeCache.onItemsMoved(from, to, itemCount);
+        }
+    }
+
+    @Override
+    public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
+        if (mItemSizeCache != null) {
+            mItemSizeCache.onItemsUpdated(positionStart, itemCount);
+        }
+    }
+
+    @Override
+    public void onItemsChanged(RecyclerView recyclerView) {
+        if (mItemSizeCache != null) {
+            mItemSizeCache.onItemsChanged(recyclerView.getAdapter());
+        }
+    }
+
     private void updateLayoutState(int layoutDirection, int requiredSpace,
             boolean canUseExistingSpace, RecyclerView.State state) {
         // If parent provides a hint, don't measure unlimited.
@@ -1583,6 +1681,11 @@ public class LinearLayoutManager extends RecyclerView.LayoutManager implements
         }
         measureChildWithMargins(view, 0, 0);
         result.mConsumed = mOrientationHelper.getDecoratedMeasurement(view);
+        if (mItemSizeCache != null && layoutState.mScrapList == null && !state.isPreLayout()
+                && !params.isItemRemoved()) {
+            mItemSizeCache.setSize(params.getViewLayoutPosition(),
+                    params.mViewHolder.getItemId(), result.mConsumed);
+        }
         int left, top, right, bottom;
         if (mOrientation == VERTICAL) {
             if (isLayoutRTL()) {
@@ -21,7 +21,9 @@ import static android.support.annotation.RestrictTo.Scope.LIBRARY_GROUP;
 import static android.support.v4.view.ViewCompat.TYPE_NON_TOUCH;
 import static android.support.v4.view.ViewCompat.TYPE_TOUCH;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.database.Observable;
@@ -35,6 +37,8 @@ import android.graphics.drawable.Drawable;
 import android.graphics.drawable.StateListDrawable;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.os.SystemClock;
@@ -58,6 +62,7 @@ import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
 import android.support.v4.widget.EdgeEffectCompat;
 import android.support.v7.recyclerview.R;
 import android.support.v7.widget.RecyclerView.ItemAnimator.ItemHolderInfo;
+import android.support.v7.widget.scroll.OverScroller;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.SparseArray;
@@ -75,7 +80,6 @@ import android.view.accessibility.AccessibilityManager;
 import android.view.animation.Interpolator;
 import android.widget.EdgeEffect;
 import android.widget.LinearLayout;
-import android.widget.OverScroller;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -85,6 +89,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A flexible view for providing a limited window into a large data set.
@@ -460,7 +465,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
     private final int mMinFlingVelocity;
     private final int mMaxFlingVelocity;
 
-    // 是否开启边缘弹动 TODO
+    // 是否开启边缘弹动
     private boolean mBounceEnabled = true;
 
     // This value is used when handling rotary encoder generic motion events.
@@ -472,6 +477,25 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
     final ViewFlinger mViewFlinger = new ViewFlinger();
 
     GapWorker mGapWorker;
+
+    // Prefetch statistics, updated by GapWorker and by LayoutManager when prefetched items are
+    // laid out
+    long mPrefetchTimeNs;
+    int mPrefetchedItemCount;
+    int mPrefetchHitCount;
+
+    @Nullable
+    MetricsListener mMetricsListener;
+
+    // Forwards memory pressure to an adaptive RecycledViewPool, registered while attached
+    private ComponentCallbacks2 mTrimMemoryCallbacks;
+
+    // Posts the ViewHolders of precreateViewHolders to the main thread, created when first used
+    private Handler mPrecreateHandler;
+    // Incremented when detached from the window, which cancels the ViewHolders that
+    // precreateViewHolders hasn't created yet
+    volatile int mPrecreateGeneration;
+
     GapWorker.LayoutPrefetchRegistryImpl mPrefetchRegistry =
             ALLOW_THREAD_GAP_WORK ? new GapWorker.LayoutPrefetchRegistryImpl() : null;
 
@@ -497,6 +521,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
     private final int[] mScrollOffset = new int[2];
     private final int[] mScrollConsumed = new int[2];
     private final int[] mNestedOffsets = new int[2];
+    private final int[] mScrollStepConsumed = new int[2];
 
     /**
      * These are views that had their a11y importance changed during a layout. We defer these events
@@ -1141,6 +1166,20 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         mRecyclerListener = listener;
     }
 
+    /**
+     * Sets a listener that is notified of the time spent creating and binding ViewHolders and
+     * running layout passes, and of where ViewHolders come from.
+     * <p>
+     * When no listener is set this costs a null check per event, and a listener that only sums
+     * the values is cheap enough to be left set in release builds to find slow adapters.
+     *
+     * @param listener Listener to set, or null to clear
+     * @see MetricsListener
+     */
+    public void setMetricsListener(@Nullable MetricsListener listener) {
+        mMetricsListener = listener;
+    }
+
     /**
      * <p>Return the offset of the RecyclerView's text baseline from the its top
      * boundary. If the LayoutManager of this RecyclerView does not support baseline alignment,
@@ -1396,6 +1435,203 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         mRecycler.setRecycledViewPool(pool);
     }
 
+    /**
+     * Returns the total time spent prefetching items for this RecyclerView, in nanoseconds.
+     * <p>
+     * This includes time spent on items that couldn't be prefetched before a deadline, or that
+     * weren't laid out before they were recycled. Compare {@link #getPrefetchHitCount()} with
+     * {@link #getPrefetchedItemCount()} to see how much of it was useful.
+     *
+     * @see LayoutManager#setItemPrefetchEnabled(boolean)
+     */
+    public long getPrefetchTimeNs() {
+        return mPrefetchTimeNs;
+    }
+
+    /**
+     * Returns the number of items that were bound by prefetch for this RecyclerView.
+     *
+     * @see #getPrefetchHitCount()
+     */
+    public int getPrefetchedItemCount() {
+        return mPrefetchedItemCount;
+    }
+
+    /**
+     * Returns the number of items bound by prefetch that were then laid out, so didn't have to be
+     * bound during layout.
+     *
+     * @see #getPrefetchedItemCount()
+     */
+    public int getPrefetchHitCount() {
+        return mPrefetchHitCount;
+    }
+
+    /**
+     * Creates ViewHolders of the given type ahead of time, and adds them to the
+     * {@link #getRecycledViewPool() RecycledViewPool}, so that layout doesn't have to create them.
+     * <p>
+     * This is useful before the first layout of a screen, which would otherwise create all of
+     * its ViewHolders on the main thread in a single frame. ViewHolders that are ready before
+     * the layout are reused by it, the others are added to the pool once created.
+     * <p>
+     * ViewHolders are created with {@link Adapter#createViewHolder(ViewGroup, int)} on the given
+     * executor, one at a time, and added to the pool on the main thread. Most Views inflated from
+     * resources can be created on a background thread, but Views that need a {@link Looper},
+     * such as Views that create a {@link Handler}, throw when created there. When a ViewHolder
+     * fails to be created on the executor for lack of a Looper, it and the remaining ones are
+     * created on the main thread instead, one per message so that they are spread over several
+     * frames. Other exceptions thrown by Adapter#onCreateViewHolder are thrown on the executor.
+     * Adapter#onCreateViewHolder must not access state that is only safe to use from the main
+     * thread.
+     * <p>
+     * Views inflated with this RecyclerView as their parent get their LayoutParams from
+     * {@link LayoutManager#generateLayoutParams(Context, AttributeSet)}, which is then called
+     * on the executor. The LayoutManager must not be changed while ViewHolders are created,
+     * and its generateLayoutParams must only create the LayoutParams, as the LayoutManagers of
+     * this library do.
+     * <p>
+     * No more ViewHolders are created than the pool has room for, see
+     * {@link RecycledViewPool#getMaxRecycledViews(int)}. ViewHolders created after the adapter is
+     * changed are discarded, and no more are created once this RecyclerView is detached from its
+     * window.
+     *
+     * @param viewType The view type of the ViewHolders to create.
+     * @param count The number of ViewHolders to create.
+     * @param executor The executor to create ViewHolders on, such as a background thread.
+     */
+    public void precreateViewHolders(int viewType, int count, @NonNull Executor executor) {
+        if (mAdapter == null) {
+            throw new IllegalStateException("Cannot create ViewHolders without an adapter");
+        }
+        final RecycledViewPool pool = getRecycledViewPool();
+        final int available = pool.getMaxRecycledViews(viewType)
+                - pool.getRecycledViewCount(viewType);
+        final int precreateCount = Math.min(count, available);
+        if (precreateCount > 0) {
+            if (mPrecreateHandler == null) {
+                mPrecreateHandler = new Handler(Looper.getMainLooper());
+            }
+            executor.execute(new ViewHolderPrecreator(mAdapter, viewType, precreateCount,
+                    mPrecreateHandler));
+        }
+    }
+
+    /**
+     * @return True if the exception is the one a View that creates a {@link Handler} throws when
+     * it is created on a thread without a {@link Looper}, possibly wrapped by LayoutInflater.
+     */
+    static boolean isMissingLooperException(RuntimeException e) {
+        if (Looper.myLooper() != null) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            final String message = cause.getMessage();
+            if (message != null && message.contains("Looper.prepare()")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates ViewHolders on an executor thread, and adds them to the RecycledViewPool on the
+     * main thread.
+     */
+    private class ViewHolderPrecreator implements Runnable {
+        private final Adapter mPrecreateAdapter;
+        private final int mViewType;
+        private final Handler mMainThreadHandler;
+        private final int mGeneration = mPrecreateGeneration;
+        private int mRemainingCount;
+
+        /**
+         * Creates one ViewHolder on the main thread and posts itself again for the next one, so
+         * that the ViewHolders that can't be created on the executor don't all delay the same
+         * frame.
+         */
+        private final Runnable mCreateOnMainThread = new Runnable() {
+            @Override
+            public void run() {
+                if (mRemainingCount == 0 || isCancelled()) {
+                    return;
+                }
+                final long startNs = getNanoTime();
+                final ViewHolder holder = createViewHolder();
+                addToPool(holder, getNanoTime() - startNs);
+                mRemainingCount--;
+                if (mRemainingCount > 0) {
+                    mMainThreadHandler.post(this);
+                }
+            }
+        };
+
+        ViewHolderPrecreator(Adapter adapter, int viewType, int count, Handler mainThreadHandler) {
+            mPrecreateAdapter = adapter;
+            mViewType = viewType;
+            mRemainingCount = count;
+            mMainThreadHandler = mainThreadHandler;
+        }
+
+        @Override
+        public void run() {
+            while (mRemainingCount > 0 && !isCancelled()) {
+                final ViewHolder holder;
+                final long startNs = System.nanoTime();
+                try {
+                    holder = createViewHolder();
+                } catch (RuntimeException e) {
+                    if (!isMissingLooperException(e)) {
+                        throw e;
+                    }
+                    // The Views need a Looper, create the rest on the main thread.
+                    mMainThreadHandler.post(mCreateOnMainThread);
+                    return;
+                }
+                final long durationNs = System.nanoTime() - startNs;
+                mRemainingCount--;
+                mMainThreadHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        addToPool(holder, durationNs);
+                    }
+                });
+            }
+        }
+
+        private ViewHolder createViewHolder() {
+            // inflating with RecyclerView as the parent reads mLayout from this thread in
+            // generateLayoutParams(AttributeSet), see precreateViewHolders
+            final ViewHolder holder = mPrecreateAdapter.createViewHolder(RecyclerView.this,
+                    mViewType);
+            if (ALLOW_THREAD_GAP_WORK) {
+                // only bother finding nested RV if prefetching
+                RecyclerView innerView = findNestedRecyclerView(holder.itemView);
+                if (innerView != null) {
+                    holder.mNestedRecyclerView = new WeakReference<>(innerView);
+                }
+            }
+            return holder;
+        }
+
+        private boolean isCancelled() {
+            return mAdapter != mPrecreateAdapter || mPrecreateGeneration != mGeneration;
+        }
+
+        /**
+         * Called on the main thread.
+         */
+        private void addToPool(ViewHolder holder, long createDurationNs) {
+            if (!isCancelled()) {
+                getRecycledViewPool().putRecycledView(holder);
+                if (mMetricsListener != null) {
+                    mMetricsListener.onViewHolderCreated(RecyclerView.this, mViewType,
+                            createDurationNs);
+                }
+            }
+        }
+    }
+
     /**
      * Sets a new {@link ViewCacheExtension} to be used by the Recycler.
      *
@@ -1445,6 +1681,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             stopScrollersInternal();
         }
         dispatchOnScrollStateChanged(state);
+        if (state == SCROLL_STATE_IDLE && mGapWorker != null && mLayout != null
+                && mLayout.isIdleItemPrefetchEnabled()) {
+            mGapWorker.postIdlePrefetch(this);
+        }
     }
 
     /**
@@ -1783,22 +2023,11 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
         consumePendingUpdateOperations();
         if (mAdapter != null) {
-            eatRequestLayout();
-            onEnterLayoutOrScroll();
-            TraceCompat.beginSection(TRACE_SCROLL_TAG);
-            fillRemainingScrollValues(mState);
-            if (x != 0) {
-                consumedX = mLayout.scrollHorizontallyBy(x, mRecycler, mState);
-                unconsumedX = x - consumedX;
-            }
-            if (y != 0) {
-                consumedY = mLayout.scrollVerticallyBy(y, mRecycler, mState);
-                unconsumedY = y - consumedY;
-            }
-            TraceCompat.endSection();
-            repositionShadowingViews();
-            onExitLayoutOrScroll();
-            resumeRequestLayout(false);
+            scrollStep(x, y, mScrollStepConsumed);
+            consumedX = mScrollStepConsumed[0];
+            consumedY = mScrollStepConsumed[1];
+            unconsumedX = x - consumedX;
+            unconsumedY = y - consumedY;
         }
         if (!mItemDecorations.isEmpty()) {
             invalidate();
@@ -1835,7 +2064,8 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             considerReleasingGlowsOnScroll(x, y);
         }
 
-        if (canOverScroll && mBounceEnabled && ev != null && overScrollDX != 0 || overScrollDY != 0) {
+        if (canOverScroll && mBounceEnabled && ev != null
+                && (overScrollDX != 0 || overScrollDY != 0)) {
             // 执行bounce overScroll
             // 只有在ev != null 既由touch 触发的scroll 才允许进入overScroll 程序调用不允许 TODO
             // 不需要考虑 canScrollHorizontally canScrollVertically 因为调用scrollByInternal 时传入的x y 已考虑
@@ -1854,6 +2084,33 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         return consumedX != 0 || consumedY != 0;
     }
 
+    /**
+     * Scrolls the LayoutManager by the given amounts without dispatching any nested scroll or
+     * overscroll events. The caller must make sure there is an adapter and that pending updates
+     * were consumed.
+     *
+     * @param dx The horizontal scroll amount, ignored if it is 0
+     * @param dy The vertical scroll amount, ignored if it is 0
+     * @param consumed Receives the scroll amounts consumed in each direction
+     */
+    void scrollStep(int dx, int dy, int[] consumed) {
+        consumed[0] = consumed[1] = 0;
+        eatRequestLayout();
+        onEnterLayoutOrScroll();
+        TraceCompat.beginSection(TRACE_SCROLL_TAG);
+        fillRemainingScrollValues(mState);
+        if (dx != 0) {
+            consumed[0] = mLayout.scrollHorizontallyBy(dx, mRecycler, mState);
+        }
+        if (dy != 0) {
+            consumed[1] = mLayout.scrollVerticallyBy(dy, mRecycler, mState);
+        }
+        TraceCompat.endSection();
+        repositionShadowingViews();
+        onExitLayoutOrScroll();
+        resumeRequestLayout(false);
+    }
+
     /**
      * <p>Compute the horizontal offset of the horizontal scrollbar's thumb within the horizontal
      * range. This value is used to compute the length of the thumb within the scrollbar's track.
@@ -2176,13 +2433,17 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             return false;
         }
 
-        if (!dispatchNestedPreFling(velocityX, velocityY)) {
+        // the overscrolled content has to spring back no matter who would consume the fling, so
+        // it is neither offered to the nested scrolling parents nor to the OnFlingListener
+        final boolean isOverScroll = isHorizontallyOverScroll || isVerticallyOverScroll;
+        if (isOverScroll || !dispatchNestedPreFling(velocityX, velocityY)) {
             final boolean canScroll = canScrollHorizontal || canScrollVertical;
-            dispatchNestedFling(velocityX, velocityY, canScroll);
+            if (!isOverScroll) {
+                dispatchNestedFling(velocityX, velocityY, canScroll);
 
-            if (mOnFlingListener != null && mOnFlingListener.onFling(velocityX, velocityY)) {
-                // TODO overScroll
-                return true;
+                if (mOnFlingListener != null && mOnFlingListener.onFling(velocityX, velocityY)) {
+                    return true;
+                }
             }
 
             if (canScroll) {
@@ -2197,15 +2458,13 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
                 velocityX = Math.max(-mMaxFlingVelocity, Math.min(velocityX, mMaxFlingVelocity));
                 velocityY = Math.max(-mMaxFlingVelocity, Math.min(velocityY, mMaxFlingVelocity));
-                if (isHorizontallyOverScroll || isVerticallyOverScroll) {
+                if (isOverScroll) {
                     mViewFlinger.spring(velocityX, velocityY);
                 } else {
                     mViewFlinger.fling(velocityX, velocityY);
                 }
                 return true;
             }
-        } else {
-            //TODO overScroll 时不调用 dispatchNestedPreFling?
         }
         return false;
     }
@@ -2248,6 +2507,38 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         return mMaxFlingVelocity;
     }
 
+    /**
+     * Enables or disables the bounce overscroll. When enabled, scrolling past the end of the
+     * content moves the content with a spring that settles back at the edge, otherwise the
+     * overscroll glow is shown.
+     * <p>
+     * Disabling the bounce while the content is overscrolled stops the current scroll and moves
+     * the content back to its edge.
+     *
+     * @param enabled True to bounce at the edges, false to show the overscroll glow
+     * @see #isBounceEnabled()
+     */
+    public void setBounceEnabled(boolean enabled) {
+        if (mBounceEnabled == enabled) {
+            return;
+        }
+        mBounceEnabled = enabled;
+        if (!enabled && (getScrollX() != 0 || getScrollY() != 0)) {
+            stopScroll();
+            super.scrollTo(0, 0);
+        }
+    }
+
+    /**
+     * Returns whether scrolling past the end of the content bounces.
+     *
+     * @return True if the bounce overscroll is enabled
+     * @see #setBounceEnabled(boolean)
+     */
+    public boolean isBounceEnabled() {
+        return mBounceEnabled;
+    }
+
     /**
      * Apply a pull to relevant overscroll glow effects
      */
@@ -2669,6 +2960,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             }
             mGapWorker.add(this);
         }
+
+        if (!isInEditMode() && mRecycler.getRecycledViewPool().isAdaptiveSizingEnabled()) {
+            registerTrimMemoryCallbacks();
+        }
     }
 
     @Override
@@ -2691,6 +2986,40 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             mGapWorker.remove(this);
             mGapWorker = null;
         }
+
+        if (mTrimMemoryCallbacks != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(
+                    mTrimMemoryCallbacks);
+            mTrimMemoryCallbacks = null;
+        }
+
+        // cancel precreateViewHolders, the posted ViewHolders are dropped
+        mPrecreateGeneration++;
+        if (mPrecreateHandler != null) {
+            mPrecreateHandler.removeCallbacksAndMessages(null);
+        }
+    }
+
+    private void registerTrimMemoryCallbacks() {
+        mTrimMemoryCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                final RecycledViewPool pool = mRecycler.getRecycledViewPool();
+                if (pool.isAdaptiveSizingEnabled()) {
+                    pool.onTrimMemory(level);
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                onTrimMemory(TRIM_MEMORY_COMPLETE);
+            }
+        };
+        getContext().getApplicationContext().registerComponentCallbacks(mTrimMemoryCallbacks);
     }
 
     /**
@@ -3760,6 +4089,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
      * - If necessary, run predictive layout and save its information
      */
     private void dispatchLayoutStep1() {
+        final long startNs = getNanoTime();
         mState.assertLayoutStep(State.STEP_START);
         fillRemainingScrollValues(mState);
         mState.mIsMeasuring = false;
@@ -3845,6 +4175,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         onExitLayoutOrScroll();
         resumeRequestLayout(false);
         mState.mLayoutStep = State.STEP_LAYOUT;
+        dispatchLayoutStepCompleted(MetricsListener.LAYOUT_STEP_PRE_LAYOUT, startNs);
     }
 
     /**
@@ -3852,6 +4183,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
      * This step might be run multiple times if necessary (e.g. measure).
      */
     private void dispatchLayoutStep2() {
+        final long startNs = getNanoTime();
         eatRequestLayout();
         onEnterLayoutOrScroll();
         mState.assertLayoutStep(State.STEP_LAYOUT | State.STEP_ANIMATIONS);
@@ -3871,6 +4203,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         mState.mLayoutStep = State.STEP_ANIMATIONS;
         onExitLayoutOrScroll();
         resumeRequestLayout(false);
+        dispatchLayoutStepCompleted(MetricsListener.LAYOUT_STEP_LAYOUT, startNs);
     }
 
     /**
@@ -3878,6 +4211,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
      * trigger animations and do any necessary cleanup.
      */
     private void dispatchLayoutStep3() {
+        final long startNs = getNanoTime();
         mState.assertLayoutStep(State.STEP_ANIMATIONS);
         eatRequestLayout();
         onEnterLayoutOrScroll();
@@ -3961,6 +4295,13 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         }
         recoverFocusFromState();
         resetFocusInfo();
+        dispatchLayoutStepCompleted(MetricsListener.LAYOUT_STEP_ANIMATIONS, startNs);
+    }
+
+    private void dispatchLayoutStepCompleted(@MetricsListener.LayoutStep int step, long startNs) {
+        if (mMetricsListener != null) {
+            mMetricsListener.onLayoutStepCompleted(this, step, getNanoTime() - startNs);
+        }
     }
 
     /**
@@ -4958,14 +5299,19 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
                 || mAdapterHelper.hasPendingUpdates();
     }
 
-    class ViewFlinger implements Runnable, SpringOverScroller.SpringOverScrollListener {
+    /**
+     * Drives flings, smooth scrolls and the bounce overscroll from a single {@link OverScroller}.
+     * A fling that reaches the end of the content continues as a spring with the velocity it
+     * had, and a spring that is released back into the content continues as a fling, so there
+     * is no jump in velocity between the two. All positions are computed for the animation time
+     * of the frame being drawn.
+     */
+    class ViewFlinger implements Runnable {
         private int mLastFlingX;
         private int mLastFlingY;
         private OverScroller mScroller;
-        private SpringOverScroller mSpringOverScroller;
         Interpolator mInterpolator = sQuinticInterpolator;
 
-
         // When set to true, postOnAnimation callbacks are delayed until the run method completes
         private boolean mEatRunOnAnimationRequest = false;
 
@@ -5007,9 +5353,6 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
                 boolean canOverScroll = getOverScrollMode() != View.OVER_SCROLL_NEVER;
                 boolean isHorizontallyOverScroll = canOverScroll && canScrollHorizontally && scrollX != 0;
                 boolean isVerticallyOverScroll = canOverScroll && canScrollVertically && scrollY != 0;
-                Log.i(TAG, "ViewFlinger run: x:" + x + " y:" + y + " dx:" + dx + " dy:" + dy
-                        + " scrollX:" + scrollX + " scrollY:" + scrollY
-                        + " isVerticallyOverScroll:" + isVerticallyOverScroll);
 
                 // overScroll 减小方向 先于dispatchNestedPreScroll 消耗dx dy
                 if (isHorizontallyOverScroll && scrollX * dx < 0) {
@@ -5031,7 +5374,6 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
                     }
                 }
                 if (isHorizontallyOverScroll || isVerticallyOverScroll) {
-                    Log.i(TAG, "ViewFlinger run: back scrollTo scrollX:" + scrollX + " scrollY:" + scrollY);
                     RecyclerView.super.scrollTo(scrollX, scrollY);
                 }
 
@@ -5116,17 +5458,27 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
                     }
                 }
 
-                if (canOverScroll && mBounceEnabled && overScrollDX != 0 || overScrollDY != 0) {
-
-                    // TODO XXX 一个方向处于fling 一个方向处于spring...
-                    // 需要实现自己的OverScroller
-
-
+                if (canOverScroll && mBounceEnabled && (overScrollDX != 0 || overScrollDY != 0)) {
                     // 执行bounce overScroll
                     RecyclerView.super.scrollTo(scrollX + overScrollDX, scrollY + overScrollDY);
                     hresult += overScrollDX;
                     vresult += overScrollDY;
-                    Log.i(TAG, "ViewFlinger run: scrollTo overScrollDX:" + overScrollDX + " overScrollDY:" + overScrollDY);
+                    if (scroller.isFling()) {
+                        // the content ended here, the rest of the fling springs back to this edge
+                        if (overScrollDX != 0) {
+                            scroller.notifyHorizontalEdgeReached(x, x - getScrollX(), 0);
+                        }
+                        if (overScrollDY != 0) {
+                            scroller.notifyVerticalEdgeReached(y, y - getScrollY(), 0);
+                        }
+                    } else {
+                        // a smooth scroll has no velocity to carry on with, stop it at the edge
+                        // and spring back from where it got to
+                        if (smoothScroller != null && smoothScroller.isRunning()) {
+                            smoothScroller.stop();
+                        }
+                        spring(0, 0);
+                    }
                 }
 
                 // TODO 可配置是否需要将overScroll dispatch?
@@ -5172,172 +5524,6 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             enableRunOnAnimationRequests();
         }
 
-        @Override
-        public void onSpringOverScroll(int x, int y, int velocityX, int velocityY,
-                boolean isFinished) {
-            doScroll(x, y, velocityX, velocityY, isFinished, true);
-        }
-
-        private void doScroll(int x, int y, int velocityX, int velocityY,
-                boolean isFinished, boolean isOverScroll) {
-            final OverScroller scroller = mScroller;
-            final SmoothScroller smoothScroller = mLayout.mSmoothScroller;
-            final boolean bounceEnabled = RecyclerView.this.mBounceEnabled;
-
-            final int[] scrollConsumed = mScrollConsumed;
-            int dx = x - mLastFlingX;
-            int dy = y - mLastFlingY;
-            int hresult = 0;
-            int vresult = 0;
-            mLastFlingX = x;
-            mLastFlingY = y;
-            int overscrollX = 0, overscrollY = 0;
-
-            boolean canScrollHorizontally = mLayout.canScrollHorizontally();
-            boolean canScrollVertically = mLayout.canScrollVertically();
-            int scrollX = getScrollX();
-            int scrollY = getScrollY();
-            boolean canOverScroll = getOverScrollMode() != View.OVER_SCROLL_NEVER;
-            boolean isHorizontallyOverScroll = canOverScroll && canScrollHorizontally && scrollX != 0;
-            boolean isVerticallyOverScroll = canOverScroll && canScrollVertically && scrollY != 0;
-            Log.i(TAG, "ViewFlinger doScroll: x:" + x + " y:" + y + " dx:" + dx + " dy:" + dy
-                    + " scrollX:" + scrollX + " scrollY:" + scrollY
-                    + " isVerticallyOverScroll:" + isVerticallyOverScroll);
-
-            // overScroll 减小方向 先于dispatchNestedPreScroll 消耗dx dy
-            if (isHorizontallyOverScroll && scrollX * dx < 0) {
-                if (Math.abs(dx) > Math.abs(scrollX)) {
-                    dx = dx + scrollX;
-                    scrollX = 0;
-                } else {
-                    scrollX = dx + scrollX;
-                    dx = 0;
-                }
-            }
-            if (isVerticallyOverScroll && scrollY * dy < 0) {
-                if (Math.abs(dy) > Math.abs(scrollY)) {
-                    dy = dy + scrollY;
-                    scrollY = 0;
-                } else {
-                    scrollY = dy + scrollY;
-                    dy = 0;
-                }
-            }
-            if (isHorizontallyOverScroll || isVerticallyOverScroll) {
-                Log.i(TAG, "ViewFlinger run: back scrollTo scrollX:" + scrollX + " scrollY:" + scrollY);
-                RecyclerView.super.scrollTo(scrollX, scrollY);
-            }
-
-            if (!isOverScroll && dispatchNestedPreScroll(dx, dy, scrollConsumed, null, TYPE_NON_TOUCH)) {
-                dx -= scrollConsumed[0];
-                dy -= scrollConsumed[1];
-            }
-
-            if (mAdapter != null) {
-                eatRequestLayout();
-                onEnterLayoutOrScroll();
-                TraceCompat.beginSection(TRACE_SCROLL_TAG);
-                fillRemainingScrollValues(mState);
-                if (dx != 0) {
-                    hresult = mLayout.scrollHorizontallyBy(dx, mRecycler, mState);
-                    overscrollX = dx - hresult;
-                }
-                if (dy != 0) {
-                    vresult = mLayout.scrollVerticallyBy(dy, mRecycler, mState);
-                    overscrollY = dy - vresult;
-                }
-                TraceCompat.endSection();
-                repositionShadowingViews();
-
-                onExitLayoutOrScroll();
-                resumeRequestLayout(false);
-
-                if (!isOverScroll && smoothScroller != null && !smoothScroller.isPendingInitialRun()
-                        && smoothScroller.isRunning()) {
-                    final int adapterSize = mState.getItemCount();
-                    if (adapterSize == 0) {
-                        smoothScroller.stop();
-                    } else if (smoothScroller.getTargetPosition() >= adapterSize) {
-                        smoothScroller.setTargetPosition(adapterSize - 1);
-                        smoothScroller.onAnimation(dx - overscrollX, dy - overscrollY);
-                    } else {
-                        smoothScroller.onAnimation(dx - overscrollX, dy - overscrollY);
-                    }
-                }
-            }
-            if (!isOverScroll && !mItemDecorations.isEmpty()) {
-                invalidate();
-            }
-            if (canOverScroll && !bounceEnabled) {
-                considerReleasingGlowsOnScroll(dx, dy);
-            }
-
-            // overScroll 的量
-            int overScrollDX = overscrollX, overScrollDY = overscrollY;
-
-            if (!isOverScroll && dispatchNestedScroll(hresult, vresult, overscrollX, overscrollY, mScrollOffset,
-                    TYPE_NON_TOUCH)) {
-
-                // 参考SwipeRefreshLayout.onNestedScroll
-                overScrollDX = overscrollX + mScrollOffset[0];
-                if (overScrollDX * overscrollX <= 0) {
-                    overScrollDX = 0;
-                }
-                overScrollDY = overscrollY + mScrollOffset[1];
-                if (overScrollDY * overscrollY <= 0) {
-                    overScrollDY = 0;
-                }
-            } else if ((overscrollX != 0 || overscrollY != 0) && !bounceEnabled) {
-                final int vel = (int) scroller.getCurrVelocity();
-
-                int velX = 0;
-                if (overscrollX != x) {
-                    velX = overscrollX < 0 ? -vel : overscrollX > 0 ? vel : 0;
-                }
-
-                int velY = 0;
-                if (overscrollY != y) {
-                    velY = overscrollY < 0 ? -vel : overscrollY > 0 ? vel : 0;
-                }
-
-                if (getOverScrollMode() != View.OVER_SCROLL_NEVER) {
-                    absorbGlows(velX, velY);
-                }
-                if ((velX != 0 || overscrollX == x || scroller.getFinalX() == 0)
-                        && (velY != 0 || overscrollY == y || scroller.getFinalY() == 0)) {
-                    scroller.abortAnimation();
-                }
-            }
-
-            if (canOverScroll && bounceEnabled && overScrollDX != 0 || overScrollDY != 0) {
-                // 执行bounce overScroll
-                RecyclerView.super.scrollTo(scrollX + overScrollDX, scrollY + overScrollDY);
-                hresult += overScrollDX;
-                vresult += overScrollDY;
-                Log.i(TAG, "ViewFlinger run: scrollTo overScrollDX:" + overScrollDX + " overScrollDY:" + overScrollDY);
-            }
-
-            // TODO 可配置是否需要将overScroll dispatch?
-            if (hresult != 0 || vresult != 0) {
-                dispatchOnScrolled(hresult, vresult, false);
-            }
-
-            if (!awakenScrollBars()) {
-                invalidate();
-            }
-
-            final boolean fullyConsumedVertical = dy != 0 && mLayout.canScrollVertically()
-                    && vresult == dy;
-            final boolean fullyConsumedHorizontal = dx != 0 && mLayout.canScrollHorizontally()
-                    && hresult == dx;
-            final boolean fullyConsumedAny = (dx == 0 && dy == 0) || fullyConsumedHorizontal
-                    || fullyConsumedVertical;
-
-            if (isOverScroll && isFinished) {
-                // TODO fling
-            }
-        }
-
         private void disableRunOnAnimationRequests() {
             mReSchedulePostAnimationCallback = false;
             mEatRunOnAnimationRequest = true;
@@ -5360,7 +5546,6 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         }
 
         public void fling(int velocityX, int velocityY) {
-            // TODO mSpringOverScroller 运行时如何处理
             setScrollState(SCROLL_STATE_SETTLING);
             mLastFlingX = mLastFlingY = 0;
             mScroller.fling(0, 0, velocityX, velocityY,
@@ -5368,15 +5553,22 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             postOnAnimation();
         }
 
+        /**
+         * Releases the bounce overscroll with the given velocity. The scroller starts at the
+         * overscroll offset with the content edge as the bound of each overscrolled axis, so it
+         * springs back to the edge, or continues as a fling into the content if it is thrown past
+         * it.
+         */
         public void spring(int velocityX, int velocityY) {
-            if (mSpringOverScroller == null) {
-                mSpringOverScroller = new SpringOverScroller(this);
-            }
+            final int scrollX = getScrollX();
+            final int scrollY = getScrollY();
             setScrollState(SCROLL_STATE_SETTLING);
-            mLastFlingX = getScrollX();
-            mLastFlingY = getScrollY();
-            mSpringOverScroller.start(getScrollX(), getScrollY(), velocityX, velocityY,
-                    Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            mLastFlingX = scrollX;
+            mLastFlingY = scrollY;
+            mScroller.fling(scrollX, scrollY, velocityX, velocityY,
+                    scrollX < 0 ? 0 : Integer.MIN_VALUE, scrollX > 0 ? 0 : Integer.MAX_VALUE,
+                    scrollY < 0 ? 0 : Integer.MIN_VALUE, scrollY > 0 ? 0 : Integer.MAX_VALUE);
+            postOnAnimation();
         }
 
         public void smoothScrollBy(int dx, int dy) {
@@ -5427,27 +5619,17 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         public void smoothScrollBy(int dx, int dy, int duration, Interpolator interpolator) {
             if (mInterpolator != interpolator) {
                 mInterpolator = interpolator;
-                mScroller = new OverScroller(getContext(), interpolator);
+                mScroller.setInterpolator(interpolator);
             }
             setScrollState(SCROLL_STATE_SETTLING);
             mLastFlingX = mLastFlingY = 0;
             mScroller.startScroll(0, 0, dx, dy, duration);
-            if (Build.VERSION.SDK_INT < 23) {
-                // b/64931938 before API 23, startScroll() does not reset getCurX()/getCurY()
-                // to start values, which causes fillRemainingScrollValues() put in obsolete values
-                // for LayoutManager.onLayoutChildren().
-                mScroller.computeScrollOffset();
-            }
             postOnAnimation();
         }
 
         public void stop() {
             removeCallbacks(this);
             mScroller.abortAnimation();
-            if (mSpringOverScroller != null) {
-                mSpringOverScroller.stop();
-                // TODO overScroll 归为?
-            }
         }
     }
 
@@ -5491,6 +5673,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             if (mAdapterHelper.onItemRangeChanged(positionStart, itemCount, payload)) {
                 triggerUpdateProcessor();
             }
+            checkPendingUpdateCount();
         }
 
         @Override
@@ -5499,6 +5682,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             if (mAdapterHelper.onItemRangeInserted(positionStart, itemCount)) {
                 triggerUpdateProcessor();
             }
+            checkPendingUpdateCount();
         }
 
         @Override
@@ -5507,6 +5691,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             if (mAdapterHelper.onItemRangeRemoved(positionStart, itemCount)) {
                 triggerUpdateProcessor();
             }
+            checkPendingUpdateCount();
         }
 
         @Override
@@ -5515,6 +5700,19 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             if (mAdapterHelper.onItemRangeMoved(fromPosition, toPosition, itemCount)) {
                 triggerUpdateProcessor();
             }
+            checkPendingUpdateCount();
+        }
+
+        /**
+         * Falls back to a full rebind once too many update operations are pending. Adapters that
+         * notify changes item by item in random order would otherwise make the next layout
+         * re-order thousands of operations.
+         */
+        void checkPendingUpdateCount() {
+            if (!mDataSetHasChangedAfterLayout && mAdapterHelper.hasTooManyPendingUpdates()) {
+                mState.mStructureChanged = true;
+                setDataSetChangedAfterLayout();
+            }
         }
 
         void triggerUpdateProcessor() {
@@ -5534,11 +5732,22 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
      * and use {@link RecyclerView#setRecycledViewPool(RecycledViewPool)}.
      * <p>
      * RecyclerView automatically creates a pool for itself if you don't provide one.
-     *
+     * <p>
+     * By default, the pool keeps up to 5 Views of each type, unless a different maximum is set
+     * with {@link #setMaxRecycledViews(int, int)}. If the mix of view types isn't known up front,
+     * {@link #setAdaptiveSizingEnabled(boolean) adaptive sizing} lets the pool grow and shrink
+     * the maximum of each type from the observed demand instead.
      */
     public static class RecycledViewPool {
         private static final int DEFAULT_MAX_SCRAP = 5;
 
+        // Upper bound of the adaptive max scrap of a type. Types that are faster to create than to
+        // bind are capped at half, since keeping them saves little of the work done per item.
+        private static final int ADAPTIVE_MAX_SCRAP = 20;
+
+        // Number of requests for a type after which unused capacity is released.
+        private static final int ADAPTIVE_WINDOW = 32;
+
         /**
          * Tracks both pooled holders, as well as create/bind timing metadata for the given type.
          *
@@ -5558,11 +5767,85 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             int mMaxScrap = DEFAULT_MAX_SCRAP;
             long mCreateRunningAverageNs = 0;
             long mBindRunningAverageNs = 0;
+
+            // statistics, and state of the adaptive sizing
+            int mHitCount = 0;
+            int mMissCount = 0;
+            // true if the max was set with setMaxRecycledViews, and isn't adapted
+            boolean mMaxScrapFixed = false;
+            // true if a View was dropped because the heap was full since the last miss
+            boolean mDroppedSinceMiss = false;
+            int mRequestsInWindow = 0;
+            int mMinUnusedInWindow = Integer.MAX_VALUE;
         }
         SparseArray<ScrapData> mScrap = new SparseArray<>();
 
         private int mAttachCount = 0;
 
+        boolean mAdaptiveSizingEnabled = false;
+
+        /**
+         * Enables adaptive sizing of the pool.
+         * <p>
+         * When enabled, the maximum number of Views kept for each type that has no maximum set by
+         * {@link #setMaxRecycledViews(int, int)} is adapted to the observed demand: it grows when
+         * a View has to be created after a View of the same type was dropped from the full pool,
+         * and shrinks when Views stay in the pool without being used. Types that take longer to
+         * create than to bind are allowed to grow further, since each pooled View saves more
+         * work.
+         * <p>
+         * RecyclerViews using an adaptive pool also release pooled Views when the system is low on
+         * memory, see {@link #onTrimMemory(int)}. This applies to RecyclerViews attached to the
+         * window after adaptive sizing is enabled.
+         *
+         * @param enabled True to adapt the maximum number of Views of each type, false to keep
+         *                each maximum as it is.
+         */
+        public void setAdaptiveSizingEnabled(boolean enabled) {
+            mAdaptiveSizingEnabled = enabled;
+        }
+
+        /**
+         * Returns whether the pool adapts the maximum number of Views of each type to the observed
+         * demand.
+         *
+         * @see #setAdaptiveSizingEnabled(boolean)
+         */
+        public boolean isAdaptiveSizingEnabled() {
+            return mAdaptiveSizingEnabled;
+        }
+
+        /**
+         * Releases pooled Views according to the memory trim level.
+         * <p>
+         * This is called by RecyclerViews using an adaptive pool. Apps can also call it from
+         * {@link ComponentCallbacks2#onTrimMemory(int)}.
+         * <p>
+         * At {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} and above, adaptive maximums are
+         * reset to the default, and larger heaps are trimmed. At
+         * {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL} or
+         * {@link ComponentCallbacks2#TRIM_MEMORY_BACKGROUND} and above, all pooled Views are
+         * released.
+         *
+         * @param level The trim level, as passed to {@link ComponentCallbacks2#onTrimMemory(int)}.
+         */
+        public void onTrimMemory(int level) {
+            if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+                    || level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+                clear();
+            }
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                for (int i = 0; i < mScrap.size(); i++) {
+                    final ScrapData scrapData = mScrap.valueAt(i);
+                    if (!scrapData.mMaxScrapFixed) {
+                        scrapData.mMaxScrap = DEFAULT_MAX_SCRAP;
+                        trimScrapHeap(scrapData);
+                        resetAdaptiveWindow(scrapData);
+                    }
+                }
+            }
+        }
+
         public void clear() {
             for (int i = 0; i < mScrap.size(); i++) {
                 ScrapData data = mScrap.valueAt(i);
@@ -5573,9 +5856,40 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         public void setMaxRecycledViews(int viewType, int max) {
             ScrapData scrapData = getScrapDataForType(viewType);
             scrapData.mMaxScrap = max;
+            scrapData.mMaxScrapFixed = true;
+            trimScrapHeap(scrapData);
+        }
+
+        /**
+         * Returns the maximum number of Views the RecycledViewPool keeps of the given view type.
+         * <p>
+         * With {@link #setAdaptiveSizingEnabled(boolean) adaptive sizing}, this changes as the
+         * demand for the type changes.
+         */
+        public int getMaxRecycledViews(int viewType) {
+            return getScrapDataForType(viewType).mMaxScrap;
+        }
+
+        /**
+         * Returns the number of times a View of the given view type was requested from the pool,
+         * and returned.
+         */
+        public int getRecycledViewHitCount(int viewType) {
+            return getScrapDataForType(viewType).mHitCount;
+        }
+
+        /**
+         * Returns the number of times a View of the given view type was requested from the pool,
+         * but none was available, so a new one had to be created.
+         */
+        public int getRecycledViewMissCount(int viewType) {
+            return getScrapDataForType(viewType).mMissCount;
+        }
+
+        private static void trimScrapHeap(ScrapData scrapData) {
             final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
             if (scrapHeap != null) {
-                while (scrapHeap.size() > max) {
+                while (scrapHeap.size() > scrapData.mMaxScrap) {
                     scrapHeap.remove(scrapHeap.size() - 1);
                 }
             }
@@ -5589,14 +5903,57 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         }
 
         public ViewHolder getRecycledView(int viewType) {
-            final ScrapData scrapData = mScrap.get(viewType);
-            if (scrapData != null && !scrapData.mScrapHeap.isEmpty()) {
-                final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+            final ScrapData scrapData = getScrapDataForType(viewType);
+            final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+            if (mAdaptiveSizingEnabled && !scrapData.mMaxScrapFixed) {
+                adaptMaxScrap(scrapData);
+            }
+            if (!scrapHeap.isEmpty()) {
+                scrapData.mHitCount++;
                 return scrapHeap.remove(scrapHeap.size() - 1);
             }
+            scrapData.mMissCount++;
             return null;
         }
 
+        /**
+         * Adapts the max scrap of the type to a request for a View, before the request is served.
+         */
+        private void adaptMaxScrap(ScrapData scrapData) {
+            final int heapSize = scrapData.mScrapHeap.size();
+            if (heapSize == 0) {
+                if (scrapData.mDroppedSinceMiss && scrapData.mMaxScrap < getAdaptiveMaxScrap(
+                        scrapData)) {
+                    // a View of this type was dropped, and is now created again
+                    scrapData.mMaxScrap++;
+                }
+                scrapData.mDroppedSinceMiss = false;
+            }
+            // number of Views left in the pool once this request is served
+            final int unusedCount = Math.max(0, heapSize - 1);
+            scrapData.mMinUnusedInWindow = Math.min(scrapData.mMinUnusedInWindow, unusedCount);
+            if (++scrapData.mRequestsInWindow >= ADAPTIVE_WINDOW) {
+                // Views that stayed in the pool for the whole window weren't needed. Release half
+                // of them, to converge without dropping below the demand of a busy type.
+                final int unused = scrapData.mMinUnusedInWindow;
+                if (unused > 0) {
+                    scrapData.mMaxScrap = Math.max(1, scrapData.mMaxScrap - (unused + 1) / 2);
+                    trimScrapHeap(scrapData);
+                }
+                resetAdaptiveWindow(scrapData);
+            }
+        }
+
+        private static int getAdaptiveMaxScrap(ScrapData scrapData) {
+            return scrapData.mCreateRunningAverageNs > scrapData.mBindRunningAverageNs
+                    ? ADAPTIVE_MAX_SCRAP : ADAPTIVE_MAX_SCRAP / 2;
+        }
+
+        private static void resetAdaptiveWindow(ScrapData scrapData) {
+            scrapData.mRequestsInWindow = 0;
+            scrapData.mMinUnusedInWindow = Integer.MAX_VALUE;
+        }
+
         int size() {
             int count = 0;
             for (int i = 0; i < mScrap.size(); i++) {
@@ -5610,8 +5967,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
         public void putRecycledView(ViewHolder scrap) {
             final int viewType = scrap.getItemViewType();
-            final ArrayList<ViewHolder> scrapHeap = getScrapDataForType(viewType).mScrapHeap;
-            if (mScrap.get(viewType).mMaxScrap <= scrapHeap.size()) {
+            final ScrapData scrapData = getScrapDataForType(viewType);
+            final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+            if (scrapData.mMaxScrap <= scrapHeap.size()) {
+                scrapData.mDroppedSinceMiss = true;
                 return;
             }
             if (DEBUG && scrapHeap.contains(scrap)) {
@@ -5742,10 +6101,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
      * Time base for deadline-aware work scheduling. Overridable for testing.
      *
      * Will return 0 to avoid cost of System.nanoTime where deadline-aware work scheduling
-     * isn't relevant.
+     * isn't relevant and no {@link MetricsListener} measures durations.
      */
     long getNanoTime() {
-        if (ALLOW_THREAD_GAP_WORK) {
+        if (ALLOW_THREAD_GAP_WORK || mMetricsListener != null) {
             return System.nanoTime();
         } else {
             return 0;
@@ -5882,6 +6241,10 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             mAdapter.bindViewHolder(holder, offsetPosition);
             long endBindNs = getNanoTime();
             mRecyclerPool.factorInBindTime(holder.getItemViewType(), endBindNs - startBindNs);
+            if (mMetricsListener != null) {
+                mMetricsListener.onViewHolderBound(RecyclerView.this, viewType,
+                        endBindNs - startBindNs);
+            }
             attachAccessibilityDelegateOnBind(holder);
             if (mState.isPreLayout()) {
                 holder.mPreLayoutPosition = position;
@@ -6014,6 +6377,8 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
                         + exceptionLabel());
             }
             boolean fromScrapOrHiddenOrCache = false;
+            boolean fromPool = false;
+            boolean created = false;
             ViewHolder holder = null;
             // 0) If there is a changed scrap, try to find from there
             if (mState.isPreLayout()) {
@@ -6088,6 +6453,7 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
                     }
                     holder = getRecycledViewPool().getRecycledView(type);
                     if (holder != null) {
+                        fromPool = true;
                         holder.resetInternal();
                         if (FORCE_INVALIDATE_DISPLAY_LIST) {
                             invalidateDisplayListInt(holder);
@@ -6112,11 +6478,29 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
                     long end = getNanoTime();
                     mRecyclerPool.factorInCreateTime(type, end - start);
+                    created = true;
+                    if (mMetricsListener != null) {
+                        mMetricsListener.onViewHolderCreated(RecyclerView.this, type, end - start);
+                    }
                     if (DEBUG) {
                         Log.d(TAG, "tryGetViewHolderForPositionByDeadline created new ViewHolder");
                     }
                 }
             }
+            if (mMetricsListener != null) {
+                final int source;
+                if (created) {
+                    source = MetricsListener.SOURCE_CREATED;
+                } else if (fromPool) {
+                    source = MetricsListener.SOURCE_POOL;
+                } else if (holder.isScrap() || holder.wasReturnedFromScrap()) {
+                    source = MetricsListener.SOURCE_SCRAP;
+                } else {
+                    source = MetricsListener.SOURCE_CACHE;
+                }
+                mMetricsListener.onViewHolderRetrieved(RecyclerView.this,
+                        holder.getItemViewType(), source);
+            }
 
             // This is very ugly but the only place we can grab this information
             // before the View is rebound and returned to the LayoutManager for post layout ops.
@@ -7532,6 +7916,8 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
         private boolean mItemPrefetchEnabled = true;
 
+        private boolean mIdleItemPrefetchEnabled = false;
+
         /**
          * Written by {@link GapWorker} when prefetches occur to track largest number of view ever
          * requested by a {@link #collectInitialPrefetchPositions(int, LayoutPrefetchRegistry)} or
@@ -7888,6 +8274,40 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
             return mItemPrefetchEnabled;
         }
 
+        /**
+         * Sets whether the LayoutManager should be queried for views outside of its viewport in
+         * both scroll directions when the RecyclerView stops scrolling.
+         *
+         * <p>If enabled, items adjacent to the viewport on either side are inflated and bound
+         * while the UI thread has no other work, such as drawing frames, after scrolling stops.
+         * The work is split into short chunks, so that an expensive bind is spread over multiple
+         * idle periods, and items closer to the viewport are prefetched first. This makes the
+         * first frames of the next scroll, in either direction, less likely to need a bind.
+         * Default value is false.</p>
+         *
+         * <p>This only has an effect while {@link #isItemPrefetchEnabled() item prefetch} is
+         * enabled.</p>
+         *
+         * @param enabled <code>True</code> if items should be prefetched while scrolling is idle.
+         *
+         * @see #isIdleItemPrefetchEnabled()
+         */
+        public final void setIdleItemPrefetchEnabled(boolean enabled) {
+            mIdleItemPrefetchEnabled = enabled;
+        }
+
+        /**
+         * Returns whether the LayoutManager should be queried for views outside of its viewport
+         * in both scroll directions when the RecyclerView stops scrolling.
+         *
+         * @see #setIdleItemPrefetchEnabled(boolean)
+         *
+         * @return true if idle item prefetch is enabled, false otherwise
+         */
+        public final boolean isIdleItemPrefetchEnabled() {
+            return mIdleItemPrefetchEnabled;
+        }
+
         /**
          * Gather all positions from the LayoutManager to be prefetched, given specified momentum.
          *
@@ -8398,6 +8818,14 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
                 // So if a View re-appears in post layout pass, remove it from disappearing list.
                 mRecyclerView.mViewInfoStore.removeFromDisappearedInLayout(holder);
             }
+            if (holder.hasAnyOfTheFlags(ViewHolder.FLAG_PREFETCHED)) {
+                holder.setFlags(0, ViewHolder.FLAG_PREFETCHED);
+                mRecyclerView.mPrefetchHitCount++;
+                if (mRecyclerView.mMetricsListener != null) {
+                    mRecyclerView.mMetricsListener.onPrefetchedItemLaidOut(mRecyclerView,
+                            holder.getItemViewType());
+                }
+            }
             final LayoutParams lp = (LayoutParams) child.getLayoutParams();
             if (holder.wasReturnedFromScrap() || holder.isScrap()) {
                 if (holder.isScrap()) {
@@ -10690,6 +11118,148 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
         void onViewRecycled(ViewHolder holder);
     }
 
+    /**
+     * A MetricsListener can be set on a RecyclerView to find out how much time it spends
+     * creating and binding ViewHolders and laying out, per view type, without attaching a
+     * profiler.
+     * <p>
+     * All durations are in nanoseconds and are measured on the thread the work runs on, which
+     * is the main thread, except for ViewHolders created by
+     * {@link RecyclerView#precreateViewHolders(int, int, Executor)} on its executor. Those are
+     * reported on the main thread when they are added to the pool. Durations include the work
+     * done while prefetching items, see {@link #onItemPrefetched(RecyclerView, int)}.
+     * <p>
+     * Methods are called in the middle of a layout or scroll, so they must be cheap and must not
+     * change the RecyclerView or its Adapter. Counting and summing the values, and reporting them
+     * later, is the intended use.
+     *
+     * @see RecyclerView#setMetricsListener(MetricsListener)
+     */
+    public abstract static class MetricsListener {
+        /**
+         * The ViewHolder was attached to the RecyclerView, or detached but kept as scrap, and is
+         * re-used for the same item without being re-bound unless its item changed.
+         */
+        public static final int SOURCE_SCRAP = 0;
+
+        /**
+         * The ViewHolder came from the Recycler's view cache or the
+         * {@link ViewCacheExtension}. It is re-used for the same item, so is usually not
+         * re-bound.
+         */
+        public static final int SOURCE_CACHE = 1;
+
+        /**
+         * The ViewHolder came from the {@link RecycledViewPool} and is bound to its new item.
+         */
+        public static final int SOURCE_POOL = 2;
+
+        /**
+         * No ViewHolder could be re-used, a new one was created and bound.
+         */
+        public static final int SOURCE_CREATED = 3;
+
+        /** @hide */
+        @RestrictTo(LIBRARY_GROUP)
+        @IntDef({SOURCE_SCRAP, SOURCE_CACHE, SOURCE_POOL, SOURCE_CREATED})
+        @Retention(RetentionPolicy.SOURCE)
+        public @interface Source {}
+
+        /**
+         * The first layout step, which processes adapter updates, saves the state of the views
+         * for animations and runs the pre-layout if there are predictive animations.
+         */
+        public static final int LAYOUT_STEP_PRE_LAYOUT = 1;
+
+        /**
+         * The second layout step, which lays out the children for the final state. This step may
+         * run more than once per layout pass, e.g. when RecyclerView is measured with its
+         * children.
+         */
+        public static final int LAYOUT_STEP_LAYOUT = 2;
+
+        /**
+         * The last layout step, which starts the item animations and recycles the views that are
+         * no longer laid out.
+         */
+        public static final int LAYOUT_STEP_ANIMATIONS = 3;
+
+        /** @hide */
+        @RestrictTo(LIBRARY_GROUP)
+        @IntDef({LAYOUT_STEP_PRE_LAYOUT, LAYOUT_STEP_LAYOUT, LAYOUT_STEP_ANIMATIONS})
+        @Retention(RetentionPolicy.SOURCE)
+        public @interface LayoutStep {}
+
+        /**
+         * Called after a ViewHolder was created by
+         * {@link Adapter#createViewHolder(ViewGroup, int)}. ViewHolders created by
+         * {@link RecyclerView#precreateViewHolders(int, int, Executor)} are not retrieved right
+         * away, so are reported without a matching {@link #SOURCE_CREATED} retrieval.
+         *
+         * @param recyclerView The RecyclerView the ViewHolder was created for
+         * @param viewType The view type of the ViewHolder
+         * @param durationNs The time it took to create the ViewHolder
+         */
+        public void onViewHolderCreated(RecyclerView recyclerView, int viewType,
+                long durationNs) {}
+
+        /**
+         * Called after a ViewHolder was bound by
+         * {@link Adapter#bindViewHolder(ViewHolder, int)}.
+         *
+         * @param recyclerView The RecyclerView the ViewHolder was bound for
+         * @param viewType The view type of the ViewHolder
+         * @param durationNs The time it took to bind the ViewHolder
+         */
+        public void onViewHolderBound(RecyclerView recyclerView, int viewType,
+                long durationNs) {}
+
+        /**
+         * Called each time the Recycler provides a ViewHolder for a position, with where the
+         * ViewHolder came from. Counting the sources gives the scrap, cache and pool hit rates.
+         * <p>
+         * This is called before the ViewHolder is bound, if it has to be.
+         *
+         * @param recyclerView The RecyclerView the ViewHolder was provided for
+         * @param viewType The view type of the ViewHolder
+         * @param source One of {@link #SOURCE_SCRAP}, {@link #SOURCE_CACHE},
+         *               {@link #SOURCE_POOL} or {@link #SOURCE_CREATED}
+         */
+        public void onViewHolderRetrieved(RecyclerView recyclerView, int viewType,
+                @Source int source) {}
+
+        /**
+         * Called after a step of a layout pass completed.
+         *
+         * @param recyclerView The RecyclerView that was laid out
+         * @param step One of {@link #LAYOUT_STEP_PRE_LAYOUT}, {@link #LAYOUT_STEP_LAYOUT} or
+         *             {@link #LAYOUT_STEP_ANIMATIONS}
+         * @param durationNs The time the step took, including creating and binding ViewHolders
+         */
+        public void onLayoutStepCompleted(RecyclerView recyclerView, @LayoutStep int step,
+                long durationNs) {}
+
+        /**
+         * Called when an item was bound ahead of time by prefetch, between frames.
+         *
+         * @param recyclerView The RecyclerView the item was prefetched for
+         * @param viewType The view type of the item
+         * @see #onPrefetchedItemLaidOut(RecyclerView, int)
+         */
+        public void onItemPrefetched(RecyclerView recyclerView, int viewType) {}
+
+        /**
+         * Called when an item that was bound by prefetch is laid out, so it didn't have to be
+         * bound during layout. Items that are prefetched but never laid out were prefetched for
+         * nothing.
+         *
+         * @param recyclerView The RecyclerView that laid out the item
+         * @param viewType The view type of the item
+         * @see #onItemPrefetched(RecyclerView, int)
+         */
+        public void onPrefetchedItemLaidOut(RecyclerView recyclerView, int viewType) {}
+    }
+
     /**
      * A Listener interface that can be attached to a RecylcerView to get notified
      * whenever a ViewHolder is attached to or detached from RecyclerView.
@@ -10837,6 +11407,12 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
          */
         static final int FLAG_SET_A11Y_ITEM_DELEGATE = 1 << 14;
 
+        /**
+         * The ViewHolder was bound by {@link GapWorker} prefetch, and hasn't been laid out since.
+         * Used to count prefetched items that were useful.
+         */
+        static final int FLAG_PREFETCHED = 1 << 15;
+
         private int mFlags;
 
         private static final List<Object> FULLUPDATE_PAYLOADS = Collections.EMPTY_LIST;
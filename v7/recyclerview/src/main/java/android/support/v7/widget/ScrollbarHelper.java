@@ -53,6 +53,37 @@ class ScrollbarHelper {
                 - orientation.getDecoratedStart(startChild)));
     }
 
+    /**
+     * Same as {@link #computeScrollOffset(RecyclerView.State, OrientationHelper, View, View,
+     * RecyclerView.LayoutManager, boolean, boolean)} with smooth scrollbar enabled, but uses the
+     * recorded item sizes instead of the average size of the visible items.
+     *
+     * @param startChild View closest to start of the list. (top or left)
+     * @param endChild   View closest to end of the list (bottom or right)
+     */
+    static int computeScrollOffset(RecyclerView.State state, OrientationHelper orientation,
+            View startChild, View endChild, RecyclerView.LayoutManager lm,
+            ItemSizeCache sizeCache, boolean reverseLayout) {
+        if (lm.getChildCount() == 0 || state.getItemCount() == 0 || startChild == null
+                || endChild == null) {
+            return 0;
+        }
+        final int itemCount = state.getItemCount();
+        final int sizeBefore;
+        if (reverseLayout) {
+            final int maxPosition = Math.max(lm.getPosition(startChild),
+                    lm.getPosition(endChild));
+            sizeBefore = sizeCache.getTotalSize(itemCount)
+                    - sizeCache.getOffset(maxPosition + 1, itemCount);
+        } else {
+            final int minPosition = Math.min(lm.getPosition(startChild),
+                    lm.getPosition(endChild));
+            sizeBefore = sizeCache.getOffset(minPosition, itemCount);
+        }
+        return Math.max(0, sizeBefore + orientation.getStartAfterPadding()
+                - orientation.getDecoratedStart(startChild));
+    }
+
     /**
      * @param startChild View closest to start of the list. (top or left)
      * @param endChild   View closest to end of the list (bottom or right)
@@ -95,4 +126,17 @@ class ScrollbarHelper {
         // estimate a size for full list.
         return (int) ((float) laidOutArea / laidOutRange * state.getItemCount());
     }
+
+    /**
+     * Same as {@link #computeScrollRange(RecyclerView.State, OrientationHelper, View, View,
+     * RecyclerView.LayoutManager, boolean)} with smooth scrollbar enabled, but uses the recorded
+     * item sizes instead of the average size of the visible items.
+     */
+    static int computeScrollRange(RecyclerView.State state, RecyclerView.LayoutManager lm,
+            ItemSizeCache sizeCache) {
+        if (lm.getChildCount() == 0 || state.getItemCount() == 0) {
+            return 0;
+        }
+        return sizeCache.getTotalSize(state.getItemCount());
+    }
 }
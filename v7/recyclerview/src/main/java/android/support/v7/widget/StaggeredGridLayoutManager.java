@@ -35,6 +35,7 @@ import android.support.v4.view.ViewCompat;
 import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.accessibility.AccessibilityEvent;
@@ -281,6 +282,7 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
         if (minPos == 0) {
             View gapView = hasGapsToFix();
             if (gapView != null) {
+                // also drops the spans given to setSpanAssignments
                 mLazySpanLookup.clear();
                 requestSimpleAnimationsInNextLayout();
                 requestLayout();
@@ -549,6 +551,42 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
         requestLayout();
     }
 
+    /**
+     * Seeds the span assignments of a range of adapter positions, for instance from layout
+     * metadata computed ahead of time. Jumping to a position whose span is already known does not
+     * need to assign spans to the items before it.
+     * <p>
+     * {@code spanIndices[i]} is the span of the item at {@code positionStart + i}, or
+     * {@link LayoutParams#INVALID_SPAN_ID} to keep the current assignment of that item. Full span
+     * items can be given any valid span index.
+     * <p>
+     * Seeded assignments are kept like the ones made by layout: they move with adapter updates,
+     * and are dropped along with all other assignments by
+     * {@link #invalidateSpanAssignments()}, by {@link RecyclerView.Adapter#notifyDataSetChanged()},
+     * when the layout direction changes, and when the gap handling strategy finds a gap to fix
+     * (see {@link #setGapStrategy(int)}). Seed the spans again after these, or use
+     * {@link #GAP_HANDLING_NONE} to keep them when gaps appear.
+     * <p>
+     * Calling this method will automatically result in a new layout request.
+     *
+     * @param positionStart The adapter position of the first item in {@code spanIndices}
+     * @param spanIndices   The span index of each item, in adapter order
+     */
+    public void setSpanAssignments(int positionStart, int[] spanIndices) {
+        assertNotInLayoutOrScroll(null);
+        if (positionStart < 0) {
+            throw new IllegalArgumentException("Invalid position " + positionStart);
+        }
+        for (int spanIndex : spanIndices) {
+            if (spanIndex < LayoutParams.INVALID_SPAN_ID || spanIndex >= mSpanCount) {
+                throw new IllegalArgumentException("Invalid span index " + spanIndex
+                        + " for span count " + mSpanCount);
+            }
+        }
+        mLazySpanLookup.setSpans(positionStart, spanIndices);
+        requestLayout();
+    }
+
     /**
      * Calculates the views' layout order. (e.g. from end to start or start to end)
      * RTL layout support is applied automatically. So if layout is RTL and
@@ -812,7 +850,8 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
             anchorInfo.mLayoutFromEnd = mShouldReverseLayout;
         }
         if (mPendingSavedState.mSpanLookupSize > 1) {
-            mLazySpanLookup.mData = mPendingSavedState.mSpanLookup;
+            mLazySpanLookup.clear();
+            mLazySpanLookup.setSpans(0, mPendingSavedState.mSpanLookup);
             mLazySpanLookup.mFullSpanItems = mPendingSavedState.mFullSpanItems;
         }
     }
@@ -1198,8 +1237,9 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
         state.mAnchorLayoutFromEnd = mLastLayoutFromEnd;
         state.mLastLayoutRTL = mLastLayoutRTL;
 
-        if (mLazySpanLookup != null && mLazySpanLookup.mData != null) {
-            state.mSpanLookup = mLazySpanLookup.mData;
+        final int[] spanLookup = mLazySpanLookup == null ? null : mLazySpanLookup.toArray();
+        if (spanLookup != null) {
+            state.mSpanLookup = spanLookup;
             state.mSpanLookupSize = state.mSpanLookup.length;
             state.mFullSpanItems = mLazySpanLookup.mFullSpanItems;
         } else {
@@ -2794,13 +2834,19 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
     }
 
     /**
-     * An array of mappings from adapter position to span.
-     * This only grows when a write happens and it grows up to the size of the adapter.
+     * A sparse mapping from adapter position to span.
+     * Assignments are kept in fixed size chunks keyed by position, so only the regions of the
+     * adapter that have been laid out (or seeded) take memory, no matter how far apart they are.
+     * Full span items are kept sorted by position and looked up with a binary search.
      */
     static class LazySpanLookup {
 
-        private static final int MIN_SIZE = 10;
-        int[] mData;
+        private static final int CHUNK_SHIFT = 6;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+        final SparseArray<int[]> mChunks = new SparseArray<>();
+        // one past the last position that may have an assignment
+        int mSize;
         List<FullSpanItem> mFullSpanItems;
 
 
@@ -2809,12 +2855,8 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
          */
         int forceInvalidateAfter(int position) {
             if (mFullSpanItems != null) {
-                for (int i = mFullSpanItems.size() - 1; i >= 0; i--) {
-                    FullSpanItem fsi = mFullSpanItems.get(i);
-                    if (fsi.mPosition >= position) {
-                        mFullSpanItems.remove(i);
-                    }
-                }
+                final int index = findFullSpanItemIndex(position);
+                mFullSpanItems.subList(index, mFullSpanItems.size()).clear();
             }
             return invalidateAfter(position);
         }
@@ -2823,72 +2865,168 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
          * returns end position for invalidation.
          */
         int invalidateAfter(int position) {
-            if (mData == null) {
-                return RecyclerView.NO_POSITION;
-            }
-            if (position >= mData.length) {
+            if (position >= mSize) {
                 return RecyclerView.NO_POSITION;
             }
             int endPosition = invalidateFullSpansAfter(position);
             if (endPosition == RecyclerView.NO_POSITION) {
-                Arrays.fill(mData, position, mData.length, LayoutParams.INVALID_SPAN_ID);
-                return mData.length;
+                invalidateRange(position, mSize);
+                return mSize;
             } else {
                 // just invalidate items in between
-                Arrays.fill(mData, position, endPosition + 1, LayoutParams.INVALID_SPAN_ID);
+                invalidateRange(position, endPosition + 1);
                 return endPosition + 1;
             }
         }
 
         int getSpan(int position) {
-            if (mData == null || position >= mData.length) {
+            if (position >= mSize) {
                 return LayoutParams.INVALID_SPAN_ID;
-            } else {
-                return mData[position];
             }
+            final int[] chunk = mChunks.get(position >> CHUNK_SHIFT);
+            return chunk == null ? LayoutParams.INVALID_SPAN_ID : chunk[position & CHUNK_MASK];
         }
 
         void setSpan(int position, Span span) {
-            ensureSize(position);
-            mData[position] = span.mIndex;
+            setSpan(position, span.mIndex);
+        }
+
+        void setSpan(int position, int spanIndex) {
+            final int key = position >> CHUNK_SHIFT;
+            int[] chunk = mChunks.get(key);
+            if (chunk == null) {
+                if (spanIndex == LayoutParams.INVALID_SPAN_ID) {
+                    return;
+                }
+                chunk = new int[CHUNK_SIZE];
+                Arrays.fill(chunk, LayoutParams.INVALID_SPAN_ID);
+                mChunks.put(key, chunk);
+            }
+            chunk[position & CHUNK_MASK] = spanIndex;
+            if (position >= mSize) {
+                mSize = position + 1;
+            }
         }
 
-        int sizeForPosition(int position) {
-            int len = mData.length;
-            while (len <= position) {
-                len *= 2;
+        /**
+         * Copies the given assignments starting from the given position. Entries that are
+         * {@link LayoutParams#INVALID_SPAN_ID} leave the existing assignment untouched.
+         */
+        void setSpans(int positionStart, int[] spans) {
+            for (int i = 0; i < spans.length; i++) {
+                if (spans[i] != LayoutParams.INVALID_SPAN_ID) {
+                    setSpan(positionStart + i, spans[i]);
+                }
             }
-            return len;
         }
 
-        void ensureSize(int position) {
-            if (mData == null) {
-                mData = new int[Math.max(position, MIN_SIZE) + 1];
-                Arrays.fill(mData, LayoutParams.INVALID_SPAN_ID);
-            } else if (position >= mData.length) {
-                int[] old = mData;
-                mData = new int[sizeForPosition(position)];
-                System.arraycopy(old, 0, mData, 0, old.length);
-                Arrays.fill(mData, old.length, mData.length, LayoutParams.INVALID_SPAN_ID);
+        /**
+         * Returns the assignments as a dense array, indexed by position, or null if there are
+         * none.
+         */
+        int[] toArray() {
+            if (mChunks.size() == 0) {
+                return null;
+            }
+            final int[] data = new int[mSize];
+            Arrays.fill(data, LayoutParams.INVALID_SPAN_ID);
+            for (int i = 0; i < mChunks.size(); i++) {
+                final int start = mChunks.keyAt(i) << CHUNK_SHIFT;
+                System.arraycopy(mChunks.valueAt(i), 0, data, start,
+                        Math.min(CHUNK_SIZE, mSize - start));
             }
+            return data;
         }
 
         void clear() {
-            if (mData != null) {
-                Arrays.fill(mData, LayoutParams.INVALID_SPAN_ID);
-            }
+            mChunks.clear();
+            mSize = 0;
             mFullSpanItems = null;
         }
 
+        /**
+         * Invalidates positions between start (inclusive) and end (exclusive), dropping the
+         * chunks that become empty.
+         */
+        private void invalidateRange(int start, int end) {
+            if (start >= end) {
+                return;
+            }
+            final int lastKey = (end - 1) >> CHUNK_SHIFT;
+            int index = findChunkIndex(start >> CHUNK_SHIFT);
+            while (index < mChunks.size()) {
+                final int key = mChunks.keyAt(index);
+                if (key > lastKey) {
+                    break;
+                }
+                final int chunkStart = key << CHUNK_SHIFT;
+                final int from = Math.max(start, chunkStart) - chunkStart;
+                final int to = Math.min(end, chunkStart + CHUNK_SIZE) - chunkStart;
+                if (from == 0 && to == CHUNK_SIZE) {
+                    mChunks.removeAt(index);
+                } else {
+                    Arrays.fill(mChunks.valueAt(index), from, to, LayoutParams.INVALID_SPAN_ID);
+                    index++;
+                }
+            }
+        }
+
+        /**
+         * Returns the index of the first chunk whose key is greater than or equal to the given
+         * key.
+         */
+        private int findChunkIndex(int key) {
+            int low = 0;
+            int high = mChunks.size() - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (mChunks.keyAt(mid) < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        private boolean isEmpty(int[] chunk) {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (chunk[i] != LayoutParams.INVALID_SPAN_ID) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         void offsetForRemoval(int positionStart, int itemCount) {
-            if (mData == null || positionStart >= mData.length) {
+            if (positionStart >= mSize) {
                 return;
             }
-            ensureSize(positionStart + itemCount);
-            System.arraycopy(mData, positionStart + itemCount, mData, positionStart,
-                    mData.length - positionStart - itemCount);
-            Arrays.fill(mData, mData.length - itemCount, mData.length,
-                    LayoutParams.INVALID_SPAN_ID);
+            final int end = positionStart + itemCount;
+            // walk forward since every assignment moves to a lower position. Chunks are looked
+            // up by key on every step because moving an assignment may create a new chunk.
+            int key = positionStart >> CHUNK_SHIFT;
+            int index;
+            while ((index = findChunkIndex(key)) < mChunks.size()) {
+                key = mChunks.keyAt(index);
+                final int[] chunk = mChunks.valueAt(index);
+                final int chunkStart = key << CHUNK_SHIFT;
+                for (int i = Math.max(positionStart - chunkStart, 0); i < CHUNK_SIZE; i++) {
+                    final int span = chunk[i];
+                    if (span == LayoutParams.INVALID_SPAN_ID) {
+                        continue;
+                    }
+                    chunk[i] = LayoutParams.INVALID_SPAN_ID;
+                    if (chunkStart + i >= end) {
+                        setSpan(chunkStart + i - itemCount, span);
+                    }
+                }
+                if (isEmpty(chunk)) {
+                    mChunks.delete(key);
+                }
+                key++;
+            }
+            mSize = Math.max(positionStart, mSize - itemCount);
             offsetFullSpansForRemoval(positionStart, itemCount);
         }
 
@@ -2897,11 +3035,9 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
                 return;
             }
             final int end = positionStart + itemCount;
-            for (int i = mFullSpanItems.size() - 1; i >= 0; i--) {
+            final int first = findFullSpanItemIndex(positionStart);
+            for (int i = mFullSpanItems.size() - 1; i >= first; i--) {
                 FullSpanItem fsi = mFullSpanItems.get(i);
-                if (fsi.mPosition < positionStart) {
-                    continue;
-                }
                 if (fsi.mPosition < end) {
                     mFullSpanItems.remove(i);
                 } else {
@@ -2911,14 +3047,31 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
         }
 
         void offsetForAddition(int positionStart, int itemCount) {
-            if (mData == null || positionStart >= mData.length) {
+            if (positionStart >= mSize) {
                 return;
             }
-            ensureSize(positionStart + itemCount);
-            System.arraycopy(mData, positionStart, mData, positionStart + itemCount,
-                    mData.length - positionStart - itemCount);
-            Arrays.fill(mData, positionStart, positionStart + itemCount,
-                    LayoutParams.INVALID_SPAN_ID);
+            final int firstKey = positionStart >> CHUNK_SHIFT;
+            // walk backwards since every assignment moves to a higher position
+            int index = mChunks.size() - 1;
+            while (index >= 0 && mChunks.keyAt(index) >= firstKey) {
+                final int key = mChunks.keyAt(index);
+                final int[] chunk = mChunks.valueAt(index);
+                final int chunkStart = key << CHUNK_SHIFT;
+                final int from = Math.max(positionStart - chunkStart, 0);
+                for (int i = CHUNK_SIZE - 1; i >= from; i--) {
+                    final int span = chunk[i];
+                    if (span != LayoutParams.INVALID_SPAN_ID) {
+                        chunk[i] = LayoutParams.INVALID_SPAN_ID;
+                        setSpan(chunkStart + i + itemCount, span);
+                    }
+                }
+                if (isEmpty(chunk)) {
+                    mChunks.delete(key);
+                }
+                // chunks created above have higher keys, so look up the next one by key
+                index = findChunkIndex(key) - 1;
+            }
+            mSize += itemCount;
             offsetFullSpansForAddition(positionStart, itemCount);
         }
 
@@ -2929,12 +3082,30 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
             for (int i = mFullSpanItems.size() - 1; i >= 0; i--) {
                 FullSpanItem fsi = mFullSpanItems.get(i);
                 if (fsi.mPosition < positionStart) {
-                    continue;
+                    break;
                 }
                 fsi.mPosition += itemCount;
             }
         }
 
+        /**
+         * Returns the index of the first full span item whose position is greater than or equal
+         * to the given position.
+         */
+        private int findFullSpanItemIndex(int position) {
+            int low = 0;
+            int high = mFullSpanItems.size() - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (mFullSpanItems.get(mid).mPosition < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
         /**
          * Returns when invalidation should end. e.g. hitting a full span position.
          * Returned position SHOULD BE invalidated.
@@ -2943,23 +3114,14 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
             if (mFullSpanItems == null) {
                 return RecyclerView.NO_POSITION;
             }
-            final FullSpanItem item = getFullSpanItem(position);
+            int index = findFullSpanItemIndex(position);
             // if there is an fsi at this position, get rid of it.
-            if (item != null) {
-                mFullSpanItems.remove(item);
+            if (index < mFullSpanItems.size()
+                    && mFullSpanItems.get(index).mPosition == position) {
+                mFullSpanItems.remove(index);
             }
-            int nextFsiIndex = -1;
-            final int count = mFullSpanItems.size();
-            for (int i = 0; i < count; i++) {
-                FullSpanItem fsi = mFullSpanItems.get(i);
-                if (fsi.mPosition >= position) {
-                    nextFsiIndex = i;
-                    break;
-                }
-            }
-            if (nextFsiIndex != -1) {
-                FullSpanItem fsi = mFullSpanItems.get(nextFsiIndex);
-                mFullSpanItems.remove(nextFsiIndex);
+            if (index < mFullSpanItems.size()) {
+                FullSpanItem fsi = mFullSpanItems.remove(index);
                 return fsi.mPosition;
             }
             return RecyclerView.NO_POSITION;
@@ -2969,31 +3131,25 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
             if (mFullSpanItems == null) {
                 mFullSpanItems = new ArrayList<>();
             }
-            final int size = mFullSpanItems.size();
-            for (int i = 0; i < size; i++) {
-                FullSpanItem other = mFullSpanItems.get(i);
-                if (other.mPosition == fullSpanItem.mPosition) {
-                    if (DEBUG) {
-                        throw new IllegalStateException("two fsis for same position");
-                    } else {
-                        mFullSpanItems.remove(i);
-                    }
-                }
-                if (other.mPosition >= fullSpanItem.mPosition) {
-                    mFullSpanItems.add(i, fullSpanItem);
-                    return;
+            final int index = findFullSpanItemIndex(fullSpanItem.mPosition);
+            if (index < mFullSpanItems.size()
+                    && mFullSpanItems.get(index).mPosition == fullSpanItem.mPosition) {
+                if (DEBUG) {
+                    throw new IllegalStateException("two fsis for same position");
                 }
+                mFullSpanItems.set(index, fullSpanItem);
+            } else {
+                mFullSpanItems.add(index, fullSpanItem);
             }
-            // if it is not added to a position.
-            mFullSpanItems.add(fullSpanItem);
         }
 
         public FullSpanItem getFullSpanItem(int position) {
             if (mFullSpanItems == null) {
                 return null;
             }
-            for (int i = mFullSpanItems.size() - 1; i >= 0; i--) {
-                final FullSpanItem fsi = mFullSpanItems.get(i);
+            final int index = findFullSpanItemIndex(position);
+            if (index < mFullSpanItems.size()) {
+                final FullSpanItem fsi = mFullSpanItems.get(index);
                 if (fsi.mPosition == position) {
                     return fsi;
                 }
@@ -3014,14 +3170,13 @@ public class StaggeredGridLayoutManager extends RecyclerView.LayoutManager imple
                 return null;
             }
             final int limit = mFullSpanItems.size();
-            for (int i = 0; i < limit; i++) {
+            for (int i = findFullSpanItemIndex(minPos); i < limit; i++) {
                 FullSpanItem fsi = mFullSpanItems.get(i);
                 if (fsi.mPosition >= maxPos) {
                     return null;
                 }
-                if (fsi.mPosition >= minPos
-                        && (gapDir == 0 || fsi.mGapDir == gapDir
-                        || (hasUnwantedGapAfter && fsi.mHasUnwantedGapAfter))) {
+                if (gapDir == 0 || fsi.mGapDir == gapDir
+                        || (hasUnwantedGapAfter && fsi.mHasUnwantedGapAfter)) {
                     return fsi;
                 }
             }
@@ -18,7 +18,7 @@ package android.support.v7.widget;
 
 import android.content.Context;
 import android.support.annotation.Nullable;
-import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParent2;
 import android.support.v4.view.NestedScrollingParentHelper;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
@@ -27,10 +27,13 @@ import android.view.View;
 /**
  * Created by yinhf on 2017/7/13.
  */
-public class UltraRecyclerView extends RecyclerView implements NestedScrollingParent {
+public class UltraRecyclerView extends RecyclerView implements NestedScrollingParent2 {
 
     NestedScrollingParentHelper mNestedScrollingParentHelper;
 
+    // re-used to collect the scroll consumed on behalf of a nested child
+    private final int[] mNestedScrollConsumed = new int[2];
+
     public UltraRecyclerView(Context context) {
         super(context);
     }
@@ -50,45 +53,93 @@ public class UltraRecyclerView extends RecyclerView implements NestedScrollingPa
         return mNestedScrollingParentHelper;
     }
 
+    // NestedScrollingParent2
+
     @Override
-    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+    public boolean onStartNestedScroll(View child, View target, int axes, int type) {
         return mLayout != null && (mLayout.canScrollVertically()
-                && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0
+                && (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0
                 || mLayout.canScrollHorizontally()
-                && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_HORIZONTAL) != 0);
+                && (axes & ViewCompat.SCROLL_AXIS_HORIZONTAL) != 0);
+    }
 
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes, int type) {
+        getScrollingParentHelper().onNestedScrollAccepted(child, target, axes, type);
+        startNestedScroll(axes, type);
+    }
+
+    @Override
+    public void onStopNestedScroll(View target, int type) {
+        getScrollingParentHelper().onStopNestedScroll(target, type);
+        stopNestedScroll(type);
+    }
+
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
+            int dyUnconsumed, int type) {
+        final int[] consumed = mNestedScrollConsumed;
+        consumed[0] = consumed[1] = 0;
+        final int dx = mLayout != null && mLayout.canScrollHorizontally() ? dxUnconsumed : 0;
+        final int dy = mLayout != null && mLayout.canScrollVertically() ? dyUnconsumed : 0;
+        if ((dx != 0 || dy != 0) && mAdapter != null && !mLayoutFrozen) {
+            consumePendingUpdateOperations();
+            scrollStep(dx, dy, consumed);
+            if (!mItemDecorations.isEmpty()) {
+                invalidate();
+            }
+            if (consumed[0] != 0 || consumed[1] != 0) {
+                dispatchOnScrolled(consumed[0], consumed[1], false);
+                if (!awakenScrollBars()) {
+                    invalidate();
+                }
+            }
+        }
+        // whatever we could not scroll goes up to our own parent
+        dispatchNestedScroll(consumed[0], consumed[1], dxUnconsumed - consumed[0],
+                dyUnconsumed - consumed[1], null, type);
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed, int type) {
+        dispatchNestedPreScroll(dx, dy, consumed, null, type);
+    }
+
+    // NestedScrollingParent
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return onStartNestedScroll(child, target, nestedScrollAxes, ViewCompat.TYPE_TOUCH);
     }
 
     @Override
     public void onNestedScrollAccepted(View child, View target, int nestedScrollAxes) {
-        getScrollingParentHelper().onNestedScrollAccepted(child, target, nestedScrollAxes);
-        startNestedScroll(nestedScrollAxes);
+        onNestedScrollAccepted(child, target, nestedScrollAxes, ViewCompat.TYPE_TOUCH);
     }
 
     @Override
     public void onStopNestedScroll(View target) {
-        getScrollingParentHelper().onStopNestedScroll(target);
-        stopNestedScroll();
+        onStopNestedScroll(target, ViewCompat.TYPE_TOUCH);
     }
 
     @Override
     public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
             int dyUnconsumed) {
-        // TODO
-        // 1. scroll
-        // 2. dispatchNestedScroll
+        onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                ViewCompat.TYPE_TOUCH);
     }
 
     @Override
     public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
-        dispatchNestedPreScroll(dx, dy, consumed, null);
+        onNestedPreScroll(target, dx, dy, consumed, ViewCompat.TYPE_TOUCH);
     }
 
     @Override
     public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
         if (!consumed) {
-            // TODO fling
-            return true;
+            // the child could not scroll any further, take the fling over. A child that did
+            // consume it hands the rest over through TYPE_NON_TOUCH nested scrolls instead.
+            return fling((int) velocityX, (int) velocityY);
         }
         return false;
     }
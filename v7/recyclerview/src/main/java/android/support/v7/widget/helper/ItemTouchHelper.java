@@ -23,6 +23,7 @@ import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.os.Build;
 import android.support.annotation.Nullable;
+import android.support.v4.util.Pools;
 import android.support.v4.view.GestureDetectorCompat;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.recyclerview.R;
@@ -154,6 +155,16 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
      */
     private static final int PIXELS_PER_SECOND = 1000;
 
+    /**
+     * Upper bound of recover animations kept around for reuse
+     */
+    private static final int MAX_POOLED_RECOVER_ANIMATIONS = 4;
+
+    /**
+     * Initial size of the re-used swap target distance array
+     */
+    private static final int INITIAL_SWAP_TARGET_CAPACITY = 8;
+
     /**
      * Views, whose state should be cleared after they are detached from RecyclerView.
      * This is necessary after swipe dismissing an item. We wait until animator finishes its job
@@ -236,6 +247,13 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
      */
     List<RecoverAnimation> mRecoverAnimations = new ArrayList<RecoverAnimation>();
 
+    /**
+     * Recover animations of drags and failed swipes are reused once they are done, so releasing
+     * a View does not allocate an Animator.
+     */
+    final Pools.SimplePool<RecoverAnimation> mRecoverAnimationPool =
+            new Pools.SimplePool<>(MAX_POOLED_RECOVER_ANIMATIONS);
+
     private int mSlop;
 
     RecyclerView mRecyclerView;
@@ -265,8 +283,8 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
     //re-used list for selecting a swap target
     private List<ViewHolder> mSwapTargets;
 
-    //re used for for sorting swap targets
-    private List<Integer> mDistances;
+    //re used for for sorting swap targets, mDistances[i] is the distance of mSwapTargets[i]
+    private int[] mDistances;
 
     /**
      * If drag & drop is supported, we use child drawing order to bring them to front.
@@ -611,35 +629,9 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
                 getSelectedDxDy(mTmpPosition);
                 final float currentTranslateX = mTmpPosition[0];
                 final float currentTranslateY = mTmpPosition[1];
-                final RecoverAnimation rv = new RecoverAnimation(prevSelected, animationType,
+                final RecoverAnimation rv = obtainRecoverAnimation(prevSelected, animationType,
                         prevActionState, currentTranslateX, currentTranslateY,
-                        targetTranslateX, targetTranslateY) {
-                    @Override
-                    public void onAnimationEnd(Animator animation) {
-                        super.onAnimationEnd(animation);
-                        if (this.mOverridden) {
-                            return;
-                        }
-                        if (swipeDir <= 0) {
-                            // this is a drag or failed swipe. recover immediately
-                            mCallback.clearView(mRecyclerView, prevSelected);
-                            // full cleanup will happen on onDrawOver
-                        } else {
-                            // wait until remove animation is complete.
-                            mPendingCleanup.add(prevSelected.itemView);
-                            mIsPendingCleanup = true;
-                            if (swipeDir > 0) {
-                                // Animation might be ended by other animators during a layout.
-                                // We defer callback to avoid editing adapter during a layout.
-                                postDispatchSwipe(this, swipeDir);
-                            }
-                        }
-                        // removed from the list after it is drawn for the last time
-                        if (mOverdrawChild == prevSelected.itemView) {
-                            removeChildDrawingOrderCallbackIfNecessary(prevSelected.itemView);
-                        }
-                    }
-                };
+                        targetTranslateX, targetTranslateY, swipeDir);
                 final long duration = mCallback.getAnimationDuration(mRecyclerView, animationType,
                         targetTranslateX - currentTranslateX, targetTranslateY - currentTranslateY);
                 rv.setDuration(duration);
@@ -675,6 +667,18 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
         mRecyclerView.invalidate();
     }
 
+    private RecoverAnimation obtainRecoverAnimation(ViewHolder viewHolder, int animationType,
+            int actionState, float startDx, float startDy, float targetX, float targetY,
+            int swipeDir) {
+        RecoverAnimation anim = mRecoverAnimationPool.acquire();
+        if (anim == null) {
+            anim = new RecoverAnimation();
+        }
+        anim.init(viewHolder, animationType, actionState, startDx, startDy, targetX, targetY,
+                swipeDir);
+        return anim;
+    }
+
     void postDispatchSwipe(final RecoverAnimation anim, final int swipeDir) {
         // wait until animations are complete.
         mRecyclerView.post(new Runnable() {
@@ -777,10 +781,9 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
     private List<ViewHolder> findSwapTargets(ViewHolder viewHolder) {
         if (mSwapTargets == null) {
             mSwapTargets = new ArrayList<ViewHolder>();
-            mDistances = new ArrayList<Integer>();
+            mDistances = new int[INITIAL_SWAP_TARGET_CAPACITY];
         } else {
             mSwapTargets.clear();
-            mDistances.clear();
         }
         final int margin = mCallback.getBoundingBoxMargin();
         final int left = Math.round(mSelectedStartX + mDx) - margin;
@@ -810,14 +813,20 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
                 int pos = 0;
                 final int cnt = mSwapTargets.size();
                 for (int j = 0; j < cnt; j++) {
-                    if (dist > mDistances.get(j)) {
+                    if (dist > mDistances[j]) {
                         pos++;
                     } else {
                         break;
                     }
                 }
+                if (cnt == mDistances.length) {
+                    final int[] distances = new int[cnt * 2];
+                    System.arraycopy(mDistances, 0, distances, 0, cnt);
+                    mDistances = distances;
+                }
+                System.arraycopy(mDistances, pos, mDistances, pos + 1, cnt - pos);
+                mDistances[pos] = dist;
                 mSwapTargets.add(pos, otherVh);
-                mDistances.add(pos, dist);
             }
         }
         return mSwapTargets;
@@ -850,7 +859,6 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
         ViewHolder target = mCallback.chooseDropTarget(viewHolder, swapTargets, x, y);
         if (target == null) {
             mSwapTargets.clear();
-            mDistances.clear();
             return;
         }
         final int toPosition = target.getAdapterPosition();
@@ -1980,6 +1988,8 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
                 final RecoverAnimation anim = recoverAnimationList.get(i);
                 if (anim.mEnded && !anim.mIsPendingCleanup) {
                     recoverAnimationList.remove(i);
+                    // only drags and failed swipes get here, nothing else refers to them
+                    anim.recycle();
                 } else if (!anim.mEnded) {
                     hasRunningAnimation = true;
                 }
@@ -2324,23 +2334,26 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
         }
     }
 
-    private static class RecoverAnimation implements Animator.AnimatorListener {
+    private class RecoverAnimation implements Animator.AnimatorListener {
 
-        final float mStartDx;
+        float mStartDx;
 
-        final float mStartDy;
+        float mStartDy;
 
-        final float mTargetX;
+        float mTargetX;
 
-        final float mTargetY;
+        float mTargetY;
 
-        final ViewHolder mViewHolder;
+        ViewHolder mViewHolder;
 
-        final int mActionState;
+        int mActionState;
 
         private final ValueAnimator mValueAnimator;
 
-        final int mAnimationType;
+        int mAnimationType;
+
+        // the swipe direction if the view was swiped away, 0 for drags and failed swipes
+        private int mSwipeDir;
 
         public boolean mIsPendingCleanup;
 
@@ -2356,15 +2369,7 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
 
         private float mFraction;
 
-        RecoverAnimation(ViewHolder viewHolder, int animationType,
-                int actionState, float startDx, float startDy, float targetX, float targetY) {
-            mActionState = actionState;
-            mAnimationType = animationType;
-            mViewHolder = viewHolder;
-            mStartDx = startDx;
-            mStartDy = startDy;
-            mTargetX = targetX;
-            mTargetY = targetY;
+        RecoverAnimation() {
             mValueAnimator = ValueAnimator.ofFloat(0f, 1f);
             mValueAnimator.addUpdateListener(
                     new ValueAnimator.AnimatorUpdateListener() {
@@ -2373,11 +2378,35 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
                             setFraction(animation.getAnimatedFraction());
                         }
                     });
-            mValueAnimator.setTarget(viewHolder.itemView);
             mValueAnimator.addListener(this);
+        }
+
+        void init(ViewHolder viewHolder, int animationType, int actionState, float startDx,
+                float startDy, float targetX, float targetY, int swipeDir) {
+            mActionState = actionState;
+            mAnimationType = animationType;
+            mViewHolder = viewHolder;
+            mStartDx = startDx;
+            mStartDy = startDy;
+            mTargetX = targetX;
+            mTargetY = targetY;
+            mSwipeDir = swipeDir;
+            mIsPendingCleanup = false;
+            mOverridden = false;
+            mEnded = false;
+            mValueAnimator.setTarget(viewHolder.itemView);
             setFraction(0f);
         }
 
+        /**
+         * Returns this animation to the pool. It must not be referenced anymore.
+         */
+        void recycle() {
+            mViewHolder = null;
+            mValueAnimator.setTarget(null);
+            mRecoverAnimationPool.release(this);
+        }
+
         public void setDuration(long duration) {
             mValueAnimator.setDuration(duration);
         }
@@ -2423,6 +2452,26 @@ public class ItemTouchHelper extends RecyclerView.ItemDecoration
                 mViewHolder.setIsRecyclable(true);
             }
             mEnded = true;
+            if (mOverridden) {
+                return;
+            }
+            final ViewHolder viewHolder = mViewHolder;
+            if (mSwipeDir <= 0) {
+                // this is a drag or failed swipe. recover immediately
+                mCallback.clearView(mRecyclerView, viewHolder);
+                // full cleanup will happen on onDrawOver
+            } else {
+                // wait until remove animation is complete.
+                mPendingCleanup.add(viewHolder.itemView);
+                mIsPendingCleanup = true;
+                // Animation might be ended by other animators during a layout.
+                // We defer callback to avoid editing adapter during a layout.
+                postDispatchSwipe(this, mSwipeDir);
+            }
+            // removed from the list after it is drawn for the last time
+            if (mOverdrawChild == viewHolder.itemView) {
+                removeChildDrawingOrderCallbackIfNecessary(viewHolder.itemView);
+            }
         }
 
         @Override
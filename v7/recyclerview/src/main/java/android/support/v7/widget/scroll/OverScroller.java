@@ -18,7 +18,6 @@ package android.support.v7.widget.scroll;
 
 import android.content.Context;
 import android.hardware.SensorManager;
-import android.util.Log;
 import android.view.ViewConfiguration;
 import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
@@ -91,7 +90,14 @@ public class OverScroller {
         mScrollerY = new SplineOverScroller(context);
     }
 
-    void setInterpolator(Interpolator interpolator) {
+    /**
+     * Sets the interpolator used by {@link #startScroll(int, int, int, int, int)}, so the same
+     * scroller can be re-used for scrolls with different interpolators.
+     *
+     * @param interpolator The scroll interpolator. If null, a default (viscous) interpolator will
+     * be used.
+     */
+    public void setInterpolator(Interpolator interpolator) {
         if (interpolator == null) {
             mInterpolator = new ViscousFluidInterpolator();
         } else {
@@ -210,9 +216,9 @@ public class OverScroller {
             return false;
         }
 
+        final long time = currentAnimationTimeMillis();
         switch (mMode) {
             case SCROLL_MODE:
-                long time = AnimationUtils.currentAnimationTimeMillis();
                 // Any scroller can be used for time, since they were started
                 // together in scroll mode. We use X here.
                 final long elapsedTime = time - mScrollerX.mStartTime;
@@ -229,13 +235,13 @@ public class OverScroller {
 
             case FLING_MODE:
                 if (!mScrollerX.mFinished) {
-                    if (!mScrollerX.update()) {
+                    if (!mScrollerX.update(time)) {
                         mScrollerX.finish();
                     }
                 }
 
                 if (!mScrollerY.mFinished) {
-                    if (!mScrollerY.update()) {
+                    if (!mScrollerY.update(time)) {
                         mScrollerY.finish();
                     }
                 }
@@ -279,8 +285,9 @@ public class OverScroller {
      */
     public void startScroll(int startX, int startY, int dx, int dy, int duration) {
         mMode = SCROLL_MODE;
-        mScrollerX.startScroll(startX, dx, duration);
-        mScrollerY.startScroll(startY, dy, duration);
+        final long time = currentAnimationTimeMillis();
+        mScrollerX.startScroll(startX, dx, duration, time);
+        mScrollerY.startScroll(startY, dy, duration, time);
     }
 
     public void fling(int startX, int startY, int velocityX, int velocityY,
@@ -329,8 +336,9 @@ public class OverScroller {
         }
 
         mMode = FLING_MODE;
-        mScrollerX.fling(startX, velocityX, minX, maxX, overX);
-        mScrollerY.fling(startY, velocityY, minY, maxY, overY);
+        final long time = currentAnimationTimeMillis();
+        mScrollerX.fling(startX, velocityX, minX, maxX, overX, time);
+        mScrollerY.fling(startY, velocityY, minY, maxY, overY, time);
     }
 
     public void updateHorizontalEdge(int minX, int maxX) {
@@ -338,7 +346,52 @@ public class OverScroller {
     }
 
     public void updateVerticalEdge(int minY, int maxY) {
-        mScrollerX.updateEdge(minY, maxY);
+        mScrollerY.updateEdge(minY, maxY);
+    }
+
+    /**
+     * Notify the scroller that we've reached a horizontal boundary. Used when the boundary was
+     * not known when the fling started. A running fling keeps its current velocity and continues
+     * as a spring that settles at finalX. Does nothing if the horizontal motion is already a
+     * spring or is not a fling.
+     *
+     * @param startX Starting/current X position
+     * @param finalX Desired final X position, the boundary that was reached
+     * @param overX Magnitude of overscroll allowed. This should be the maximum
+     *              desired distance from finalX. Absolute value - must be positive.
+     */
+    public void notifyHorizontalEdgeReached(int startX, int finalX, int overX) {
+        if (mMode == FLING_MODE) {
+            mScrollerX.notifyEdgeReached(startX, finalX, overX);
+        }
+    }
+
+    /**
+     * Notify the scroller that we've reached a vertical boundary. Used when the boundary was not
+     * known when the fling started. A running fling keeps its current velocity and continues as
+     * a spring that settles at finalY. Does nothing if the vertical motion is already a spring
+     * or is not a fling.
+     *
+     * @param startY Starting/current Y position
+     * @param finalY Desired final Y position, the boundary that was reached
+     * @param overY Magnitude of overscroll allowed. This should be the maximum
+     *              desired distance from finalY. Absolute value - must be positive.
+     */
+    public void notifyVerticalEdgeReached(int startY, int finalY, int overY) {
+        if (mMode == FLING_MODE) {
+            mScrollerY.notifyEdgeReached(startY, finalY, overY);
+        }
+    }
+
+    /**
+     * Returns whether the last motion was started by one of the fling methods rather than by
+     * {@link #startScroll(int, int, int, int, int)}. Edges can only be reached by a fling, see
+     * {@link #notifyHorizontalEdgeReached(int, int, int)}.
+     *
+     * @return true if the scroller is in fling mode
+     */
+    public boolean isFling() {
+        return mMode == FLING_MODE;
     }
 
     /**
@@ -380,11 +433,20 @@ public class OverScroller {
      *
      */
     public int timePassed() {
-        final long time = AnimationUtils.currentAnimationTimeMillis();
+        final long time = currentAnimationTimeMillis();
         final long startTime = Math.min(mScrollerX.mStartTime, mScrollerY.mStartTime);
         return (int) (time - startTime);
     }
 
+    /**
+     * Returns the time all positions are computed for. This is the animation time of the frame
+     * being drawn, so each scroll step matches the time its frame is displayed at no matter how
+     * late the step runs.
+     */
+    protected long currentAnimationTimeMillis() {
+        return AnimationUtils.currentAnimationTimeMillis();
+    }
+
     public boolean isScrollingInDirection(float xvel, float yvel) {
         final int dx = mScrollerX.mFinal - mScrollerX.mStart;
         final int dy = mScrollerY.mFinal - mScrollerY.mStart;
@@ -516,13 +578,13 @@ public class OverScroller {
             mCurrPosition = mStart + q * (mFinal - mStart);
         }
 
-        void startScroll(int start, int distance, int duration) {
+        void startScroll(int start, int distance, int duration, long time) {
             mFinished = false;
 
             mCurrPosition = mStart = start;
             mFinal = start + distance;
 
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = time;
             mDuration = duration;
 
             mVelocity = 0;
@@ -534,12 +596,12 @@ public class OverScroller {
             mFinished = true;
         }
 
-        void fling(int start, int velocity, int min, int max, int over) {
+        void fling(int start, int velocity, int min, int max, int over, long time) {
             mOver = over;
             mFinished = false;
             mCurrVelocity = mPrevVelocity = mVelocity = velocity;
             mDuration = 0;
-            mStartTime = mTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = mTime = time;
             mCurrPosition = mPrevPosition = mStart = start;
             mMin = min;
             mMax = max;
@@ -592,13 +654,42 @@ public class OverScroller {
                     startSpringInternal();
 
                     if (changed) {
-                        update();
+                        update(mTime);
                     }
                 }
             }
             // TODO SPRING
         }
 
+        void notifyEdgeReached(int start, int end, int over) {
+            if (mFinished || mState != SPLINE) {
+                return;
+            }
+            mOver = over;
+            // the side of the boundary we are heading to becomes the overscroll side
+            if (mCurrVelocity > 0 || (mCurrVelocity == 0 && start >= end)) {
+                mMin = Integer.MIN_VALUE;
+                mMax = end;
+            } else {
+                mMin = end;
+                mMax = Integer.MAX_VALUE;
+            }
+            // the edge was crossed between two frames, start the spring at the time it was crossed
+            // so that how far it overshoots does not depend on when the frame happened to land
+            long crossedTime = 0;
+            if (mCurrVelocity != 0) {
+                crossedTime = (long) (1000 * (start - end) / mCurrVelocity);
+                crossedTime = Math.max(0, Math.min(crossedTime, mTime - mStartTime));
+            }
+            mCurrPosition = mPrevPosition = mStart = end;
+            mVelocity = Math.round(mCurrVelocity);
+            mStartTime = mTime - crossedTime;
+            startSpringInternal();
+            if (crossedTime > 0) {
+                update(mTime);
+            }
+        }
+
         private void startFlingInternal() {
             mState = SPLINE;
 
@@ -645,9 +736,6 @@ public class OverScroller {
         private boolean adjustEdgeState() {
             // mPrevPosition 到mCurrentPosition 之间短时间内近似为匀变速运动
 
-            Log.i("xxxx", "adjustEdgeState: before mPrevPosition:" + mPrevPosition + " mCurrPosition:" + mCurrPosition
-            + " mPrevVelocity:" + mPrevVelocity + " mCurrVelocity:" + mCurrVelocity + " mTime:" + mTime);
-
             mStartTime = mTime;
             mVelocity = Math.round(mCurrVelocity);
 
@@ -680,9 +768,6 @@ public class OverScroller {
             mCurrPosition = mStart = (int) edge;
             mCurrVelocity = mVelocity = Math.round(mCurrVelocity - (mCurrVelocity - mPrevVelocity) * ratio);
 
-            Log.i("xxxx", "adjustEdgeState: after mCurrPosition:" + mCurrPosition
-                    + " mCurrVelocity:" + mCurrVelocity + " mStartTime:" + mStartTime);
-
             return true;
         }
 
@@ -691,9 +776,8 @@ public class OverScroller {
          * true if update has been done and false if animation duration has been
          * reached.
          */
-        boolean update() {
-            Log.i("xxxx", "update: dt:" + (AnimationUtils.currentAnimationTimeMillis() - mTime));
-            final long time = mTime = AnimationUtils.currentAnimationTimeMillis();
+        boolean update(long time) {
+            mTime = time;
             mPrevVelocity = mCurrVelocity;
             mPrevPosition = mCurrPosition;
 
@@ -732,7 +816,7 @@ public class OverScroller {
                         startSpringInternal();
 
                         if (changed) {
-                            update();
+                            update(time);
                         }
                     }
 
@@ -759,7 +843,7 @@ public class OverScroller {
                         startFlingInternal();
 
                         if (changed) {
-                            update();
+                            update(time);
                         }
 
                     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.util;
+
+import android.support.v7.widget.AdapterHelperBenchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Runs the RecyclerView benchmarks on a JVM.
+ * <p>
+ * The benchmarks are not tests, run {@link #main(String[])} on a HotSpot JVM with at least 4
+ * cores. Each benchmark prints a line per case, with the best result out of several runs so
+ * that JIT compilation and garbage collection in the first runs do not count.
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * The work to measure. {@link #setUp()} is called before each run and is not measured.
+     */
+    public abstract static class Task {
+        public void setUp() {
+        }
+
+        public abstract void run();
+    }
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) {
+        IndexedSortedListBenchmark.run();
+        DiffUtilParallelBenchmark.run();
+        DiffUtilMemoryBenchmark.run();
+        AdapterHelperBenchmark.run();
+    }
+
+    /**
+     * @return The shortest time in nanoseconds that one run of the task took.
+     */
+    public static long bestTime(Task task, int runs) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            task.setUp();
+            final long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * @return The fewest bytes that one run of the task allocated.
+     */
+    public static long fewestAllocatedBytes(Task task, int runs) {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            task.setUp();
+            final long start = threads.getThreadAllocatedBytes(threadId);
+            task.run();
+            fewest = Math.min(fewest, threads.getThreadAllocatedBytes(threadId) - start);
+        }
+        return fewest;
+    }
+
+    public static void print(String format, Object... args) {
+        System.out.println(String.format(Locale.US, format, args));
+    }
+}
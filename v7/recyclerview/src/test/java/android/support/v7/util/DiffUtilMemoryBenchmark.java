@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.support.v7.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the memory allocated by {@link DiffUtil#calculateDiff(DiffUtil.Callback)} and
+ * {@link DiffUtil.DiffResult#dispatchUpdatesTo(ListUpdateCallback)} for lists with many moved,
+ * removed and inserted items. Run by {@link BenchmarkRunner}.
+ */
+public class DiffUtilMemoryBenchmark {
+    private static final int[] SIZES = {10000, 50000};
+    private static final int RUNS = 3;
+
+    private static final ListUpdateCallback UPDATE_CALLBACK = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+        }
+    };
+
+    public static void run() {
+        for (int size : SIZES) {
+            for (boolean moves : new boolean[] {true, false}) {
+                final DiffUtil.Callback callback = createCallback(size, moves, new Random(size));
+                final long calculateBytes = BenchmarkRunner.fewestAllocatedBytes(
+                        new BenchmarkRunner.Task() {
+                            @Override
+                            public void run() {
+                                DiffUtil.calculateDiff(callback);
+                            }
+                        }, RUNS);
+                final long dispatchBytes = BenchmarkRunner.fewestAllocatedBytes(
+                        new BenchmarkRunner.Task() {
+                            private DiffUtil.DiffResult mResult;
+
+                            @Override
+                            public void setUp() {
+                                mResult = DiffUtil.calculateDiff(callback);
+                            }
+
+                            @Override
+                            public void run() {
+                                mResult.dispatchUpdatesTo(UPDATE_CALLBACK);
+                            }
+                        }, RUNS);
+                BenchmarkRunner.print(
+                        "size %6d %-12s  calculateDiff %8d KB  dispatchUpdatesTo %8d KB",
+                        size, moves ? "moves" : "replacements", calculateBytes / 1024,
+                        dispatchBytes / 1024);
+            }
+        }
+    }
+
+    /**
+     * Old list is 0 to size - 1. New list either has one item in 20 moved, and one in 50 removed
+     * and inserted, or one item in 5 replaced, which splits the diff into many small snakes.
+     */
+    private static DiffUtil.Callback createCallback(int size, boolean moves, Random random) {
+        final int[] oldItems = new int[size];
+        final List<Integer> newList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            oldItems[i] = i;
+            newList.add(i);
+        }
+        if (moves) {
+            for (int i = 0; i < size / 20; i++) {
+                newList.add(random.nextInt(newList.size()),
+                        newList.remove(random.nextInt(newList.size())));
+            }
+            for (int i = 0; i < size / 50; i++) {
+                newList.remove(random.nextInt(newList.size()));
+            }
+            for (int i = 0; i < size / 50; i++) {
+                newList.add(random.nextInt(newList.size()), size + i);
+            }
+        } else {
+            for (int i = 0; i < size / 5; i++) {
+                newList.set(random.nextInt(size), size + i);
+            }
+        }
+        final int[] newItems = new int[newList.size()];
+        for (int i = 0; i < newItems.length; i++) {
+            newItems[i] = newList.get(i);
+        }
+        return new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldItems.length;
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newItems.length;
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldItems[oldItemPosition] == newItems[newItemPosition];
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return true;
+            }
+        };
+    }
+}
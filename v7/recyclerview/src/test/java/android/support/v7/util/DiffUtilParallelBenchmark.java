@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.support.v7.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares {@link DiffUtil#calculateDiff(DiffUtil.Callback, boolean)} with
+ * {@link DiffUtil#calculateDiff(DiffUtil.Callback, boolean, java.util.concurrent.Executor, int)}
+ * on large lists with scattered changes. Run by {@link BenchmarkRunner}, parallelism 1 is the
+ * sequential diff.
+ */
+public class DiffUtilParallelBenchmark {
+    private static final int[] SIZES = {20000, 100000};
+    private static final int[] PARALLELISM = {2, 4};
+    private static final int RUNS = 5;
+
+    public static void run() {
+        BenchmarkRunner.print("cores: %d", Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                PARALLELISM[PARALLELISM.length - 1] - 1);
+        try {
+            for (int size : SIZES) {
+                final DiffUtil.Callback callback = createCallback(size, new Random(size));
+                BenchmarkRunner.print("size %6d  parallelism 1 %8.1f ms", size,
+                        BenchmarkRunner.bestTime(new DiffTask(callback, null, 1), RUNS) / 1e6);
+                for (int parallelism : PARALLELISM) {
+                    BenchmarkRunner.print("size %6d  parallelism %d %8.1f ms", size, parallelism,
+                            BenchmarkRunner.bestTime(
+                                    new DiffTask(callback, executor, parallelism), RUNS) / 1e6);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static class DiffTask extends BenchmarkRunner.Task {
+        private final DiffUtil.Callback mCallback;
+        private final ExecutorService mExecutor;
+        private final int mParallelism;
+
+        DiffTask(DiffUtil.Callback callback, ExecutorService executor, int parallelism) {
+            mCallback = callback;
+            mExecutor = executor;
+            mParallelism = parallelism;
+        }
+
+        @Override
+        public void run() {
+            if (mExecutor == null) {
+                DiffUtil.calculateDiff(mCallback, false);
+            } else {
+                DiffUtil.calculateDiff(mCallback, false, mExecutor, mParallelism);
+            }
+        }
+    }
+
+    /**
+     * Old list is 0 to size - 1, new list has one item in 100 removed, and as many inserted.
+     */
+    private static DiffUtil.Callback createCallback(int size, Random random) {
+        final int[] oldItems = new int[size];
+        final List<Integer> newList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            oldItems[i] = i;
+            newList.add(i);
+        }
+        for (int i = 0; i < size / 100; i++) {
+            newList.remove(random.nextInt(newList.size()));
+            newList.add(random.nextInt(newList.size() + 1), size + i);
+        }
+        final int[] newItems = new int[newList.size()];
+        for (int i = 0; i < newItems.length; i++) {
+            newItems[i] = newList.get(i);
+        }
+        return new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldItems.length;
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newItems.length;
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldItems[oldItemPosition] == newItems[newItemPosition];
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return true;
+            }
+        };
+    }
+}
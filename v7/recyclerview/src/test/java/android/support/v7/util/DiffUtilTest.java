@@ -20,6 +20,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 
 import android.support.annotation.Nullable;
 import android.support.test.filters.SmallTest;
@@ -36,6 +37,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(JUnit4.class)
 @SmallTest
@@ -275,6 +282,135 @@ public class DiffUtilTest {
         assertThat(applied.contains(mBefore.get(0)), is(false));
     }
 
+    @Test
+    public void testParallelMatchesSequential() {
+        final Random random = new Random(42);
+        initWithSize(1000);
+        for (int i = 0; i < 200; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    add(random.nextInt(mAfter.size() + 1));
+                    break;
+                case 1:
+                    delete(random.nextInt(mAfter.size()));
+                    break;
+                case 2:
+                    move(random.nextInt(mAfter.size()), random.nextInt(mAfter.size()));
+                    break;
+            }
+        }
+        DiffUtil.DiffResult sequential = DiffUtil.calculateDiff(mCallback);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        DiffUtil.DiffResult parallel;
+        try {
+            parallel = DiffUtil.calculateDiff(mCallback, true, executor, 4);
+        } finally {
+            executor.shutdown();
+        }
+
+        DiffUtil.SnakeList expected = sequential.getSnakes();
+        DiffUtil.SnakeList actual = parallel.getSnakes();
+        assertThat(actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.getX(i), is(expected.getX(i)));
+            assertThat(actual.getY(i), is(expected.getY(i)));
+            assertThat(actual.getSize(i), is(expected.getSize(i)));
+        }
+        assertEquals(applyUpdates(mBefore, parallel), mAfter);
+    }
+
+    @Test
+    public void testParallelWithoutExecutorThreads() {
+        initWithSize(20);
+        add(3);
+        delete(10);
+        move(0, 15);
+        // tasks never run, so the calling thread computes the whole diff
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(mCallback, true, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+            }
+        }, 4);
+        assertEquals(applyUpdates(mBefore, result), mAfter);
+    }
+
+    @Test
+    public void testParallelErrorWaitsForWorkers() throws InterruptedException {
+        initWithSize(20);
+        delete(16);
+        delete(3);
+        final Thread caller = Thread.currentThread();
+        final CountDownLatch workerEntered = new CountDownLatch(1);
+        final AtomicInteger workerCalls = new AtomicInteger();
+        final AtomicInteger workerCallsInFlight = new AtomicInteger();
+        final DiffUtil.Callback callback = new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return mCallback.getOldListSize();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return mCallback.getNewListSize();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                if (Thread.currentThread() == caller) {
+                    // give the worker time to take the other half of the list, then fail
+                    try {
+                        if (workerEntered.await(5, TimeUnit.MILLISECONDS)) {
+                            throw new IllegalStateException("failed on the calling thread");
+                        }
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return mCallback.areItemsTheSame(oldItemPosition, newItemPosition);
+                }
+                workerCalls.incrementAndGet();
+                workerCallsInFlight.incrementAndGet();
+                try {
+                    if (workerEntered.getCount() > 0) {
+                        workerEntered.countDown();
+                        Thread.sleep(100);
+                    }
+                    return mCallback.areItemsTheSame(oldItemPosition, newItemPosition);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    workerCallsInFlight.decrementAndGet();
+                }
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return mCallback.areContentsTheSame(oldItemPosition, newItemPosition);
+            }
+        };
+        final List<Thread> workers = new ArrayList<>();
+        try {
+            DiffUtil.calculateDiff(callback, true, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    Thread worker = new Thread(command);
+                    workers.add(worker);
+                    worker.start();
+                }
+            }, 2);
+            fail("expected the error of the calling thread");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("failed on the calling thread"));
+        }
+        // the worker finished its range before the error was thrown, and won't call again
+        assertThat(workerCallsInFlight.get(), is(0));
+        final int callCount = workerCalls.get();
+        assertThat(callCount > 0, is(true));
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertThat(workerCalls.get(), is(callCount));
+    }
+
     private void testRandom(int initialSize, int operationCount) {
         mLog.setLength(0);
         initWithSize(initialSize);
@@ -316,7 +452,7 @@ public class DiffUtilTest {
         DiffUtil.DiffResult result = DiffUtil.calculateDiff(mCallback);
         log("before", mBefore);
         log("after", mAfter);
-        log("snakes", result.getSnakes());
+        mLog.append("snakes:").append(result.getSnakes()).append("\n");
 
         List<Item> applied = applyUpdates(mBefore, result);
         assertEquals(applied, mAfter);
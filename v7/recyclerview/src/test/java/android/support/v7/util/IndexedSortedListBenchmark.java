@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.support.v7.util;
+
+import java.util.Random;
+
+/**
+ * Compares {@link IndexedSortedList} with {@link SortedList} on a mix of single item adds,
+ * removes, updates and gets, for lists of different sizes. Run by {@link BenchmarkRunner}.
+ */
+public class IndexedSortedListBenchmark {
+    private static final int[] SIZES = {1000, 10000, 100000, 500000};
+    private static final int OPERATIONS = 100000;
+    private static final int RUNS = 3;
+
+    public static void run() {
+        for (int size : SIZES) {
+            BenchmarkRunner.print("size %6d  SortedList %8.1f ms  IndexedSortedList %8.1f ms",
+                    size,
+                    BenchmarkRunner.bestTime(new OperationsTask(false, size), RUNS) / 1e6,
+                    BenchmarkRunner.bestTime(new OperationsTask(true, size), RUNS) / 1e6);
+        }
+    }
+
+    /**
+     * Fills a list with size random items, then runs {@link #OPERATIONS} random operations.
+     */
+    private static class OperationsTask extends BenchmarkRunner.Task {
+        private final boolean mIndexed;
+        private final int mSize;
+        private Operations mList;
+        private Random mRandom;
+        private int mNextId;
+        // keeps the results used
+        long mSum;
+
+        OperationsTask(boolean indexed, int size) {
+            mIndexed = indexed;
+            mSize = size;
+        }
+
+        @Override
+        public void setUp() {
+            mRandom = new Random(mSize);
+            mList = mIndexed ? new IndexedSortedListOperations() : new SortedListOperations();
+            final Item[] items = new Item[mSize];
+            for (int i = 0; i < mSize; i++) {
+                items[i] = new Item(i, mRandom.nextInt());
+            }
+            mList.addAll(items);
+            mNextId = mSize;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < OPERATIONS; i++) {
+                switch (mRandom.nextInt(4)) {
+                    case 0:
+                        mSum += mList.add(new Item(mNextId++, mRandom.nextInt()));
+                        break;
+                    case 1:
+                        mList.remove(mList.get(mRandom.nextInt(mList.size())));
+                        break;
+                    case 2:
+                        final int index = mRandom.nextInt(mList.size());
+                        mList.updateItemAt(index,
+                                new Item(mList.get(index).mId, mRandom.nextInt()));
+                        break;
+                    default:
+                        mSum += mList.get(mRandom.nextInt(mList.size())).mKey;
+                        break;
+                }
+            }
+        }
+    }
+
+    private static class Item {
+        final int mId;
+        final int mKey;
+
+        Item(int id, int key) {
+            mId = id;
+            mKey = key;
+        }
+    }
+
+    private static final SortedList.Callback<Item> CALLBACK = new SortedList.Callback<Item>() {
+        @Override
+        public int compare(Item o1, Item o2) {
+            if (o1.mKey != o2.mKey) {
+                return o1.mKey < o2.mKey ? -1 : 1;
+            }
+            return o1.mId < o2.mId ? -1 : (o1.mId == o2.mId ? 0 : 1);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+        }
+
+        @Override
+        public boolean areContentsTheSame(Item oldItem, Item newItem) {
+            return oldItem.mKey == newItem.mKey;
+        }
+
+        @Override
+        public boolean areItemsTheSame(Item item1, Item item2) {
+            return item1.mId == item2.mId;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+    };
+
+    private interface Operations {
+        void addAll(Item[] items);
+
+        int add(Item item);
+
+        void remove(Item item);
+
+        void updateItemAt(int index, Item item);
+
+        Item get(int index);
+
+        int size();
+    }
+
+    private static class SortedListOperations implements Operations {
+        private final SortedList<Item> mList = new SortedList<>(Item.class, CALLBACK);
+
+        @Override
+        public void addAll(Item[] items) {
+            mList.addAll(items);
+        }
+
+        @Override
+        public int add(Item item) {
+            return mList.add(item);
+        }
+
+        @Override
+        public void remove(Item item) {
+            mList.remove(item);
+        }
+
+        @Override
+        public void updateItemAt(int index, Item item) {
+            mList.updateItemAt(index, item);
+        }
+
+        @Override
+        public Item get(int index) {
+            return mList.get(index);
+        }
+
+        @Override
+        public int size() {
+            return mList.size();
+        }
+    }
+
+    private static class IndexedSortedListOperations implements Operations {
+        private final IndexedSortedList<Item> mList =
+                new IndexedSortedList<>(Item.class, CALLBACK);
+
+        @Override
+        public void addAll(Item[] items) {
+            mList.addAll(items);
+        }
+
+        @Override
+        public int add(Item item) {
+            return mList.add(item);
+        }
+
+        @Override
+        public void remove(Item item) {
+            mList.remove(item);
+        }
+
+        @Override
+        public void updateItemAt(int index, Item item) {
+            mList.updateItemAt(index, item);
+        }
+
+        @Override
+        public Item get(int index) {
+            return mList.get(index);
+        }
+
+        @Override
+        public int size() {
+            return mList.size();
+        }
+    }
+}
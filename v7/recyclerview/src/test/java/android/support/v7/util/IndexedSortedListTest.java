@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.support.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+@SmallTest
+public class IndexedSortedListTest {
+    private static final int SMALL_CHUNK_CAPACITY = 4;
+
+    private final List<Item> mApplied = new ArrayList<>();
+    private int mUpdateCount;
+
+    private final SortedList.Callback<Item> mCallback = new SortedList.Callback<Item>() {
+        @Override
+        public int compare(Item o1, Item o2) {
+            if (o1.mCmpField != o2.mCmpField) {
+                return o1.mCmpField < o2.mCmpField ? -1 : 1;
+            }
+            return o1.mId < o2.mId ? -1 : (o1.mId == o2.mId ? 0 : 1);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            mUpdateCount++;
+            for (int i = 0; i < count; i++) {
+                mApplied.add(position, null);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mUpdateCount++;
+            for (int i = 0; i < count; i++) {
+                mApplied.remove(position);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mUpdateCount++;
+            mApplied.add(toPosition, mApplied.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            mUpdateCount++;
+            for (int i = 0; i < count; i++) {
+                mApplied.set(position + i, null);
+            }
+        }
+
+        @Override
+        public boolean areContentsTheSame(Item oldItem, Item newItem) {
+            return oldItem.mCmpField == newItem.mCmpField && oldItem.mData == newItem.mData;
+        }
+
+        @Override
+        public boolean areItemsTheSame(Item item1, Item item2) {
+            return item1.mId == item2.mId;
+        }
+    };
+
+    // the list under test, for callbacks that are created before it
+    private IndexedSortedList<Item> mListRef;
+
+    private IndexedSortedList<Item> mList =
+            new IndexedSortedList<>(Item.class, mCallback, SMALL_CHUNK_CAPACITY);
+
+    @Test
+    public void testEmpty() {
+        assertThat(mList.size(), is(0));
+        assertThat(mList.indexOf(new Item(0, 0)), is(IndexedSortedList.INVALID_POSITION));
+        assertThat(mList.remove(new Item(0, 0)), is(false));
+    }
+
+    @Test
+    public void testAddInOrder() {
+        for (int i = 0; i < 50; i++) {
+            assertThat(mList.add(new Item(i, i)), is(i));
+        }
+        checkOrder();
+        assertThat(mUpdateCount, is(50));
+    }
+
+    @Test
+    public void testAddInReverseOrder() {
+        for (int i = 49; i >= 0; i--) {
+            assertThat(mList.add(new Item(i, i)), is(0));
+        }
+        checkOrder();
+        for (int i = 0; i < 50; i++) {
+            assertThat(mList.get(i).mId, is(i));
+            assertThat(mList.indexOf(new Item(i, i)), is(i));
+        }
+    }
+
+    @Test
+    public void testAddSameItem() {
+        for (int i = 0; i < 20; i++) {
+            mList.add(new Item(i, i));
+        }
+        mUpdateCount = 0;
+        final Item same = new Item(7, 7);
+        assertThat(mList.add(same), is(7));
+        assertThat(mList.get(7), sameInstance(same));
+        assertThat(mUpdateCount, is(0));
+
+        final Item changed = new Item(8, 8);
+        changed.mData = 1;
+        assertThat(mList.add(changed), is(8));
+        assertThat(mList.get(8), sameInstance(changed));
+        assertThat(mList.size(), is(20));
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testAddEqualItems() {
+        // items that compare as equal, but aren't the same, are added after the existing ones
+        final SortedList.Callback<Item> callback = new SortedList.Callback<Item>() {
+            @Override
+            public int compare(Item o1, Item o2) {
+                return o1.mCmpField - o2.mCmpField;
+            }
+
+            @Override
+            public void onInserted(int position, int count) {
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+            }
+
+            @Override
+            public boolean areContentsTheSame(Item oldItem, Item newItem) {
+                return oldItem.mData == newItem.mData;
+            }
+
+            @Override
+            public boolean areItemsTheSame(Item item1, Item item2) {
+                return item1.mId == item2.mId;
+            }
+        };
+        final IndexedSortedList<Item> list =
+                new IndexedSortedList<>(Item.class, callback, SMALL_CHUNK_CAPACITY);
+        for (int i = 0; i < 20; i++) {
+            list.add(new Item(i, 0));
+        }
+        list.add(new Item(20, -1));
+        for (int i = 0; i < 20; i++) {
+            assertThat(list.get(i + 1).mId, is(i));
+            assertThat(list.indexOf(new Item(i, 0)), is(i + 1));
+        }
+        assertThat(list.remove(new Item(13, 0)), is(true));
+        assertThat(list.indexOf(new Item(13, 0)), is(IndexedSortedList.INVALID_POSITION));
+        assertThat(list.indexOf(new Item(14, 0)), is(14));
+    }
+
+    @Test
+    public void testRemove() {
+        for (int i = 0; i < 50; i++) {
+            mList.add(new Item(i, i));
+        }
+        for (int i = 0; i < 50; i += 2) {
+            assertThat(mList.remove(new Item(i, i)), is(true));
+        }
+        assertThat(mList.size(), is(25));
+        checkOrder();
+        for (int i = 0; i < 25; i++) {
+            assertThat(mList.get(i).mId, is(i * 2 + 1));
+        }
+        while (mList.size() > 0) {
+            mList.removeItemAt(mList.size() / 2);
+        }
+        assertThat(mList.mChunkCount, is(0));
+    }
+
+    @Test
+    public void testUpdateItemAt() {
+        for (int i = 0; i < 20; i++) {
+            mList.add(new Item(i, i));
+        }
+        mUpdateCount = 0;
+        mList.updateItemAt(3, new Item(3, 30));
+        assertThat(mList.get(19).mId, is(3));
+        assertThat(mList.get(3).mId, is(4));
+        // changed and moved
+        assertThat(mUpdateCount, is(2));
+        final Item same = new Item(0, 0);
+        mList.updateItemAt(0, same);
+        assertThat(mList.get(0), sameInstance(same));
+        assertThat(mUpdateCount, is(2));
+        checkOrder();
+    }
+
+    @Test
+    public void testRecalculatePosition() {
+        final Item[] items = new Item[20];
+        for (int i = 0; i < 20; i++) {
+            items[i] = new Item(i, i);
+            mList.add(items[i]);
+        }
+        items[15].mCmpField = -1;
+        mList.recalculatePositionOfItemAt(15);
+        assertThat(mList.get(0), sameInstance(items[15]));
+        checkOrder();
+    }
+
+    @Test
+    public void testAddAllToEmpty() {
+        final Item[] items = new Item[50];
+        for (int i = 0; i < 50; i++) {
+            items[i] = new Item(49 - i, 49 - i);
+        }
+        mList.addAll(items);
+        assertThat(mUpdateCount, is(1));
+        assertThat(mList.size(), is(50));
+        checkOrder();
+        // input must not be modified
+        assertThat(items[0].mId, is(49));
+    }
+
+    @Test
+    public void testAddAllGetFromCallback() {
+        final List<Item> merged = new ArrayList<>();
+        mListRef = new IndexedSortedList<>(Item.class,
+                new SortedList.BatchedCallback<Item>(new ComparingCallback()) {
+                    @Override
+                    public void onInserted(int position, int count) {
+                        super.onInserted(position, count);
+                        merged.add(mListRef.get(position));
+                        assertThat(mListRef.indexOf(mListRef.get(position)), is(position));
+                    }
+                }, SMALL_CHUNK_CAPACITY);
+        for (int i = 0; i < 20; i += 2) {
+            mListRef.add(new Item(i, i));
+        }
+        merged.clear();
+        final Item[] items = new Item[10];
+        for (int i = 0; i < 10; i++) {
+            items[i] = new Item(i * 2 + 1, i * 2 + 1);
+        }
+        mListRef.addAll(items);
+        assertThat(mListRef.size(), is(20));
+        assertThat(merged.size(), is(10));
+        for (int i = 0; i < 10; i++) {
+            assertThat(merged.get(i).mId, is(i * 2 + 1));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertThat(mListRef.get(i).mId, is(i));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testModificationFromAddAllThrows() {
+        mListRef = new IndexedSortedList<>(Item.class,
+                new SortedList.BatchedCallback<Item>(new ComparingCallback()) {
+                    @Override
+                    public void onInserted(int position, int count) {
+                        mListRef.add(new Item(100, 100));
+                    }
+                }, SMALL_CHUNK_CAPACITY);
+        mListRef.add(new Item(1, 1));
+        mListRef.addAll(new Item(2, 2), new Item(3, 3));
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i < 20; i++) {
+            mList.add(new Item(i, i));
+        }
+        mUpdateCount = 0;
+        mList.clear();
+        assertThat(mList.size(), is(0));
+        assertThat(mUpdateCount, is(1));
+        mList.add(new Item(1, 1));
+        assertThat(mList.get(0).mId, is(1));
+    }
+
+    @Test
+    public void testRandomSmallChunks() {
+        randomTest(1);
+    }
+
+    @Test
+    public void testRandomDefaultChunks() {
+        mList = new IndexedSortedList<>(Item.class, mCallback);
+        randomTest(2);
+    }
+
+    /**
+     * Runs random edits on the list and on a {@link SortedList}, and checks that both have the
+     * same contents, and that the dispatched events are consistent with the contents.
+     */
+    private void randomTest(int seed) {
+        final SortedList<Item> expected = new SortedList<>(Item.class, new ComparingCallback());
+        final Random random = new Random(seed);
+        int nextId = 0;
+        for (int i = 0; i < 5000; i++) {
+            final int type = random.nextInt(20);
+            final boolean batched = random.nextInt(4) == 0;
+            if (batched) {
+                mList.beginBatchedUpdates();
+            }
+            if (type < 8 || expected.size() == 0) {
+                final Item item = new Item(nextId++, random.nextInt(1000));
+                assertThat(mList.add(item), is(expected.add(item)));
+            } else if (type < 10) {
+                final Item existing = expected.get(random.nextInt(expected.size()));
+                final Item item = new Item(existing.mId, existing.mCmpField);
+                item.mData = random.nextInt(2);
+                assertThat(mList.add(item), is(expected.add(item)));
+            } else if (type < 13) {
+                final Item item = expected.get(random.nextInt(expected.size()));
+                assertThat(mList.remove(item), is(expected.remove(item)));
+            } else if (type < 15) {
+                final int index = random.nextInt(expected.size());
+                assertThat(mList.removeItemAt(index), sameInstance(expected.removeItemAt(index)));
+            } else if (type < 18) {
+                final int index = random.nextInt(expected.size());
+                final Item item = new Item(expected.get(index).mId, random.nextInt(1000));
+                mList.updateItemAt(index, item);
+                expected.updateItemAt(index, item);
+            } else if (type < 19) {
+                final Item[] items =
+                        new Item[random.nextInt(Math.min(expected.size(), 50) + 1) + 1];
+                for (int j = 0; j < items.length; j++) {
+                    if (random.nextBoolean()) {
+                        items[j] = new Item(nextId++, random.nextInt(1000));
+                    } else {
+                        final Item existing = expected.get(random.nextInt(expected.size()));
+                        items[j] = new Item(existing.mId, existing.mCmpField);
+                        items[j].mData = random.nextInt(2);
+                    }
+                }
+                mList.addAll(items);
+                expected.addAll(items);
+            } else if (random.nextInt(10) == 0) {
+                mList.clear();
+                expected.clear();
+            }
+            if (batched) {
+                mList.endBatchedUpdates();
+            }
+
+            assertThat(mList.size(), is(expected.size()));
+            assertThat(mApplied.size(), is(expected.size()));
+            for (int j = 0; j < expected.size(); j++) {
+                assertThat(mList.get(j), sameInstance(expected.get(j)));
+                // items not dispatched as inserted or changed must not move
+                if (mApplied.get(j) != null) {
+                    assertThat(mApplied.get(j).mId, is(expected.get(j).mId));
+                }
+                mApplied.set(j, expected.get(j));
+            }
+            if (i % 100 == 0) {
+                for (int j = 0; j < expected.size(); j++) {
+                    assertThat(mList.indexOf(expected.get(j)), is(j));
+                }
+            }
+        }
+    }
+
+    private void checkOrder() {
+        for (int i = 1; i < mList.size(); i++) {
+            assertThat(mCallback.compare(mList.get(i - 1), mList.get(i)) < 0, is(true));
+        }
+        assertThat(mApplied.size(), is(mList.size()));
+    }
+
+    /**
+     * Compares items like {@link #mCallback}, but ignores the events.
+     */
+    private class ComparingCallback extends SortedList.Callback<Item> {
+        @Override
+        public int compare(Item o1, Item o2) {
+            return mCallback.compare(o1, o2);
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+        }
+
+        @Override
+        public boolean areContentsTheSame(Item oldItem, Item newItem) {
+            return mCallback.areContentsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public boolean areItemsTheSame(Item item1, Item item2) {
+            return mCallback.areItemsTheSame(item1, item2);
+        }
+    }
+
+    static class Item {
+        final int mId;
+        int mCmpField;
+        int mData;
+
+        Item(int id, int cmpField) {
+            mId = id;
+            mCmpField = cmpField;
+        }
+    }
+}
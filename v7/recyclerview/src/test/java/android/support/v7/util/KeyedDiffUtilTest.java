@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.support.v7.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.support.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+@SmallTest
+public class KeyedDiffUtilTest {
+    private static final Object PAYLOAD = new Object();
+
+    private List<Item> mBefore = new ArrayList<>();
+    private List<Item> mAfter = new ArrayList<>();
+    private int mUpdateCount;
+
+    private KeyedDiffUtil.Callback mCallback = new KeyedDiffUtil.Callback() {
+        @Override
+        public int getOldListSize() {
+            return mBefore.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mAfter.size();
+        }
+
+        @Override
+        public Object getOldItemKey(int oldItemPosition) {
+            return mBefore.get(oldItemPosition).mKey;
+        }
+
+        @Override
+        public Object getNewItemKey(int newItemPosition) {
+            return mAfter.get(newItemPosition).mKey;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return mBefore.get(oldItemPosition).mValue == mAfter.get(newItemPosition).mValue;
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return PAYLOAD;
+        }
+    };
+
+    @Test
+    public void testNoChange() {
+        initWithSize(5);
+        check();
+        assertThat(mUpdateCount, is(0));
+    }
+
+    @Test
+    public void testEmpty() {
+        check();
+        assertThat(mUpdateCount, is(0));
+    }
+
+    @Test
+    public void testAddToEmpty() {
+        mAfter.add(new Item(0, 0));
+        mAfter.add(new Item(1, 0));
+        check();
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testRemoveAll() {
+        initWithSize(5);
+        mAfter.clear();
+        check();
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testInsertInMiddle() {
+        initWithSize(5);
+        mAfter.add(2, new Item(10, 0));
+        mAfter.add(3, new Item(11, 0));
+        check();
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testRemoveFromMiddle() {
+        initWithSize(5);
+        mAfter.remove(1);
+        mAfter.remove(1);
+        check();
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testMoveToEnd() {
+        initWithSize(5);
+        mAfter.add(mAfter.remove(0));
+        check();
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testMoveToStart() {
+        initWithSize(5);
+        mAfter.add(0, mAfter.remove(4));
+        check();
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testChange() {
+        initWithSize(5);
+        mAfter.set(2, new Item(2, 1));
+        mAfter.set(3, new Item(3, 1));
+        check();
+        assertThat(mUpdateCount, is(1));
+    }
+
+    @Test
+    public void testReverse() {
+        initWithSize(6);
+        Collections.reverse(mAfter);
+        check();
+        // all but one item has to move
+        assertThat(mUpdateCount, is(5));
+    }
+
+    @Test
+    public void testDuplicateKeys() {
+        mBefore.addAll(Arrays.asList(new Item(0, 0), new Item(0, 0), new Item(1, 0)));
+        mAfter.addAll(Arrays.asList(new Item(1, 0), new Item(0, 0), new Item(0, 0)));
+        check();
+    }
+
+    @Test
+    public void testRandom() {
+        final Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            mBefore.clear();
+            mAfter.clear();
+            final int size = random.nextInt(50);
+            initWithSize(size);
+            int nextKey = size;
+            final int ops = random.nextInt(10);
+            for (int op = 0; op < ops; op++) {
+                final int type = random.nextInt(4);
+                if (type == 0 || mAfter.isEmpty()) {
+                    mAfter.add(random.nextInt(mAfter.size() + 1), new Item(nextKey++, 0));
+                } else if (type == 1) {
+                    mAfter.remove(random.nextInt(mAfter.size()));
+                } else if (type == 2) {
+                    final Item item = mAfter.remove(random.nextInt(mAfter.size()));
+                    mAfter.add(random.nextInt(mAfter.size() + 1), item);
+                } else {
+                    final int index = random.nextInt(mAfter.size());
+                    final Item item = mAfter.get(index);
+                    mAfter.set(index, new Item(item.mKey, item.mValue + 1));
+                }
+            }
+            check();
+        }
+    }
+
+    private void initWithSize(int size) {
+        for (int i = 0; i < size; i++) {
+            mBefore.add(new Item(i, 0));
+        }
+        mAfter.addAll(mBefore);
+    }
+
+    /**
+     * Applies the updates dispatched by the diff to a copy of the old list, and verifies the
+     * result matches the new list.
+     */
+    private void check() {
+        final KeyedDiffUtil.DiffResult result = KeyedDiffUtil.calculateDiff(mCallback);
+        final List<Item> applied = new ArrayList<>(mBefore);
+        mUpdateCount = 0;
+        result.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                mUpdateCount++;
+                for (int i = 0; i < count; i++) {
+                    // later moves may still shift inserted items, so only check their final
+                    // positions
+                    applied.add(position + i, null);
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                mUpdateCount++;
+                for (int i = 0; i < count; i++) {
+                    applied.remove(position);
+                }
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                mUpdateCount++;
+                applied.add(toPosition, applied.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                mUpdateCount++;
+                assertThat(payload == PAYLOAD, is(true));
+                for (int i = 0; i < count; i++) {
+                    final Item item = applied.get(position + i);
+                    assertThat(item.mChanged, is(false));
+                    applied.set(position + i, item.changed());
+                }
+            }
+        });
+        assertThat(applied.size(), is(mAfter.size()));
+        final Set<Integer> oldKeys = new HashSet<>();
+        for (Item item : mBefore) {
+            oldKeys.add(item.mKey);
+        }
+        for (int i = 0; i < mAfter.size(); i++) {
+            final Item expected = mAfter.get(i);
+            final Item actual = applied.get(i);
+            // only the first item with a duplicate key is matched, the others are inserted
+            final boolean kept = oldKeys.remove(expected.mKey);
+            assertThat(actual == null, is(!kept));
+            if (actual == null) {
+                continue;
+            }
+            assertThat(actual.mKey, is(expected.mKey));
+            // only items whose contents differ are dispatched as changed
+            assertThat(actual.mChanged, is(actual.mValue != expected.mValue));
+        }
+    }
+
+    static class Item {
+        final int mKey;
+        final int mValue;
+        final boolean mChanged;
+
+        Item(int key, int value) {
+            this(key, value, false);
+        }
+
+        private Item(int key, int value, boolean changed) {
+            mKey = key;
+            mValue = value;
+            mChanged = changed;
+        }
+
+        Item changed() {
+            return new Item(mKey, mValue, true);
+        }
+    }
+}
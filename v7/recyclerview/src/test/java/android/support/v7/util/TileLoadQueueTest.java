@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.support.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+@SmallTest
+public class TileLoadQueueTest {
+    TileLoadQueue mQueue;
+
+    @Before
+    public void setup() {
+        mQueue = new TileLoadQueue(2);
+    }
+
+    @Test
+    public void startsUpToMaxConcurrentLoads() {
+        mQueue.addPendingTile(0);
+        mQueue.addPendingTile(10);
+        mQueue.addPendingTile(20);
+        assertEquals(0, mQueue.startNextLoad());
+        assertEquals(10, mQueue.startNextLoad());
+        assertEquals(-1, mQueue.startNextLoad());
+        assertEquals(2, mQueue.getLoadsInFlight());
+        assertEquals(1, mQueue.getPendingTileCount());
+        assertTrue(mQueue.isLoading(0));
+        assertFalse(mQueue.isLoading(20));
+    }
+
+    @Test
+    public void finishedLoadStartsPendingTile() {
+        mQueue.addPendingTile(0);
+        mQueue.addPendingTile(10);
+        mQueue.addPendingTile(20);
+        mQueue.startNextLoad();
+        mQueue.startNextLoad();
+
+        mQueue.finishLoad(10, true);
+        assertEquals(1, mQueue.getLoadsInFlight());
+        assertFalse(mQueue.isLoading(10));
+        assertEquals(20, mQueue.startNextLoad());
+        assertEquals(-1, mQueue.startNextLoad());
+        assertEquals(0, mQueue.getPendingTileCount());
+        assertEquals(2, mQueue.getLoadingTileCount());
+    }
+
+    @Test
+    public void queuedOrLoadingTileIsNotAddedAgain() {
+        mQueue.addPendingTile(0);
+        mQueue.startNextLoad();
+        mQueue.addPendingTile(0);
+        mQueue.addPendingTile(10);
+        mQueue.addPendingTile(10);
+        assertEquals(1, mQueue.getPendingTileCount());
+
+        // a tile skipped by its load can be queued again
+        mQueue.finishLoad(0, true);
+        mQueue.addPendingTile(0);
+        assertEquals(2, mQueue.getPendingTileCount());
+    }
+
+    @Test
+    public void clearPendingTilesKeepsLoads() {
+        mQueue.addPendingTile(0);
+        mQueue.addPendingTile(10);
+        mQueue.addPendingTile(20);
+        mQueue.startNextLoad();
+        mQueue.clearPendingTiles();
+        assertEquals(-1, mQueue.startNextLoad());
+        assertEquals(1, mQueue.getLoadsInFlight());
+        assertTrue(mQueue.isLoading(0));
+    }
+
+    @Test
+    public void loadsOfPreviousGenerationStillCount() {
+        mQueue.addPendingTile(0);
+        mQueue.addPendingTile(10);
+        mQueue.startNextLoad();
+        mQueue.startNextLoad();
+
+        mQueue.clear();
+        assertEquals(0, mQueue.getLoadingTileCount());
+        assertFalse(mQueue.isLoading(0));
+        mQueue.addPendingTile(0);
+        assertEquals(-1, mQueue.startNextLoad());
+
+        mQueue.finishLoad(10, false);
+        assertEquals(0, mQueue.startNextLoad());
+
+        // the old load of the same tile leaves the new one loading
+        mQueue.finishLoad(0, false);
+        assertTrue(mQueue.isLoading(0));
+        assertEquals(1, mQueue.getLoadsInFlight());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.widget;
+
+import android.support.v7.util.BenchmarkRunner;
+
+/**
+ * Measures how long {@link AdapterHelper#preProcess()} takes to re-order and apply a growing
+ * number of pending update operations, compared to
+ * {@link AdapterHelper#consumeUpdatesInOnePass()}, which RecyclerView uses once there are more
+ * than {@link AdapterHelper#MAX_PENDING_UPDATES}. Run by {@link BenchmarkRunner}.
+ * <p>
+ * Operations alternate between single item inserts and changes at scattered positions, so none
+ * of them are merged as they are enqueued.
+ */
+public class AdapterHelperBenchmark {
+    private static final int[] OPERATIONS = {250, 500, 1000, 2000};
+    private static final int RUNS = 5;
+
+    public static void run() {
+        for (int operations : OPERATIONS) {
+            BenchmarkRunner.print(
+                    "operations %5d  preProcess %10.1f ms  consumeUpdatesInOnePass %6.2f ms",
+                    operations,
+                    BenchmarkRunner.bestTime(new UpdatesTask(operations, false), RUNS) / 1e6,
+                    BenchmarkRunner.bestTime(new UpdatesTask(operations, true), RUNS) / 1e6);
+        }
+    }
+
+    private static class UpdatesTask extends BenchmarkRunner.Task {
+        private final int mOperations;
+        private final boolean mOnePass;
+        private AdapterHelper mHelper;
+
+        UpdatesTask(int operations, boolean onePass) {
+            mOperations = operations;
+            mOnePass = onePass;
+        }
+
+        @Override
+        public void setUp() {
+            mHelper = createHelper(mOperations);
+        }
+
+        @Override
+        public void run() {
+            if (mOnePass) {
+                mHelper.consumeUpdatesInOnePass();
+            } else {
+                mHelper.preProcess();
+                mHelper.consumePostponedUpdates();
+            }
+        }
+    }
+
+    private static AdapterHelper createHelper(int operations) {
+        final AdapterHelper helper = new AdapterHelper(new AdapterHelper.Callback() {
+            @Override
+            public RecyclerView.ViewHolder findViewHolder(int position) {
+                return null;
+            }
+
+            @Override
+            public void offsetPositionsForRemovingInvisible(int positionStart, int itemCount) {
+            }
+
+            @Override
+            public void offsetPositionsForRemovingLaidOutOrNewView(int positionStart,
+                    int itemCount) {
+            }
+
+            @Override
+            public void markViewHoldersUpdated(int positionStart, int itemCount,
+                    Object payloads) {
+            }
+
+            @Override
+            public void onDispatchFirstPass(AdapterHelper.UpdateOp updateOp) {
+            }
+
+            @Override
+            public void onDispatchSecondPass(AdapterHelper.UpdateOp updateOp) {
+            }
+
+            @Override
+            public void offsetPositionsForAdd(int positionStart, int itemCount) {
+            }
+
+            @Override
+            public void offsetPositionsForMove(int from, int to) {
+            }
+        });
+        for (int i = 0; i < operations / 2; i++) {
+            helper.onItemRangeInserted(i * 2, 1);
+            helper.onItemRangeChanged(i * 2 + 1, 1, null);
+        }
+        return helper;
+    }
+}
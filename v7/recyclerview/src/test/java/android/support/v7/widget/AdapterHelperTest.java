@@ -838,6 +838,140 @@ public class AdapterHelperTest extends AndroidTestCase {
         assertOps(mSecondPassUpdates, upOp(3, 1, "payload"));
     }
 
+    @Test
+    public void testMergeInserts() {
+        assertTrue(mAdapterHelper.onItemRangeInserted(3, 1));
+        assertFalse(mAdapterHelper.onItemRangeInserted(4, 2));
+        assertFalse(mAdapterHelper.onItemRangeInserted(3, 1));
+        assertFalse(mAdapterHelper.onItemRangeInserted(5, 1));
+        assertOps(mAdapterHelper.mPendingUpdates, addOp(3, 5));
+        mAdapterHelper.onItemRangeInserted(9, 1);
+        assertOps(mAdapterHelper.mPendingUpdates, addOp(3, 5), addOp(9, 1));
+    }
+
+    @Test
+    public void testMergeRemoves() {
+        mAdapterHelper.onItemRangeRemoved(5, 1);
+        mAdapterHelper.onItemRangeRemoved(5, 2);
+        mAdapterHelper.onItemRangeRemoved(4, 1);
+        mAdapterHelper.onItemRangeRemoved(2, 2);
+        assertOps(mAdapterHelper.mPendingUpdates, rmOp(2, 6));
+        mAdapterHelper.onItemRangeRemoved(5, 1);
+        assertOps(mAdapterHelper.mPendingUpdates, rmOp(2, 6), rmOp(5, 1));
+    }
+
+    @Test
+    public void testMergeUpdates() {
+        for (int i = 0; i < 10; i++) {
+            mAdapterHelper.onItemRangeChanged(i, 1, null);
+        }
+        mAdapterHelper.onItemRangeChanged(8, 4, null);
+        assertOps(mAdapterHelper.mPendingUpdates, upOp(0, 12, null));
+    }
+
+    @Test
+    public void testMergeUpdatesWithPayload() {
+        final Object payload = "payload";
+        mAdapterHelper.onItemRangeChanged(3, 1, payload);
+        mAdapterHelper.onItemRangeChanged(2, 1, payload);
+        mAdapterHelper.onItemRangeChanged(4, 1, payload);
+        assertOps(mAdapterHelper.mPendingUpdates, upOp(2, 3, payload));
+        // items must receive the payload once per notification, overlaps are kept apart
+        mAdapterHelper.onItemRangeChanged(4, 1, payload);
+        mAdapterHelper.onItemRangeChanged(5, 1, "other");
+        assertOps(mAdapterHelper.mPendingUpdates, upOp(2, 3, payload), upOp(4, 1, payload),
+                upOp(5, 1, "other"));
+    }
+
+    @Test
+    public void testDoNotMergeDifferentTypes() {
+        mAdapterHelper.onItemRangeInserted(3, 1);
+        mAdapterHelper.onItemRangeChanged(3, 1, null);
+        mAdapterHelper.onItemRangeInserted(4, 1);
+        mAdapterHelper.onItemRangeMoved(1, 2, 1);
+        mAdapterHelper.onItemRangeMoved(2, 3, 1);
+        assertEquals(5, mAdapterHelper.mPendingUpdates.size());
+    }
+
+    @Test
+    public void testRandomMerge() {
+        final long seed = System.nanoTime();
+        final Random random = new Random(seed);
+        for (int i = 0; i < 100; i++) {
+            cleanState();
+            final String message = "seed " + seed + ", run " + i;
+            // original items are their index, inserted items are -1
+            final List<Integer> expected = new ArrayList<Integer>();
+            for (int j = 0; j < 20; j++) {
+                expected.add(j);
+            }
+            final List<Integer> start = new ArrayList<Integer>(expected);
+            final boolean[] expectedUpdates = new boolean[start.size()];
+            int position = 0;
+            for (int j = 0; j < 50; j++) {
+                // stay close to the previous position so that many operations are merged
+                position = Math.max(0, Math.min(expected.size(),
+                        position + nextInt(random, 5) - 2));
+                final int count = 1 + nextInt(random, 3);
+                switch (nextInt(random, 3)) {
+                    case 0:
+                        for (int k = 0; k < count; k++) {
+                            expected.add(position, -1);
+                        }
+                        mAdapterHelper.onItemRangeInserted(position, count);
+                        break;
+                    case 1:
+                        final int removed = Math.min(count, expected.size() - position);
+                        for (int k = 0; k < removed; k++) {
+                            expected.remove(position);
+                        }
+                        mAdapterHelper.onItemRangeRemoved(position, removed);
+                        break;
+                    case 2:
+                        final int updated = Math.min(count, expected.size() - position);
+                        for (int k = 0; k < updated; k++) {
+                            final int item = expected.get(position + k);
+                            if (item != -1) {
+                                expectedUpdates[item] = true;
+                            }
+                        }
+                        mAdapterHelper.onItemRangeChanged(position, updated, null);
+                        break;
+                }
+            }
+            final boolean[] updates = new boolean[start.size()];
+            for (AdapterHelper.UpdateOp op : mAdapterHelper.mPendingUpdates) {
+                for (int k = 0; k < op.itemCount; k++) {
+                    if (op.cmd == AdapterHelper.UpdateOp.ADD) {
+                        start.add(op.positionStart, -1);
+                    } else if (op.cmd == AdapterHelper.UpdateOp.REMOVE) {
+                        start.remove(op.positionStart);
+                    } else if (start.get(op.positionStart + k) != -1) {
+                        updates[start.get(op.positionStart + k)] = true;
+                    }
+                }
+            }
+            assertEquals(message, expected, start);
+            for (int item : expected) {
+                if (item != -1) {
+                    assertEquals(message, expectedUpdates[item], updates[item]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTooManyPendingUpdates() {
+        for (int i = 0; i <= AdapterHelper.MAX_PENDING_UPDATES; i++) {
+            assertFalse(mAdapterHelper.hasTooManyPendingUpdates());
+            // every other item, so that nothing can be merged
+            mAdapterHelper.onItemRangeChanged(i * 2, 1, null);
+        }
+        assertTrue(mAdapterHelper.hasTooManyPendingUpdates());
+        mAdapterHelper.reset();
+        assertFalse(mAdapterHelper.hasTooManyPendingUpdates());
+    }
+
     @Test
     public void testRandom() throws Throwable {
         mCollectLogs = true;
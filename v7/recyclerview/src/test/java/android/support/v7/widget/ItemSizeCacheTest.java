@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.support.v7.widget;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.support.test.filters.SmallTest;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+@SmallTest
+public class ItemSizeCacheTest {
+    private final ItemSizeCache mCache = new ItemSizeCache();
+
+    @Test
+    public void testEmpty() {
+        assertThat(mCache.hasSizes(), is(false));
+        assertThat(mCache.getOffset(10, 20), is(0));
+        assertThat(mCache.getTotalSize(20), is(0));
+    }
+
+    @Test
+    public void testKnownSizes() {
+        mCache.setSize(0, RecyclerView.NO_ID, 10);
+        mCache.setSize(1, RecyclerView.NO_ID, 20);
+        mCache.setSize(2, RecyclerView.NO_ID, 30);
+        assertThat(mCache.hasSizes(), is(true));
+        assertThat(mCache.getOffset(0, 3), is(0));
+        assertThat(mCache.getOffset(2, 3), is(30));
+        assertThat(mCache.getTotalSize(3), is(60));
+    }
+
+    @Test
+    public void testUnknownSizesUseAverage() {
+        mCache.setSize(2, RecyclerView.NO_ID, 10);
+        mCache.setSize(3, RecyclerView.NO_ID, 30);
+        // positions 0 and 1 are assumed to be 20 each
+        assertThat(mCache.getOffset(3, 10), is(50));
+        assertThat(mCache.getTotalSize(10), is(200));
+    }
+
+    @Test
+    public void testResize() {
+        mCache.setSize(0, RecyclerView.NO_ID, 10);
+        mCache.setSize(1, RecyclerView.NO_ID, 10);
+        assertThat(mCache.getTotalSize(2), is(20));
+        mCache.setSize(0, RecyclerView.NO_ID, 50);
+        assertThat(mCache.getOffset(1, 2), is(50));
+        assertThat(mCache.getTotalSize(2), is(60));
+    }
+
+    @Test
+    public void testAddRemove() {
+        for (int i = 0; i < 5; i++) {
+            mCache.setSize(i, RecyclerView.NO_ID, i + 1);
+        }
+        mCache.onItemsAdded(1, 2);
+        assertThat(mCache.getSize(0), is(1));
+        assertThat(mCache.getSize(1), is(-1));
+        assertThat(mCache.getSize(2), is(-1));
+        assertThat(mCache.getSize(3), is(2));
+        mCache.onItemsRemoved(0, 3);
+        assertThat(mCache.getSize(0), is(2));
+        assertThat(mCache.getOffset(4, 4), is(2 + 3 + 4 + 5));
+    }
+
+    @Test
+    public void testUpdateForgetsSizes() {
+        mCache.setSize(0, RecyclerView.NO_ID, 10);
+        mCache.setSize(1, RecyclerView.NO_ID, 20);
+        mCache.onItemsUpdated(1, 1);
+        assertThat(mCache.getSize(1), is(-1));
+        assertThat(mCache.getTotalSize(2), is(20));
+    }
+
+    @Test
+    public void testDataSetChangeWithoutStableIds() {
+        mCache.setSize(0, RecyclerView.NO_ID, 10);
+        mCache.onItemsChanged(new IdAdapter(false, 0, 1));
+        assertThat(mCache.hasSizes(), is(false));
+    }
+
+    @Test
+    public void testDataSetChangeWithStableIds() {
+        mCache.setSize(0, 100, 10);
+        mCache.setSize(1, 101, 20);
+        mCache.setSize(2, 102, 30);
+        mCache.onItemsChanged(new IdAdapter(true, 102, 200, 100));
+        assertThat(mCache.getSize(0), is(30));
+        assertThat(mCache.getSize(1), is(-1));
+        assertThat(mCache.getSize(2), is(10));
+    }
+
+    @Test
+    public void testRandom() {
+        final Random random = new Random(1);
+        final List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            final int op = random.nextInt(6);
+            final int position = random.nextInt(sizes.size() + 1);
+            final int count = 1 + random.nextInt(5);
+            if (op <= 1) {
+                final int size = random.nextInt(100);
+                while (sizes.size() <= position) {
+                    sizes.add(-1);
+                }
+                sizes.set(position, size);
+                mCache.setSize(position, RecyclerView.NO_ID, size);
+            } else if (op == 2) {
+                for (int j = 0; j < count; j++) {
+                    sizes.add(position, -1);
+                }
+                mCache.onItemsAdded(position, count);
+            } else if (op == 3) {
+                for (int j = 0; j < count && position < sizes.size(); j++) {
+                    sizes.remove(position);
+                }
+                mCache.onItemsRemoved(position, count);
+            } else if (op == 4 && position < sizes.size()) {
+                final int to = random.nextInt(sizes.size());
+                sizes.add(to, sizes.remove(position));
+                mCache.onItemsMoved(position, to, 1);
+            } else if (op == 5) {
+                for (int j = position; j < position + count && j < sizes.size(); j++) {
+                    sizes.set(j, -1);
+                }
+                mCache.onItemsUpdated(position, count);
+            }
+            check(sizes, sizes.size() + 10);
+        }
+    }
+
+    private void check(List<Integer> sizes, int itemCount) {
+        long knownSize = 0;
+        int knownCount = 0;
+        for (int size : sizes) {
+            if (size != -1) {
+                knownSize += size;
+                knownCount++;
+            }
+        }
+        final float average = knownCount == 0 ? 0 : (float) knownSize / knownCount;
+        long offset = 0;
+        int unknown = 0;
+        for (int position = 0; position <= itemCount; position++) {
+            final int expected = knownCount == 0 ? 0
+                    : (int) (offset + Math.round(unknown * average));
+            assertThat(mCache.getOffset(position, itemCount), is(expected));
+            final int size = position < sizes.size() ? sizes.get(position) : -1;
+            assertThat(mCache.getSize(position), is(size));
+            if (size == -1) {
+                unknown++;
+            } else {
+                offset += size;
+            }
+        }
+    }
+
+    private static class IdAdapter extends RecyclerView.Adapter {
+        private final long[] mIds;
+
+        IdAdapter(boolean stableIds, long... ids) {
+            mIds = ids;
+            setHasStableIds(stableIds);
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mIds[position];
+        }
+
+        @Override
+        public int getItemCount() {
+            return mIds.length;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.util;
+
+import static org.junit.Assert.assertEquals;
+
+import android.support.test.filters.MediumTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@MediumTest
+@RunWith(JUnit4.class)
+public class AsyncListUtilLoadingTest extends BaseAsyncListUtilTest {
+    @Test
+    public void leastRecentlyUsedEviction() throws Throwable {
+        mDataCallback.mCacheSize = 6;
+        scrollAndExpectTiles(50, "far away", 50, 60, 70);
+        scrollAndExpectTiles(20, "back, evicts least recently used tiles", 30, 40);
+        scrollAndExpectTiles(50, "recently used tiles are still cached");
+        scrollAndExpectTiles(0, "least recently used tiles were evicted", 0, 10);
+    }
+
+    @Test
+    public void concurrentLoads() throws Throwable {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            mDataCallback.expectTiles(0, 10, 20);
+            mActivityRule.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    mAsyncListUtil = new AsyncListUtil<>(String.class, TILE_SIZE, mDataCallback,
+                            mViewCallback, executor, 3);
+                }
+            });
+            mDataCallback.waitForTiles("initial concurrent load");
+
+            assertLoadedItemsOnUiThread("no new items should be loaded", 0, 50, 25);
+            mViewCallback.mEndPreload = 15;
+            mViewCallback.expectItemRangeChanged(50, 25);
+            scrollAndExpectTiles(50, "scroll down a lot", 50, 60, 70, 80);
+            mViewCallback.waitForItems();
+            assertLoadedItemsOnUiThread("all visible items should be loaded", 25, 50, 25);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void hitAndMissCounts() throws Throwable {
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final int loaded = getLoadedItemCount(0, 40);
+                assertEquals(loaded, mAsyncListUtil.getItemHitCount());
+                assertEquals(40 - loaded, mAsyncListUtil.getItemMissCount());
+            }
+        });
+    }
+}
@@ -105,6 +105,13 @@ public class ThreadUtilTest {
                                 assertBackgroundThread();
                                 setResultData("recycleTile", data);
                             }
+
+                            @Override
+                            public void addLoadedTile(int generation,
+                                    TileList.Tile<Integer> data) {
+                                assertBackgroundThread();
+                                setResultData("addLoadedTile", generation, data);
+                            }
                         });
             }
         });
@@ -172,6 +179,15 @@ public class ThreadUtilTest {
         assertThat(data, is(new Object[]{tile}));
     }
 
+    @Test
+    public void addLoadedTile() throws InterruptedException {
+        initWait("addLoadedTile");
+        TileList.Tile<Integer> tile = new TileList.Tile<Integer>(Integer.class, 10);
+        mBackgroundProxy.addLoadedTile(4, tile);
+        Object[] data = waitFor("addLoadedTile");
+        assertThat(data, is(new Object[]{4, tile}));
+    }
+
     private void assertMainThread() {
         assertThat(Looper.myLooper(), notNullValue());
         assertThat(Looper.myLooper(), sameInstance(Looper.getMainLooper()));
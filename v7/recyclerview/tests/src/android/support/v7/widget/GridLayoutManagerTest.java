@@ -58,6 +58,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @LargeTest
@@ -1009,6 +1010,121 @@ public class GridLayoutManagerTest extends BaseGridLayoutManagerTest {
         assertEquals(0, ssl.getCachedSpanIndex(8, 5));
     }
 
+    @Test
+    public void spanGroupLookup() {
+        spanGroupLookupTest(false, false);
+    }
+
+    @Test
+    public void spanGroupLookupWithCache() {
+        spanGroupLookupTest(true, false);
+    }
+
+    @Test
+    public void spanGroupLookupWithBothCaches() {
+        spanGroupLookupTest(true, true);
+    }
+
+    public void spanGroupLookupTest(boolean enableGroupCache, boolean enableIndexCache) {
+        final GridLayoutManager.SpanSizeLookup ssl = new MixedSpanSizeLookup();
+        final GridLayoutManager.SpanSizeLookup reference = new MixedSpanSizeLookup();
+        ssl.setSpanGroupIndexCacheEnabled(enableGroupCache);
+        ssl.setSpanIndexCacheEnabled(enableIndexCache);
+        final Random random = new Random(1);
+        for (int i = 0; i < 300; i++) {
+            final int position = random.nextInt(200);
+            assertEquals("span group of " + position,
+                    reference.getSpanGroupIndex(position, 5),
+                    ssl.getCachedSpanGroupIndex(position, 5));
+        }
+    }
+
+    @Test
+    public void spanGroupLookupCacheInvalidation() {
+        final MixedSpanSizeLookup ssl = new MixedSpanSizeLookup();
+        ssl.setSpanGroupIndexCacheEnabled(true);
+        ssl.setSpanIndexCacheEnabled(true);
+        final GridLayoutManager glm = new GridLayoutManager(getActivity(), 5);
+        glm.setSpanSizeLookup(ssl);
+        for (int i = 0; i < 100; i += 7) {
+            ssl.getCachedSpanGroupIndex(i, 5);
+        }
+        assertEquals("span index of each cached span group should be cached", 15,
+                ssl.mSpanIndexCache.size());
+        ssl.mOffset = 1;
+        glm.onItemsUpdated(null, 50, 1, null);
+        assertEquals(0, ssl.mSpanGroupIndexCache.size());
+        assertEquals(0, ssl.mSpanIndexCache.size());
+        final MixedSpanSizeLookup reference = new MixedSpanSizeLookup();
+        reference.mOffset = 1;
+        for (int i = 0; i < 100; i++) {
+            assertEquals("span group of " + i, reference.getSpanGroupIndex(i, 5),
+                    ssl.getCachedSpanGroupIndex(i, 5));
+            assertEquals("span index of " + i, reference.getSpanIndex(i, 5),
+                    ssl.getCachedSpanIndex(i, 5));
+        }
+    }
+
+    @Test
+    public void cachesClearedOnAppend() {
+        final int[] itemCount = {10};
+        final GridLayoutManager.SpanSizeLookup ssl = new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                // the last item is a footer that spans the full row
+                return position == itemCount[0] - 1 ? 5 : 1;
+            }
+        };
+        ssl.setSpanIndexCacheEnabled(true);
+        ssl.setSpanGroupIndexCacheEnabled(true);
+        final GridLayoutManager glm = new GridLayoutManager(getActivity(), 5);
+        glm.setSpanSizeLookup(ssl);
+        assertEquals(0, ssl.getCachedSpanIndex(9, 5));
+        assertEquals(2, ssl.getCachedSpanGroupIndex(9, 5));
+        itemCount[0] = 11;
+        glm.onItemsAdded(null, 10, 1);
+        assertEquals("previous footer should not keep its full span index", 4,
+                ssl.getCachedSpanIndex(9, 5));
+        assertEquals("previous footer should not keep its own span group", 1,
+                ssl.getCachedSpanGroupIndex(9, 5));
+        assertEquals(0, ssl.getCachedSpanIndex(10, 5));
+        assertEquals(2, ssl.getCachedSpanGroupIndex(10, 5));
+    }
+
+    @Test
+    public void defaultSpanGroupLookup() {
+        final GridLayoutManager.SpanSizeLookup ssl = new GridLayoutManager.DefaultSpanSizeLookup();
+        final GridLayoutManager.SpanSizeLookup reference
+                = new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return 1;
+            }
+        };
+        for (int i = 0; i < 20; i++) {
+            assertEquals(reference.getSpanGroupIndex(i, 3), ssl.getSpanGroupIndex(i, 3));
+        }
+    }
+
+    /**
+     * Mixes single, double and full span items. Span sizes of positions >= 50 are shifted by
+     * {@link #mOffset} to simulate an adapter change.
+     */
+    static class MixedSpanSizeLookup extends GridLayoutManager.SpanSizeLookup {
+        int mOffset;
+
+        @Override
+        public int getSpanSize(int position) {
+            if (position >= 50) {
+                position += mOffset;
+            }
+            if (position % 11 == 0) {
+                return 5;
+            }
+            return position % 3 == 0 ? 2 : 1;
+        }
+    }
+
     @Test
     public void removeAnchorItem() throws Throwable {
         removeAnchorItemTest(
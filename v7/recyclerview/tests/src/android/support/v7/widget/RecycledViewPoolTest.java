@@ -19,7 +19,9 @@ package android.support.v7.widget;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.support.test.InstrumentationRegistry;
 import android.support.test.filters.SmallTest;
@@ -92,4 +94,101 @@ public class RecycledViewPoolTest {
         assertEquals(0, pool.size());
         assertEquals(0, pool.getRecycledViewCount(3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void hitAndMissCounts() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.putRecycledView(makeHolder(1));
+
+        assertNotNull(pool.getRecycledView(1));
+        assertNull(pool.getRecycledView(1));
+        assertNull(pool.getRecycledView(2));
+
+        assertEquals(1, pool.getRecycledViewHitCount(1));
+        assertEquals(1, pool.getRecycledViewMissCount(1));
+        assertEquals(0, pool.getRecycledViewHitCount(2));
+        assertEquals(1, pool.getRecycledViewMissCount(2));
+    }
+
+    @Test
+    public void adaptiveGrowsAfterDrop() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        assertEquals(5, pool.getMaxRecycledViews(0));
+
+        // a sixth View is dropped from the full pool
+        for (int i = 0; i < 6; i++) {
+            pool.putRecycledView(makeHolder(0));
+        }
+        assertEquals(5, pool.getRecycledViewCount(0));
+        // then six Views are needed, so the last one is created again
+        for (int i = 0; i < 6; i++) {
+            pool.getRecycledView(0);
+        }
+        assertEquals(1, pool.getRecycledViewMissCount(0));
+        assertEquals(6, pool.getMaxRecycledViews(0));
+
+        for (int i = 0; i < 6; i++) {
+            pool.putRecycledView(makeHolder(0));
+        }
+        assertEquals(6, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void adaptiveShrinksWhenUnused() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        for (int i = 0; i < 5; i++) {
+            pool.putRecycledView(makeHolder(0));
+        }
+        // only one View is used at a time, so four stay in the pool
+        for (int i = 0; i < 32; i++) {
+            RecyclerView.ViewHolder holder = pool.getRecycledView(0);
+            pool.putRecycledView(holder);
+        }
+        assertEquals(3, pool.getMaxRecycledViews(0));
+        assertEquals(3, pool.getRecycledViewCount(0));
+    }
+
+    @Test
+    public void adaptiveKeepsFixedMax() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        pool.setMaxRecycledViews(0, 2);
+        for (int i = 0; i < 3; i++) {
+            pool.putRecycledView(makeHolder(0));
+        }
+        for (int i = 0; i < 3; i++) {
+            pool.getRecycledView(0);
+        }
+        assertEquals(2, pool.getMaxRecycledViews(0));
+    }
+
+    @Test
+    public void trimMemory() {
+        RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setAdaptiveSizingEnabled(true);
+        for (int i = 0; i < 6; i++) {
+            pool.putRecycledView(makeHolder(0));
+        }
+        for (int i = 0; i < 6; i++) {
+            pool.getRecycledView(0);
+        }
+        for (int i = 0; i < 6; i++) {
+            pool.putRecycledView(makeHolder(0));
+        }
+        pool.putRecycledView(makeHolder(1));
+        assertEquals(6, pool.getRecycledViewCount(0));
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(6, pool.getRecycledViewCount(0));
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(5, pool.getMaxRecycledViews(0));
+        assertEquals(5, pool.getRecycledViewCount(0));
+        assertEquals(1, pool.getRecycledViewCount(1));
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(0, pool.size());
+    }
+}
@@ -28,6 +28,8 @@ import static org.junit.Assert.fail;
 
 import android.content.Context;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.os.SystemClock;
@@ -51,8 +53,10 @@ import org.junit.runner.RunWith;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 @SmallTest
 @RunWith(AndroidJUnit4.class)
@@ -497,6 +501,115 @@ public class RecyclerViewBasicTest {
         assertNull(focusAdapter.mTopLeft.focusSearch(View.FOCUS_BACKWARD));
     }
 
+    @Test
+    public void precreateViewHolders() {
+        mRecyclerView.setAdapter(new MockAdapter(20));
+        mRecyclerView.precreateViewHolders(0, 3, DIRECT_EXECUTOR);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertEquals(3, mRecyclerView.getRecycledViewPool().getRecycledViewCount(0));
+
+        // the first layout reuses them
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        measure();
+        layout();
+        assertEquals(3, mRecyclerView.getRecycledViewPool().getRecycledViewHitCount(0));
+    }
+
+    @Test
+    public void precreateViewHoldersLimitedByPool() {
+        mRecyclerView.setAdapter(new MockAdapter(20));
+        mRecyclerView.getRecycledViewPool().setMaxRecycledViews(0, 2);
+        mRecyclerView.precreateViewHolders(0, 5, DIRECT_EXECUTOR);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertEquals(2, mRecyclerView.getRecycledViewPool().getRecycledViewCount(0));
+    }
+
+    @Test
+    public void precreateViewHoldersDiscardedAfterAdapterChange() {
+        final List<Runnable> tasks = new ArrayList<>();
+        mRecyclerView.setAdapter(new MockAdapter(20));
+        mRecyclerView.precreateViewHolders(0, 3, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        mRecyclerView.setAdapter(new MockAdapter(20));
+        tasks.get(0).run();
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertEquals(0, mRecyclerView.getRecycledViewPool().getRecycledViewCount(0));
+    }
+
+    @Test
+    public void precreateViewHoldersCancelledOnDetach() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final int[] created = new int[1];
+        mRecyclerView.setAdapter(new MockAdapter(20) {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                created[0]++;
+                return super.onCreateViewHolder(parent, viewType);
+            }
+        });
+        mRecyclerView.precreateViewHolders(0, 3, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        mRecyclerView.onDetachedFromWindow();
+        tasks.get(0).run();
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertEquals(0, mRecyclerView.getRecycledViewPool().getRecycledViewCount(0));
+        assertEquals(0, created[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void precreateViewHoldersThrowsOtherExceptions() {
+        mRecyclerView.setAdapter(new MockAdapter(20) {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                throw new IllegalStateException("not a missing Looper");
+            }
+        });
+        mRecyclerView.precreateViewHolders(0, 3, DIRECT_EXECUTOR);
+    }
+
+    @Test
+    public void precreateViewHoldersFallsBackToMainThreadOnePerMessage() {
+        final List<String> events = new ArrayList<>();
+        final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+        mRecyclerView.setAdapter(new MockAdapter(20) {
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                // throws on the test thread, which has no Looper
+                new Handler();
+                if (events.isEmpty()) {
+                    mainThreadHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            events.add("other message");
+                        }
+                    });
+                }
+                events.add("create");
+                return super.onCreateViewHolder(parent, viewType);
+            }
+        });
+        mRecyclerView.precreateViewHolders(0, 3, DIRECT_EXECUTOR);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertEquals(3, mRecyclerView.getRecycledViewPool().getRecycledViewCount(0));
+        // the message posted while creating the first one runs before the second is created
+        assertEquals(Arrays.asList("create", "other message", "create", "create"), events);
+    }
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
     static class MockLayoutManager extends RecyclerView.LayoutManager {
 
         int mLayoutCount = 0;
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.widget;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.test.filters.MediumTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.view.ViewCompat;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks that the bounce overscroll always springs back to the edge of the content.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class RecyclerViewBounceTest extends BaseRecyclerViewInstrumentationTest {
+
+    private RecyclerView mRecyclerView;
+
+    @Before
+    public void setUp() throws Throwable {
+        mRecyclerView = new RecyclerView(getActivity());
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+        mRecyclerView.setAdapter(new TestAdapter(100));
+        setRecyclerView(mRecyclerView);
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Test
+    public void flingConsumedByNestedParentReleasesOverScroll() throws Throwable {
+        final int[] preFlings = new int[1];
+        final int[] flings = new int[1];
+        getActivity().getContainer().setNestedScrollingDelegate(
+                new UltraRecyclerViewTest.AcceptingNestedScroller() {
+                    @Override
+                    public boolean onNestedPreFling(@NonNull View target, float velocityX,
+                            float velocityY) {
+                        preFlings[0]++;
+                        return true;
+                    }
+
+                    @Override
+                    public boolean onNestedFling(@NonNull View target, float velocityX,
+                            float velocityY, boolean consumed) {
+                        flings[0]++;
+                        return false;
+                    }
+                });
+        overScrollTop();
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                // a touch scroll is in progress when the fling is released
+                mRecyclerView.startNestedScroll(ViewCompat.SCROLL_AXIS_VERTICAL,
+                        ViewCompat.TYPE_TOUCH);
+            }
+        });
+        assertThat(fling(mRecyclerView.getMinFlingVelocity() * 2), is(true));
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.stopNestedScroll(ViewCompat.TYPE_TOUCH);
+            }
+        });
+        waitForIdleScroll(mRecyclerView);
+        assertThat(preFlings[0], is(0));
+        assertThat(flings[0], is(0));
+        assertThat(mRecyclerView.getScrollY(), is(0));
+    }
+
+    @Test
+    public void flingConsumedByOnFlingListenerReleasesOverScroll() throws Throwable {
+        final int[] flings = new int[1];
+        mRecyclerView.setOnFlingListener(new RecyclerView.OnFlingListener() {
+            @Override
+            public boolean onFling(int velocityX, int velocityY) {
+                flings[0]++;
+                return true;
+            }
+        });
+        overScrollTop();
+        assertThat(fling(mRecyclerView.getMinFlingVelocity() * 2), is(true));
+        waitForIdleScroll(mRecyclerView);
+        assertThat(flings[0], is(0));
+        assertThat(mRecyclerView.getScrollY(), is(0));
+    }
+
+    @Test
+    public void smoothScrollPastEdgeSpringsBack() throws Throwable {
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.smoothScrollBy(0, -mRecyclerView.getHeight());
+            }
+        });
+        waitForIdleScroll(mRecyclerView);
+        checkForMainThreadException();
+        assertThat(mRecyclerView.getScrollY(), is(0));
+        assertThat(mRecyclerView.computeVerticalScrollOffset(), is(0));
+    }
+
+    /**
+     * Drags the content down past its top edge, the way a touch scroll would.
+     */
+    private void overScrollTop() throws Throwable {
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final long now = SystemClock.uptimeMillis();
+                final MotionEvent move = MotionEvent.obtain(now, now, MotionEvent.ACTION_MOVE,
+                        0, 0, 0);
+                mRecyclerView.scrollByInternal(0, -100, move);
+                move.recycle();
+            }
+        });
+        checkForMainThreadException();
+        assertThat(mRecyclerView.getScrollY() < 0, is(true));
+    }
+
+    private boolean fling(final int velocityY) throws Throwable {
+        final boolean[] result = new boolean[1];
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = mRecyclerView.fling(0, velocityY);
+            }
+        });
+        return result[0];
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.widget;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.os.Build;
+import android.support.test.filters.MediumTest;
+import android.support.test.filters.SdkSuppress;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Executor;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class RecyclerViewMetricsTest extends BaseRecyclerViewInstrumentationTest {
+
+    private RecyclerView mRecyclerView;
+
+    private final RecordingMetricsListener mListener = new RecordingMetricsListener();
+
+    @Before
+    public void setUp() throws Throwable {
+        mRecyclerView = new RecyclerView(getActivity());
+        mRecyclerView.setMetricsListener(mListener);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+        mRecyclerView.setAdapter(new TestAdapter(100));
+        setRecyclerView(mRecyclerView, false);
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Test
+    public void firstLayoutCreatesAndBinds() throws Throwable {
+        final int childCount = mRecyclerView.getChildCount();
+        assertThat(childCount > 0, is(true));
+        assertThat(mListener.mCreated >= childCount, is(true));
+        assertThat(mListener.mBound, is(mListener.mCreated));
+        assertThat(mListener.mRetrieved[RecyclerView.MetricsListener.SOURCE_CREATED],
+                is(mListener.mCreated));
+        assertThat(mListener.mCreateNs > 0, is(true));
+        assertThat(mListener.mBindNs > 0, is(true));
+        assertLayoutStepsCompleted();
+    }
+
+    @Test
+    public void relayoutUsesScrap() throws Throwable {
+        final int childCount = mRecyclerView.getChildCount();
+        mListener.reset();
+        requestLayoutOnUIThread(mRecyclerView);
+        getInstrumentation().waitForIdleSync();
+        assertThat(mListener.mCreated, is(0));
+        assertThat(mListener.mBound, is(0));
+        assertThat(mListener.mRetrieved[RecyclerView.MetricsListener.SOURCE_SCRAP],
+                is(childCount));
+        assertLayoutStepsCompleted();
+    }
+
+    @Test
+    public void scrollReusesViewHolders() throws Throwable {
+        mListener.reset();
+        for (int i = 0; i < 4; i++) {
+            scrollBy(mRecyclerView.getHeight());
+            getInstrumentation().waitForIdleSync();
+        }
+        checkForMainThreadException();
+        final int[] retrieved = mListener.mRetrieved;
+        assertThat(retrieved[RecyclerView.MetricsListener.SOURCE_POOL] > 0, is(true));
+        assertThat(mListener.mCreated, is(retrieved[RecyclerView.MetricsListener.SOURCE_CREATED]));
+        assertThat(mListener.mBound >= retrieved[RecyclerView.MetricsListener.SOURCE_POOL]
+                + retrieved[RecyclerView.MetricsListener.SOURCE_CREATED], is(true));
+    }
+
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.LOLLIPOP)
+    @Test
+    public void prefetchedItemIsReportedWhenLaidOut() throws Throwable {
+        mListener.reset();
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.mPrefetchRegistry.setPrefetchVector(0, 1);
+                mRecyclerView.mGapWorker.prefetch(RecyclerView.FOREVER_NS);
+            }
+        });
+        assertThat(mListener.mPrefetched > 0, is(true));
+        assertThat(mListener.mPrefetchedLaidOut, is(0));
+
+        // scroll the prefetched item into view
+        scrollBy(mRecyclerView.getChildAt(0).getHeight());
+        getInstrumentation().waitForIdleSync();
+        checkForMainThreadException();
+        assertThat(mListener.mPrefetchedLaidOut > 0, is(true));
+    }
+
+    @Test
+    public void precreatedViewHoldersAreReported() throws Throwable {
+        mListener.reset();
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.precreateViewHolders(0, 2, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        command.run();
+                    }
+                });
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+        assertThat(mListener.mCreated, is(2));
+        assertThat(mListener.mCreateNs > 0, is(true));
+        assertThat(mListener.mRetrieved[RecyclerView.MetricsListener.SOURCE_CREATED], is(0));
+    }
+
+    @Test
+    public void clearedListenerIsNotCalled() throws Throwable {
+        mRecyclerView.setMetricsListener(null);
+        mListener.reset();
+        requestLayoutOnUIThread(mRecyclerView);
+        scrollBy(mRecyclerView.getHeight());
+        getInstrumentation().waitForIdleSync();
+        checkForMainThreadException();
+        assertThat(mListener.mCallCount, is(0));
+    }
+
+    private void assertLayoutStepsCompleted() {
+        for (int step = RecyclerView.MetricsListener.LAYOUT_STEP_PRE_LAYOUT;
+                step <= RecyclerView.MetricsListener.LAYOUT_STEP_ANIMATIONS; step++) {
+            assertThat("layout step " + step, mListener.mLayoutSteps[step] > 0, is(true));
+        }
+    }
+
+    private static class RecordingMetricsListener extends RecyclerView.MetricsListener {
+        int mCallCount;
+        int mCreated;
+        long mCreateNs;
+        int mBound;
+        long mBindNs;
+        final int[] mRetrieved = new int[4];
+        final int[] mLayoutSteps = new int[4];
+        int mPrefetched;
+        int mPrefetchedLaidOut;
+
+        void reset() {
+            mCallCount = mCreated = mBound = mPrefetched = mPrefetchedLaidOut = 0;
+            mCreateNs = mBindNs = 0;
+            for (int i = 0; i < 4; i++) {
+                mRetrieved[i] = mLayoutSteps[i] = 0;
+            }
+        }
+
+        @Override
+        public void onViewHolderCreated(RecyclerView recyclerView, int viewType,
+                long durationNs) {
+            mCallCount++;
+            mCreated++;
+            mCreateNs += durationNs;
+        }
+
+        @Override
+        public void onViewHolderBound(RecyclerView recyclerView, int viewType, long durationNs) {
+            mCallCount++;
+            mBound++;
+            mBindNs += durationNs;
+        }
+
+        @Override
+        public void onViewHolderRetrieved(RecyclerView recyclerView, int viewType, int source) {
+            mCallCount++;
+            mRetrieved[source]++;
+        }
+
+        @Override
+        public void onLayoutStepCompleted(RecyclerView recyclerView, int step, long durationNs) {
+            mCallCount++;
+            mLayoutSteps[step]++;
+        }
+
+        @Override
+        public void onItemPrefetched(RecyclerView recyclerView, int viewType) {
+            mCallCount++;
+            mPrefetched++;
+        }
+
+        @Override
+        public void onPrefetchedItemLaidOut(RecyclerView recyclerView, int viewType) {
+            mCallCount++;
+            mPrefetchedLaidOut++;
+        }
+    }
+}
@@ -74,6 +74,38 @@ public class RecyclerViewPrefetchTest extends BaseRecyclerViewInstrumentationTes
         }
     }
 
+    private class IdlePrefetchLayoutManager extends TestLayoutManager {
+        int mStart = 10;
+
+        IdlePrefetchLayoutManager() {
+            setIdleItemPrefetchEnabled(true);
+        }
+
+        @Override
+        public boolean canScrollVertically() {
+            return true;
+        }
+
+        @Override
+        public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+            super.onLayoutChildren(recycler, state);
+            detachAndScrapAttachedViews(recycler);
+            layoutRange(recycler, mStart, mStart + 5);
+        }
+
+        @Override
+        public void onLayoutCompleted(RecyclerView.State state) {
+            super.onLayoutCompleted(state);
+            layoutLatch.countDown();
+        }
+
+        @Override
+        public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state,
+                LayoutPrefetchRegistry layoutPrefetchRegistry) {
+            layoutPrefetchRegistry.addPosition(dy > 0 ? mStart + 5 : mStart - 1, 0);
+        }
+    }
+
     private ArrayList<RecyclerView.ViewHolder> cachedViews() {
         return mRecyclerView.mRecycler.mCachedViews;
     }
@@ -99,4 +131,77 @@ public class RecyclerViewPrefetchTest extends BaseRecyclerViewInstrumentationTes
         assertThat(cachedViews().size(), is(1));
         assertThat(cachedViews().get(0).getAdapterPosition(), is(6));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void idlePrefetchTest() throws Throwable {
+        RecyclerView recyclerView = new RecyclerView(getActivity());
+        recyclerView.setAdapter(new TestAdapter(50));
+        final IdlePrefetchLayoutManager layout = new IdlePrefetchLayoutManager();
+        recyclerView.setLayoutManager(layout);
+
+        {
+            layout.expectLayouts(1);
+            setRecyclerView(recyclerView);
+            layout.waitForLayout(10);
+        }
+
+        assertThat(cachedViews().size(), is(0));
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.mPrefetchRegistry.mIdlePrefetch = true;
+                while (mRecyclerView.mGapWorker.prefetchIdle(System.nanoTime())) {
+                    // prefetch the remaining chunks
+                }
+                assertThat(mRecyclerView.mPrefetchRegistry.mIdlePrefetch, is(false));
+            }
+        });
+
+        // items on both sides are prefetched, nearest first
+        assertThat(cachedViews().size(), is(2));
+        assertThat(GapWorker.isPrefetchPositionCached(mRecyclerView, 9), is(true));
+        assertThat(GapWorker.isPrefetchPositionCached(mRecyclerView, 15), is(true));
+        assertThat(mRecyclerView.getPrefetchedItemCount(), is(2));
+        assertThat(mRecyclerView.getPrefetchHitCount(), is(0));
+        assertThat(mRecyclerView.getPrefetchTimeNs() > 0, is(true));
+
+        // laying out a prefetched item counts as a hit
+        layout.mStart = 11;
+        layout.expectLayouts(1);
+        requestLayoutOnUIThread(mRecyclerView);
+        layout.waitForLayout(2);
+        assertThat(mRecyclerView.getPrefetchHitCount(), is(1));
+        assertThat(mRecyclerView.getPrefetchedItemCount(), is(2));
+    }
+
+    @Test
+    public void idlePrefetchPostedWhenScrollStops() throws Throwable {
+        RecyclerView recyclerView = new RecyclerView(getActivity());
+        recyclerView.setAdapter(new TestAdapter(50));
+        IdlePrefetchLayoutManager layout = new IdlePrefetchLayoutManager();
+        recyclerView.setLayoutManager(layout);
+
+        {
+            layout.expectLayouts(1);
+            setRecyclerView(recyclerView);
+            layout.waitForLayout(10);
+        }
+
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.setScrollState(RecyclerView.SCROLL_STATE_DRAGGING);
+                assertThat(mRecyclerView.mPrefetchRegistry.mIdlePrefetch, is(false));
+                mRecyclerView.setScrollState(RecyclerView.SCROLL_STATE_IDLE);
+                assertThat(mRecyclerView.mPrefetchRegistry.mIdlePrefetch, is(true));
+            }
+        });
+
+        // the idle handler prefetches once the main thread has no other work
+        for (int i = 0; i < 10 && cachedViews().size() < 2; i++) {
+            getInstrumentation().waitForIdleSync();
+        }
+        assertThat(cachedViews().size(), is(2));
+        assertThat(mRecyclerView.getPrefetchedItemCount(), is(2));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.widget;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import android.support.annotation.NonNull;
+import android.support.test.filters.MediumTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.view.NestedScrollingParent2;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.test.NestedScrollingParent2Adapter;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class UltraRecyclerViewTest extends BaseRecyclerViewInstrumentationTest {
+
+    private UltraRecyclerView mUltraRecyclerView;
+
+    private NestedScrollingParent2 mParent;
+
+    private final int[] mScrolled = new int[2];
+
+    @Before
+    public void setUp() throws Throwable {
+        mParent = spy(new AcceptingNestedScroller());
+        getActivity().getContainer().setNestedScrollingDelegate(mParent);
+        mUltraRecyclerView = new UltraRecyclerView(getActivity());
+        mUltraRecyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+        mUltraRecyclerView.setAdapter(new TestAdapter(100));
+        mUltraRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                mScrolled[0] += dx;
+                mScrolled[1] += dy;
+            }
+        });
+        setRecyclerView(mUltraRecyclerView);
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @SuppressWarnings("WrongConstant")
+    @Test
+    public void nestedScrollConsumesUnconsumedDistance() throws Throwable {
+        nestedScroll(0, 30, ViewCompat.TYPE_TOUCH);
+        assertThat(mScrolled[1], is(30));
+        verify(mParent).onNestedScroll(mUltraRecyclerView, 0, 30, 0, 0, ViewCompat.TYPE_TOUCH);
+    }
+
+    @SuppressWarnings("WrongConstant")
+    @Test
+    public void nestedScrollAtEdgeGoesToParent() throws Throwable {
+        nestedScroll(0, -40, ViewCompat.TYPE_TOUCH);
+        assertThat(mScrolled[1], is(0));
+        verify(mParent).onNestedScroll(mUltraRecyclerView, 0, 0, 0, -40, ViewCompat.TYPE_TOUCH);
+    }
+
+    @SuppressWarnings("WrongConstant")
+    @Test
+    public void nestedScrollIgnoresOtherAxis() throws Throwable {
+        nestedScroll(25, 0, ViewCompat.TYPE_TOUCH);
+        assertThat(mScrolled[0], is(0));
+        verify(mParent).onNestedScroll(mUltraRecyclerView, 0, 0, 25, 0, ViewCompat.TYPE_TOUCH);
+    }
+
+    @SuppressWarnings("WrongConstant")
+    @Test
+    public void nestedFlingHandOffThroughNonTouchScroll() throws Throwable {
+        // a child that flings to its edge hands the remaining distance over as non touch scrolls
+        nestedScroll(0, 20, ViewCompat.TYPE_NON_TOUCH);
+        nestedScroll(0, 20, ViewCompat.TYPE_NON_TOUCH);
+        assertThat(mScrolled[1], is(40));
+        verify(mParent, atLeastOnce()).onNestedScrollAccepted(eq(mUltraRecyclerView),
+                eq(mUltraRecyclerView), anyInt(), eq(ViewCompat.TYPE_NON_TOUCH));
+        verify(mParent, never()).onNestedScrollAccepted(eq(mUltraRecyclerView),
+                eq(mUltraRecyclerView), anyInt(), eq(ViewCompat.TYPE_TOUCH));
+    }
+
+    @Test
+    public void nestedFlingNotConsumedByChild() throws Throwable {
+        final boolean[] consumed = new boolean[1];
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mUltraRecyclerView.getChildAt(0);
+                consumed[0] = mUltraRecyclerView.onNestedFling(child, 0,
+                        mUltraRecyclerView.getMaxFlingVelocity(), false);
+            }
+        });
+        assertThat(consumed[0], is(true));
+        waitForIdleScroll(mUltraRecyclerView);
+        assertThat(mScrolled[1] > 0, is(true));
+    }
+
+    @Test
+    public void nestedFlingConsumedByChild() throws Throwable {
+        final boolean[] consumed = new boolean[1];
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mUltraRecyclerView.getChildAt(0);
+                consumed[0] = mUltraRecyclerView.onNestedFling(child, 0,
+                        mUltraRecyclerView.getMaxFlingVelocity(), true);
+            }
+        });
+        assertThat(consumed[0], is(false));
+        waitForIdleScroll(mUltraRecyclerView);
+        assertThat(mScrolled[1], is(0));
+    }
+
+    @Test
+    public void nestedFlingBelowMinimumVelocity() throws Throwable {
+        final boolean[] consumed = new boolean[1];
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mUltraRecyclerView.getChildAt(0);
+                consumed[0] = mUltraRecyclerView.onNestedFling(child, 0,
+                        mUltraRecyclerView.getMinFlingVelocity() - 1, false);
+            }
+        });
+        assertThat(consumed[0], is(false));
+        waitForIdleScroll(mUltraRecyclerView);
+        assertThat(mScrolled[1], is(0));
+    }
+
+    private void nestedScroll(final int dxUnconsumed, final int dyUnconsumed, final int type)
+            throws Throwable {
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mUltraRecyclerView.getChildAt(0);
+                final int axes = ViewCompat.SCROLL_AXIS_HORIZONTAL
+                        | ViewCompat.SCROLL_AXIS_VERTICAL;
+                if (mUltraRecyclerView.onStartNestedScroll(child, child, axes, type)) {
+                    mUltraRecyclerView.onNestedScrollAccepted(child, child, axes, type);
+                }
+                mUltraRecyclerView.onNestedScroll(child, 0, 0, dxUnconsumed, dyUnconsumed,
+                        type);
+                mUltraRecyclerView.onStopNestedScroll(child, type);
+            }
+        });
+        checkForMainThreadException();
+    }
+
+    public static class AcceptingNestedScroller extends NestedScrollingParent2Adapter {
+        @Override
+        public boolean onStartNestedScroll(@NonNull View child, @NonNull View target,
+                @ViewCompat.ScrollAxis int axes, @ViewCompat.NestedScrollType int type) {
+            return true;
+        }
+
+        @Override
+        public int getNestedScrollAxes() {
+            return ViewCompat.SCROLL_AXIS_VERTICAL | ViewCompat.SCROLL_AXIS_HORIZONTAL;
+        }
+    }
+}
@@ -16,10 +16,12 @@
 
 package android.support.v7.widget.helper;
 
+import static android.support.v7.widget.helper.ItemTouchHelper.DOWN;
 import static android.support.v7.widget.helper.ItemTouchHelper.END;
 import static android.support.v7.widget.helper.ItemTouchHelper.LEFT;
 import static android.support.v7.widget.helper.ItemTouchHelper.RIGHT;
 import static android.support.v7.widget.helper.ItemTouchHelper.START;
+import static android.support.v7.widget.helper.ItemTouchHelper.UP;
 import static android.support.v7.widget.helper.ItemTouchHelper.SimpleCallback;
 
 import static org.junit.Assert.assertEquals;
@@ -27,6 +29,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import android.os.Build;
+import android.os.Debug;
 import android.support.test.filters.LargeTest;
 import android.support.test.filters.SdkSuppress;
 import android.support.test.filters.Suppress;
@@ -193,6 +196,54 @@ public class ItemTouchHelperTest extends BaseRecyclerViewInstrumentationTest {
         assertEquals(0, mCalback.mHasDragFlag.size());
     }
 
+    @SuppressWarnings("deprecation")
+    @Test
+    public void dragMovesDoNotAllocate() throws Throwable {
+        final RecyclerViewState rvs = setupRecyclerView();
+        mItemTouchHelper = new LoggingItemTouchHelper(new SimpleCallback(UP | DOWN, 0) {
+            @Override
+            public boolean onMove(RecyclerView recyclerView, RecyclerView.ViewHolder viewHolder,
+                    RecyclerView.ViewHolder target) {
+                return false;
+            }
+
+            @Override
+            public void onSwiped(RecyclerView.ViewHolder viewHolder, int direction) {
+            }
+        });
+        rvs.mLayoutManager.expectLayouts(1);
+        setRecyclerView(rvs.mWrappedRecyclerView);
+        rvs.mLayoutManager.waitForLayout(1);
+
+        final int[] allocations = new int[1];
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mItemTouchHelper.attachToRecyclerView(mRecyclerView);
+                final RecyclerView.ViewHolder target = mRecyclerView
+                        .findViewHolderForAdapterPosition(1);
+                mItemTouchHelper.startDrag(target);
+                final int height = target.itemView.getHeight();
+                // warm up the re-used swap target buffers
+                drag(target, height, 10);
+                Debug.startAllocCounting();
+                Debug.resetThreadAllocCount();
+                drag(target, height, 100);
+                allocations[0] = Debug.getThreadAllocCount();
+                Debug.stopAllocCounting();
+            }
+        });
+        assertEquals(0, allocations[0]);
+    }
+
+    private void drag(RecyclerView.ViewHolder viewHolder, int height, int count) {
+        for (int i = 0; i < count; i++) {
+            mItemTouchHelper.mDx = 0;
+            mItemTouchHelper.mDy = i % 2 == 0 ? height : -height;
+            mItemTouchHelper.moveIfNecessary(viewHolder);
+        }
+    }
+
     public void basicSwipeTest(int dir, int swipeDirs, int targetX) throws Throwable {
         final RecyclerViewState rvs = setupItemTouchHelper(setupRecyclerView(), 0, swipeDirs);
         rvs.mLayoutManager.expectLayouts(1);
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2017 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.support.v7.widget.scroll;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.filters.SmallTest;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class OverScrollerTest {
+    private static final long[] FRAMES_60 = {16, 17, 17};
+    private static final long[] FRAMES_90 = {11, 11, 12};
+    private static final long[] FRAMES_120 = {8, 8, 9};
+    private static final long[] FRAMES_JITTER = new long[97];
+
+    static {
+        final Random random = new Random(1);
+        for (int i = 0; i < FRAMES_JITTER.length; i++) {
+            FRAMES_JITTER[i] = 8 + random.nextInt(30);
+        }
+    }
+
+    private static final long[][] SCHEDULES = {FRAMES_90, FRAMES_120, FRAMES_JITTER};
+
+    // size of the scrollable range of the simulated content
+    private static final int RANGE = 3000;
+
+    @Test
+    public void flingIsIndependentOfFrameRate() {
+        final Result expected = fling(FRAMES_60, 3000);
+        assertEquals(0, expected.maxOverScroll);
+        for (long[] frames : SCHEDULES) {
+            final Result result = fling(frames, 3000);
+            assertEquals(expected.offset, result.offset);
+            assertEquals(0, result.maxOverScroll);
+        }
+    }
+
+    @Test
+    public void edgeSpringIsIndependentOfFrameRate() {
+        for (int velocity : new int[]{8000, -8000, 20000}) {
+            final Result expected = fling(FRAMES_60, velocity);
+            assertTrue(expected.maxOverScroll > 0);
+            for (long[] frames : SCHEDULES) {
+                final Result result = fling(frames, velocity);
+                assertEquals(expected.offset, result.offset);
+                assertEquals(0, result.overScroll);
+                assertEquals(expected.maxOverScroll, result.maxOverScroll,
+                        expected.maxOverScroll * 0.1f);
+            }
+        }
+    }
+
+    @Test
+    public void edgeSpringKeepsFlingVelocity() {
+        final TestOverScroller scroller = new TestOverScroller();
+        scroller.fling(0, 0, 0, 8000, 0, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        int last = 0;
+        while (scroller.computeScrollOffset() && scroller.getCurrY() < 500) {
+            last = scroller.getCurrY();
+            scroller.mTime += 16;
+        }
+        final float velocity = scroller.getCurrVelocity();
+        final int y = scroller.getCurrY();
+        // the edge was at 500, the spring continues from where the fling was
+        scroller.notifyVerticalEdgeReached(y, 500, 0);
+        assertTrue(scroller.getCurrVelocity() > 0);
+        assertTrue(scroller.getCurrVelocity() <= velocity);
+        assertTrue(Math.abs(scroller.getCurrY() - y) <= y - last);
+        scroller.mTime += 16;
+        assertTrue(scroller.computeScrollOffset());
+        assertTrue(scroller.getCurrY() > y);
+        while (scroller.computeScrollOffset()) {
+            scroller.mTime += 16;
+        }
+        assertEquals(500, scroller.getCurrY());
+    }
+
+    @Test
+    public void springThrownIntoContentContinuesAsFling() {
+        final int expected = spring(FRAMES_60, -8000);
+        assertTrue(expected < -500);
+        for (long[] frames : SCHEDULES) {
+            assertEquals(expected, spring(frames, -8000), Math.abs(expected) * 0.05f);
+        }
+    }
+
+    @Test
+    public void springSettlesAtEdge() {
+        for (long[] frames : SCHEDULES) {
+            assertEquals(0, spring(frames, 0));
+            assertEquals(0, spring(frames, -2000));
+        }
+    }
+
+    @Test
+    public void framesDoNotAllocate() {
+        final TestOverScroller scroller = new TestOverScroller();
+        // the first spring creates the spring animation
+        fling(scroller, new Result(), FRAMES_60, 8000);
+        final Result result = new Result();
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        fling(scroller, result, FRAMES_JITTER, -8000);
+        final int allocations = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+        assertEquals(0, allocations);
+    }
+
+    /**
+     * Flings content that is at the middle of its range the way RecyclerView's ViewFlinger
+     * does, overscrolling and notifying the scroller when an edge is reached.
+     */
+    private Result fling(long[] frames, int velocity) {
+        return fling(new TestOverScroller(), new Result(), frames, velocity);
+    }
+
+    private Result fling(TestOverScroller scroller, Result result, long[] frames, int velocity) {
+        result.offset = RANGE / 2;
+        int last = 0;
+        int frame = 0;
+        scroller.fling(0, 0, 0, velocity, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Integer.MIN_VALUE, Integer.MAX_VALUE);
+        while (scroller.computeScrollOffset()) {
+            final int y = scroller.getCurrY();
+            int dy = y - last;
+            last = y;
+            if (result.overScroll * dy < 0) {
+                if (Math.abs(dy) > Math.abs(result.overScroll)) {
+                    dy += result.overScroll;
+                    result.overScroll = 0;
+                } else {
+                    result.overScroll += dy;
+                    dy = 0;
+                }
+            }
+            final int offset = Math.max(0, Math.min(RANGE, result.offset + dy));
+            final int overScroll = dy - (offset - result.offset);
+            result.offset = offset;
+            if (overScroll != 0) {
+                result.overScroll += overScroll;
+                scroller.notifyVerticalEdgeReached(y, y - result.overScroll, 0);
+            }
+            result.maxOverScroll = Math.max(result.maxOverScroll, Math.abs(result.overScroll));
+            if (scroller.isFinished()) {
+                break;
+            }
+            scroller.mTime += frames[frame++ % frames.length];
+        }
+        return result;
+    }
+
+    /**
+     * Releases content that is overscrolled by 200 past its end, the way
+     * RecyclerView#fling does when it is overscrolled.
+     */
+    private int spring(long[] frames, int velocity) {
+        final TestOverScroller scroller = new TestOverScroller();
+        int frame = 0;
+        scroller.fling(0, 200, 0, velocity, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Integer.MIN_VALUE, 0);
+        while (scroller.computeScrollOffset() && !scroller.isFinished()) {
+            scroller.mTime += frames[frame++ % frames.length];
+        }
+        assertFalse(scroller.isOverScrolled());
+        return scroller.getCurrY();
+    }
+
+    private static class Result {
+        int offset;
+        int overScroll;
+        int maxOverScroll;
+    }
+
+    private static class TestOverScroller extends OverScroller {
+        long mTime = 1000;
+
+        TestOverScroller() {
+            super(InstrumentationRegistry.getContext());
+        }
+
+        @Override
+        protected long currentAnimationTimeMillis() {
+            return mTime;
+        }
+    }
+}